@@ -40,6 +40,7 @@ package com.rvantwisk.cnctools;
 
 import com.rvantwisk.cnctools.data.AbstractTask;
 import com.rvantwisk.cnctools.data.interfaces.Task;
+import com.rvantwisk.cnctools.misc.GCodeCache;
 import com.rvantwisk.cnctools.misc.ProjectModel;
 import com.rvantwisk.cnctools.misc.ToolDBManager;
 import org.springframework.beans.BeansException;
@@ -48,6 +49,7 @@ import org.springframework.beans.factory.support.BeanDefinitionRegistry;
 import org.springframework.beans.factory.support.BeanDefinitionRegistryPostProcessor;
 import org.springframework.context.annotation.*;
 
+import java.io.File;
 import java.util.ArrayList;
 import java.util.Collection;
 import java.util.List;
@@ -73,6 +75,12 @@ public class IndexerAppConfiguration implements BeanDefinitionRegistryPostProces
         return projectModel().getToolDBManager();
     }
 
+    @Bean
+    public GCodeCache gCodeCache() {
+        // Keep the cache next to the projects it was generated from
+        return new GCodeCache(new File(projectModel().getProjectsFile().getParentFile(), GCodeCache.DIRECTORY_NAME));
+    }
+
     @Bean(name="applicapableMillTasks")
     public List<AbstractTask> applicapableMillTasks() {
         return allOperations;
@@ -47,9 +47,12 @@ import com.rvantwisk.cnctools.operations.createRoundStock.RoundStockModel;
 import com.rvantwisk.cnctools.operations.customgcode.CustomGCodeController;
 import com.rvantwisk.cnctools.operations.customgcode.GCodeTaskModel;
 import com.rvantwisk.gcodegenerator.GCodeCollection;
+import com.rvantwisk.gcodegenerator.GCodeSplitWriter;
 import javafx.beans.property.SimpleStringProperty;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
 import javafx.event.ActionEvent;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
@@ -66,15 +69,18 @@ import org.slf4j.Logger;
 import org.slf4j.LoggerFactory;
 import org.springframework.beans.factory.annotation.Autowired;
 
-import java.io.BufferedWriter;
 import java.io.File;
 import java.io.IOException;
 import java.net.URL;
+import java.nio.channels.FileChannel;
 import java.nio.charset.Charset;
-import java.nio.file.Files;
-import java.nio.file.OpenOption;
+import java.nio.file.Path;
 import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.List;
 import java.util.ResourceBundle;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
 
 
 /**
@@ -86,7 +92,7 @@ import java.util.ResourceBundle;
  */
 @SuppressWarnings("SpringJavaAutowiringInspection")
 public class CNCToolsController extends AbstractController {
-    private static final String SEPERATOR = System.getProperty("line.separator");
+    private static final Charset CHARSET = Charset.forName("UTF-8");
     private final Logger logger = LoggerFactory.getLogger(this.getClass());
     @FXML
     TextArea descriptionValue;
@@ -110,10 +116,14 @@ public class CNCToolsController extends AbstractController {
     Button btnView;
     @FXML
     Button btnPostProcessor;
+    @FXML
+    ProgressBar saveProgress;
     @Autowired
     private ProjectModel projectModel;
     @Autowired
     private ToolDBManager toolDBManager;
+    @Autowired
+    private GCodeCache gCodeCache;
     @FXML
     private ResourceBundle resources;
     @FXML
@@ -194,7 +204,7 @@ public class CNCToolsController extends AbstractController {
                 dialog.show();
             } else {
 
-                final GCodeCollection gCode = p.getGCode(toolDBManager);
+                final GCodeCollection gCode = p.getGCode(toolDBManager, gCodeCache);
                 gCode.merge();
 
                 FileChooser fileChooser = new FileChooser();
@@ -204,27 +214,7 @@ public class CNCToolsController extends AbstractController {
                 File choosenName = fileChooser.showSaveDialog(null);
                 if (choosenName != null) {
                     choosenName.delete();
-
-                    if (!p.getPostProcessor().isHasToolChanger()) {
-                        final GCodeCollection.GeneratedGCode preAmble = gCode.get(0);
-                        final GCodeCollection.GeneratedGCode postAmble = gCode.get(gCode.size() - 1);
-                        for (int i = 1; i <= (gCode.size() - 2); i++) {
-                            final String[] path = choosenName.getPath().split("\\.(?=[^\\.]+$)");
-                            File thisSet = new File(path[0] + "-" + i + "." + path[1]);
-                            thisSet.delete();
-                            // Concate all g-code
-                            String file =
-                                    preAmble.getGCode().toString() +
-                                            SEPERATOR +
-                                            gCode.get(i).getGCode().toString() +
-                                            SEPERATOR +
-                                            postAmble.getGCode().toString() +
-                                            SEPERATOR;
-                            saveGCode(file, thisSet);
-                        }
-                    } else {
-                        saveGCode(gCode.concate().toString(), choosenName);
-                    }
+                    saveGCode(gCode, choosenName, p.getPostProcessor().isHasToolChanger());
                 }
 
             }
@@ -232,29 +222,68 @@ public class CNCToolsController extends AbstractController {
         }
     }
 
-    private void saveGCode(String gCode, final File filename) {
+    /**
+     * Save the G-Code in the background, when the machine has no tool changer each tool set is written to it's own file
+     *
+     * @param gCode
+     * @param choosenName
+     * @param hasToolChanger
+     */
+    private void saveGCode(final GCodeCollection gCode, final File choosenName, final boolean hasToolChanger) {
         if (gCode==null) {
             throw new IllegalArgumentException("gCode most not be null");
         }
-        if (filename==null) {
+        if (choosenName==null) {
             throw new IllegalArgumentException("filename most not be null");
         }
-        try (BufferedWriter br = Files.newBufferedWriter(filename.toPath(),
-                Charset.forName("UTF-8"),
-                new OpenOption[]{StandardOpenOption.CREATE_NEW})) {
-
-            // Cleanup empty lines
-            // We do this currently in memory because we don't expect large files anyways
-            while (gCode.lastIndexOf(SEPERATOR + SEPERATOR) != -1) {
-                gCode = gCode.replaceAll(SEPERATOR + SEPERATOR, SEPERATOR);
+
+        final Task<Void> task = new Task<Void>() {
+            @Override
+            protected Void call() throws Exception {
+                if (!hasToolChanger) {
+                    final GCodeSplitWriter writer = new GCodeSplitWriter(gCode, CHARSET);
+                    final String[] path = choosenName.getPath().split("\\.(?=[^\\.]+$)");
+                    final List<Path> files = new ArrayList<>();
+                    for (int i = 1; i <= writer.getNumberOfFiles(); i++) {
+                        File thisSet = new File(path[0] + "-" + i + "." + path[1]);
+                        thisSet.delete();
+                        files.add(thisSet.toPath());
+                    }
+
+                    final ExecutorService executor = Executors.newFixedThreadPool(Runtime.getRuntime().availableProcessors());
+                    try {
+                        writer.write(files, executor, new GCodeSplitWriter.ProgressListener() {
+                            @Override
+                            public void progress(int filesDone, int filesTotal) {
+                                updateProgress(filesDone, filesTotal);
+                            }
+                        });
+                    } finally {
+                        executor.shutdown();
+                    }
+                } else {
+                    try (FileChannel channel = FileChannel.open(choosenName.toPath(), StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                        gCode.writeTo(channel, CHARSET);
+                    }
+                    updateProgress(1, 1);
+                }
+                return null;
             }
+        };
 
-            br.write(gCode.trim());
-            br.flush();
-            br.close();
-        } catch (IOException ex) {
-            System.out.println(ex.getMessage());
-        }
+        saveProgress.progressProperty().bind(task.progressProperty());
+        saveProgress.visibleProperty().bind(task.runningProperty());
+        task.setOnFailed(new EventHandler<WorkerStateEvent>() {
+            @Override
+            public void handle(WorkerStateEvent event) {
+                final Throwable t = task.getException();
+                handleException(t instanceof Exception ? (Exception) t : new RuntimeException(t));
+            }
+        });
+
+        final Thread thread = new Thread(task, "Save G-Code");
+        thread.setDaemon(true);
+        thread.start();
     }
 
     @FXML
@@ -464,6 +493,7 @@ public class CNCToolsController extends AbstractController {
         //assert millTaskName != null : "fx:id=\"millTaskName\" was not injected: check your FXML file 'CNCTools.fxml'.";
         //assert millTaskOperation != null : "fx:id=\"millTaskOperation\" was not injected: check your FXML file 'CNCTools.fxml'.";
         assert milltaskEnabled != null : "fx:id=\"milltaskEnabled\" was not injected: check your FXML file 'CNCTools.fxml'.";
+        assert saveProgress != null : "fx:id=\"saveProgress\" was not injected: check your FXML file 'CNCTools.fxml'.";
         assert removeMilltask != null : "fx:id=\"removeMilltask\" was not injected: check your FXML file 'CNCTools.fxml'.";
         assert tbl_millTasks != null : "fx:id=\"tbl_millTasks\" was not injected: check your FXML file 'CNCTools.fxml'.";
         assert v_projectList != null : "fx:id=\"v_projectList\" was not injected: check your FXML file 'CNCTools.fxml'.";
@@ -633,18 +663,12 @@ public class CNCToolsController extends AbstractController {
                 } else {
 
                     File file = File.createTempFile("cnctools", "gcode");
-                    final GCodeCollection gCode = p.getGCode(toolDBManager);
+                    final GCodeCollection gCode = p.getGCode(toolDBManager, gCodeCache);
                     file.createNewFile();
                     file.deleteOnExit();
                     if (file != null) {
-                        try (BufferedWriter br = Files.newBufferedWriter(file.toPath(),
-                                Charset.forName("UTF-8"),
-                                new OpenOption[]{StandardOpenOption.WRITE})) {
-                            br.write(gCode.concate().toString());
-                            br.write("\n");
-                            br.flush();
-                            br.close();
-
+                        try (FileChannel channel = FileChannel.open(file.toPath(), StandardOpenOption.WRITE)) {
+                            gCode.writeTo(channel, CHARSET);
 
                             Project project = projectModel.projectsProperty().get(v_projectList.getSelectionModel().getSelectedIndex());
                             showGCodeFromFile(project, file.getAbsolutePath());
@@ -39,18 +39,28 @@
 package com.rvantwisk.cnctools.controls;
 
 import com.rvantwisk.cnctools.controls.opengl.BeadActor;
+import com.rvantwisk.cnctools.controls.opengl.GCodeActor;
 import com.rvantwisk.cnctools.controls.opengl.OpenGLRenderer;
 import com.rvantwisk.cnctools.opengl.AbstractActor;
 import com.rvantwisk.cnctools.opengl.Camera;
 import com.rvantwisk.cnctools.opengl.OpenGLImage;
+import com.rvantwisk.cnctools.opengl.PathTimeline;
 import com.rvantwisk.gcodeparser.exceptions.SimException;
+import javafx.animation.AnimationTimer;
 import javafx.application.Platform;
+import javafx.beans.value.ChangeListener;
+import javafx.beans.value.ObservableValue;
+import javafx.event.ActionEvent;
+import javafx.event.Event;
 import javafx.event.EventHandler;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
+import javafx.scene.control.Slider;
+import javafx.scene.control.ToggleButton;
 import javafx.scene.input.MouseEvent;
 import javafx.scene.input.ScrollEvent;
 import javafx.scene.layout.AnchorPane;
+import javafx.scene.layout.HBox;
 
 import java.io.IOException;
 
@@ -64,7 +74,40 @@ public class GCodeViewerControl extends AnchorPane {
     float lastMouseY = 0.0f;
     @FXML
     private OpenGLImage openGLImage;
+    @FXML
+    private HBox scrubBar;
+    @FXML
+    private ToggleButton play;
+    @FXML
+    private Slider scrub;
     private OpenGLRenderer gCodeRender;
+    private final BeadActor bead = new BeadActor();
+    private GCodeActor path = null; // Tool path that is scrubbed
+    private final float[] toolPosition = new float[3];
+
+    // Plays the tool path at machine speed by moving the scrub slider
+    private final AnimationTimer player = new AnimationTimer() {
+        private long last = 0;
+
+        @Override
+        public void start() {
+            last = 0;
+            super.start();
+        }
+
+        @Override
+        public void handle(long now) {
+            final double total = path.getTimeline().getTotalTime();
+            if (last != 0 && total > 0.0) {
+                scrub.setValue(Math.min(1.0, scrub.getValue() + (now - last) / 1E9 / total));
+            }
+            last = now;
+            if (scrub.getValue() >= 1.0) {
+                play.setSelected(false);
+                stop();
+            }
+        }
+    };
 
     public GCodeViewerControl() {
         FXMLLoader fxmlLoader = new FXMLLoader(getClass().getResource("GCodeViewer.fxml"));
@@ -85,7 +128,7 @@ public class GCodeViewerControl extends AnchorPane {
         new Thread("GCode Render") {
             public void run() {
                 gCodeRender = new OpenGLRenderer(openGLImage.getReadHandler());
-                gCodeRender.addActor(new BeadActor());
+                gCodeRender.addActor(bead);
                 gCodeRender.setSamples(4);
                 gCodeRender.setvSyncFPS(15);
                 gCodeRender.run();
@@ -106,6 +149,35 @@ public class GCodeViewerControl extends AnchorPane {
         openGLImage.fitWidthProperty().bind(this.widthProperty());
         openGLImage.fitHeightProperty().bind(this.heightProperty());
 
+        // The renderer only draws on request, a new size needs a new frame
+        final ChangeListener<Number> resized = new ChangeListener<Number>() {
+            @Override
+            public void changed(ObservableValue<? extends Number> observableValue, Number oldSize, Number newSize) {
+                if (gCodeRender != null) {
+                    gCodeRender.requestRender();
+                }
+            }
+        };
+        this.widthProperty().addListener(resized);
+        this.heightProperty().addListener(resized);
+
+
+        // Show the tool path up to the time of the slider with the bead at the tool
+        scrub.valueProperty().addListener(new ChangeListener<Number>() {
+            @Override
+            public void changed(ObservableValue<? extends Number> observableValue, Number oldValue, Number newValue) {
+                showTime(newValue.doubleValue());
+            }
+        });
+        // The slider should not move the camera
+        final EventHandler<Event> consume = new EventHandler<Event>() {
+            @Override
+            public void handle(Event event) {
+                event.consume();
+            }
+        };
+        scrubBar.setOnMouseDragged(consume);
+        scrubBar.setOnScroll(consume);
 
         this.setOnMouseMoved(new EventHandler<MouseEvent>() {
             @Override
@@ -165,15 +237,49 @@ public class GCodeViewerControl extends AnchorPane {
     }
 
     public void addActor(final AbstractActor actor) throws SimException {
+        if (actor instanceof GCodeActor) {
+            player.stop();
+            play.setSelected(false);
+            path = (GCodeActor) actor;
+            scrub.setValue(1.0);
+            scrubBar.setVisible(true);
+        }
         gCodeRender.addActor(actor);
     }
 
+    /**
+     * @param fraction Part of the machine time of the program to show, 1.0 shows all
+     */
+    private void showTime(final double fraction) {
+        if (path == null) {
+            return;
+        }
+        final PathTimeline timeline = path.getTimeline();
+        final double seconds = fraction * timeline.getTotalTime();
+        path.setBlockLimit(fraction >= 1.0 ? -1 : timeline.getBlockAtTime(seconds));
+        timeline.getPosition(seconds, toolPosition);
+        bead.setPosition(toolPosition[0], toolPosition[1], toolPosition[2]);
+    }
+
+    @FXML
+    void onPlay(ActionEvent event) {
+        if (play.isSelected() && path != null) {
+            if (scrub.getValue() >= 1.0) {
+                scrub.setValue(0.0);
+            }
+            player.start();
+        } else {
+            player.stop();
+        }
+    }
+
     public void finalize() {
         if (gCodeRender != null)
             gCodeRender.stop();
     }
 
     public void destroy() {
+        player.stop();
         if (gCodeRender != null) {
             gCodeRender.stop();
         }
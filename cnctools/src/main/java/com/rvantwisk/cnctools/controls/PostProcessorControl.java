@@ -39,9 +39,11 @@
 package com.rvantwisk.cnctools.controls;
 
 import com.rvantwisk.cnctools.data.CNCToolsPostProcessConfig;
+import com.rvantwisk.gcodegenerator.dialects.DialectRegistry;
 import javafx.fxml.FXML;
 import javafx.fxml.FXMLLoader;
 import javafx.scene.control.CheckBox;
+import javafx.scene.control.ChoiceBox;
 import javafx.scene.control.TextArea;
 import javafx.scene.control.TextField;
 import javafx.scene.layout.AnchorPane;
@@ -127,6 +129,9 @@ public class PostProcessorControl extends AnchorPane {
     @FXML
     private TextField name;
 
+    @FXML
+    private ChoiceBox<String> dialect;
+
     @FXML
     private TextArea preamble;
 
@@ -161,6 +166,7 @@ public class PostProcessorControl extends AnchorPane {
         assert decY != null : "fx:id=\"decY\" was not injected: check your FXML file 'PostProcessorConfig.fxml'.";
         assert decZ != null : "fx:id=\"decZ\" was not injected: check your FXML file 'PostProcessorConfig.fxml'.";
         assert name != null : "fx:id=\"name\" was not injected: check your FXML file 'PostProcessorConfig.fxml'.";
+        assert dialect != null : "fx:id=\"dialect\" was not injected: check your FXML file 'PostProcessorConfig.fxml'.";
         assert toolchange != null : "fx:id=\"toolchange\" was not injected: check your FXML file 'PostProcessorConfig.fxml'.";
     }
 
@@ -183,6 +189,8 @@ public class PostProcessorControl extends AnchorPane {
         if (data ==null) return;
 
         name.setText(data.getName());
+        dialect.getItems().setAll(DialectRegistry.getNames());
+        dialect.getSelectionModel().select(DialectRegistry.get(data.getDialect()).getName());
 
         decF.setText(data.decimalsFProperty().getValue().toString());
         decS.setText(data.decimalsSProperty().getValue().toString());
@@ -223,6 +231,7 @@ public class PostProcessorControl extends AnchorPane {
 
     public void applyData() {
         data.setName(name.getText());
+        data.setDialect(dialect.getSelectionModel().getSelectedItem());
 
         data.setDecimalsF(Integer.valueOf(decF.getText()));
         data.setDecimalsS(Integer.valueOf(decS.getText()));
@@ -39,17 +39,12 @@
 package com.rvantwisk.cnctools.controls.opengl;
 
 import com.rvantwisk.cnctools.opengl.AbstractActor;
+import com.rvantwisk.cnctools.opengl.ArrowSet;
 import com.rvantwisk.cnctools.opengl.VBOHelper;
-import com.rvantwisk.cnctools.operations.math.Point;
 import com.rvantwisk.gcodeparser.*;
 import com.rvantwisk.gcodeparser.exceptions.SimException;
 import com.rvantwisk.gcodeparser.gcodes.MotionMode;
-import gnu.trove.list.array.TFloatArrayList;
-import org.apache.commons.math3.geometry.euclidean.threed.Rotation;
-import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 import org.lwjgl.opengl.GL11;
-import org.slf4j.Logger;
-import org.slf4j.LoggerFactory;
 
 import java.util.Map;
 
@@ -57,22 +52,20 @@ import java.util.Map;
  * Created by rvt on 1/19/14.
  */
 public class ArrowsActor extends AbstractActor implements MachineController {
-    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private static final int RAPID = 0;
+    private static final int FEED = 1;
+    private static final float[][] COLORS = {
+            {0.87f, 0.33f, 0.27f, 0.5f},
+            {0.33f, 0.27f, 0.87f, 0.5f}
+    };
 
-    private static int ROWSIZE = 7;
-    final TFloatArrayList data = new TFloatArrayList();
+    final ArrowSet arrows = new ArrowSet();
     final MachineStatusHelper machine = new MachineStatusHelper();
     // USed during rendering
-    VBOHelper vboInfo = null;
+    VBOHelper.GLArrows vboInfo = null;
     private double lastX = 0;
     private double lastY = 0;
     private double lastZ = 0;
-    private double lastA = 0;
-    private double[][] arrow = {
-            {0, 0, 0},
-            {0.4 * 4.0f, -0.1 * 4.0f, 0.0},
-            {0.4 * 4.0f, 0.1 * 4.0f, 0.0}
-    };
 
     /**
      * @param name Nam eof teh actor, so it can be found and be replaced/delete when needed
@@ -83,8 +76,8 @@ public class ArrowsActor extends AbstractActor implements MachineController {
 
     @Override
     public void initialize() {
-        vboInfo = VBOHelper.createTriangles(data.toArray(), data.size() / ROWSIZE, true);
-        data.clear();
+        arrows.finish();
+        vboInfo = VBOHelper.createArrows(arrows, COLORS);
     }
 
     @Override
@@ -120,11 +113,10 @@ public class ArrowsActor extends AbstractActor implements MachineController {
                 double rX = machine.getX();
                 double rY = machine.getY();
                 double rZ = machine.getZ();
-                double rA = machine.getA();
 
                 if (rX - lastX != 0.0 || rY - lastY != 0.0 || rZ - lastZ != 0.0) {
-
-                    addArrow(arrow, new double[]{rX, rY, rZ}, rA, new Vector3D(lastX, lastY, lastZ), new Vector3D(rX, rY, rZ));
+                    arrows.add(rX, rY, rZ, rX - lastX, rY - lastY, rZ - lastZ, machine.getA(),
+                            machine.getMotionMode() == MotionMode.G0 ? RAPID : FEED);
                 }
                 break;
             case G2:
@@ -136,77 +128,10 @@ public class ArrowsActor extends AbstractActor implements MachineController {
         lastX = machine.getX();
         lastY = machine.getY();
         lastZ = machine.getZ();
-        lastA = machine.getA();
     }
 
     @Override
     public void end(GCodeParser parser, MachineStatus machineStatus) throws SimException {
-
-    }
-
-    private void addArrow(double[][] arrow, double[] loc, double rA, final Vector3D p1, final Vector3D p2) {
-
-        try {
-            double angleZ = Point.angleBetween2Lines(new Point(p1.getX(), p1.getY()), new Point(p2.getX(), p2.getY()), new Point(0.0, 0.0), new Point(0.0, 1.0));
-//        double angleX = Point.angleBetween2Lines(new Point(lastY, lastZ), new Point(rY, rZ), new Point(0.0, 0.0), new Point(0.0, 1.0));
-
-
-            double dx = p1.getX() - p2.getX();
-            double dy = p1.getY() - p2.getY();
-            double d = Math.sqrt(dx * dx + dy * dy);
-
-            double angle;
-            Rotation myRotation;
-            if (d != 0.0) {
-                angle = Point.angleBetween2Lines(new Point(0.0, 0.0), new Point(1.0, 0.0), new Point(0.0, 0.0), new Point(d, p1.getZ() - p2.getZ()));
-                myRotation = new Rotation(new Vector3D(1, 0, 0.0), angle + (0.0 / 360.0 * Math.PI * 2.0));
-            } else if ((p1.getZ() - p2.getZ()) < 0.0) {
-                angle = (90.0 / 360.0 * Math.PI * 2.0);
-                myRotation = new Rotation(new Vector3D(0, 1, 0.0), angle + (0.0 / 360.0 * Math.PI * 2.0));
-            } else {
-                angle = (-90.0 / 360.0 * Math.PI * 2.0);
-                myRotation = new Rotation(new Vector3D(0, 1, 0.0), angle + (0.0 / 360.0 * Math.PI * 2.0));
-            }
-            Rotation myRotationZ = new Rotation(new Vector3D(0, 0, 1.0), angleZ + (-90.0 / 360.0 * Math.PI * 2.0));
-
-            Rotation myRotationA = new Rotation(new Vector3D(1.0, 0.0, 0.0), (rA / 360.0 * Math.PI * 2.0));
-
-            double[] out = new double[3];
-            double[] out2 = new double[3];
-            for (double[] v : arrow) {
-                myRotationZ.applyTo(v, out);
-                myRotation.applyTo(out, out2);
-
-                out2[0] = out2[0] + loc[0];
-                out2[1] = out2[1] + loc[1];
-                out2[2] = out2[2] + loc[2];
-
-                myRotationA.applyTo(out2, out2);
-
-                data.add((float) (out2[0] + 0.0));
-                data.add((float) (out2[1] + 0.0));
-                data.add((float) (out2[2] + 0.0));
-                setMotionColor(machine.getMotionMode());
-            }
-
-        } catch (Exception e) {
-            // If for some reason we get a exception, we just don't add the arrow
-            logger.warn("Add arrow : This should normally not happen, please report back.", e);
-        }
-
-    }
-
-    private void setMotionColor(final MotionMode m) {
-        if (m == MotionMode.G0) {
-            data.add(0.87f);
-            data.add(0.33f);
-            data.add(0.27f);
-            data.add(0.5f);
-        } else {
-            data.add(0.33f);
-            data.add(0.27f);
-            data.add(0.87f);
-            data.add(.5f);
-        }
+        arrows.finish();
     }
 }
@@ -65,6 +65,7 @@ public class BeadActor extends AbstractActor {
     private FloatBuffer lightPos1;
 
     private int display_list;
+    private volatile float[] position = {0.0f, 0.0f, 0.0f};
 
     public BeadActor() {
         super(BeadActor.class.getSimpleName());
@@ -124,7 +125,19 @@ public class BeadActor extends AbstractActor {
 
     @Override
     public void draw() {
+        final float[] p = position;
+        GL11.glPushMatrix();
+        GL11.glTranslatef(p[0], p[1], p[2]);
         GL11.glCallList(display_list);
+        GL11.glPopMatrix();
+    }
+
+    /**
+     * Move the bead, for example to the tool position
+     */
+    public void setPosition(final float x, final float y, final float z) {
+        position = new float[]{x, y, z};
+        changed();
     }
 
     @Override
@@ -1,12 +1,15 @@
 package com.rvantwisk.cnctools.controls.opengl;
 
 import com.rvantwisk.cnctools.opengl.AbstractActor;
+import com.rvantwisk.cnctools.opengl.CompactPath;
+import com.rvantwisk.cnctools.opengl.PathLod;
+import com.rvantwisk.cnctools.opengl.PathTimeline;
 import com.rvantwisk.cnctools.opengl.VBOHelper;
 import com.rvantwisk.gcodeparser.*;
 import com.rvantwisk.gcodeparser.exceptions.SimException;
+import com.rvantwisk.gcodeparser.gcodes.FeedRateMode;
 import com.rvantwisk.gcodeparser.gcodes.MotionMode;
 import com.rvantwisk.gcodeparser.gcodes.Units;
-import gnu.trove.list.array.TFloatArrayList;
 import org.apache.commons.math3.geometry.euclidean.threed.Rotation;
 import org.apache.commons.math3.geometry.euclidean.threed.Vector3D;
 import org.lwjgl.opengl.GL11;
@@ -23,17 +26,34 @@ public class GCodeActor extends AbstractActor implements MachineController {
     public static double AAXISSTEPDEGREES = 1.0; // When A axis rotaties, simulate it in this number of degrees
     public static int AXISMAXSTEPS = 5000; // When A axis rotates with other axis, limit the number of steps to 5000
     public static double curveSectionInches = curveSectionMM / 25.4;
-    private static int ROWSIZE = 7; // coordinates + color 3+4
-    final TFloatArrayList data = new TFloatArrayList();
+    public static long UPLOAD_BUDGET = 4000000L; // Nanoseconds per frame spend on uploading tool path pages
+    public static final double DEFAULT_RAPID_FEED = 5000.0; // Units per minute used to time rapids and moves without a feed rate
+    // Colors by CompactPath type, rapid, feed and arc
+    private static final float[][] COLORS = {
+            {0.87f, 0.33f, 0.27f, 0.5f},
+            {0.33f, 0.27f, 0.87f, 0.5f},
+            {0.33f, 0.27f, 0.87f, 0.5f}};
+    final CompactPath data = new CompactPath();
+    final PathTimeline timeline = new PathTimeline();
+    private volatile int vertexLimit = Integer.MAX_VALUE;
+    private volatile PathLod lod = null; // Set once parsing is done
+    private volatile boolean cancelled = false;
+    private boolean uploaded = false;
+    private int publishedPages = 0;
     final MachineStatusHelper machine = new MachineStatusHelper();
     private MotionMode prevMotionMode = MotionMode.G0;
     private double lastX = 0;
     private double lastY = 0;
     private double lastZ = 0;
     private double lastA = 0;
+    private double pathX = 0; // Last vertex added to the path
+    private double pathY = 0;
+    private double pathZ = 0;
+    private double blockLength = 0;
+    private double rapidFeed = DEFAULT_RAPID_FEED;
 
     // USed during rendering
-    VBOHelper vboInfo=null;
+    VBOHelper.GLPath vboInfo=null;
 
     public GCodeActor(String name) {
         super(name);
@@ -44,22 +64,23 @@ public class GCodeActor extends AbstractActor implements MachineController {
         machine.setMachineStatus(machineStatus);
     }
 
-    private void setMotionColor(final MotionMode m) {
-        if (m == MotionMode.G0) {
-            data.add(0.87f);
-            data.add(0.33f);
-            data.add(0.27f);
-            data.add(0.5f);
-        } else {
-            data.add(0.33f);
-            data.add(0.27f);
-            data.add(0.87f);
-            data.add(.5f);
+    private static int motionType(final MotionMode m) {
+        switch (m) {
+            case G0:
+                return CompactPath.RAPID;
+            case G2:
+            case G3:
+                return CompactPath.ARC;
+            default:
+                return CompactPath.FEED;
         }
     }
 
     @Override
     public void endBlock(GCodeParser parser, MachineStatus machineStatus, Map<String, ParsedWord> currentBlock) throws SimException {
+        if (cancelled) {
+            throw new SimException("Parsing cancelled");
+        }
 
         // Set correct color's for current lines
         if (machine.getMotionMode() != prevMotionMode) {
@@ -82,6 +103,20 @@ public class GCodeActor extends AbstractActor implements MachineController {
                 break;
         }
 
+        data.markBlockEnd();
+
+        // Time the block at it's feed rate
+        final double seconds = PathTimeline.blockTime(blockLength, machine.getFeedrate(), machine.getFeedRateMode() == FeedRateMode.G93,
+                machine.getMotionMode() == MotionMode.G0, rapidFeed);
+        timeline.addBlock(parser.getCurrentLineNumber(), data.getVertexCount(), pathX, pathY, pathZ, blockLength, seconds);
+        blockLength = 0.0;
+
+        // Let the view know when there is a new page to show
+        if (data.getPageCount() != publishedPages) {
+            publishedPages = data.getPageCount();
+            changed();
+        }
+
         prevMotionMode = machine.getMotionMode();
         lastX = machine.getX();
         lastY = machine.getY();
@@ -91,7 +126,10 @@ public class GCodeActor extends AbstractActor implements MachineController {
 
     @Override
     public void end(GCodeParser parser, MachineStatus machineStatus) throws SimException {
-
+        // Decimate while still on the parser's thread, the OpenGL thread only uploads
+        data.finish();
+        lod = new PathLod(data);
+        changed();
     }
 
     private void addData(double x, double y, double z, MotionMode m) {
@@ -109,22 +147,28 @@ public class GCodeActor extends AbstractActor implements MachineController {
 
             Vector3D rotatedLoc = new Rotation(new Vector3D(1.0, 0.0, 0.0), lastA / 360.0 * Math.PI * 2.0 + (stepSize * i) / 360.0 * Math.PI * 2.0).applyTo(new Vector3D(lastX + stepXSize * i, lastY + stepYSize * i, lastZ + stepZSize * i));
 
-            data.add((float) (rotatedLoc.getX() + machine.getOX()));
-            data.add((float) (rotatedLoc.getY() + machine.getOY()));
-            data.add((float) (rotatedLoc.getZ() + machine.getOZ()));
-
-            setMotionColor(machine.getMotionMode());
+            addVertex(rotatedLoc.getX() + machine.getOX(),
+                    rotatedLoc.getY() + machine.getOY(),
+                    rotatedLoc.getZ() + machine.getOZ(), motionType(machine.getMotionMode()));
 
         }
 
         Vector3D rotatedLoc = new Rotation(new Vector3D(1.0, 0.0, 0.0), a / 360.0 * Math.PI * 2.0).applyTo(new Vector3D(x, y, z));
 
-        data.add((float) (rotatedLoc.getX() + machine.getOX()));
-        data.add((float) (rotatedLoc.getY() + machine.getOY()));
-        data.add((float) (rotatedLoc.getZ() + machine.getOZ()));
+        addVertex(rotatedLoc.getX() + machine.getOX(),
+                rotatedLoc.getY() + machine.getOY(),
+                rotatedLoc.getZ() + machine.getOZ(), motionType(m));
 
-        setMotionColor(m);
+    }
 
+    private void addVertex(final double x, final double y, final double z, final int type) {
+        if (data.getVertexCount() > 0) {
+            blockLength += Math.sqrt((x - pathX) * (x - pathX) + (y - pathY) * (y - pathY) + (z - pathZ) * (z - pathZ));
+        }
+        data.add(x, y, z, type);
+        pathX = x;
+        pathY = y;
+        pathZ = z;
     }
 
     // This routine was taken from : https://github.com/makerbot/ReplicatorG/blob/master/src/replicatorg/app/gcode/java
@@ -242,19 +286,86 @@ public class GCodeActor extends AbstractActor implements MachineController {
 
     @Override
     public void initialize() {
-        vboInfo = VBOHelper.createLines(data.toArray(), data.size() / ROWSIZE, true);
-        data.clear();
+        // The path might still be parsed, pages are uploaded as they complete
+        vboInfo = VBOHelper.createPath(data, COLORS);
 
     }
 
     @Override
     public void prepare() {
+        if (uploaded) {
+            return;
+        }
+        final PathLod parsed = lod; // Read first, once set all pages are complete
+        if (vboInfo.upload(UPLOAD_BUDGET) && parsed != null) {
+            vboInfo.setLod(parsed);
+            data.releasePages();
+            parsed.releaseIndices();
+            uploaded = true;
+        }
+    }
+
+    @Override
+    public boolean needsFrame() {
+        // Keep drawing while completed pages are waiting to be uploaded
+        return !uploaded && vboInfo != null && (vboInfo.getUploadedPages() < data.getPageCount() || lod != null);
+    }
+
+    /**
+     * Stop a parse that is still running, the parser fails with a SimException at the next block
+     */
+    public void cancel() {
+        cancelled = true;
+    }
+
+    /**
+     * @return Blocks of the program with their vertices and machine time, grows while parsing
+     */
+    public PathTimeline getTimeline() {
+        return timeline;
+    }
+
+    public double getRapidFeed() {
+        return rapidFeed;
+    }
+
+    /**
+     * Feed rate used to time rapids and moves without a feed rate, must be set before the G-Code is parsed
+     *
+     * @param rapidFeed Units per minute
+     */
+    public void setRapidFeed(final double rapidFeed) {
+        if (rapidFeed <= 0.0) {
+            throw new IllegalArgumentException("rapidFeed must be positive");
+        }
+        this.rapidFeed = rapidFeed;
+    }
+
+    /**
+     * Only draw the first blocks of the program
+     *
+     * @param blocks Number of blocks to draw, -1 draws all
+     */
+    public void setBlockLimit(final int blocks) {
+        if (blocks < 0 || blocks >= timeline.size()) {
+            vertexLimit = Integer.MAX_VALUE;
+        } else {
+            vertexLimit = blocks == 0 ? 0 : timeline.getVertexEnd(blocks - 1);
+        }
+        changed();
+    }
 
+    /**
+     * Only draw the blocks up to and including a source line
+     */
+    public void setLineLimit(final int line) {
+        setBlockLimit(timeline.getBlocksUpToLine(line));
     }
 
     @Override
     public void draw() {
         GL11.glPushMatrix();
+        vboInfo.setVertexLimit(vertexLimit);
         vboInfo.draw();
         GL11.glPopMatrix();
     }
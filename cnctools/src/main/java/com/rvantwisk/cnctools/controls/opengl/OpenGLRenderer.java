@@ -56,9 +56,16 @@ final public class OpenGLRenderer extends AbstractOpenGLRenderer {
 
     private final View2D viewAxis = new View2D();
     private final View3D viewModel = new View3D();
+    private final GLText text = new GLText(new GlyphAtlas());
     private final List<AbstractActor> actors = new ArrayList<>();
     private final Map<String, AbstractActor> activeActors = new TreeMap<>();
     private ReadonlyCamera camera = new ReadonlyCamera();
+    private final Runnable actorChanged = new Runnable() {
+        @Override
+        public void run() {
+            requestRender();
+        }
+    };
 
 
     public OpenGLRenderer(StreamHandler readHandler) {
@@ -74,10 +81,11 @@ final public class OpenGLRenderer extends AbstractOpenGLRenderer {
         GL11.glEnable(GL11.GL_CULL_FACE);
         GL11.glEnable(GL11.GL_BLEND);
         GL11.glBlendFunc(GL11.GL_SRC_ALPHA, GL11.GL_ONE_MINUS_SRC_ALPHA);
+        text.initialize();
 
     }
 
-    protected void loop() {
+    protected boolean loop() {
         final ReadonlyCamera localCam;
         synchronized (this) {
             localCam = this.camera;
@@ -89,6 +97,7 @@ final public class OpenGLRenderer extends AbstractOpenGLRenderer {
                         existingActor.destroy();
                     }
                     // Add a new actor
+                    actor.setChangeListener(actorChanged);
                     actor.initialize();
                     activeActors.put(actor.getName(), actor);
                 }
@@ -118,11 +127,17 @@ final public class OpenGLRenderer extends AbstractOpenGLRenderer {
         viewModel.display_transform();
 
         // Draw the actor
+        boolean needsFrame = false;
         for (final AbstractActor actor : activeActors.values()) {
             actor.draw();
+            needsFrame |= actor.needsFrame();
         }
 
         viewModel.end();
+
+        // All labels of this frame on top
+        text.draw();
+        return needsFrame;
     }
 
     protected void drawAxis(float length) {
@@ -141,29 +156,17 @@ final public class OpenGLRenderer extends AbstractOpenGLRenderer {
         }
         GL11.glEnd();
 
-        // TODO optmize text rendering, lack of glutBitmapCharacter forces me to do it differently.
+        // Labels at the end of each axis
+        text.setTransform();
         for (int i = 0; i < 3; i++) {
-            GL11.glPushMatrix();
-            GL11.glColor3f(colors[i][0], colors[i][1], colors[i][2]);
-
-            // http://breadmilkbeercigarettes.com/bmbc/shelves/users/bbb/src/java/SpinningTextureCube.php
-            GL11.glTranslatef(Math.round(axis[i][0]), Math.round(axis[i][1]), Math.round(axis[i][2]));
-            GL11.glRotatef(camera.getElevation() + 90f, 1.0f, 0.0f, 0.0f);
-            GL11.glRotatef(-camera.getAzimuth(), 0.0f, 1.0f, 0.0f);
-            SimpleText.drawString(names[i], 0.0f, 0.0f, 0.0f);
-
-//            GL11.glRasterPos3f(Math.round(axis[i][0]), Math.round(axis[i][1]), Math.round(axis[i][2]));
-//            SimpleText.drawString(names[i], 0, 0);
-
-            GL11.glPopMatrix();
-
-
+            text.add(names[i], axis[i][0], axis[i][1], axis[i][2], colors[i][0], colors[i][1], colors[i][2], 1.0f);
         }
 
         GL11.glPopMatrix();
     }
 
     protected void destroygl() {
+        text.destroy();
         for (AbstractActor actor : activeActors.values()) {
             actor.destroy();
         }
@@ -178,14 +181,18 @@ final public class OpenGLRenderer extends AbstractOpenGLRenderer {
         synchronized (this) {
             actors.add(actor);
         }
+        requestRender();
     }
 
     synchronized public ReadonlyCamera getCamera() {
         return camera;
     }
 
-    synchronized public void setCamera(ReadonlyCamera camera) {
-        this.camera = camera;
+    public void setCamera(ReadonlyCamera camera) {
+        synchronized (this) {
+            this.camera = camera;
+        }
+        requestRender();
     }
 
 }
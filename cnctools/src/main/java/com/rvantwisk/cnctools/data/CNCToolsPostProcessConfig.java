@@ -73,9 +73,8 @@ public class CNCToolsPostProcessConfig implements PostProcessorConfig {
     }
 
     public Object readResolve() {
-        dialect = new SimpleStringProperty();
         if (dialect==null) {
-            dialect.setValue("RS274");
+            dialect = new SimpleStringProperty();
         }
         if (dialect.get()==null) {
             dialect.set("RS274");
@@ -181,6 +180,10 @@ public class CNCToolsPostProcessConfig implements PostProcessorConfig {
         return dialect;
     }
 
+    public String getDialect() {
+        return dialect.get();
+    }
+
     public void setDialect(String dialect) {
         this.dialect.set(dialect);
     }
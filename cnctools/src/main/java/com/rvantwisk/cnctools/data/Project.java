@@ -40,6 +40,7 @@ package com.rvantwisk.cnctools.data;
 
 import com.rvantwisk.cnctools.gcode.CncToolsGCodegenerator;
 import com.rvantwisk.cnctools.misc.Factory;
+import com.rvantwisk.cnctools.misc.GCodeCache;
 import com.rvantwisk.cnctools.misc.ToolDBManager;
 import com.rvantwisk.gcodegenerator.GCodeCollection;
 import javafx.beans.property.ObjectProperty;
@@ -49,7 +50,15 @@ import javafx.beans.property.StringProperty;
 import javafx.collections.FXCollections;
 import javafx.collections.ObservableList;
 
+import java.util.ArrayList;
+import java.util.List;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.ForkJoinTask;
+
 public class Project {
+    // Shared pool to generate G-Code for tasks in parallel
+    private static final ForkJoinPool GENERATOR_POOL = new ForkJoinPool();
 
     private final StringProperty name = new SimpleStringProperty();
     private final StringProperty description = new SimpleStringProperty();
@@ -120,16 +129,76 @@ public class Project {
         return postProcessor;
     }
 
-    public GCodeCollection getGCode(ToolDBManager toolDBManager) {
-        final CncToolsGCodegenerator gCodeGenerator = Factory.getProcessorDialect(postProcessor.get());
+    public GCodeCollection getGCode(final ToolDBManager toolDBManager) {
+        return getGCode(toolDBManager, null);
+    }
 
-        gCodeGenerator.startProgram();
-        for (TaskRunnable t : milltasks) {
-            t.generateGCode(toolDBManager, gCodeGenerator);
+    /**
+     * Generate the G-Code for all tasks within this project.
+     * Each task get's it's own generator and runs on the generator pool, the resulting sets are stitched in task order
+     * between the preamble and postamble so the output is the same as generating them one after each other.
+     * When a cache is given, tasks who's task, tool and post processor didn't change are taken from the cache.
+     *
+     * @param toolDBManager
+     * @param gCodeCache    Cache to use, may be null
+     * @return
+     */
+    public GCodeCollection getGCode(final ToolDBManager toolDBManager, final GCodeCache gCodeCache) {
+        return getGCode(toolDBManager, gCodeCache, true);
+    }
+
+    /**
+     * Generate the G-Code for all tasks within this project
+     *
+     * @param parallel When false the tasks are generated one after each other on the calling thread
+     */
+    GCodeCollection getGCode(final ToolDBManager toolDBManager, final GCodeCache gCodeCache, final boolean parallel) {
+        final CNCToolsPostProcessConfig postProcessConfig = postProcessor.get();
+
+        final List<ForkJoinTask<GCodeCollection>> jobs = new ArrayList<>(milltasks.size());
+        for (final TaskRunnable t : milltasks) {
+            final ForkJoinTask<GCodeCollection> job = ForkJoinTask.adapt(new Callable<GCodeCollection>() {
+                @Override
+                public GCodeCollection call() throws Exception {
+                    // Only tasks that use a tool are cached, others are cheap to generate
+                    String key = null;
+                    if (gCodeCache != null && t.getEnabled() && t.getMilltaskModel().getToolID() != null) {
+                        key = GCodeCache.keyFor(t, toolDBManager.getByID(t.getMilltaskModel().getToolID()), postProcessConfig);
+                        final GCodeCollection cached = gCodeCache.get(key);
+                        if (cached != null) {
+                            return cached;
+                        }
+                    }
+
+                    final CncToolsGCodegenerator gCodeGenerator = Factory.getProcessorDialect(postProcessConfig);
+                    t.generateGCode(toolDBManager, gCodeGenerator);
+                    final GCodeCollection gCode = gCodeGenerator.getGCode();
+                    if (key != null) {
+                        gCodeCache.put(key, gCode);
+                    }
+                    return gCode;
+                }
+            });
+            if (parallel) {
+                GENERATOR_POOL.execute(job);
+            } else {
+                job.invoke();
+            }
+            jobs.add(job);
         }
+
+        final CncToolsGCodegenerator gCodeGenerator = Factory.getProcessorDialect(postProcessConfig);
+        gCodeGenerator.startProgram();
         gCodeGenerator.endProgram();
+        final GCodeCollection program = gCodeGenerator.getGCode();
 
-        return gCodeGenerator.getGCode();
+        final GCodeCollection gCode = new GCodeCollection();
+        gCode.add(program.get(0));
+        for (ForkJoinTask<GCodeCollection> job : jobs) {
+            gCode.addAll(job.join());
+        }
+        gCode.add(program.get(1));
+        return gCode;
     }
 
 }
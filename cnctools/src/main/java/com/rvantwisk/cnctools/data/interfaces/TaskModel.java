@@ -52,4 +52,11 @@ import com.rvantwisk.cnctools.misc.ToolDBManager;
 public interface TaskModel extends Copyable<TaskModel> {
 
     void generateGCode(final ToolDBManager toolDBManager, final CncToolsGCodegenerator gCodeGenerator, final String taskId);
+
+    /**
+     * ID of the tool used by this task
+     *
+     * @return the tool ID or null when this task doesn't use a tool
+     */
+    String getToolID();
 }
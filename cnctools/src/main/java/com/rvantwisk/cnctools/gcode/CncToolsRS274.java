@@ -5,6 +5,7 @@ import com.rvantwisk.cnctools.misc.DimensionProperty;
 import com.rvantwisk.cnctools.misc.Dimensions;
 import com.rvantwisk.gcodegenerator.GCodeBuilder;
 import com.rvantwisk.gcodegenerator.dialects.RS274;
+import com.rvantwisk.gcodegenerator.interfaces.Dialect;
 import com.rvantwisk.gcodegenerator.interfaces.PostProcessorConfig;
 
 /**
@@ -15,6 +16,10 @@ public class CncToolsRS274 extends RS274 implements CncToolsGCodegenerator {
         super(pc);
     }
 
+    public CncToolsRS274(PostProcessorConfig pc, Dialect dialect) {
+        super(pc, dialect);
+    }
+
     private ToolParameter toolParameter=null;
 
     @Override
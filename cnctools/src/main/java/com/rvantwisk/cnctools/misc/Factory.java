@@ -44,6 +44,7 @@ import com.rvantwisk.cnctools.data.StockToolParameter;
 import com.rvantwisk.cnctools.data.ToolParameter;
 import com.rvantwisk.cnctools.gcode.CncToolsGCodegenerator;
 import com.rvantwisk.cnctools.gcode.CncToolsRS274;
+import com.rvantwisk.gcodegenerator.dialects.DialectRegistry;
 
 /**
  * Created with IntelliJ IDEA.
@@ -132,10 +133,8 @@ public class Factory {
      * Retrieve a postprocessor dialect from a post processor configuration
      * @param pc    PostProcessorConfiguration
      * @return
-     *
-     * TODO: Need to change this to use enum's or class name, for now we just have one dialect
      */
     public static CncToolsGCodegenerator getProcessorDialect(final CNCToolsPostProcessConfig pc) {
-        return new CncToolsRS274(pc);
+        return new CncToolsRS274(pc, DialectRegistry.get(pc.getDialect()));
     }
 }
@@ -0,0 +1,300 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.misc;
+
+import com.rvantwisk.cnctools.data.CNCToolsPostProcessConfig;
+import com.rvantwisk.cnctools.data.TaskRunnable;
+import com.rvantwisk.cnctools.data.ToolParameter;
+import com.rvantwisk.gcodegenerator.GCodeCollection;
+import org.slf4j.Logger;
+import org.slf4j.LoggerFactory;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.security.MessageDigest;
+import java.security.NoSuchAlgorithmException;
+import java.util.*;
+
+/**
+ * Disk cache of generated G-Code per task.
+ * Entries are keyed by a hash of the task, the tool it uses and the post processor, so a entry is only reused when
+ * none of the inputs changed. The least recently used entries are removed when the cache grows beyond it's maximum size.
+ */
+public class GCodeCache {
+    public static final String DIRECTORY_NAME = "gcodecache";
+    private static final String EXTENSION = ".gcc";
+    private static final String VERSION_FILE = "version";
+    // Increase when the generators or the entry format change so stale G-Code is never returned
+    private static final int CACHE_VERSION = 1;
+    private static final String CACHE_VERSION_STRING = Integer.toString(CACHE_VERSION);
+    private static final long DEFAULT_MAX_SIZE = 64L * 1024L * 1024L;
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private final Logger logger = LoggerFactory.getLogger(this.getClass());
+    private final File directory;
+    private final long maxSize;
+    private final LinkedHashMap<String, Long> entries = new LinkedHashMap<>(16, 0.75f, true); // Key -> file size in access order
+    private long size = 0;
+
+    public GCodeCache(final File directory) {
+        this(directory, DEFAULT_MAX_SIZE);
+    }
+
+    public GCodeCache(final File directory, final long maxSize) {
+        this.directory = directory;
+        this.maxSize = maxSize;
+        load();
+    }
+
+    /**
+     * Create a stable key for a task
+     *
+     * @param task       Task to generate
+     * @param tool       Tool used by the task
+     * @param postProcessor Post processor used to generate the G-Code
+     * @return
+     */
+    public static String keyFor(final TaskRunnable task, final ToolParameter tool, final CNCToolsPostProcessConfig postProcessor) {
+        try {
+            final MessageDigest digest = MessageDigest.getInstance("SHA-1");
+            digest.update(("gcodecache-" + CACHE_VERSION).getBytes(CHARSET));
+            digest.update(ProjectModel.toXML(task).getBytes(CHARSET));
+            digest.update(ProjectModel.toXML(tool).getBytes(CHARSET));
+            digest.update(ProjectModel.toXML(postProcessor).getBytes(CHARSET));
+            final StringBuilder sb = new StringBuilder();
+            for (byte b : digest.digest()) {
+                sb.append(Character.forDigit((b >> 4) & 0xF, 16)).append(Character.forDigit(b & 0xF, 16));
+            }
+            return sb.toString();
+        } catch (NoSuchAlgorithmException e) {
+            throw new IllegalStateException("SHA-1 not available", e);
+        }
+    }
+
+    /**
+     * Get the G-Code stored under a key
+     *
+     * @param key
+     * @return the G-Code or null when not cached
+     */
+    public GCodeCollection get(final String key) {
+        // Read under the lock so a concurrent put, remove or evict cannot replace or delete the file while it's read
+        synchronized (this) {
+            if (entries.get(key) == null) {
+                return null;
+            }
+
+            final File file = fileFor(key);
+            try (DataInputStream in = new DataInputStream(new BufferedInputStream(new FileInputStream(file)))) {
+                final GCodeCollection gCode = new GCodeCollection();
+                final int count = in.readInt();
+                if (count < 0) {
+                    throw new IOException("Corrupt cache entry " + file.getName());
+                }
+                for (int i = 0; i < count; i++) {
+                    final boolean mergeable = in.readBoolean();
+                    final String id = in.readUTF();
+                    final String toolId = in.readBoolean() ? in.readUTF() : null;
+                    final int length = in.readInt();
+                    if (length < 0 || length > file.length()) {
+                        throw new IOException("Corrupt cache entry " + file.getName());
+                    }
+                    final byte[] data = new byte[length];
+                    in.readFully(data);
+                    gCode.add(new GCodeCollection.GeneratedGCode(new String(data, CHARSET), mergeable, id, toolId));
+                }
+                file.setLastModified(System.currentTimeMillis());
+                return gCode;
+            } catch (IOException e) {
+                logger.error("get: Failed to read cache entry " + key, e);
+                remove(key);
+                return null;
+            }
+        }
+    }
+
+    /**
+     * Store the G-Code of a task under a key
+     *
+     * @param key
+     * @param gCode
+     */
+    public void put(final String key, final GCodeCollection gCode) {
+        if (!directory.exists() && !directory.mkdirs()) {
+            logger.error("put: Cannot create cache directory " + directory.getAbsolutePath());
+            return;
+        }
+
+        // Write to a temporary file first so a concurrent get never sees a half written entry
+        final File file = fileFor(key);
+        final File tmp = new File(directory, key + "." + Thread.currentThread().getId() + ".tmp");
+        try (DataOutputStream out = new DataOutputStream(new BufferedOutputStream(new FileOutputStream(tmp)))) {
+            out.writeInt(gCode.size());
+            for (GCodeCollection.GeneratedGCode code : gCode) {
+                out.writeBoolean(code.isMergeable());
+                out.writeUTF(code.getId());
+                out.writeBoolean(code.getToolId() != null);
+                if (code.getToolId() != null) {
+                    out.writeUTF(code.getToolId());
+                }
+                final byte[] data = code.toString().getBytes(CHARSET);
+                out.writeInt(data.length);
+                out.write(data);
+            }
+        } catch (IOException e) {
+            logger.error("put: Failed to write cache entry " + key, e);
+            tmp.delete();
+            return;
+        }
+
+        synchronized (this) {
+            file.delete();
+            if (!tmp.renameTo(file)) {
+                tmp.delete();
+                return;
+            }
+            final Long old = entries.put(key, file.length());
+            size += file.length() - (old != null ? old : 0L);
+            evict();
+        }
+    }
+
+    /**
+     * Remove all entries from the cache
+     */
+    public synchronized void clear() {
+        for (String key : entries.keySet()) {
+            fileFor(key).delete();
+        }
+        entries.clear();
+        size = 0;
+    }
+
+    private synchronized void remove(final String key) {
+        final Long old = entries.remove(key);
+        if (old != null) {
+            size -= old;
+        }
+        fileFor(key).delete();
+    }
+
+    /**
+     * Remove least recently used entries until the cache fits within the maximum size
+     */
+    private void evict() {
+        final Iterator<Map.Entry<String, Long>> iter = entries.entrySet().iterator();
+        while (size > maxSize && iter.hasNext()) {
+            final Map.Entry<String, Long> entry = iter.next();
+            fileFor(entry.getKey()).delete();
+            size -= entry.getValue();
+            iter.remove();
+        }
+    }
+
+    /**
+     * Load the index of a existing cache, the last modified time of each entry is used as it's last access time.
+     * When the cache was written by a different version all entries are removed.
+     */
+    private void load() {
+        if (!CACHE_VERSION_STRING.equals(readVersion())) {
+            final File[] stale = directory.listFiles(new FilenameFilter() {
+                @Override
+                public boolean accept(File dir, String name) {
+                    return name.endsWith(EXTENSION) || name.endsWith(".tmp");
+                }
+            });
+            if (stale != null) {
+                for (File file : stale) {
+                    file.delete();
+                }
+            }
+            writeVersion();
+        }
+
+        final File[] files = directory.listFiles(new FilenameFilter() {
+            @Override
+            public boolean accept(File dir, String name) {
+                return name.endsWith(EXTENSION);
+            }
+        });
+        if (files == null) {
+            return;
+        }
+        Arrays.sort(files, new Comparator<File>() {
+            @Override
+            public int compare(File o1, File o2) {
+                return Long.compare(o1.lastModified(), o2.lastModified());
+            }
+        });
+        for (File file : files) {
+            final String name = file.getName();
+            entries.put(name.substring(0, name.length() - EXTENSION.length()), file.length());
+            size += file.length();
+        }
+        evict();
+    }
+
+    private String readVersion() {
+        final File file = new File(directory, VERSION_FILE);
+        if (!file.exists()) {
+            return null;
+        }
+        try (BufferedReader in = new BufferedReader(new InputStreamReader(new FileInputStream(file), CHARSET))) {
+            return in.readLine();
+        } catch (IOException e) {
+            logger.error("readVersion: Failed to read " + file.getAbsolutePath(), e);
+            return null;
+        }
+    }
+
+    private void writeVersion() {
+        if (!directory.exists() && !directory.mkdirs()) {
+            return;
+        }
+        try (Writer out = new OutputStreamWriter(new FileOutputStream(new File(directory, VERSION_FILE)), CHARSET)) {
+            out.write(CACHE_VERSION_STRING);
+        } catch (IOException e) {
+            logger.error("writeVersion: Failed to write cache version", e);
+        }
+    }
+
+    private File fileFor(final String key) {
+        return new File(directory, key + EXTENSION);
+    }
+}
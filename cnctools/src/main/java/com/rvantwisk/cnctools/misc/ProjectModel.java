@@ -75,6 +75,8 @@ public class ProjectModel {
     final private ObservableList<ToolParameter> toolDBProperty = FXCollections.observableArrayList();
     final private ObservableList<CNCToolsPostProcessConfig> postProcessors = FXCollections.observableArrayList();
 
+    private final File projectsFile = new File(PROJECTS_XML).getAbsoluteFile();
+
     private transient ToolDBManager toolDBManager;
 
     public ToolDBManager getToolDBManager() {
@@ -84,6 +86,14 @@ public class ProjectModel {
         return toolDBManager;
     }
 
+    /**
+     * File the projects are stored in, data that belongs to the projects is kept in the same directory
+     * @return
+     */
+    public File getProjectsFile() {
+        return projectsFile;
+    }
+
     public ObservableList<Project> projectsProperty() {
         return projectsProperty;
     }
@@ -167,7 +177,7 @@ public class ProjectModel {
     public void saveProjects() {
         XStream xstream = getXStream();
 
-        File file = new File(PROJECTS_XML);
+        File file = projectsFile;
         try {
             String xml = xstream.toXML(new ArrayList<>(projectsProperty));
             FileUtil.saveFile(xml, file);
@@ -215,7 +225,7 @@ public class ProjectModel {
         XStream xstream = getXStream();
         try {
 
-            File file = new File(PROJECTS_XML);
+            File file = projectsFile;
             ArrayList<Project> projects = (ArrayList<Project>) xstream.fromXML(readFileIntoString(file).toString());
             projectsProperty.clear();
             projectsProperty.addAll(projects);
@@ -254,6 +264,15 @@ public class ProjectModel {
         return sb.toString();
     }
 
+    /**
+     * Serialize a java bean to XML the same way it's stored
+     * @param obj
+     * @return
+     */
+    public static String toXML(final Object obj) {
+        return getXStream().toXML(obj);
+    }
+
     /**
      * Create a deep copy of a java bean
      * WARNING: Unesure you are doing this on beans only!
@@ -48,6 +48,7 @@ import java.nio.FloatBuffer;
 public abstract class AbstractActor {
     private static final int SIZE_FLOAT = Float.SIZE / Byte.SIZE;
     private String name="";
+    private volatile Runnable changeListener = null;
 
     /**
      *
@@ -85,6 +86,30 @@ public abstract class AbstractActor {
      */
     public abstract void destroy();
 
+    /**
+     * @return true when the actor needs an other frame without anything else changing, for example while it loads
+     */
+    public boolean needsFrame() {
+        return false;
+    }
+
+    /**
+     * @param changeListener Called from any thread when the actor changed and should be drawn again
+     */
+    public void setChangeListener(final Runnable changeListener) {
+        this.changeListener = changeListener;
+    }
+
+    /**
+     * Tell the scene this actor changed
+     */
+    protected void changed() {
+        final Runnable listener = changeListener;
+        if (listener != null) {
+            listener.run();
+        }
+    }
+
 
     public FloatBuffer allocFloats(int howmany) {
         return ByteBuffer.allocateDirect(howmany * SIZE_FLOAT).order(ByteOrder.nativeOrder()).asFloatBuffer();
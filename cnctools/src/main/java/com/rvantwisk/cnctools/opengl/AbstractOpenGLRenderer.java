@@ -39,6 +39,8 @@
 package com.rvantwisk.cnctools.opengl;
 
 import javafx.application.Platform;
+import javafx.beans.property.ReadOnlyDoubleProperty;
+import javafx.beans.property.ReadOnlyDoubleWrapper;
 import javafx.beans.property.ReadOnlyIntegerProperty;
 import javafx.beans.property.ReadOnlyIntegerWrapper;
 import org.lwjgl.LWJGLException;
@@ -57,6 +59,9 @@ import static org.lwjgl.opengl.ARBDebugOutput.glDebugMessageCallbackARB;
  * Abstract class to simple create openGL rendering screens in javafx
  * This wasn't design to get you the optimal speed, but it's here to make it easer
  * to implement openGL views in JavaFX
+ * <p/>
+ * Frames are only rendered when something changed, see requestRender, and otherwise at idleFPS so the view catches up
+ * with changes nobody reported.
  */
 public abstract class AbstractOpenGLRenderer {
     final static long FPS_UPD_INTERVAL = 1 * (1000L * 1000L * 1000L);
@@ -66,11 +71,16 @@ public abstract class AbstractOpenGLRenderer {
     private final Pbuffer pbuffer;
 
     private final ReadOnlyIntegerWrapper fps;
+    private final ReadOnlyDoubleWrapper frameTime;
+
+    private final Object renderLock = new Object();
+    private boolean renderRequested = true;
 
     private StreamUtil.RenderStreamFactory renderStreamFactory;
     private RenderStream renderStream;
 
     private int vSyncFPS =30;
+    private int idleFPS = 1;
     // Rendering options
     private int transfersToBuffer = 1;
     private boolean vsync = true;
@@ -81,6 +91,7 @@ public abstract class AbstractOpenGLRenderer {
         this.pendingRunnables = new ConcurrentLinkedQueue<Runnable>();
 
         this.fps = new ReadOnlyIntegerWrapper(this, "fps", 0);
+        this.frameTime = new ReadOnlyDoubleWrapper(this, "frameTime", 0.0);
 
         if ((Pbuffer.getCapabilities() & Pbuffer.PBUFFER_SUPPORTED) == 0)
             throw new UnsupportedOperationException("Support for pbuffers is required.");
@@ -127,6 +138,39 @@ public abstract class AbstractOpenGLRenderer {
                 renderStream = renderStreamFactory.create(renderStream.getHandler(), samples, transfersToBuffer);
             }
         });
+        requestRender();
+    }
+
+    /**
+     * Request a new frame, can be called from any thread
+     */
+    public void requestRender() {
+        synchronized (renderLock) {
+            renderRequested = true;
+            renderLock.notifyAll();
+        }
+    }
+
+    /**
+     * Wait till a frame is requested or the idle frame is due
+     *
+     * @return true when a frame must be rendered
+     */
+    private boolean awaitFrame(final long idleFrameTime) {
+        synchronized (renderLock) {
+            long wait = idleFrameTime - System.nanoTime();
+            while (!renderRequested && wait > 0) {
+                try {
+                    renderLock.wait(wait / 1000000L, (int) (wait % 1000000L));
+                } catch (InterruptedException e) {
+                    Thread.currentThread().interrupt();
+                    return false;
+                }
+                wait = idleFrameTime - System.nanoTime();
+            }
+            renderRequested = false;
+            return true;
+        }
     }
 
 
@@ -149,32 +193,47 @@ public abstract class AbstractOpenGLRenderer {
     protected void _loop(final CountDownLatch running) {
 
         long nextFPSUpdateTime = System.nanoTime() + FPS_UPD_INTERVAL;
+        long idleFrameTime = System.nanoTime();
         int frames = 0;
+        long framesTime = 0;
 
         while (0 < running.getCount()) {
+            final boolean render = awaitFrame(idleFrameTime);
             drainPendingActionsQueue();
-            renderStream.bind();
 
-            loop();
+            if (render && 0 < running.getCount()) {
+                final long frameStart = System.nanoTime();
+                renderStream.bind();
+
+                // The loop can ask for the next frame right away, for example while data is still loading
+                if (loop()) {
+                    requestRender();
+                }
 
-            renderStream.swapBuffers();
+                renderStream.swapBuffers();
+                framesTime += System.nanoTime() - frameStart;
+                frames++;
+                idleFrameTime = System.nanoTime() + (1000L * 1000L * 1000L) / idleFPS;
 
-            if (isVsync()) {
-                Display.sync(vSyncFPS); // run at 10 fps
+                if (isVsync()) {
+                    Display.sync(vSyncFPS);
+                }
             }
 
             final long currentTime = System.nanoTime();
-            frames++;
             if (nextFPSUpdateTime <= currentTime) {
                 long timeUsed = FPS_UPD_INTERVAL + (currentTime - nextFPSUpdateTime);
                 nextFPSUpdateTime = currentTime + FPS_UPD_INTERVAL;
                 final int fpsAverage = (int) (frames * (1000L * 1000L * 1000L) / (timeUsed));
+                final double frameTimeAverage = frames == 0 ? 0.0 : framesTime / 1000000.0 / frames;
                 Platform.runLater(new Runnable() {
                     public void run() {
                         fps.set(fpsAverage);
+                        frameTime.set(frameTimeAverage);
                     }
                 });
                 frames = 0;
+                framesTime = 0;
             }
         }
     }
@@ -199,10 +258,20 @@ public abstract class AbstractOpenGLRenderer {
         _destroy();
     }
 
+    /**
+     * @return Frames rendered per second, averaged over a second
+     */
     public ReadOnlyIntegerProperty fpsProperty() {
         return fps.getReadOnlyProperty();
     }
 
+    /**
+     * @return Milliseconds a rendered frame took from bind till the frame was handed over, averaged over a second
+     */
+    public ReadOnlyDoubleProperty frameTimeProperty() {
+        return frameTime.getReadOnlyProperty();
+    }
+
     public boolean isVsync() {
         return vsync;
     }
@@ -213,6 +282,7 @@ public abstract class AbstractOpenGLRenderer {
 
     public void stop() {
         runningLatch.countDown();
+        requestRender();
     }
 
 
@@ -222,9 +292,11 @@ public abstract class AbstractOpenGLRenderer {
     protected abstract void init();
 
     /**
-     * Called for each OpenGL loop
+     * Called for each frame that is rendered
+     *
+     * @return true when an other frame is needed right away
      */
-    protected abstract void loop();
+    protected abstract boolean loop();
 
     /**
      * Called when the OpenGL context need to be destroyed
@@ -242,4 +314,15 @@ public abstract class AbstractOpenGLRenderer {
     public void setvSyncFPS(int vSyncFPS) {
         this.vSyncFPS = vSyncFPS;
     }
+
+    public int getIdleFPS() {
+        return idleFPS;
+    }
+
+    /**
+     * @param idleFPS Frames per second rendered when no frames are requested
+     */
+    public void setIdleFPS(int idleFPS) {
+        this.idleFPS = Math.max(1, idleFPS);
+    }
 }
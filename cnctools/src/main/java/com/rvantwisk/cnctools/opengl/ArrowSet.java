@@ -0,0 +1,292 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.opengl;
+
+import java.util.Arrays;
+
+/**
+ * Direction arrows of a tool path stored as one record per move: position, direction, A angle and motion type.
+ * <p/>
+ * Once all arrows are added they get a level by how crowded they are. Level 0 keeps one arrow in each cell of a coarse
+ * grid, every next level halves the cell size and adds arrows to the cells that are still empty. The arrows are sorted
+ * by level so the arrows for a spacing are always the first ones, triangles are only made for the arrows that are shown.
+ * The grid and the bounds use the tip as it's drawn, rotated around X by the A angle.
+ */
+public class ArrowSet {
+    public static final double LENGTH = 1.6;
+    public static final double HALF_WIDTH = 0.4;
+    public static final int LEVELS = 12; // Level LEVELS holds the arrows closer then LENGTH to an other arrow
+    private static final int FIELDS = 8;
+    private static final long EMPTY = -1L;
+    private static final int CELL_BITS = 21;
+    private static final long CELL_MASK = (1L << CELL_BITS) - 1;
+
+    private float[] records = new float[FIELDS * 64];
+    private int size = 0;
+    private int[] levelEnd = null;
+    private double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, minZ = Double.MAX_VALUE;
+    private double maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE, maxZ = -Double.MAX_VALUE;
+
+    /**
+     * Add an arrow with it's tip at a position
+     *
+     * @param dx Direction of the move, does not need to be normalized
+     * @param a  Angle of the A axis in degrees
+     */
+    public void add(final double x, final double y, final double z, final double dx, final double dy, final double dz, final double a, final int type) {
+        final double length = Math.sqrt(dx * dx + dy * dy + dz * dz);
+        if (length == 0.0) {
+            return;
+        }
+        if (size * FIELDS == records.length) {
+            records = Arrays.copyOf(records, records.length * 2);
+        }
+        final int o = size * FIELDS;
+        records[o] = (float) x;
+        records[o + 1] = (float) y;
+        records[o + 2] = (float) z;
+        records[o + 3] = (float) (dx / length);
+        records[o + 4] = (float) (dy / length);
+        records[o + 5] = (float) (dz / length);
+        records[o + 6] = (float) a;
+        records[o + 7] = type;
+
+        final float[] tip = new float[3];
+        tip(size, tip, 0);
+        size++;
+
+        minX = Math.min(minX, tip[0]);
+        minY = Math.min(minY, tip[1]);
+        minZ = Math.min(minZ, tip[2]);
+        maxX = Math.max(maxX, tip[0]);
+        maxY = Math.max(maxY, tip[1]);
+        maxZ = Math.max(maxZ, tip[2]);
+    }
+
+    /**
+     * Give each arrow it's level and sort them by level, call once all arrows are added
+     */
+    public void finish() {
+        if (levelEnd != null) {
+            return;
+        }
+        final int[] level = new int[size];
+        Arrays.fill(level, LEVELS);
+        final long[] cells = new long[Integer.highestOneBit(Math.max(1, size)) * 4];
+        final float[] tips = new float[size * 3];
+        for (int i = 0; i < size; i++) {
+            tip(i, tips, i * 3);
+        }
+
+        for (int l = 0; l < LEVELS; l++) {
+            final double cell = getCellSize(l);
+            Arrays.fill(cells, EMPTY);
+            // Arrows of coarser levels already fill their cells
+            for (int i = 0; i < size; i++) {
+                if (level[i] < l) {
+                    insert(cells, key(tips, i, cell));
+                }
+            }
+            for (int i = 0; i < size; i++) {
+                if (level[i] == LEVELS && insert(cells, key(tips, i, cell))) {
+                    level[i] = l;
+                }
+            }
+        }
+
+        // Stable sort on level
+        levelEnd = new int[LEVELS + 1];
+        for (int i = 0; i < size; i++) {
+            levelEnd[level[i]]++;
+        }
+        final int[] next = new int[LEVELS + 1];
+        for (int l = 1; l <= LEVELS; l++) {
+            levelEnd[l] += levelEnd[l - 1];
+            next[l] = levelEnd[l - 1];
+        }
+        final float[] sorted = new float[size * FIELDS];
+        for (int i = 0; i < size; i++) {
+            System.arraycopy(records, i * FIELDS, sorted, next[level[i]]++ * FIELDS, FIELDS);
+        }
+        records = sorted;
+    }
+
+    private static long key(final float[] tips, final int i, final double cell) {
+        final long ix = (long) Math.floor(tips[i * 3] / cell) & CELL_MASK;
+        final long iy = (long) Math.floor(tips[i * 3 + 1] / cell) & CELL_MASK;
+        final long iz = (long) Math.floor(tips[i * 3 + 2] / cell) & CELL_MASK;
+        return (ix << (CELL_BITS * 2)) | (iy << CELL_BITS) | iz;
+    }
+
+    /**
+     * Insert a key in an open addressing set
+     *
+     * @return false when the key was already there
+     */
+    private static boolean insert(final long[] cells, final long key) {
+        final int mask = cells.length - 1;
+        int slot = (int) ((key * 0x9E3779B97F4A7C15L) >>> 40) & mask;
+        while (cells[slot] != EMPTY) {
+            if (cells[slot] == key) {
+                return false;
+            }
+            slot = (slot + 1) & mask;
+        }
+        cells[slot] = key;
+        return true;
+    }
+
+    public boolean isFinished() {
+        return levelEnd != null;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Size of the grid cells of a level, the last level has no grid and counts as half the level before
+     */
+    public static double getCellSize(final int level) {
+        return level >= LEVELS ? LENGTH / 2.0 : LENGTH * (1 << (LEVELS - 1 - level));
+    }
+
+    /**
+     * @return Number of arrows up to and including a level, these are the first arrows
+     */
+    public int getCount(final int level) {
+        return levelEnd[level];
+    }
+
+    /**
+     * @return Finest level that keeps arrows at least spacing apart
+     */
+    public static int selectLevel(final double spacing) {
+        int level = 0;
+        while (level < LEVELS && getCellSize(level + 1) >= spacing) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * Make triangles for a range of arrows, 3 vertices of 7 floats each per arrow
+     *
+     * @param colors RGBA color for each motion type
+     */
+    public void expand(final int from, final int to, final VertexBuilder out, final float[][] colors) {
+        final float[] v = new float[9];
+        for (int i = from; i < to; i++) {
+            triangle(i, v);
+            final float[] color = colors[(int) records[i * FIELDS + 7]];
+            for (int k = 0; k < 3; k++) {
+                out.add(v[k * 3], v[k * 3 + 1], v[k * 3 + 2]);
+                out.add(color[0], color[1], color[2], color[3]);
+            }
+        }
+    }
+
+    /**
+     * Corners of an arrow, the tip first followed by the two corners of it's base
+     */
+    void triangle(final int i, final float[] out) {
+        final int o = i * FIELDS;
+        final double dx = records[o + 3];
+        final double dy = records[o + 4];
+        final double dz = records[o + 5];
+
+        // The base is horizontal across the direction, vertical moves have their base along X
+        double sx = dy;
+        double sy = -dx;
+        final double s = Math.sqrt(sx * sx + sy * sy);
+        if (s < 1E-9) {
+            sx = 1.0;
+            sy = 0.0;
+        } else {
+            sx /= s;
+            sy /= s;
+        }
+
+        final double bx = records[o] - LENGTH * dx;
+        final double by = records[o + 1] - LENGTH * dy;
+        final double bz = records[o + 2] - LENGTH * dz;
+        final double a = Math.toRadians(records[o + 6]);
+        final double cos = Math.cos(a);
+        final double sin = Math.sin(a);
+        rotateA(records[o], records[o + 1], records[o + 2], cos, sin, out, 0);
+        rotateA(bx + HALF_WIDTH * sx, by + HALF_WIDTH * sy, bz, cos, sin, out, 3);
+        rotateA(bx - HALF_WIDTH * sx, by - HALF_WIDTH * sy, bz, cos, sin, out, 6);
+    }
+
+    /**
+     * Tip of an arrow rotated by it's A angle, the same as the first corner of it's triangle
+     */
+    private void tip(final int i, final float[] out, final int offset) {
+        final int o = i * FIELDS;
+        final double a = Math.toRadians(records[o + 6]);
+        rotateA(records[o], records[o + 1], records[o + 2], Math.cos(a), Math.sin(a), out, offset);
+    }
+
+    private static void rotateA(final double x, final double y, final double z, final double cos, final double sin, final float[] out, final int offset) {
+        out[offset] = (float) x;
+        out[offset + 1] = (float) (y * cos - z * sin);
+        out[offset + 2] = (float) (y * sin + z * cos);
+    }
+
+    public double getCenterX() {
+        return (minX + maxX) / 2.0;
+    }
+
+    public double getCenterY() {
+        return (minY + maxY) / 2.0;
+    }
+
+    public double getCenterZ() {
+        return (minZ + maxZ) / 2.0;
+    }
+
+    /**
+     * @return Position of the tip of an arrow as drawn for one axis, 0=X, 1=Y, 2=Z
+     */
+    public float get(final int arrow, final int axis) {
+        final float[] tip = new float[3];
+        tip(arrow, tip, 0);
+        return tip[axis];
+    }
+}
@@ -0,0 +1,357 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.opengl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.util.Arrays;
+
+/**
+ * A line strip of tool path vertices stored in 8 bytes per vertex.
+ * <p/>
+ * The strip is split in pages, a page is closed when it is full or when it spans more then a tile in X or Y. Pages
+ * are therefore small in space as well and can be culled on their bounds. Each vertex holds it's position as three 16 bit integers relative to the center of it's
+ * page, followed by a byte with the motion type and flags and a byte of padding. The center and scale of a page are
+ * applied with the model view matrix when drawn, so the GPU reads the shorts directly.
+ * <p/>
+ * Colors are not stored. When a page is complete the runs of vertices with the same motion type are found, each run is
+ * drawn in the color of it's type. A segment gets the type of the vertex it ends at. Every page after the first starts
+ * with a copy of the last vertex of the page before so the strip has no gaps between pages.
+ * <p/>
+ * Vertices are added by one thread. Completed pages can be read by other threads while the path grows, up to the page
+ * count at the time of reading.
+ */
+public class CompactPath {
+    public static final int VERTEX_BYTES = 8;
+    public static final int DEFAULT_PAGE_VERTICES = 8192;
+    public static final double DEFAULT_TILE_SIZE = 50.0;
+
+    public static final int RAPID = 0;
+    public static final int FEED = 1;
+    public static final int ARC = 2;
+    public static final int TYPE_MASK = 0x03;
+    public static final int BLOCK_END = 0x80; // Last vertex of a G-code block
+
+    private static final int QUANTUM = Short.MAX_VALUE;
+
+    private final int pageVertices;
+    private final double tileSize;
+    private final int tileVertices; // Pages smaller then this are not closed on their size, it keeps long moves together
+    private ByteBuffer[] pages = new ByteBuffer[16];
+    private double[] centers = new double[3 * 16];
+    private double[] scales = new double[3 * 16];
+    private double[] halfSizes = new double[3 * 16];
+    private int[] pageCounts = new int[16];
+    private int[] pageFirst = new int[16];
+    private long[] pageStart = new long[16];
+    private long storedVertices = 0;
+    private int[][] runs = new int[16][]; // Per page start, end and type of each run
+    private volatile int published = 0;
+
+    // Page being build, kept at full precision till it's complete
+    private final double[] pending;
+    private final byte[] pendingFlags;
+    private int pendingCount = 0;
+    private double pendingMinX, pendingMinY, pendingMaxX, pendingMaxY;
+    private int vertexCount = 0;
+
+    public CompactPath() {
+        this(DEFAULT_PAGE_VERTICES, DEFAULT_TILE_SIZE);
+    }
+
+    public CompactPath(final int pageVertices) {
+        this(pageVertices, Double.MAX_VALUE);
+    }
+
+    /**
+     * @param pageVertices Number of vertices stored in a page, including the copy of the last vertex of the page before
+     * @param tileSize     Size in X and Y a page grows to once it has an eight of it's vertices
+     */
+    public CompactPath(final int pageVertices, final double tileSize) {
+        if (pageVertices < 2) {
+            throw new IllegalArgumentException("A page needs room for at least two vertices");
+        }
+        this.pageVertices = pageVertices;
+        this.tileSize = tileSize;
+        this.tileVertices = Math.max(2, pageVertices / 8);
+        this.pending = new double[pageVertices * 3];
+        this.pendingFlags = new byte[pageVertices];
+    }
+
+    /**
+     * Add a vertex at the end of the strip
+     *
+     * @param type RAPID, FEED or ARC
+     */
+    public void add(final double x, final double y, final double z, final int type) {
+        if (pendingCount == pageVertices || (pendingCount >= tileVertices &&
+                (Math.max(pendingMaxX, x) - Math.min(pendingMinX, x) > tileSize || Math.max(pendingMaxY, y) - Math.min(pendingMinY, y) > tileSize))) {
+            flush();
+            // The new page continues from the last vertex of the page before
+            final int last = pendingCount - 1;
+            pending[0] = pending[last * 3];
+            pending[1] = pending[last * 3 + 1];
+            pending[2] = pending[last * 3 + 2];
+            pendingFlags[0] = pendingFlags[last];
+            pendingCount = 1;
+            pendingMinX = pendingMaxX = pending[0];
+            pendingMinY = pendingMaxY = pending[1];
+        }
+        if (pendingCount == 0) {
+            pendingMinX = pendingMaxX = x;
+            pendingMinY = pendingMaxY = y;
+        } else {
+            pendingMinX = Math.min(pendingMinX, x);
+            pendingMaxX = Math.max(pendingMaxX, x);
+            pendingMinY = Math.min(pendingMinY, y);
+            pendingMaxY = Math.max(pendingMaxY, y);
+        }
+        pending[pendingCount * 3] = x;
+        pending[pendingCount * 3 + 1] = y;
+        pending[pendingCount * 3 + 2] = z;
+        pendingFlags[pendingCount] = (byte) (type & TYPE_MASK);
+        pendingCount++;
+        vertexCount++;
+    }
+
+    /**
+     * Mark the last vertex added as the end of a G-code block
+     */
+    public void markBlockEnd() {
+        if (pendingCount > 0) {
+            pendingFlags[pendingCount - 1] |= (byte) BLOCK_END;
+        }
+    }
+
+    /**
+     * Encode the vertices that are not yet in a page, call once all vertices are added
+     */
+    public void finish() {
+        if (pendingCount > (published == 0 ? 0 : 1)) {
+            flush();
+            pendingCount = 0;
+        }
+    }
+
+    private void flush() {
+        final int page = published;
+        if (page == pages.length) {
+            pages = Arrays.copyOf(pages, pages.length * 2);
+            runs = Arrays.copyOf(runs, runs.length * 2);
+            centers = Arrays.copyOf(centers, centers.length * 2);
+            scales = Arrays.copyOf(scales, scales.length * 2);
+            halfSizes = Arrays.copyOf(halfSizes, halfSizes.length * 2);
+            pageCounts = Arrays.copyOf(pageCounts, pageCounts.length * 2);
+            pageFirst = Arrays.copyOf(pageFirst, pageFirst.length * 2);
+            pageStart = Arrays.copyOf(pageStart, pageStart.length * 2);
+        }
+
+        // Center and scale per axis so the page fits the range of a short
+        for (int axis = 0; axis < 3; axis++) {
+            double min = Double.MAX_VALUE;
+            double max = -Double.MAX_VALUE;
+            for (int i = 0; i < pendingCount; i++) {
+                min = Math.min(min, pending[i * 3 + axis]);
+                max = Math.max(max, pending[i * 3 + axis]);
+            }
+            centers[page * 3 + axis] = (min + max) / 2.0;
+            halfSizes[page * 3 + axis] = (max - min) / 2.0;
+            scales[page * 3 + axis] = max > min ? (max - min) / 2.0 / QUANTUM : 1.0;
+        }
+
+        final ByteBuffer buffer = ByteBuffer.allocateDirect(pendingCount * VERTEX_BYTES).order(ByteOrder.nativeOrder());
+        for (int i = 0; i < pendingCount; i++) {
+            for (int axis = 0; axis < 3; axis++) {
+                final long q = Math.round((pending[i * 3 + axis] - centers[page * 3 + axis]) / scales[page * 3 + axis]);
+                buffer.putShort((short) Math.max(-QUANTUM, Math.min(QUANTUM, q)));
+            }
+            buffer.put(pendingFlags[i]);
+            buffer.put((byte) 0);
+        }
+        buffer.flip();
+        pages[page] = buffer;
+        pageCounts[page] = pendingCount;
+        pageFirst[page] = vertexCount - pendingCount;
+        pageStart[page] = storedVertices;
+        storedVertices += pendingCount;
+        runs[page] = findRuns();
+        published = page + 1;
+    }
+
+    /**
+     * Runs of segments of the same type in the pending page, each run is drawn from the vertex before it's start
+     */
+    private int[] findRuns() {
+        int[] found = new int[3 * 4];
+        int count = 0;
+        int start = 1;
+        for (int i = 2; i <= pendingCount; i++) {
+            if (i == pendingCount || (pendingFlags[i] & TYPE_MASK) != (pendingFlags[start] & TYPE_MASK)) {
+                if (count * 3 == found.length) {
+                    found = Arrays.copyOf(found, found.length * 2);
+                }
+                found[count * 3] = start;
+                found[count * 3 + 1] = i - 1;
+                found[count * 3 + 2] = pendingFlags[start] & TYPE_MASK;
+                count++;
+                start = i;
+            }
+        }
+        return Arrays.copyOf(found, count * 3);
+    }
+
+    /**
+     * @return Number of vertices added
+     */
+    public int getVertexCount() {
+        return vertexCount;
+    }
+
+    /**
+     * @return Number of completed pages
+     */
+    public int getPageCount() {
+        return published;
+    }
+
+    /**
+     * @return Number of vertices stored in a page
+     */
+    public int getPageVertices(final int page) {
+        return pageCounts[page];
+    }
+
+    /**
+     * @return Index of the first vertex stored in a page, for pages after the first this is the copied vertex
+     */
+    public int getPageFirst(final int page) {
+        return pageFirst[page];
+    }
+
+    /**
+     * @return Offset of a page in bytes when all pages are stored after each other
+     */
+    public long getPageOffset(final int page) {
+        return pageStart[page] * VERTEX_BYTES;
+    }
+
+    /**
+     * @return Encoded vertices of a page, positioned at the start
+     */
+    public ByteBuffer getPage(final int page) {
+        return pages[page].duplicate().order(ByteOrder.nativeOrder());
+    }
+
+    /**
+     * @return Size of all completed pages in bytes
+     */
+    public long getByteSize() {
+        final int count = published;
+        return count == 0 ? 0 : (pageStart[count - 1] + pageCounts[count - 1]) * VERTEX_BYTES;
+    }
+
+    /**
+     * @return Center of a page for one axis, 0=X, 1=Y, 2=Z
+     */
+    public double getCenter(final int page, final int axis) {
+        return centers[page * 3 + axis];
+    }
+
+    /**
+     * @return Size of one step of the stored integers for one axis
+     */
+    public double getScale(final int page, final int axis) {
+        return scales[page * 3 + axis];
+    }
+
+    /**
+     * @return Half the size of the bounds of a page for one axis
+     */
+    public double getHalfSize(final int page, final int axis) {
+        return halfSizes[page * 3 + axis];
+    }
+
+    public int getRunCount(final int page) {
+        return runs[page].length / 3;
+    }
+
+    /**
+     * @return First vertex in the page of a run, the segment to it starts at the vertex before
+     */
+    public int getRunStart(final int page, final int run) {
+        return runs[page][run * 3];
+    }
+
+    /**
+     * @return Last vertex in the page of a run
+     */
+    public int getRunEnd(final int page, final int run) {
+        return runs[page][run * 3 + 1];
+    }
+
+    public int getRunType(final int page, final int run) {
+        return runs[page][run * 3 + 2];
+    }
+
+    /**
+     * Decode the position of a vertex of a page
+     *
+     * @param out Receives x, y and z
+     */
+    public void decode(final int page, final int vertex, final double[] out) {
+        final ByteBuffer buffer = pages[page];
+        for (int axis = 0; axis < 3; axis++) {
+            out[axis] = centers[page * 3 + axis] + buffer.getShort(vertex * VERTEX_BYTES + axis * 2) * scales[page * 3 + axis];
+        }
+    }
+
+    /**
+     * @return Type and flags of a vertex of a page
+     */
+    public int getFlags(final int page, final int vertex) {
+        return pages[page].get(vertex * VERTEX_BYTES + 6) & 0xFF;
+    }
+
+    /**
+     * Release the encoded pages once they are uploaded, everything needed to draw them is kept
+     */
+    public void releasePages() {
+        Arrays.fill(pages, null);
+    }
+}
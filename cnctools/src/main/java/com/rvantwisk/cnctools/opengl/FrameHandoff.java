@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.opengl;
+
+import java.nio.ByteBuffer;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.atomic.AtomicLong;
+
+/**
+ * Triple buffered hand over of frames from a producing thread to a consuming thread, neither of them ever waits.
+ * <p/>
+ * The producer owns the back buffer and the consumer the front buffer, the third buffer is swapped with either of them.
+ * Publishing swaps the back buffer in and marks it fresh, when the buffer swapped out was still fresh the consumer never
+ * saw that frame and it is counted as dropped. Acquiring swaps the front buffer with a fresh buffer.
+ */
+public class FrameHandoff {
+    private static final int INDEX = 0x03;
+    private static final int FRESH = 0x04;
+
+    private final ByteBuffer[] buffers = new ByteBuffer[3];
+    private final int[] widths = new int[3];
+    private final int[] heights = new int[3];
+    private final int[] strides = new int[3];
+
+    private final AtomicInteger middle = new AtomicInteger(1);
+    private final AtomicLong published = new AtomicLong();
+    private final AtomicLong dropped = new AtomicLong();
+    private int back = 0;
+    private int front = 2;
+
+    /**
+     * Copy a frame in the back buffer and publish it, called by the producer
+     *
+     * @param data Pixels from it's position, stride bytes per row
+     */
+    public void publish(final int width, final int height, final ByteBuffer data, final int stride) {
+        final ByteBuffer source = data.duplicate();
+        source.limit(Math.min(source.limit(), source.position() + stride * height));
+
+        ByteBuffer buffer = buffers[back];
+        if (buffer == null || buffer.capacity() < source.remaining()) {
+            buffer = ByteBuffer.allocateDirect(source.remaining());
+            buffers[back] = buffer;
+        }
+        buffer.clear();
+        buffer.put(source);
+        buffer.flip();
+        widths[back] = width;
+        heights[back] = height;
+        strides[back] = stride;
+
+        final int previous = middle.getAndSet(back | FRESH);
+        back = previous & INDEX;
+        published.incrementAndGet();
+        if ((previous & FRESH) != 0) {
+            dropped.incrementAndGet();
+        }
+    }
+
+    /**
+     * Make the newest published frame the front buffer, called by the consumer
+     *
+     * @return false when no frame was published since the last call
+     */
+    public boolean acquire() {
+        if ((middle.get() & FRESH) == 0) {
+            return false;
+        }
+        front = middle.getAndSet(front) & INDEX;
+        return true;
+    }
+
+    /**
+     * @return Pixels of the front buffer, only valid for the consumer after acquire returned true
+     */
+    public ByteBuffer getPixels() {
+        return buffers[front].duplicate();
+    }
+
+    public int getWidth() {
+        return widths[front];
+    }
+
+    public int getHeight() {
+        return heights[front];
+    }
+
+    public int getStride() {
+        return strides[front];
+    }
+
+    public long getPublishedFrames() {
+        return published.get();
+    }
+
+    /**
+     * @return Frames replaced by a newer frame before the consumer took them
+     */
+    public long getDroppedFrames() {
+        return dropped.get();
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.opengl;
+
+import java.nio.FloatBuffer;
+
+/**
+ * The six planes of the view volume of a model view and projection matrix, used to skip geometry that is not on screen.
+ * Planes are taken from the rows of the combined matrix, the normals point into the volume.
+ */
+public class Frustum {
+    private final double[] planes = new double[6 * 4];
+    private final double[] clip = new double[16];
+
+    /**
+     * @param modelView  Column major model view matrix
+     * @param projection Column major projection matrix
+     */
+    public void update(final FloatBuffer modelView, final FloatBuffer projection) {
+        for (int column = 0; column < 4; column++) {
+            for (int row = 0; row < 4; row++) {
+                double sum = 0.0;
+                for (int k = 0; k < 4; k++) {
+                    sum += projection.get(k * 4 + row) * modelView.get(column * 4 + k);
+                }
+                clip[column * 4 + row] = sum;
+            }
+        }
+
+        // Left, right, bottom, top, near and far are the fourth row plus or minus one of the others
+        for (int p = 0; p < 6; p++) {
+            final int row = p / 2;
+            final double sign = p % 2 == 0 ? 1.0 : -1.0;
+            double length = 0.0;
+            for (int column = 0; column < 4; column++) {
+                planes[p * 4 + column] = clip[column * 4 + 3] + sign * clip[column * 4 + row];
+                if (column < 3) {
+                    length += planes[p * 4 + column] * planes[p * 4 + column];
+                }
+            }
+            length = Math.sqrt(length);
+            if (length > 0.0) {
+                for (int column = 0; column < 4; column++) {
+                    planes[p * 4 + column] /= length;
+                }
+            }
+        }
+    }
+
+    /**
+     * @return false when a box is completely outside the view volume, true when it might be inside
+     */
+    public boolean intersects(final double centerX, final double centerY, final double centerZ,
+                              final double halfX, final double halfY, final double halfZ) {
+        for (int p = 0; p < 6; p++) {
+            final double nx = planes[p * 4];
+            final double ny = planes[p * 4 + 1];
+            final double nz = planes[p * 4 + 2];
+            final double distance = nx * centerX + ny * centerY + nz * centerZ + planes[p * 4 + 3];
+            final double reach = Math.abs(nx) * halfX + Math.abs(ny) * halfY + Math.abs(nz) * halfZ;
+            if (distance < -reach) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * @return false when a page of a path is outside the view volume
+     */
+    public boolean intersects(final CompactPath path, final int page) {
+        return intersects(path.getCenter(page, 0), path.getCenter(page, 1), path.getCenter(page, 2),
+                path.getHalfSize(page, 0), path.getHalfSize(page, 1), path.getHalfSize(page, 2));
+    }
+}
@@ -38,231 +38,148 @@
 
 package com.rvantwisk.cnctools.opengl;
 
+import org.lwjgl.BufferUtils;
+import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL15;
+
+import java.nio.FloatBuffer;
+import java.nio.IntBuffer;
+
 /**
- * Created by rvt on 1/19/14.
+ * Batched screen aligned labels drawn from a glyph atlas.
+ * <p/>
+ * Labels are anchored at a point in the space of the matrices taken by setTransform, and collected during a frame. draw
+ * puts all of them in one buffer and draws them with a single call on top of the scene.
  */
 public class GLText {
+    private final GlyphAtlas atlas;
+    private final FloatBuffer modelView = BufferUtils.createFloatBuffer(16);
+    private final FloatBuffer projection = BufferUtils.createFloatBuffer(16);
+    private final IntBuffer viewport = BufferUtils.createIntBuffer(16);
+    private FloatBuffer vertices = BufferUtils.createFloatBuffer(GlyphAtlas.FLOATS_PER_QUAD * 256);
+    private int textureID = -1;
+    private int vbID = -1;
+    private int quads = 0;
+
+    public GLText(final GlyphAtlas atlas) {
+        this.atlas = atlas;
+    }
 
+    /**
+     * Upload the atlas, call from the GL thread
+     */
+    public void initialize() {
+        textureID = GL11.glGenTextures();
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureID);
+        GL11.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 1);
+        GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_ALPHA, atlas.getWidth(), atlas.getHeight(), 0, GL11.GL_ALPHA, GL11.GL_UNSIGNED_BYTE, atlas.getPixels());
+        GL11.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 4);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_NEAREST);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_NEAREST);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL11.GL_CLAMP);
+        GL11.glTexParameteri(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL11.GL_CLAMP);
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+
+        IntBuffer buffer = BufferUtils.createIntBuffer(1);
+        GL15.glGenBuffers(buffer);
+        vbID = buffer.get(0);
+    }
 
-/*
-    public class SpinningTextureCube {
-        long lastFrame;
-        int fps;
-        long lastFPS;
-        int windowWidth = 800;
-        int windowHeight = 600;
-        float xRotation = 0f;
-        float yRotation = 0f;
-        IntBuffer cubeTextureIDs = BufferUtils.createIntBuffer(6);
-        int textureWidth = 200;
-        int textureHeight = 200;
-        ByteBuffer [] textureBuffers;
-
-        public void start() {
-
-            try {
-                Display.setDisplayMode(new DisplayMode(windowWidth, windowHeight));
-                Display.create();
-            } catch (LWJGLException e) {
-                e.printStackTrace();
-                System.exit(0);
-            }
-            initGL(); // init OpenGL
-            getDelta(); // call once before loop to initialise lastFrame
-            lastFPS = getTime();
-
-            while (!Display.isCloseRequested()) {
-                int delta = getDelta();
-
-                update(delta);
-                renderGL();
-
-                Display.update();
-                Display.sync(60); // cap fps to 60fps
-            }
-
-            Display.destroy();
-        }
-
-
-        public void renderGL() {
-            // Clear The Screen And The Depth Buffer
-            GL11.glClear(GL11.GL_COLOR_BUFFER_BIT | GL11.GL_DEPTH_BUFFER_BIT);
-            // R,G,B,A Set The Color To Blue One Time Only
-            GL11.glColor3f(0.5f, 0.5f, 1.0f);
-
-            // draw quad
-            GL11.glPushMatrix();
-            GL11.glRotatef(xRotation, 1, 0, 0);
-            GL11.glRotatef(yRotation, 0, 1, 0);
-
-            // top
-            GL11.glBindTexture(GL11.GL_TEXTURE_2D, cubeTextureIDs.get(0));
-            GL11.glBegin(GL11.GL_QUADS);
-            GL11.glTexCoord2f(0, 0); GL11.glVertex3f(-1, -1, 1);
-            GL11.glTexCoord2f(0, 1); GL11.glVertex3f(1, -1, 1);
-            GL11.glTexCoord2f(1, 1); GL11.glVertex3f(1, 1, 1);
-            GL11.glTexCoord2f(1, 0); GL11.glVertex3f(-1, 1, 1);
-            GL11.glEnd();
-            //left
-            GL11.glBindTexture(GL11.GL_TEXTURE_2D, cubeTextureIDs.get(1));
-            GL11.glBegin(GL11.GL_QUADS);
-            GL11.glTexCoord2f(0, 0); GL11.glVertex3f(-1, -1, -1);
-            GL11.glTexCoord2f(0, 1); GL11.glVertex3f(-1, -1, 1);
-            GL11.glTexCoord2f(1, 1); GL11.glVertex3f(-1, 1, 1);
-            GL11.glTexCoord2f(1, 0); GL11.glVertex3f(-1, 1, -1);
-            GL11.glEnd();
-            //right
-            GL11.glBindTexture(GL11.GL_TEXTURE_2D, cubeTextureIDs.get(2));
-            GL11.glBegin(GL11.GL_QUADS);
-            GL11.glTexCoord2f(0, 0); GL11.glVertex3f(1, -1, -1);
-            GL11.glTexCoord2f(0, 1); GL11.glVertex3f(1, 1, -1);
-            GL11.glTexCoord2f(1, 1); GL11.glVertex3f(1, 1, 1);
-            GL11.glTexCoord2f(1, 0); GL11.glVertex3f(1, -1, 1);
-            GL11.glEnd();
-            //front
-            GL11.glBindTexture(GL11.GL_TEXTURE_2D, cubeTextureIDs.get(3));
-            GL11.glBegin(GL11.GL_QUADS);
-            GL11.glTexCoord2f(0, 0); GL11.glVertex3f(-1, -1, -1);
-            GL11.glTexCoord2f(0, 1); GL11.glVertex3f(1, -1, -1);
-            GL11.glTexCoord2f(1, 1); GL11.glVertex3f(1, -1, 1);
-            GL11.glTexCoord2f(1, 0); GL11.glVertex3f(-1, -1, 1);
-            GL11.glEnd();
-            //back
-            GL11.glBindTexture(GL11.GL_TEXTURE_2D, cubeTextureIDs.get(4));
-            GL11.glBegin(GL11.GL_QUADS);
-            GL11.glTexCoord2f(0, 0); GL11.glVertex3f(1, 1, -1);
-            GL11.glTexCoord2f(0, 1); GL11.glVertex3f(-1, 1, -1);
-            GL11.glTexCoord2f(1, 1); GL11.glVertex3f(-1, 1, 1);
-            GL11.glTexCoord2f(1, 0); GL11.glVertex3f(1, 1, 1);
-            GL11.glEnd();
-            //bottom
-            GL11.glBindTexture(GL11.GL_TEXTURE_2D, cubeTextureIDs.get(5));
-            GL11.glBegin(GL11.GL_QUADS);
-            GL11.glTexCoord2f(0, 0); GL11.glVertex3f(1, -1, -1);
-            GL11.glTexCoord2f(0, 1); GL11.glVertex3f(-1, -1, -1);
-            GL11.glTexCoord2f(1, 1); GL11.glVertex3f(-1, 1, -1);
-            GL11.glTexCoord2f(1, 0); GL11.glVertex3f(1, 1, -1);
-            GL11.glEnd();
-
-            GL11.glPopMatrix();
-        }
-        public void update(int delta) {
-            xRotation += 0.01 * delta;
-            if (xRotation > 360f)
-                xRotation = 0;
-            yRotation += 0.02 * delta;
-            if (yRotation > 360f)
-                yRotation = 0;
-            createTextures();
-            updateFPS(); // update FPS Counter
-        }
-        public int getDelta() {
-            long time = getTime();
-            int delta = (int) (time - lastFrame);
-            lastFrame = time;
+    /**
+     * Take the current matrices and viewport for the labels added after this
+     */
+    public void setTransform() {
+        GL11.glGetFloat(GL11.GL_MODELVIEW_MATRIX, modelView);
+        GL11.glGetFloat(GL11.GL_PROJECTION_MATRIX, projection);
+        GL11.glGetInteger(GL11.GL_VIEWPORT, viewport);
+    }
 
-            return delta;
-        }
-        public long getTime() {
-            return (Sys.getTime() * 1000) / Sys.getTimerResolution();
+    /**
+     * Add a label with the start of it's baseline at a point, labels behind the eye are skipped
+     */
+    public void add(final String text, final float x, final float y, final float z, final float r, final float g, final float b, final float a) {
+        // Eye coordinates
+        final float ex = modelView.get(0) * x + modelView.get(4) * y + modelView.get(8) * z + modelView.get(12);
+        final float ey = modelView.get(1) * x + modelView.get(5) * y + modelView.get(9) * z + modelView.get(13);
+        final float ez = modelView.get(2) * x + modelView.get(6) * y + modelView.get(10) * z + modelView.get(14);
+        final float ew = modelView.get(3) * x + modelView.get(7) * y + modelView.get(11) * z + modelView.get(15);
+        // Clip coordinates
+        final float cx = projection.get(0) * ex + projection.get(4) * ey + projection.get(8) * ez + projection.get(12) * ew;
+        final float cy = projection.get(1) * ex + projection.get(5) * ey + projection.get(9) * ez + projection.get(13) * ew;
+        final float cw = projection.get(3) * ex + projection.get(7) * ey + projection.get(11) * ez + projection.get(15) * ew;
+        if (cw <= 0.0f) {
+            return;
         }
-        public void updateFPS() {
-            if (getTime() - lastFPS > 1000) {
-                Display.setTitle("FPS: " + fps);
-                fps = 0;
-                lastFPS += 1000;
-            }
-            fps++;
+        // Whole pixels keep the glyphs sharp
+        final float wx = Math.round(viewport.get(0) + (cx / cw + 1.0f) * 0.5f * viewport.get(2));
+        final float wy = Math.round(viewport.get(1) + (cy / cw + 1.0f) * 0.5f * viewport.get(3));
+
+        final int needed = text.length() * GlyphAtlas.FLOATS_PER_QUAD;
+        if (vertices.remaining() < needed) {
+            final FloatBuffer grown = BufferUtils.createFloatBuffer(Math.max(vertices.capacity() * 2, vertices.position() + needed));
+            vertices.flip();
+            grown.put(vertices);
+            vertices = grown;
         }
-        public ByteBuffer createTimeTexture(int side)
-        {
-            String title = "";
-            switch (side)
-            {
-                case 0:
-                    title = "top";
-                    break;
-                case 1:
-                    title = "left";
-                    break;
-                case 2:
-                    title = "right";
-                    break;
-                case 3:
-                    title = "front";
-                    break;
-                case 4:
-                    title = "back";
-                    break;
-                case 5:
-                    title = "bottom";
-                    break;
-            }
-            SimpleDateFormat sdf = new SimpleDateFormat("HH:mm:ss.SSS");
-            String dateString = sdf.format(Calendar.getInstance().getTime());
+        quads += atlas.layout(text, wx, wy, r, g, b, a, vertices);
+    }
 
-            ByteBuffer bb = ByteBuffer.allocateDirect(textureHeight * textureWidth * 3);
-            BufferedImage bi = new BufferedImage(textureWidth, textureHeight, BufferedImage.TYPE_3BYTE_BGR);
-            Graphics g = bi.getGraphics();
-            g.setColor(Color.white);
-            g.fillRect(0, 0, textureWidth - 1, textureHeight - 1);
-            g.setColor(new Color(0f, 0.3f, 0.8f));
-            g.drawRect(0, 0, textureWidth - 1, textureHeight - 1);
-            Font font = new Font("Dialog", Font.BOLD, 12);
-            Graphics2D g2d = (Graphics2D)g;
-            g2d.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING,
-                    RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
-            g.setFont(font);
-            g.drawString(title, 5, 20);
-            g.drawString(dateString, 5, 40);
-            byte[] data = ((DataBufferByte) bi.getRaster().getDataBuffer()).getData();
-            bb.order(ByteOrder.nativeOrder());
-            bb.put(data, 0, data.length);
-            bb.flip();
-            return bb;
-        }
-        public void createTextures()
-        {
-            byte [] rawData = new byte[textureHeight * textureWidth * 3];
-            Random rand = new Random();
-            textureBuffers = new ByteBuffer[cubeTextureIDs.limit()];
-            for (int i = 0; i < cubeTextureIDs.limit(); i++)
-            {
-                textureBuffers[i] = createTimeTexture(i);
-                GL11.glBindTexture(GL11.GL_TEXTURE_2D, cubeTextureIDs.get(i));
-                GL11.glTexImage2D(GL11.GL_TEXTURE_2D, 0, GL11.GL_RGB, textureWidth, textureHeight, 0,
-                        GL11.GL_RGB, GL11.GL_UNSIGNED_BYTE, textureBuffers[i]);
-                GL11.glTexParameterf(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_S, GL11.GL_CLAMP);
-                GL11.glTexParameterf(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_WRAP_T, GL11.GL_CLAMP);
-                GL11.glTexParameterf(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MAG_FILTER, GL11.GL_NEAREST);
-                GL11.glTexParameterf(GL11.GL_TEXTURE_2D, GL11.GL_TEXTURE_MIN_FILTER, GL11.GL_NEAREST);
-                GL11.glTexEnvi(GL11.GL_TEXTURE_ENV, GL11.GL_TEXTURE_ENV_MODE, GL11.GL_DECAL);
-            }
+    /**
+     * Draw all labels added since the last draw in window coordinates
+     */
+    public void draw() {
+        if (quads == 0) {
+            vertices.clear();
+            return;
         }
-        public void initGL() {
-            GL11.glViewport(0, 0, windowWidth, windowHeight);
-            GL11.glMatrixMode(GL11.GL_PROJECTION);
-            GL11.glLoadIdentity();
-            GLU.gluPerspective(	60.0f, (float)windowWidth/(float)windowHeight, 1f, 30f);
-            GL11.glTranslatef(0, 0, -5f);
-            GL11.glMatrixMode(GL11.GL_MODELVIEW);
-            GL11.glLoadIdentity();
+        vertices.flip();
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbID);
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, vertices, GL15.GL_STREAM_DRAW);
+
+        GL11.glMatrixMode(GL11.GL_PROJECTION);
+        GL11.glPushMatrix();
+        GL11.glLoadIdentity();
+        GL11.glOrtho(viewport.get(0), viewport.get(0) + viewport.get(2), viewport.get(1), viewport.get(1) + viewport.get(3), -1, 1);
+        GL11.glMatrixMode(GL11.GL_MODELVIEW);
+        GL11.glPushMatrix();
+        GL11.glLoadIdentity();
+        GL11.glPushAttrib(GL11.GL_ENABLE_BIT);
+        GL11.glDisable(GL11.GL_DEPTH_TEST);
+        GL11.glDisable(GL11.GL_CULL_FACE);
+        GL11.glDisable(GL11.GL_LIGHTING);
+        GL11.glEnable(GL11.GL_BLEND);
+        GL11.glEnable(GL11.GL_TEXTURE_2D);
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, textureID);
+
+        final int stride = GlyphAtlas.FLOATS_PER_VERTEX * VertexBuilder.SIZE_FLOAT;
+        GL11.glEnableClientState(GL11.GL_VERTEX_ARRAY);
+        GL11.glEnableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+        GL11.glEnableClientState(GL11.GL_COLOR_ARRAY);
+        GL11.glVertexPointer(2, GL11.GL_FLOAT, stride, 0);
+        GL11.glTexCoordPointer(2, GL11.GL_FLOAT, stride, 2 * VertexBuilder.SIZE_FLOAT);
+        GL11.glColorPointer(4, GL11.GL_FLOAT, stride, 4 * VertexBuilder.SIZE_FLOAT);
+        GL11.glDrawArrays(GL11.GL_QUADS, 0, quads * 4);
+        GL11.glDisableClientState(GL11.GL_COLOR_ARRAY);
+        GL11.glDisableClientState(GL11.GL_TEXTURE_COORD_ARRAY);
+        GL11.glDisableClientState(GL11.GL_VERTEX_ARRAY);
+
+        GL11.glBindTexture(GL11.GL_TEXTURE_2D, 0);
+        GL11.glPopAttrib();
+        GL11.glPopMatrix();
+        GL11.glMatrixMode(GL11.GL_PROJECTION);
+        GL11.glPopMatrix();
+        GL11.glMatrixMode(GL11.GL_MODELVIEW);
+
+        vertices.clear();
+        quads = 0;
+    }
 
-            GL11.glClearColor(0, 0, 0, 0);
-            GL11.glEnable(GL11.GL_DEPTH_TEST);
-            GL11.glDepthFunc(GL11.GL_LEQUAL);
-            GL11.glEnable(GL11.GL_TEXTURE_2D);
-            GL11.glShadeModel(GL11.GL_FLAT);
-            GL11.glPixelStorei(GL11.GL_UNPACK_ALIGNMENT, 1);
-            GL11.glGenTextures(cubeTextureIDs);
-            createTextures();
+    public void destroy() {
+        if (textureID != -1) {
+            GL11.glDeleteTextures(textureID);
         }
-        public static void main(String [] args)
-        {
-            SpinningTextureCube lTest = new SpinningTextureCube();
-            lTest.start();
+        if (vbID != -1) {
+            GL15.glDeleteBuffers(vbID);
         }
     }
-    */
 }
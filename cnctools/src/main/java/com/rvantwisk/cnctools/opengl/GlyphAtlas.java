@@ -0,0 +1,191 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.opengl;
+
+import java.awt.*;
+import java.awt.image.BufferedImage;
+import java.awt.image.DataBufferByte;
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+/**
+ * Printable ASCII glyphs of a font rasterized once into a single alpha image.
+ * <p/>
+ * Each glyph is a cell as wide as it's advance and as high as a line, so laying out text is placing one quad per
+ * character next to the one before. Characters outside the atlas are drawn as a question mark.
+ */
+public class GlyphAtlas {
+    public static final char FIRST = 32;
+    public static final char LAST = 126;
+    public static final int FLOATS_PER_VERTEX = 8; // x, y, u, v, r, g, b, a
+    public static final int FLOATS_PER_QUAD = FLOATS_PER_VERTEX * 4;
+    private static final int WIDTH = 256;
+    private static final int PADDING = 1;
+
+    private final int height;
+    private final ByteBuffer pixels;
+    private final int lineHeight;
+    private final int descent;
+    private final int[] advance = new int[LAST - FIRST + 1];
+    private final float[] u0 = new float[LAST - FIRST + 1];
+    private final float[] v0 = new float[LAST - FIRST + 1];
+    private final float[] u1 = new float[LAST - FIRST + 1];
+    private final float[] v1 = new float[LAST - FIRST + 1];
+
+    public GlyphAtlas() {
+        this(new Font(Font.SANS_SERIF, Font.BOLD, 12));
+    }
+
+    public GlyphAtlas(final Font font) {
+        // Measure on a scratch image
+        final Graphics2D scratch = new BufferedImage(1, 1, BufferedImage.TYPE_BYTE_GRAY).createGraphics();
+        scratch.setFont(font);
+        final FontMetrics metrics = scratch.getFontMetrics();
+        lineHeight = metrics.getAscent() + metrics.getDescent();
+        descent = metrics.getDescent();
+        scratch.dispose();
+
+        // Pack the cells in rows
+        final int[] cellX = new int[advance.length];
+        final int[] cellY = new int[advance.length];
+        int x = PADDING;
+        int y = PADDING;
+        for (int i = 0; i < advance.length; i++) {
+            advance[i] = metrics.charWidth((char) (FIRST + i));
+            if (x + advance[i] + PADDING > WIDTH) {
+                x = PADDING;
+                y += lineHeight + PADDING;
+            }
+            cellX[i] = x;
+            cellY[i] = y;
+            x += advance[i] + PADDING;
+        }
+        height = Integer.highestOneBit(y + lineHeight + PADDING - 1) * 2;
+
+        final BufferedImage image = new BufferedImage(WIDTH, height, BufferedImage.TYPE_BYTE_GRAY);
+        final Graphics2D g = image.createGraphics();
+        g.setRenderingHint(RenderingHints.KEY_TEXT_ANTIALIASING, RenderingHints.VALUE_TEXT_ANTIALIAS_ON);
+        g.setColor(Color.WHITE);
+        g.setFont(font);
+        for (int i = 0; i < advance.length; i++) {
+            g.drawString(String.valueOf((char) (FIRST + i)), cellX[i], cellY[i] + metrics.getAscent());
+            u0[i] = (float) cellX[i] / WIDTH;
+            u1[i] = (float) (cellX[i] + advance[i]) / WIDTH;
+            v0[i] = (float) cellY[i] / height;
+            v1[i] = (float) (cellY[i] + lineHeight) / height;
+        }
+        g.dispose();
+
+        final byte[] data = ((DataBufferByte) image.getRaster().getDataBuffer()).getData();
+        pixels = ByteBuffer.allocateDirect(data.length);
+        pixels.put(data);
+        pixels.flip();
+    }
+
+    private static int glyph(final char c) {
+        return c < FIRST || c > LAST ? '?' - FIRST : c - FIRST;
+    }
+
+    /**
+     * Add quads for a text, the first line has it's baseline at y and following lines go down
+     *
+     * @param out Receives FLOATS_PER_QUAD floats for each character that is not a space, must have room for all
+     * @return Number of quads added
+     */
+    public int layout(final String text, final float x, final float y, final float r, final float g, final float b, final float a, final FloatBuffer out) {
+        int quads = 0;
+        float penX = x;
+        float penY = y;
+        for (int n = 0; n < text.length(); n++) {
+            final char c = text.charAt(n);
+            if (c == '\n') {
+                penX = x;
+                penY -= lineHeight;
+                continue;
+            }
+            final int i = glyph(c);
+            if (c != ' ') {
+                final float bottom = penY - descent;
+                final float top = bottom + lineHeight;
+                final float right = penX + advance[i];
+                vertex(out, penX, bottom, u0[i], v1[i], r, g, b, a);
+                vertex(out, right, bottom, u1[i], v1[i], r, g, b, a);
+                vertex(out, right, top, u1[i], v0[i], r, g, b, a);
+                vertex(out, penX, top, u0[i], v0[i], r, g, b, a);
+                quads++;
+            }
+            penX += advance[i];
+        }
+        return quads;
+    }
+
+    private static void vertex(final FloatBuffer out, final float x, final float y, final float u, final float v, final float r, final float g, final float b, final float a) {
+        out.put(x).put(y).put(u).put(v).put(r).put(g).put(b).put(a);
+    }
+
+    /**
+     * @return Width of a single line of text in pixels
+     */
+    public int getTextWidth(final String text) {
+        int width = 0;
+        for (int n = 0; n < text.length(); n++) {
+            width += advance[glyph(text.charAt(n))];
+        }
+        return width;
+    }
+
+    public int getLineHeight() {
+        return lineHeight;
+    }
+
+    public int getWidth() {
+        return WIDTH;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    /**
+     * @return One alpha byte per pixel, rows from the top
+     */
+    public ByteBuffer getPixels() {
+        return pixels.duplicate();
+    }
+}
@@ -46,16 +46,44 @@ import org.lwjgl.util.stream.StreamHandler;
 
 import java.nio.ByteBuffer;
 import java.util.concurrent.Semaphore;
+import java.util.concurrent.atomic.AtomicBoolean;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Created by rvt on 12/9/13.
  */
 public class OpenGLImage extends ImageView {
-
+    private final AtomicLong droppedFrames = new AtomicLong();
 
     public StreamHandler getReadHandler() {
         return new StreamHandler() {
+            private final FrameHandoff frames = new FrameHandoff();
+            private final AtomicBoolean scheduled = new AtomicBoolean(false);
             private WritableImage renderImage;
+            private long dropped = 0;
+
+            // Shows the newest frame, runs on the JFX application thread
+            private final Runnable show = new Runnable() {
+                public void run() {
+                    scheduled.set(false);
+
+                    // If we're quitting, discard update
+                    if (!isVisible() || !frames.acquire())
+                        return;
+
+                    final int width = frames.getWidth();
+                    final int height = frames.getHeight();
+
+                    // Detect resize and recreate the image
+                    if (renderImage == null || (int) renderImage.getWidth() != width || (int) renderImage.getHeight() != height) {
+                        renderImage = new WritableImage(width, height);
+                        setImage(renderImage);
+                    }
+
+                    // Upload the image to JavaFX
+                    renderImage.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getByteBgraPreInstance(), frames.getPixels(), frames.getStride());
+                }
+            };
 
             public int getWidth() {
                 return (int) getFitWidth();
@@ -66,30 +94,27 @@ public class OpenGLImage extends ImageView {
             }
 
             public void process(final int width, final int height, final ByteBuffer data, final int stride, final Semaphore signal) {
-                // This method runs in the background rendering thread
-                // TODO: Run setPixels on the PlatformImage in this thread, run pixelsDirty on JFX application thread with runLater.
-                Platform.runLater(new Runnable() {
-                    public void run() {
-                        try {
-                            // If we're quitting, discard update
-                            if (!isVisible())
-                                return;
-
-                            // Detect resize and recreate the image
-                            if (renderImage == null || (int) renderImage.getWidth() != width || (int) renderImage.getHeight() != height) {
-                                renderImage = new WritableImage(width, height);
-                                setImage(renderImage);
-                            }
+                // This method runs in the background rendering thread, the frame is copied so the render stream can
+                // continue right away. Frames the JFX thread did not get to are replaced by newer ones
+                try {
+                    frames.publish(width, height, data, stride);
+                } finally {
+                    signal.release();
+                }
+                droppedFrames.addAndGet(frames.getDroppedFrames() - dropped);
+                dropped = frames.getDroppedFrames();
 
-                            // Upload the image to JavaFX
-                            renderImage.getPixelWriter().setPixels(0, 0, width, height, PixelFormat.getByteBgraPreInstance(), data, stride);
-                        } finally {
-                            // Notify the render thread that we're done processing
-                            signal.release();
-                        }
-                    }
-                });
+                if (scheduled.compareAndSet(false, true)) {
+                    Platform.runLater(show);
+                }
             }
         };
     }
+
+    /**
+     * @return Rendered frames that were never shown because a newer frame replaced them
+     */
+    public long getDroppedFrames() {
+        return droppedFrames.get();
+    }
 }
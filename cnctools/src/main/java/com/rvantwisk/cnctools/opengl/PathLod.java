@@ -0,0 +1,380 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.opengl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+import java.util.Arrays;
+
+/**
+ * Levels of detail of a CompactPath, build per page with Douglas-Peucker.
+ * <p/>
+ * Douglas-Peucker is run once per page down to a tolerance of zero, each vertex remembers the distance at which it was
+ * split off. That distance is limited by the distance of the split above it, so the vertices kept at a tolerance are
+ * exactly the vertices with a larger distance. Each level is stored as indices into the vertices of it's page, the
+ * removed vertices of a level are never further than the level's error from the line drawn.
+ * <p/>
+ * Vertices where the motion type changes are always kept so each level can be drawn in runs of one color.
+ */
+public class PathLod {
+    public static final int MAX_LEVELS = 9;
+    private static final double LEVEL_STEP = 4.0; // Error grows with this factor between levels
+    private static final double MIN_REDUCTION = 0.75; // A level must keep less then this part of the level below
+    private static final int INDEX_BYTES = 2;
+
+    private final CompactPath path;
+    private final int[] levelCount;
+    private final double[][] errors;
+    private final ShortBuffer[][] indices;
+    private final int[][] indexCount;
+    private final long[][] indexOffset;
+    private final int[][][] runs;
+    private long indexByteSize = 0;
+
+    /**
+     * Build the levels of a finished path, before it's pages are released
+     */
+    public PathLod(final CompactPath path) {
+        this.path = path;
+        final int pages = path.getPageCount();
+        levelCount = new int[pages];
+        errors = new double[pages][];
+        indices = new ShortBuffer[pages][];
+        indexCount = new int[pages][];
+        indexOffset = new long[pages][];
+        runs = new int[pages][][];
+
+        int maxVertices = 0;
+        for (int page = 0; page < pages; page++) {
+            maxVertices = Math.max(maxVertices, path.getPageVertices(page));
+        }
+        if (maxVertices > 65536) {
+            throw new IllegalArgumentException("Pages must fit unsigned short indices");
+        }
+        final double[] xyz = new double[maxVertices * 3];
+        final int[] types = new int[maxVertices];
+        final float[] importance = new float[maxVertices];
+        final int[] stack = new int[maxVertices * 2];
+        final float[] stackImportance = new float[maxVertices];
+        for (int page = 0; page < pages; page++) {
+            build(page, xyz, types, importance, stack, stackImportance);
+        }
+    }
+
+    private void build(final int page, final double[] xyz, final int[] types, final float[] importance, final int[] stack, final float[] stackImportance) {
+        final int n = path.getPageVertices(page);
+        final double[] out = new double[3];
+        for (int i = 0; i < n; i++) {
+            path.decode(page, i, out);
+            xyz[i * 3] = out[0];
+            xyz[i * 3 + 1] = out[1];
+            xyz[i * 3 + 2] = out[2];
+            types[i] = path.getFlags(page, i) & CompactPath.TYPE_MASK;
+        }
+
+        // Errors below a few steps of the stored integers can't be seen
+        final double minError = 2.0 * Math.max(path.getScale(page, 0), Math.max(path.getScale(page, 1), path.getScale(page, 2)));
+
+        importance[0] = Float.MAX_VALUE;
+        importance[n - 1] = Float.MAX_VALUE;
+        int forced = Math.min(n, 2);
+        int start = 0;
+        for (int i = 1; i < n; i++) {
+            if (i == n - 1 || types[i] != types[i + 1]) {
+                importance[i] = Float.MAX_VALUE;
+                if (i < n - 1) {
+                    forced++;
+                }
+                split(start, i, xyz, importance, stack, stackImportance, minError);
+                start = i;
+            }
+        }
+
+        // Levels with growing error, as long as they remove enough vertices
+        final double[] levelErrors = new double[MAX_LEVELS];
+        final int[] levelSizes = new int[MAX_LEVELS];
+        levelSizes[0] = n;
+        int levels = 1;
+        double error = minError;
+        for (int l = 1; l < MAX_LEVELS && levelSizes[levels - 1] > forced; l++, error *= LEVEL_STEP) {
+            int kept = 0;
+            for (int i = 0; i < n; i++) {
+                if (importance[i] > error) {
+                    kept++;
+                }
+            }
+            if (kept <= levelSizes[levels - 1] * MIN_REDUCTION) {
+                levelErrors[levels] = error;
+                levelSizes[levels] = kept;
+                levels++;
+            }
+        }
+
+        levelCount[page] = levels;
+        errors[page] = Arrays.copyOf(levelErrors, levels);
+        indexCount[page] = Arrays.copyOf(levelSizes, levels);
+        indices[page] = new ShortBuffer[levels];
+        indexOffset[page] = new long[levels];
+        runs[page] = new int[levels][];
+        for (int l = 1; l < levels; l++) {
+            final ShortBuffer buffer = ByteBuffer.allocateDirect(levelSizes[l] * INDEX_BYTES).order(ByteOrder.nativeOrder()).asShortBuffer();
+            int[] found = new int[3 * 4];
+            int count = 0;
+            int kept = 0;
+            int runStart = 1;
+            int runType = -1;
+            for (int i = 0; i < n; i++) {
+                if (importance[i] > levelErrors[l]) {
+                    buffer.put((short) i);
+                    // Each segment has the type of the vertex it ends at, all vertices it removed share that type
+                    if (kept > 0 && types[i] != runType) {
+                        if (runType >= 0) {
+                            found = addRun(found, count++, runStart, kept - 1, runType);
+                        }
+                        runStart = kept;
+                        runType = types[i];
+                    }
+                    kept++;
+                }
+            }
+            if (runType >= 0) {
+                found = addRun(found, count++, runStart, kept - 1, runType);
+            }
+            buffer.flip();
+            indices[page][l] = buffer;
+            indexOffset[page][l] = indexByteSize;
+            indexByteSize += (long) levelSizes[l] * INDEX_BYTES;
+            runs[page][l] = Arrays.copyOf(found, count * 3);
+        }
+    }
+
+    private static int[] addRun(int[] found, final int run, final int start, final int end, final int type) {
+        if (run * 3 == found.length) {
+            found = Arrays.copyOf(found, found.length * 2);
+        }
+        found[run * 3] = start;
+        found[run * 3 + 1] = end;
+        found[run * 3 + 2] = type;
+        return found;
+    }
+
+    /**
+     * Douglas-Peucker between two kept vertices, splits closer then minError are not followed
+     */
+    private static void split(final int first, final int last, final double[] xyz, final float[] importance, final int[] stack, final float[] stackImportance, final double minError) {
+        int top = 0;
+        stack[0] = first;
+        stack[1] = last;
+        stackImportance[0] = Float.MAX_VALUE;
+        top++;
+        while (top > 0) {
+            top--;
+            final int a = stack[top * 2];
+            final int b = stack[top * 2 + 1];
+            final float parent = stackImportance[top];
+            if (b - a < 2) {
+                continue;
+            }
+
+            int worst = a + 1;
+            double worstDistance = -1.0;
+            for (int i = a + 1; i < b; i++) {
+                final double d = distance(xyz, i, a, b);
+                if (d > worstDistance) {
+                    worstDistance = d;
+                    worst = i;
+                }
+            }
+
+            final float d = (float) Math.min(worstDistance, parent);
+            if (worstDistance < minError) {
+                // No level keeps any of these
+                for (int i = a + 1; i < b; i++) {
+                    importance[i] = d;
+                }
+                continue;
+            }
+            importance[worst] = d;
+            stack[top * 2] = a;
+            stack[top * 2 + 1] = worst;
+            stackImportance[top] = d;
+            top++;
+            stack[top * 2] = worst;
+            stack[top * 2 + 1] = b;
+            stackImportance[top] = d;
+            top++;
+        }
+    }
+
+    /**
+     * Distance of vertex i to the segment from a to b
+     */
+    private static double distance(final double[] xyz, final int i, final int a, final int b) {
+        final double dx = xyz[b * 3] - xyz[a * 3];
+        final double dy = xyz[b * 3 + 1] - xyz[a * 3 + 1];
+        final double dz = xyz[b * 3 + 2] - xyz[a * 3 + 2];
+        double px = xyz[i * 3] - xyz[a * 3];
+        double py = xyz[i * 3 + 1] - xyz[a * 3 + 1];
+        double pz = xyz[i * 3 + 2] - xyz[a * 3 + 2];
+        final double length2 = dx * dx + dy * dy + dz * dz;
+        if (length2 > 0.0) {
+            final double t = Math.max(0.0, Math.min(1.0, (px * dx + py * dy + pz * dz) / length2));
+            px -= t * dx;
+            py -= t * dy;
+            pz -= t * dz;
+        }
+        return Math.sqrt(px * px + py * py + pz * pz);
+    }
+
+    public CompactPath getPath() {
+        return path;
+    }
+
+    /**
+     * @return Number of levels of a page, level 0 are all vertices
+     */
+    public int getLevelCount(final int page) {
+        return levelCount[page];
+    }
+
+    /**
+     * @return Largest distance of a removed vertex to the line of a level
+     */
+    public double getError(final int page, final int level) {
+        return level == 0 ? 0.0 : errors[page][level];
+    }
+
+    public int getIndexCount(final int page, final int level) {
+        return indexCount[page][level];
+    }
+
+    /**
+     * @return Indices into the vertices of the page of a level above 0
+     */
+    public ShortBuffer getIndices(final int page, final int level) {
+        return indices[page][level].duplicate();
+    }
+
+    /**
+     * @return Offset of a level in bytes when the indices of all levels are stored after each other
+     */
+    public long getIndexOffset(final int page, final int level) {
+        return indexOffset[page][level];
+    }
+
+    public long getIndexByteSize() {
+        return indexByteSize;
+    }
+
+    public int getRunCount(final int page, final int level) {
+        return level == 0 ? path.getRunCount(page) : runs[page][level].length / 3;
+    }
+
+    /**
+     * @return Position of the first index of a run, the segment to it starts at the index before
+     */
+    public int getRunStart(final int page, final int level, final int run) {
+        return level == 0 ? path.getRunStart(page, run) : runs[page][level][run * 3];
+    }
+
+    public int getRunEnd(final int page, final int level, final int run) {
+        return level == 0 ? path.getRunEnd(page, run) : runs[page][level][run * 3 + 1];
+    }
+
+    public int getRunType(final int page, final int level, final int run) {
+        return level == 0 ? path.getRunType(page, run) : runs[page][level][run * 3 + 2];
+    }
+
+    /**
+     * Release the indices once they are uploaded
+     */
+    public void releaseIndices() {
+        for (final ShortBuffer[] page : indices) {
+            Arrays.fill(page, null);
+        }
+    }
+
+    /**
+     * @return Coarsest level of a page that stays within maxPixelError on screen
+     */
+    public int selectLevel(final int page, final double pixelsPerUnit, final double maxPixelError) {
+        int level = 0;
+        while (level + 1 < levelCount[page] && errors[page][level + 1] * pixelsPerUnit <= maxPixelError) {
+            level++;
+        }
+        return level;
+    }
+
+    /**
+     * @return Radius of a sphere around the center of a page that holds all it's vertices
+     */
+    public double getRadius(final int page) {
+        double r2 = 0.0;
+        for (int axis = 0; axis < 3; axis++) {
+            final double half = path.getHalfSize(page, axis);
+            r2 += half * half;
+        }
+        return Math.sqrt(r2);
+    }
+
+    /**
+     * Size on screen of a unit at the nearest point of a sphere, for a model view matrix that only rotates, translates
+     * and scales equally along all axis
+     *
+     * @param modelView      Column major model view matrix
+     * @param projection     Column major projection matrix, perspective or orthographic
+     * @param viewportHeight Height of the view port in pixels
+     * @return Pixels per unit, or Double.MAX_VALUE when the sphere reaches behind the eye
+     */
+    public static double pixelsPerUnit(final FloatBuffer modelView, final FloatBuffer projection, final int viewportHeight,
+                                       final double x, final double y, final double z, final double radius) {
+        final double scale = Math.sqrt(modelView.get(0) * modelView.get(0) + modelView.get(1) * modelView.get(1) + modelView.get(2) * modelView.get(2));
+        double w = 1.0;
+        if (projection.get(15) == 0.0f) {
+            final double eyeZ = modelView.get(2) * x + modelView.get(6) * y + modelView.get(10) * z + modelView.get(14);
+            w = -eyeZ - radius * scale;
+            if (w <= 0.0) {
+                return Double.MAX_VALUE;
+            }
+        }
+        return scale * Math.abs(projection.get(5)) * viewportHeight / 2.0 / w;
+    }
+}
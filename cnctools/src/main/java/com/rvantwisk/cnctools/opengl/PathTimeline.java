@@ -0,0 +1,210 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.opengl;
+
+import java.util.Arrays;
+
+/**
+ * Index of the G-code blocks of a tool path, build while parsing.
+ * <p/>
+ * For each block it keeps the number of path vertices up to it's end, the machine time and distance up to it's end and
+ * the position at it's end. A table from source line to block makes finding the vertices of any line a lookup.
+ * Blocks are published after they are added so the timeline can be read while the program is still parsed.
+ */
+public class PathTimeline {
+    private int[] vertexEnd = new int[1024];
+    private float[] time = new float[1024];
+    private float[] distance = new float[1024];
+    private float[] position = new float[1024 * 3];
+    private int[] lineBlocks = new int[1024]; // Number of blocks that end on or before a line
+    private int lines = 0;
+    private int size = 0;
+    private volatile int published = 0;
+    private double totalTime = 0.0;
+    private double totalDistance = 0.0;
+
+    /**
+     * Add a block
+     *
+     * @param line      Source line number of the block, not lower then the line of the block before
+     * @param vertices  Number of path vertices up to the end of the block
+     * @param x         Position at the end of the block
+     * @param length    Distance travelled in the block
+     * @param seconds   Machine time of the block
+     */
+    public void addBlock(final int line, final int vertices, final double x, final double y, final double z, final double length, final double seconds) {
+        if (size == vertexEnd.length) {
+            vertexEnd = Arrays.copyOf(vertexEnd, size * 2);
+            time = Arrays.copyOf(time, size * 2);
+            distance = Arrays.copyOf(distance, size * 2);
+            position = Arrays.copyOf(position, size * 6);
+        }
+        totalTime += seconds;
+        totalDistance += length;
+        vertexEnd[size] = vertices;
+        time[size] = (float) totalTime;
+        distance[size] = (float) totalDistance;
+        position[size * 3] = (float) x;
+        position[size * 3 + 1] = (float) y;
+        position[size * 3 + 2] = (float) z;
+
+        // Lines without a block count the blocks before them
+        if (line >= lineBlocks.length) {
+            lineBlocks = Arrays.copyOf(lineBlocks, Math.max(line + 1, lineBlocks.length * 2));
+        }
+        if (line >= lines) {
+            Arrays.fill(lineBlocks, lines, line, size);
+            lines = line + 1;
+        }
+        lineBlocks[line] = size + 1;
+
+        size++;
+        published = size;
+    }
+
+    /**
+     * Machine time of a block
+     *
+     * @param length      Distance travelled in the block
+     * @param feed        Feed rate, in units per minute or with inverse time in blocks per minute
+     * @param inverseTime Feed rate is inverse time (G93), the block takes 1/feed minutes whatever it's length
+     * @param rapid       Rapid move or a move without a feed rate, timed at rapidFeed
+     * @param rapidFeed   Units per minute
+     * @return Seconds
+     */
+    public static double blockTime(final double length, final double feed, final boolean inverseTime, final boolean rapid, final double rapidFeed) {
+        if (rapid || feed <= 0.0) {
+            return length / rapidFeed * 60.0;
+        }
+        return inverseTime ? 60.0 / feed : length / feed * 60.0;
+    }
+
+    /**
+     * @return Number of blocks that can be read
+     */
+    public int size() {
+        return published;
+    }
+
+    /**
+     * @return Number of path vertices up to the end of a block
+     */
+    public int getVertexEnd(final int block) {
+        return vertexEnd[block];
+    }
+
+    /**
+     * @return Machine time in seconds from the start up to the end of a block
+     */
+    public double getTime(final int block) {
+        return time[block];
+    }
+
+    /**
+     * @return Distance from the start up to the end of a block
+     */
+    public double getDistance(final int block) {
+        return distance[block];
+    }
+
+    /**
+     * @return Position at the end of a block for one axis, 0=X, 1=Y, 2=Z
+     */
+    public float getPosition(final int block, final int axis) {
+        return position[block * 3 + axis];
+    }
+
+    /**
+     * @return Machine time of all published blocks in seconds
+     */
+    public double getTotalTime() {
+        final int count = published;
+        return count == 0 ? 0.0 : time[count - 1];
+    }
+
+    /**
+     * @return Number of blocks that end on or before a source line
+     */
+    public int getBlocksUpToLine(final int line) {
+        final int count = published;
+        if (count == 0 || line < 0) {
+            return 0;
+        }
+        return line >= lines ? count : Math.min(count, lineBlocks[line]);
+    }
+
+    /**
+     * @return Block that runs at a machine time, size() once the time is past the end
+     */
+    public int getBlockAtTime(final double seconds) {
+        int low = 0;
+        int high = published;
+        // First block that ends at or after the time
+        while (low < high) {
+            final int mid = (low + high) >>> 1;
+            if (time[mid] < seconds) {
+                low = mid + 1;
+            } else {
+                high = mid;
+            }
+        }
+        return low;
+    }
+
+    /**
+     * Position at a machine time, moving in a straight line from the end of the block before
+     *
+     * @param out Receives x, y and z
+     */
+    public void getPosition(final double seconds, final float[] out) {
+        final int count = published;
+        if (count == 0) {
+            Arrays.fill(out, 0, 3, 0.0f);
+            return;
+        }
+        final int block = Math.min(getBlockAtTime(seconds), count - 1);
+        final float start = block == 0 ? 0.0f : time[block - 1];
+        final float duration = time[block] - start;
+        final float f = duration > 0.0f ? (float) Math.max(0.0, Math.min(1.0, (seconds - start) / duration)) : 1.0f;
+        for (int axis = 0; axis < 3; axis++) {
+            final float from = block == 0 ? position[axis] : position[(block - 1) * 3 + axis];
+            out[axis] = from + (position[block * 3 + axis] - from) * f;
+        }
+    }
+}
@@ -40,6 +40,7 @@ package com.rvantwisk.cnctools.opengl;
 
 import org.lwjgl.BufferUtils;
 import org.lwjgl.opengl.GL11;
+import org.lwjgl.opengl.GL14;
 import org.lwjgl.opengl.GL15;
 
 import java.nio.FloatBuffer;
@@ -57,54 +58,80 @@ public abstract class VBOHelper {
     protected float colorB = 1.0f;
     protected float colorA = 1.0f;
     protected boolean hasOwnColor = false;
-    protected float[] data;
 
     /**
-     * Cretae a VBO array with
+     * Create a VBO with a line strip
      *
-     * @param data Array of float
-     * @param i    Number of rows
-     * @param b    set if it has it's own color
+     * @param data     Vertex data, 7 floats per row when it has it's own color else 3
+     * @param ownColor set if it has it's own color
      * @return
      */
-    public static VBOHelper createLines(final float[] data, int i, boolean b) {
-        VBOHelper vbo = new GLLines();
-        vbo.vbRows = i;
-        vbo.hasOwnColor = b;
-        vbo.data = data;
+    public static VBOHelper createLines(final VertexBuilder data, final boolean ownColor) {
+        return upload(new GLLines(), data, ownColor);
+    }
+
+    public static VBOHelper createTriangles(final VertexBuilder data, final boolean ownColor) {
+        return upload(new GLTriangles(), data, ownColor);
+    }
+
+    private static VBOHelper upload(final VBOHelper vbo, final VertexBuilder data, final boolean ownColor) {
+        vbo.vbRows = data.rows();
+        vbo.hasOwnColor = ownColor;
 
         IntBuffer buffer = BufferUtils.createIntBuffer(1);
         GL15.glGenBuffers(buffer);
         vbo.vbID = buffer.get(0);
 
-        FloatBuffer vertex_buffer_data = BufferUtils.createFloatBuffer(vbo.data.length);
-        vertex_buffer_data.put(vbo.data);
-        vertex_buffer_data.rewind();
-
+        // The pages are uploaded as they are, a single page directly else the buffer is filled page by page
         GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo.vbID);
-        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, vertex_buffer_data, GL15.GL_STATIC_DRAW);
-        vbo.data = null;
+        if (data.getPageCount() == 1) {
+            GL15.glBufferData(GL15.GL_ARRAY_BUFFER, data.getPage(0), GL15.GL_STATIC_DRAW);
+        } else {
+            GL15.glBufferData(GL15.GL_ARRAY_BUFFER, data.getByteSize(), GL15.GL_STATIC_DRAW);
+            for (int i = 0; i < data.getPageCount(); i++) {
+                GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, data.getPageOffset(i), data.getPage(i));
+            }
+        }
 
         return vbo;
     }
 
-    public static VBOHelper createTriangles(final float[] data, int i, boolean b) {
-        VBOHelper vbo = new GLTriangles();
-        vbo.vbRows = i;
-        vbo.hasOwnColor = b;
-        vbo.data = data;
+    /**
+     * Create a VBO for a line strip from a compact path. The path can still grow, completed pages are added with
+     * GLPath.upload and the levels of detail with GLPath.setLod once the path is finished
+     *
+     * @param path   Path to draw
+     * @param colors RGBA color for each motion type
+     * @return
+     */
+    public static GLPath createPath(final CompactPath path, final float[][] colors) {
+        final GLPath vbo = new GLPath(path, colors);
 
         IntBuffer buffer = BufferUtils.createIntBuffer(1);
         GL15.glGenBuffers(buffer);
         vbo.vbID = buffer.get(0);
+        vbo.capacity = Math.max(GLPath.MIN_CAPACITY, path.getByteSize());
+        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo.vbID);
+        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, vbo.capacity, GL15.GL_DYNAMIC_DRAW);
 
-        FloatBuffer vertex_buffer_data = BufferUtils.createFloatBuffer(vbo.data.length);
-        vertex_buffer_data.put(vbo.data);
-        vertex_buffer_data.rewind();
+        return vbo;
+    }
 
-        GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbo.vbID);
-        GL15.glBufferData(GL15.GL_ARRAY_BUFFER, vertex_buffer_data, GL15.GL_STATIC_DRAW);
-        vbo.data = null;
+    /**
+     * Create a VBO for the direction arrows of a finished arrow set. Arrows are turned into triangles when the view
+     * first needs them
+     *
+     * @param arrows Arrows to draw
+     * @param colors RGBA color for each motion type
+     * @return
+     */
+    public static GLArrows createArrows(final ArrowSet arrows, final float[][] colors) {
+        final GLArrows vbo = new GLArrows(arrows, colors);
+
+        IntBuffer buffer = BufferUtils.createIntBuffer(1);
+        GL15.glGenBuffers(buffer);
+        vbo.vbID = buffer.get(0);
+        vbo.hasOwnColor = true;
 
         return vbo;
     }
@@ -160,6 +187,261 @@ public abstract class VBOHelper {
         }
     }
 
+    // Line strip VBO of a compact path, pages are appended to a persistent buffer while the path grows. Pages outside the
+    // view are skipped. Each page is scaled into place and drawn at the coarsest level that stays within MAX_PIXEL_ERROR
+    // on screen, each run in the color of it's type
+    public static class GLPath extends VBOHelper {
+        public static double MAX_PIXEL_ERROR = 0.5;
+        private static final long MIN_CAPACITY = 1L << 22;
+        private final CompactPath path;
+        private final float[][] colors;
+        private final FloatBuffer modelView = BufferUtils.createFloatBuffer(16);
+        private final FloatBuffer projection = BufferUtils.createFloatBuffer(16);
+        private final IntBuffer viewport = BufferUtils.createIntBuffer(16);
+        private final Frustum frustum = new Frustum();
+        private IntBuffer firsts = BufferUtils.createIntBuffer(16);
+        private IntBuffer counts = BufferUtils.createIntBuffer(16);
+        private PathLod lod = null;
+        private long capacity = 0;
+        private int uploadedPages = 0;
+        private int ibID = -1;
+        private int drawnPages = 0;
+        private int vertexLimit = Integer.MAX_VALUE;
+
+        private GLPath(final CompactPath path, final float[][] colors) {
+            this.path = path;
+            this.colors = colors;
+        }
+
+        /**
+         * Append completed pages of the path to the buffer until the time budget is spend
+         *
+         * @param budget Nanoseconds that may be spend, at least one page is uploaded when available
+         * @return true when all completed pages are uploaded
+         */
+        public boolean upload(final long budget) {
+            final long start = System.nanoTime();
+            final int available = path.getPageCount();
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbID);
+            while (uploadedPages < available) {
+                final long end = path.getPageOffset(uploadedPages) + (long) path.getPageVertices(uploadedPages) * CompactPath.VERTEX_BYTES;
+                if (end > capacity) {
+                    // A new store drops the old content, upload what was there again
+                    capacity = Math.max(end, capacity * 2);
+                    GL15.glBufferData(GL15.GL_ARRAY_BUFFER, capacity, GL15.GL_DYNAMIC_DRAW);
+                    for (int page = 0; page < uploadedPages; page++) {
+                        GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, path.getPageOffset(page), path.getPage(page));
+                    }
+                }
+                GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, path.getPageOffset(uploadedPages), path.getPage(uploadedPages));
+                if (path.getRunCount(uploadedPages) > firsts.capacity()) {
+                    firsts = BufferUtils.createIntBuffer(path.getRunCount(uploadedPages));
+                    counts = BufferUtils.createIntBuffer(path.getRunCount(uploadedPages));
+                }
+                uploadedPages++;
+                vbRows = path.getPageFirst(uploadedPages - 1) + path.getPageVertices(uploadedPages - 1);
+                if (System.nanoTime() - start > budget) {
+                    break;
+                }
+            }
+            return uploadedPages == available;
+        }
+
+        /**
+         * Upload the levels of detail of the finished path, all it's pages must be uploaded
+         */
+        public void setLod(final PathLod lod) {
+            IntBuffer buffer = BufferUtils.createIntBuffer(1);
+            GL15.glGenBuffers(buffer);
+            ibID = buffer.get(0);
+            GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, ibID);
+            GL15.glBufferData(GL15.GL_ELEMENT_ARRAY_BUFFER, lod.getIndexByteSize(), GL15.GL_STATIC_DRAW);
+            for (int i = 0; i < path.getPageCount(); i++) {
+                for (int level = 1; level < lod.getLevelCount(i); level++) {
+                    GL15.glBufferSubData(GL15.GL_ELEMENT_ARRAY_BUFFER, lod.getIndexOffset(i, level), lod.getIndices(i, level));
+                }
+            }
+            GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
+            this.lod = lod;
+        }
+
+        @Override
+        public void draw() {
+            GL11.glGetFloat(GL11.GL_MODELVIEW_MATRIX, modelView);
+            GL11.glGetFloat(GL11.GL_PROJECTION_MATRIX, projection);
+            GL11.glGetInteger(GL11.GL_VIEWPORT, viewport);
+            frustum.update(modelView, projection);
+
+            GL11.glEnableClientState(GL11.GL_VERTEX_ARRAY);
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbID);
+            if (lod != null) {
+                GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, ibID);
+            }
+            drawnPages = 0;
+            final int limit = vertexLimit;
+            for (int page = 0; page < uploadedPages; page++) {
+                // Pages follow the path, nothing is drawn after the limit
+                final int shown = (int) Math.min(path.getPageVertices(page), (long) limit - path.getPageFirst(page));
+                if (shown < 2) {
+                    break;
+                }
+                if (!frustum.intersects(path, page)) {
+                    continue;
+                }
+                drawnPages++;
+                int level = 0;
+                // The levels only cover whole pages
+                if (lod != null && shown == path.getPageVertices(page)) {
+                    final double ppu = PathLod.pixelsPerUnit(modelView, projection, viewport.get(3),
+                            path.getCenter(page, 0), path.getCenter(page, 1), path.getCenter(page, 2), lod.getRadius(page));
+                    level = lod.selectLevel(page, ppu, MAX_PIXEL_ERROR);
+                }
+
+                GL11.glPushMatrix();
+                GL11.glTranslated(path.getCenter(page, 0), path.getCenter(page, 1), path.getCenter(page, 2));
+                GL11.glScaled(path.getScale(page, 0), path.getScale(page, 1), path.getScale(page, 2));
+                GL11.glVertexPointer(3, GL11.GL_SHORT, CompactPath.VERTEX_BYTES, path.getPageOffset(page));
+                if (level == 0) {
+                    // All runs of one color in a single call
+                    for (int type = 0; type < colors.length; type++) {
+                        firsts.clear();
+                        counts.clear();
+                        for (int run = 0; run < path.getRunCount(page); run++) {
+                            final int first = path.getRunStart(page, run) - 1;
+                            final int last = Math.min(path.getRunEnd(page, run), shown - 1);
+                            if (path.getRunType(page, run) == type && last > first) {
+                                firsts.put(first);
+                                counts.put(last - first + 1);
+                            }
+                        }
+                        if (firsts.position() > 0) {
+                            firsts.flip();
+                            counts.flip();
+                            final float[] color = colors[type];
+                            GL11.glColor4f(color[0], color[1], color[2], color[3]);
+                            GL14.glMultiDrawArrays(GL11.GL_LINE_STRIP, firsts, counts);
+                        }
+                    }
+                } else {
+                    // LWJGL 2 has no glMultiDrawElements, coarse levels have few runs anyway
+                    for (int run = 0; run < lod.getRunCount(page, level); run++) {
+                        final float[] color = colors[lod.getRunType(page, level, run)];
+                        GL11.glColor4f(color[0], color[1], color[2], color[3]);
+                        final int first = lod.getRunStart(page, level, run) - 1;
+                        final int count = lod.getRunEnd(page, level, run) - first + 1;
+                        GL11.glDrawElements(GL11.GL_LINE_STRIP, count, GL11.GL_UNSIGNED_SHORT, lod.getIndexOffset(page, level) + first * 2L);
+                    }
+                }
+                GL11.glPopMatrix();
+            }
+            GL15.glBindBuffer(GL15.GL_ELEMENT_ARRAY_BUFFER, 0);
+            GL11.glDisableClientState(GL11.GL_VERTEX_ARRAY);
+        }
+
+        /**
+         * Only draw the path up to a number of vertices, Integer.MAX_VALUE draws all
+         */
+        public void setVertexLimit(final int limit) {
+            vertexLimit = limit;
+        }
+
+        /**
+         * @return Number of pages in the buffer
+         */
+        public int getUploadedPages() {
+            return uploadedPages;
+        }
+
+        /**
+         * @return Number of pages inside the view at the last draw
+         */
+        public int getDrawnPages() {
+            return drawnPages;
+        }
+
+        @Override
+        public void destroy() {
+            super.destroy();
+            if (ibID != -1) {
+                GL15.glDeleteBuffers(ibID);
+            }
+        }
+    }
+
+    // Triangle VBO of direction arrows. Only the arrows of the level that keeps them MIN_SPACING pixels apart are drawn,
+    // the buffer holds the triangles of the finest level drawn so far
+    public static class GLArrows extends VBOHelper {
+        public static double MIN_SPACING = 24.0;
+        private static final int ARROW_BYTES = 3 * 7 * SIZE_FLOAT;
+        private final ArrowSet arrows;
+        private final float[][] colors;
+        private final VertexBuilder scratch = new VertexBuilder(7);
+        private final FloatBuffer modelView = BufferUtils.createFloatBuffer(16);
+        private final FloatBuffer projection = BufferUtils.createFloatBuffer(16);
+        private final IntBuffer viewport = BufferUtils.createIntBuffer(16);
+        private long capacity = 0;
+        private int expanded = 0;
+        private int drawnArrows = 0;
+
+        private GLArrows(final ArrowSet arrows, final float[][] colors) {
+            this.arrows = arrows;
+            this.colors = colors;
+        }
+
+        /**
+         * Add the triangles of arrows up to count to the buffer
+         */
+        private void expand(final int count) {
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbID);
+            int from = expanded;
+            if ((long) count * ARROW_BYTES > capacity) {
+                // A new store drops the old content, the arrows are cheap to make again
+                capacity = Math.max((long) count * ARROW_BYTES, capacity * 2);
+                GL15.glBufferData(GL15.GL_ARRAY_BUFFER, capacity, GL15.GL_DYNAMIC_DRAW);
+                from = 0;
+            }
+            arrows.expand(from, count, scratch, colors);
+            for (int i = 0; i < scratch.getPageCount(); i++) {
+                GL15.glBufferSubData(GL15.GL_ARRAY_BUFFER, (long) from * ARROW_BYTES + scratch.getPageOffset(i), scratch.getPage(i));
+            }
+            scratch.clear();
+            expanded = count;
+            vbRows = count * 3;
+        }
+
+        @Override
+        public void draw() {
+            GL11.glGetFloat(GL11.GL_MODELVIEW_MATRIX, modelView);
+            GL11.glGetFloat(GL11.GL_PROJECTION_MATRIX, projection);
+            GL11.glGetInteger(GL11.GL_VIEWPORT, viewport);
+            final double ppu = PathLod.pixelsPerUnit(modelView, projection, viewport.get(3),
+                    arrows.getCenterX(), arrows.getCenterY(), arrows.getCenterZ(), 0.0);
+            drawnArrows = arrows.getCount(ArrowSet.selectLevel(MIN_SPACING / ppu));
+            if (drawnArrows > expanded) {
+                expand(drawnArrows);
+            }
+            if (drawnArrows == 0) {
+                return;
+            }
+
+            GL11.glEnableClientState(GL11.GL_VERTEX_ARRAY);
+            GL11.glEnableClientState(GL11.GL_COLOR_ARRAY);
+            GL15.glBindBuffer(GL15.GL_ARRAY_BUFFER, vbID);
+            GL11.glVertexPointer(3, GL11.GL_FLOAT, 7 * SIZE_FLOAT, 0);
+            GL11.glColorPointer(3, GL11.GL_FLOAT, 7 * SIZE_FLOAT, 3 * SIZE_FLOAT);
+            GL11.glDrawArrays(GL11.GL_TRIANGLES, 0, drawnArrows * 3);
+            GL11.glDisableClientState(GL11.GL_COLOR_ARRAY);
+            GL11.glDisableClientState(GL11.GL_VERTEX_ARRAY);
+        }
+
+        /**
+         * @return Number of arrows drawn at the last draw
+         */
+        public int getDrawnArrows() {
+            return drawnArrows;
+        }
+    }
+
     public float getColorR() {
         return colorR;
     }
@@ -0,0 +1,181 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.opengl;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Collects vertex data directly in off-heap pages that can be handed to OpenGL as they are.
+ * <p/>
+ * Each page holds a fixed number of whole vertices, a new page is allocated when the current page is full so data is
+ * never copied while building. The pages are in native byte order and can be uploaded with glBufferData or one by one
+ * with glBufferSubData. Nothing here needs a OpenGL context.
+ */
+public class VertexBuilder {
+    public static final int SIZE_FLOAT = Float.SIZE / Byte.SIZE;
+    public static final int DEFAULT_PAGE_VERTICES = 8192;
+
+    private final int rowSize;
+    private final int pageFloats;
+    private final List<ByteBuffer> pages = new ArrayList<>();
+    private FloatBuffer current = null;
+    private int size = 0;
+
+    /**
+     * @param rowSize Number of floats per vertex
+     */
+    public VertexBuilder(final int rowSize) {
+        this(rowSize, DEFAULT_PAGE_VERTICES);
+    }
+
+    /**
+     * @param rowSize      Number of floats per vertex
+     * @param pageVertices Number of vertices per page
+     */
+    public VertexBuilder(final int rowSize, final int pageVertices) {
+        if (rowSize <= 0 || pageVertices <= 0) {
+            throw new IllegalArgumentException("Row size and page size must be positive");
+        }
+        this.rowSize = rowSize;
+        this.pageFloats = rowSize * pageVertices;
+    }
+
+    public void add(final float value) {
+        if (current == null || !current.hasRemaining()) {
+            final ByteBuffer page = ByteBuffer.allocateDirect(pageFloats * SIZE_FLOAT).order(ByteOrder.nativeOrder());
+            pages.add(page);
+            current = page.asFloatBuffer();
+        }
+        current.put(value);
+        size++;
+    }
+
+    public void add(final float x, final float y, final float z) {
+        add(x);
+        add(y);
+        add(z);
+    }
+
+    public void add(final float r, final float g, final float b, final float a) {
+        add(r);
+        add(g);
+        add(b);
+        add(a);
+    }
+
+    /**
+     * @return Number of floats added
+     */
+    public int size() {
+        return size;
+    }
+
+    /**
+     * @return Number of complete vertices added
+     */
+    public int rows() {
+        return size / rowSize;
+    }
+
+    public int getRowSize() {
+        return rowSize;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public int getPageCount() {
+        return pages.size();
+    }
+
+    /**
+     * @return Size of all data in bytes
+     */
+    public long getByteSize() {
+        return (long) size * SIZE_FLOAT;
+    }
+
+    /**
+     * @return Number of floats in a page
+     */
+    public int getPageSize(final int page) {
+        return page < pages.size() - 1 ? pageFloats : size - page * pageFloats;
+    }
+
+    /**
+     * @return Offset of a page in bytes from the start of the data
+     */
+    public long getPageOffset(final int page) {
+        return (long) page * pageFloats * SIZE_FLOAT;
+    }
+
+    /**
+     * @return The data of a page, positioned at the start and limited to the used part
+     */
+    public ByteBuffer getPage(final int page) {
+        final ByteBuffer buffer = pages.get(page).duplicate().order(ByteOrder.nativeOrder());
+        buffer.position(0);
+        buffer.limit(getPageSize(page) * SIZE_FLOAT);
+        return buffer;
+    }
+
+    /**
+     * @return A float of the data, mainly for testing
+     */
+    public float get(final int index) {
+        if (index < 0 || index >= size) {
+            throw new IndexOutOfBoundsException("Index " + index + " size " + size);
+        }
+        return pages.get(index / pageFloats).getFloat((index % pageFloats) * SIZE_FLOAT);
+    }
+
+    /**
+     * Release all pages, the off-heap memory is freed once the pages are collected
+     */
+    public void clear() {
+        pages.clear();
+        current = null;
+        size = 0;
+    }
+}
@@ -38,9 +38,7 @@
 
 package com.rvantwisk.cnctools.operations;
 
-import com.rvantwisk.cnctools.operations.math.Intersect;
-import com.rvantwisk.cnctools.operations.math.Line;
-import com.rvantwisk.cnctools.operations.math.Point;
+import com.rvantwisk.cnctools.operations.math.Geometry;
 
 /**
  * Fixes a G-Code file that uses a indexer where G93 wasn't invoked
@@ -65,7 +63,7 @@ public class ConstantFHelper {
      * @param z2
      * @return
      */
-    private static double getDistance(final double a1, final double x1, final double z1, final double a2, final double x2, final double z2) {
+    public static double getDistance(final double a1, final double x1, final double z1, final double a2, final double x2, final double z2) {
 
         // Total rotation
         final double da = (a2 - a1) / 360.0;
@@ -83,18 +81,16 @@ public class ConstantFHelper {
                     return Math.sqrt(dl * dl + dx * dx);
                 } else { // Movement over cone
 
-                    Point intersection = Intersect.getLineLine(
-                            new Line(new Point(x1, z1), new Point(x2, z2)),
-                            new Line(new Point(0.0, 0.0), new Point(1.0, 0.0)));
-
-                    if (intersection != null) {
+                    // Tip of the cone, where the move crosses the rotation axis
+                    final double[] intersection = new double[2];
+                    if (Geometry.lineLine(x1, z1, x2, z2, 0.0, 0.0, 1.0, 0.0, intersection, 0)) {
                         double r1, r2;
-                        if (intersection.x < x1) { // move rotates upwards
-                            r1 = -intersection.x + x1;
-                            r2 = -intersection.x + x2;
+                        if (intersection[0] < x1) { // move rotates upwards
+                            r1 = -intersection[0] + x1;
+                            r2 = -intersection[0] + x2;
                         } else { // move rotates down
-                            r1 = intersection.x - x1;
-                            r2 = intersection.x - x2;
+                            r1 = intersection[0] - x1;
+                            r2 = intersection[0] - x2;
                         }
 
                         // Calculate arclength of cone segments
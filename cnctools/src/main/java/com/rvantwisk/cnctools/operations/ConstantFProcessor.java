@@ -0,0 +1,228 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.operations;
+
+import com.rvantwisk.gcodeparser.GCodeParser;
+import com.rvantwisk.gcodeparser.MachineController;
+import com.rvantwisk.gcodeparser.MachineStatus;
+import com.rvantwisk.gcodeparser.MachineStatusHelper;
+import com.rvantwisk.gcodeparser.ParsedWord;
+import com.rvantwisk.gcodeparser.exceptions.SimException;
+import com.rvantwisk.gcodeparser.gcodes.FeedRateMode;
+import com.rvantwisk.gcodeparser.gcodes.MotionMode;
+
+import java.io.*;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.text.DecimalFormat;
+import java.util.Map;
+import java.util.regex.Pattern;
+
+/**
+ * Post processing pass that holds a constant feed at the surface of the stock for moves that rotate the A axis.
+ * <p/>
+ * The program is streamed line by line trough the parser and written directly, so only the current line is in memory.
+ * For each G1 move with A rotation the distance over the surface is calculated with {@link ConstantFHelper} and the
+ * feed is rewritten, either as G93 inverse time or as a G94 feed scaled to the distance the controller uses for the move.
+ * All other lines are written as they are, feed mode and feed are restored when needed.
+ */
+public class ConstantFProcessor implements MachineController {
+    private static final String LE = System.lineSeparator();
+    private static final Pattern FEED = Pattern.compile("F\\s*[0-9.+-]+", Pattern.CASE_INSENSITIVE);
+    private static final Pattern FEED_MODE = Pattern.compile("G\\s*0*9[34](?![0-9.])", Pattern.CASE_INSENSITIVE);
+
+    public static enum Mode {
+        INVERSE_TIME,  // G93, F is one over the time of the move in minutes
+        ADJUSTED_FEED  // G94, F is scaled so the controller's move distance takes the same time
+    }
+
+    private final Writer out;
+    private final Mode mode;
+    private final MachineStatusHelper machine = new MachineStatusHelper();
+    private final DecimalFormat feedFormat = new DecimalFormat("0.####");
+
+    private double pA;
+    private double pX;
+    private double pY;
+    private double pZ;
+
+    private FeedRateMode outputMode = FeedRateMode.G94;
+    private double outputFeed = Double.NaN; // Feed active at the controller in G94 mode
+    private IOException error = null;
+
+    public ConstantFProcessor(final Writer out, final Mode mode) {
+        this.out = out;
+        this.mode = mode;
+    }
+
+    /**
+     * Stream a program from in to out
+     */
+    public static void process(final Reader in, final Writer out, final Mode mode) throws IOException, SimException {
+        final ConstantFProcessor processor = new ConstantFProcessor(out, mode);
+        new GCodeParser(null, in, processor);
+        if (processor.error != null) {
+            throw processor.error;
+        }
+        out.flush();
+    }
+
+    @Override
+    public void startBlock(final GCodeParser parser, final MachineStatus machineStatus, final Map<String, ParsedWord> block) {
+        machine.setMachineStatus(machineStatus);
+        pA = machine.getA();
+        pX = machine.getX();
+        pY = machine.getY();
+        pZ = machine.getZ();
+    }
+
+    @Override
+    public void endBlock(final GCodeParser parser, final MachineStatus machineStatus, final Map<String, ParsedWord> block) throws SimException {
+        if (error != null) {
+            return;
+        }
+        machine.setMachineStatus(machineStatus);
+        try {
+            out.write(rewrite(parser.getCurrentLine(), !block.isEmpty()));
+            out.write(LE);
+        } catch (IOException e) {
+            error = e;
+        }
+    }
+
+    @Override
+    public void end(final GCodeParser parser, final MachineStatus machineStatus) throws SimException {
+    }
+
+    private String rewrite(final String line, final boolean hasWords) {
+        // The program already uses inverse time itself
+        if (machine.getFeedRateMode() != FeedRateMode.G94) {
+            if (hasWords) {
+                outputMode = machine.getFeedRateMode();
+                outputFeed = Double.NaN;
+            }
+            return line;
+        }
+
+        final double feed = machine.getFeedrate();
+        final boolean isFeedMove = machine.getMotionMode() == MotionMode.G1 || machine.getMotionMode() == MotionMode.G2 || machine.getMotionMode() == MotionMode.G3;
+        final double dA = machine.getA() - pA;
+        if (hasWords && machine.getMotionMode() == MotionMode.G1 && dA != 0.0) {
+            final double surface = ConstantFHelper.getDistance(pA, pX, pZ, machine.getA(), machine.getX(), machine.getZ());
+            final double dY = machine.getY() - pY;
+            final double distance = Math.sqrt(surface * surface + dY * dY);
+            if (distance > 0.0) {
+                if (mode == Mode.INVERSE_TIME) {
+                    final boolean switchMode = outputMode != FeedRateMode.G93;
+                    outputMode = FeedRateMode.G93;
+                    return withFeed(line, switchMode ? "G93" : null, feed / distance);
+                } else {
+                    // The controller measures the linear axis when they move, else degrees
+                    final double dX = machine.getX() - pX;
+                    final double dZ = machine.getZ() - pZ;
+                    final double linear = Math.sqrt(dX * dX + dY * dY + dZ * dZ);
+                    final double controllerDistance = linear > 0.0 ? linear : Math.abs(dA);
+                    outputFeed = feed * controllerDistance / distance;
+                    return withFeed(line, null, outputFeed);
+                }
+            }
+        }
+
+        // Restore feed mode and feed of the program
+        if (hasWords && outputMode != FeedRateMode.G94) {
+            outputMode = FeedRateMode.G94;
+            outputFeed = feed;
+            return withFeed(line, "G94", feed);
+        }
+        if (hasWords && FEED.matcher(code(line)).find()) {
+            outputFeed = feed;
+        } else if (hasWords && isFeedMove && outputFeed != feed) {
+            outputFeed = feed;
+            return withFeed(line, null, feed);
+        }
+        return line;
+    }
+
+    /**
+     * Replace the feed and feed mode words of a line, comments are kept as they are
+     */
+    private String withFeed(final String line, final String feedMode, final double feed) {
+        final String code = code(line);
+        final String comment = line.substring(code.length());
+        final String stripped = FEED_MODE.matcher(FEED.matcher(code).replaceAll("")).replaceAll("").trim();
+        // Programs written without spaces between words are kept that way
+        final boolean compact = !line.contains(" ") && code.replaceAll("[^A-Za-z]", "").length() > 1;
+        final String space = compact ? "" : " ";
+
+        final StringBuilder sb = new StringBuilder();
+        if (feedMode != null) {
+            sb.append(feedMode).append(space);
+        }
+        sb.append(stripped);
+        sb.append(space).append('F').append(feedFormat.format(feed));
+        if (!comment.isEmpty()) {
+            sb.append(space).append(comment);
+        }
+        return sb.toString();
+    }
+
+    private static String code(final String line) {
+        int end = line.length();
+        final int bracket = line.indexOf('(');
+        final int semicolon = line.indexOf(';');
+        if (bracket >= 0) {
+            end = Math.min(end, bracket);
+        }
+        if (semicolon >= 0) {
+            end = Math.min(end, semicolon);
+        }
+        return line.substring(0, end);
+    }
+
+    /**
+     * Usage: ConstantFProcessor in out [G93|G94]
+     */
+    public static void main(String[] args) throws IOException, SimException {
+        final Mode mode = args.length > 2 && args[2].equalsIgnoreCase("G94") ? Mode.ADJUSTED_FEED : Mode.INVERSE_TIME;
+        try (Reader in = Files.newBufferedReader(new File(args[0]).toPath(), Charset.forName("UTF-8"));
+             Writer out = Files.newBufferedWriter(new File(args[1]).toPath(), Charset.forName("UTF-8"))) {
+            process(in, out, mode);
+        }
+    }
+}
@@ -0,0 +1,304 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.operations.createRoundStock;
+
+/**
+ * Calculates the moves to turn square or rectangular stock round on a rotary A axis along X.
+ * <p/>
+ * The stock is mounted with a corner up at A=0, the first pair of faces has it's normal at 45 and 225 degrees and the
+ * second pair at 135 and 315 degrees. Angles are measured clockwise from the top.
+ * <p/>
+ * At each depth the material left outside the circle of that depth is found in closed form, the intersection of the
+ * circle with each face leaves an arc, between these arcs are the corners that need to be removed. The angles to cut
+ * a corner are calculated once and rotated for the opposite corner, the other two corners are the mirror image which
+ * for square stock is the same schedule again. When the circle no longer reaches a face the remaining material is
+ * removed with full rounds using inverse time feed.
+ */
+public class RoundStockEngine {
+    private double stockWidth = 0.0;  // Distance from the axis to the faces at 45/225
+    private double stockHeight = 0.0; // Distance from the axis to the faces at 135/315
+    private double finalSize = 0.0;   // Radius of the final round
+    private double stockLength = 0.0;
+    private int stockCount = 1;
+    private double stockSpacing = 0.0;  // Gap between stocks along X
+    private double radialDepth = 0.0;
+    private double axialDepth = 0.0;
+    private double millSize = 0.0;
+    private double rapidClearance = 1.0;
+    private double stockClearance = 5.0;
+    private double feedRate = 600.0;
+
+    public RoundStockPath calculate() {
+        if (radialDepth <= 0.0 || axialDepth <= 0.0) {
+            throw new IllegalArgumentException("Step size cannot be negative");
+        }
+        final RoundStockPath path = new RoundStockPath();
+        final double cornerRadius = stockWidth == stockHeight ? stockWidth * Math.sqrt(2) : Math.hypot(stockWidth, stockHeight);
+        final double safeZ = cornerRadius + stockClearance;
+        final double firstX = stockStart(0);
+
+        path.move(RoundStockPath.RAPID, Double.NaN, Double.NaN, Double.NaN, safeZ);
+        path.move(RoundStockPath.MODAL, 0.0, firstX, 0.0, Double.NaN);
+
+        double depth = cornerRadius;
+        while (true) {
+            depth = depth - axialDepth;
+            if (depth < finalSize + axialDepth || (depth < stockWidth && depth < stockHeight)) {
+                break;
+            }
+
+            // Half of the arc where the circle is outside a face, -1 when the circle doesn't reach that face
+            final double arcWidth = stockWidth <= depth ? Math.toDegrees(Math.acos(stockWidth / depth)) : -1.0;
+            final double arcHeight = stockHeight <= depth ? Math.toDegrees(Math.acos(stockHeight / depth)) : -1.0;
+
+            // The first tool position is placed so the tool overlaps the material by the radial depth
+            final double overlap = Math.toDegrees(Math.atan((millSize / 2.0 - radialDepth) / depth));
+            final double step = Math.abs(Math.toDegrees(Math.atan(radialDepth / depth)));
+
+            if (arcWidth >= 0.0 && arcHeight >= 0.0) {
+                // Four corners, the corners at 90 and 270 are the mirror image of the corners at 0 and 180
+                final double start = 45.0 - arcWidth + overlap;
+                final int cuts = cutCount(start, -45.0 + arcHeight - overlap, step);
+                final double mirrorStart = 135.0 - arcHeight + overlap;
+                final int mirrorCuts = cutCount(mirrorStart, 45.0 + arcWidth - overlap, step);
+
+                path.comment("Angle at 0.0");
+                corner(path, depth, start, step, cuts, safeZ);
+                path.comment("Angle at 180.0");
+                corner(path, depth, start + 180.0, step, cuts, safeZ);
+                path.comment("Angle at 270.0");
+                corner(path, depth, mirrorStart + 180.0, step, mirrorCuts, safeZ);
+                path.comment("Angle at 90.0");
+                corner(path, depth, mirrorStart, step, mirrorCuts, safeZ);
+            } else {
+                // Only one pair of faces is reached, the corners have merged into two sides
+                final double arc = arcWidth >= 0.0 ? arcWidth : arcHeight;
+                final double center = arcWidth >= 0.0 ? -45.0 : 45.0;
+                final double start = center + 90.0 - arc + overlap;
+                final int cuts = cutCount(start, center - 90.0 + arc - overlap, step);
+
+                path.comment("Angle at " + center);
+                corner(path, depth, start, step, cuts, safeZ);
+                path.comment("Angle at " + (center + 180.0));
+                corner(path, depth, start + 180.0, step, cuts, safeZ);
+            }
+        }
+
+        path.commentLarge("start final rounds");
+        fullRounds(path, depth, safeZ);
+        path.move(RoundStockPath.RAPID, Double.NaN, Double.NaN, Double.NaN, safeZ);
+        path.move(RoundStockPath.MODAL, Double.NaN, firstX, Double.NaN, Double.NaN);
+        path.resetA();
+        path.commentLarge("Done");
+        return path;
+    }
+
+    /**
+     * Number of cuts stepping down from start till the tool has passed end, at least one
+     */
+    static int cutCount(final double start, final double end, final double step) {
+        if (start < end) {
+            return 1;
+        }
+        return (int) Math.floor((start - end) / step) + 1;
+    }
+
+    private void corner(final RoundStockPath path, final double depth, final double start, final double step, final int cuts, final double safeZ) {
+        path.move(RoundStockPath.RAPID, Double.NaN, Double.NaN, Double.NaN, safeZ);
+        path.move(RoundStockPath.MODAL, start + 1.0, Double.NaN, Double.NaN, Double.NaN);
+
+        for (int k = 0; k < cuts; k++) {
+            final double angle = start - k * step;
+            path.comment("Remove stock");
+            path.move(RoundStockPath.FEED, Double.NaN, Double.NaN, Double.NaN, depth);
+            path.move(RoundStockPath.FEED, angle, Double.NaN, Double.NaN, Double.NaN);
+            for (int i = 0; i < stockCount; i++) {
+                if (i > 0) {
+                    path.move(RoundStockPath.RAPID, Double.NaN, Double.NaN, Double.NaN, depth + rapidClearance);
+                    path.move(RoundStockPath.MODAL, Double.NaN, stockStart(i), Double.NaN, Double.NaN);
+                    path.move(RoundStockPath.FEED, Double.NaN, Double.NaN, Double.NaN, depth);
+                }
+                path.move(RoundStockPath.MODAL, Double.NaN, stockStart(i) + stockLength, Double.NaN, Double.NaN);
+            }
+            path.move(RoundStockPath.RAPID, Double.NaN, Double.NaN, Double.NaN, depth + rapidClearance);
+            path.move(RoundStockPath.RAPID, angle + 1.0, stockStart(0), Double.NaN, Double.NaN);
+        }
+        path.move(RoundStockPath.RAPID, Double.NaN, Double.NaN, Double.NaN, safeZ);
+    }
+
+    /**
+     * Spiral around the full stock at each depth till the final size
+     */
+    private void fullRounds(final RoundStockPath path, double depth, final double safeZ) {
+        double offsetAngle = 0.0;
+
+        path.move(RoundStockPath.RAPID, Double.NaN, Double.NaN, Double.NaN, safeZ);
+        path.move(RoundStockPath.MODAL, 0.0, stockStart(0), Double.NaN, Double.NaN);
+        while (depth > finalSize) {
+            offsetAngle = fullRound(path, depth, offsetAngle);
+
+            depth = depth - axialDepth;
+            if (depth <= finalSize) {
+                depth = -1.0;
+            }
+        }
+
+        fullRound(path, finalSize, offsetAngle);
+    }
+
+    private double fullRound(final RoundStockPath path, final double depth, double offsetAngle) {
+        path.commentLarge("Full mill step at : Z=" + depth);
+
+        final double totalAngle = (stockLength / radialDepth) * 360.0;
+        final double millLength = (stockLength / radialDepth) * Math.PI * finalSize * 2.0;
+        final double inverseFeed = feedRate / millLength;
+
+        for (int i = 0; i < stockCount; i++) {
+            path.move(RoundStockPath.FEED, Double.NaN, Double.NaN, Double.NaN, depth);
+            path.inverseTime(inverseFeed, offsetAngle + totalAngle, stockStart(i) + stockLength);
+            path.move(RoundStockPath.RAPID, Double.NaN, Double.NaN, Double.NaN, depth + rapidClearance);
+            path.move(RoundStockPath.MODAL, Double.NaN, stockStart(i + 1 < stockCount ? i + 1 : 0), Double.NaN, Double.NaN);
+            offsetAngle = totalAngle + offsetAngle;
+        }
+        return offsetAngle;
+    }
+
+    private double stockStart(final int i) {
+        return i * (stockLength + stockSpacing);
+    }
+
+    public double getStockWidth() {
+        return stockWidth;
+    }
+
+    public void setStockWidth(final double stockWidth) {
+        this.stockWidth = stockWidth;
+    }
+
+    public double getStockHeight() {
+        return stockHeight;
+    }
+
+    public void setStockHeight(final double stockHeight) {
+        this.stockHeight = stockHeight;
+    }
+
+    public double getFinalSize() {
+        return finalSize;
+    }
+
+    public void setFinalSize(final double finalSize) {
+        this.finalSize = finalSize;
+    }
+
+    public double getStockLength() {
+        return stockLength;
+    }
+
+    public void setStockLength(final double stockLength) {
+        this.stockLength = stockLength;
+    }
+
+    public int getStockCount() {
+        return stockCount;
+    }
+
+    public void setStockCount(final int stockCount) {
+        if (stockCount < 1) {
+            throw new IllegalArgumentException("There must be at least one stock");
+        }
+        this.stockCount = stockCount;
+    }
+
+    public double getStockSpacing() {
+        return stockSpacing;
+    }
+
+    public void setStockSpacing(final double stockSpacing) {
+        this.stockSpacing = stockSpacing;
+    }
+
+    public double getRadialDepth() {
+        return radialDepth;
+    }
+
+    public void setRadialDepth(final double radialDepth) {
+        this.radialDepth = radialDepth;
+    }
+
+    public double getAxialDepth() {
+        return axialDepth;
+    }
+
+    public void setAxialDepth(final double axialDepth) {
+        this.axialDepth = axialDepth;
+    }
+
+    public double getMillSize() {
+        return millSize;
+    }
+
+    public void setMillSize(final double millSize) {
+        this.millSize = millSize;
+    }
+
+    public double getRapidClearance() {
+        return rapidClearance;
+    }
+
+    public void setRapidClearance(final double rapidClearance) {
+        this.rapidClearance = rapidClearance;
+    }
+
+    public double getStockClearance() {
+        return stockClearance;
+    }
+
+    public void setStockClearance(final double stockClearance) {
+        this.stockClearance = stockClearance;
+    }
+
+    public double getFeedRate() {
+        return feedRate;
+    }
+
+    public void setFeedRate(final double feedRate) {
+        this.feedRate = feedRate;
+    }
+}
@@ -38,13 +38,9 @@
 
 package com.rvantwisk.cnctools.operations.createRoundStock;
 
-import com.rvantwisk.cnctools.operations.math.Intersect;
-import com.rvantwisk.cnctools.operations.math.Point;
 import com.rvantwisk.gcodegenerator.GCodeBuilder;
 import com.rvantwisk.gcodegenerator.interfaces.GCodeGenerator;
 
-import java.util.List;
-
 /**
  * Created with IntelliJ IDEA.
  * User: rvt
@@ -65,17 +61,9 @@ public class RoundStockHelper {
     private Double finalSize = 0.0; // Stock Size final
     private Double stockLength = 0.0; // length of the stock
 
-    // Intermediate results
-
-    private List<Point> intersectionPoints;
-    private Point millPA;
-    private Point millPB;
-    private Point millCenter;
-    private Point pa;
-    private Point pb;
-    private Point center;
-    private Double nextDepth;
-    private Point startPoint;
+    private Double stockHeight = null; // Second stock size for rectangular stock, null for square stock
+    private Integer stockCount = 1; // Number of stocks along X
+    private Double stockSpacing = 0.0; // Gap between stocks
 
     final GCodeGenerator gCode;
 
@@ -84,158 +72,65 @@ public class RoundStockHelper {
     }
 
     public void calculate() {
-        nextDepth = stockSize * Math.sqrt(2);
-
-        // gCode.addBlock(GCodeBuilder.builder().F(feedRate));
-
-
-        gCode.addBlock(GCodeBuilder.builder().G0().Z(stockSize * Math.sqrt(2) + stockClearance));
-        gCode.addBlock(GCodeBuilder.builder().A(0.0).X(0.0).Y(0.0));
-
-        while ((calculateBase()) > -1) {
-            gCode.comment("Angle at 0.0");
-            calculate(0.0);
-            gCode.comment("Angle at 180.0");
-            calculate(180.0);
-            gCode.comment("Angle at 270.0");
-            calculate(270.0);
-            gCode.comment("Angle at 90.0");
-            calculate(90.0);
-        }
-        gCode.commentLarge("start final rounds");
-        fullRoundMillSteps();
-        gCode.addBlock(GCodeBuilder.builder().G0().Z(stockSize * Math.sqrt(2) + stockClearance));
-        gCode.addBlock(GCodeBuilder.builder().X(0.0));
-        // Reset A to 0 degrees
-        gCode.addBlock(GCodeBuilder.builder().G92("A", 0.0));
-        gCode.commentLarge("Done");
+        final RoundStockEngine engine = new RoundStockEngine();
+        engine.setStockWidth(stockSize);
+        engine.setStockHeight(stockHeight == null ? stockSize : stockHeight);
+        engine.setFinalSize(finalSize);
+        engine.setStockLength(stockLength);
+        engine.setStockCount(stockCount);
+        engine.setStockSpacing(stockSpacing);
+        engine.setRadialDepth(radialDepth);
+        engine.setAxialDepth(axialDepth);
+        engine.setMillSize(millSize);
+        engine.setRapidClearance(rapidClearance);
+        engine.setStockClearance(stockClearance);
+        engine.setFeedRate(feedRate);
+
+        write(engine.calculate());
     }
 
     /**
-     * Rest milling around the full stock of wood
+     * Write the moves of a round stock path as G-Code
      */
-    private void fullRoundMillSteps() {
-        Double offsetAngle = 0.0;
-
-        gCode.addBlock(GCodeBuilder.builder().G0().Z(stockSize * Math.sqrt(2) + stockClearance));
-        gCode.addBlock(GCodeBuilder.builder().A(0.0).X(0.0));
-        while (nextDepth > finalSize) {
-            offsetAngle = fullRoundMillStep(offsetAngle);
-
-            nextDepth = nextDepth - axialDepth;
-            if (nextDepth <= finalSize) {
-                nextDepth = -1.0;
+    private void write(final RoundStockPath path) {
+        for (int i = 0; i < path.size(); i++) {
+            final GCodeBuilder builder = GCodeBuilder.builder();
+            switch (path.getKind(i)) {
+                case RoundStockPath.COMMENT:
+                    gCode.comment(path.getText(i));
+                    continue;
+                case RoundStockPath.COMMENT_LARGE:
+                    gCode.commentLarge(path.getText(i));
+                    continue;
+                case RoundStockPath.RESET_A:
+                    gCode.addBlock(builder.G92("A", 0.0));
+                    continue;
+                case RoundStockPath.RAPID:
+                    builder.G0();
+                    break;
+                case RoundStockPath.FEED:
+                    builder.G1();
+                    break;
+                case RoundStockPath.INVERSE_TIME:
+                    builder.G93(path.getF(i));
+                    break;
+                default:
+                    break;
             }
-        }
-
-        nextDepth = finalSize;
-        fullRoundMillStep(offsetAngle);
-    }
-
-
-    /**
-     * Rest milling around the full stock of wood at a offset angle
-     */
-    private Double fullRoundMillStep(Double offsetAngle) {
-        gCode.commentLarge("Full mill step at : Z=" + nextDepth);
-
-        Double totalAngle = (stockLength / radialDepth) * 360.0;
-        Double millLength = (stockLength / radialDepth) * Math.PI * finalSize * 2.0;
-        Double G93F = this.feedRate / millLength;
-
-        gCode.addBlock(GCodeBuilder.builder().G1().Z(nextDepth));
-        gCode.addBlock(GCodeBuilder.builder().G93(G93F).A(offsetAngle + totalAngle).X(stockLength));
-        gCode.addBlock(GCodeBuilder.builder().G0().Z(nextDepth + rapidClearance));
-        gCode.addBlock(GCodeBuilder.builder().X(0.0));
-
-        return totalAngle + offsetAngle;
-    }
-
-    private Double calculateBase() {
-
-        pa = new Point(0.0, stockSize * Math.sqrt(2.0));
-        pb = new Point(stockSize * Math.sqrt(2.0), 0.0);
-        center = new Point(0.0, 0.0);
-
-        boolean doNext = true;
-        nextDepth = nextDepth - axialDepth;
-        if (nextDepth < finalSize + axialDepth) {
-            return -1.0;
-        }
-
-        // Calculate intersection points and take the closest intersection point to zero angle
-
-        intersectionPoints = Intersect.getCircleLine(pa, pb, center, nextDepth);
-        if (intersectionPoints.size() == 2) {
-            if (intersectionPoints.get(0).x < intersectionPoints.get(1).x) {
-                startPoint = intersectionPoints.get(0);
-            } else {
-                startPoint = intersectionPoints.get(1);
+            if (!Double.isNaN(path.getA(i))) {
+                builder.A(path.getA(i));
             }
-        } else if (intersectionPoints.size() == 1) {
-            startPoint = intersectionPoints.get(0);
-        } else {
-            // This means we can turn the wood completly around within tolrance of the axialDepth
-            return -1.0;
-        }
-
-        // Calculate the mill tip ends and the center of the mill at startPoint
-        Point rotated = startPoint.rot90(false).normalize();
-        millPA = rotated.mul(radialDepth).add(startPoint);
-        millPB = rotated.mul(-(millSize - radialDepth)).add(startPoint);
-        millCenter = new Point((millPA.x + millPB.x) / 2.0, (millPA.y + millPB.y) / 2.0);
-
-        return nextDepth;
-    }
-
-    private void calculate(Double angleOffset) {
-        // Start mill operation
-        Double currentAngle = Point.angleBetween2Lines(Point.zero, pa, Point.zero, millCenter) * (180.0 / Math.PI);
-        Double startAngle = currentAngle;
-        Double stepAngle = Point.angleBetween2Lines(Point.zero, startPoint, Point.zero, millPA) * (180.0 / Math.PI);
-
-        gCode.addBlock(GCodeBuilder.builder().G0().Z(stockSize * Math.sqrt(2) + stockClearance));
-        gCode.addBlock(GCodeBuilder.builder().A(currentAngle + 1.0 + angleOffset));
-
-        Boolean isEnd;
-        do {
-            // Remove some material
-            gCode.comment("Remove stock");
-            gCode.addBlock(GCodeBuilder.builder().G1().Z(nextDepth));
-            gCode.addBlock(GCodeBuilder.builder().G1().A(currentAngle + angleOffset));
-            gCode.addBlock(GCodeBuilder.builder().X(stockLength));
-
-            gCode.addBlock(GCodeBuilder.builder().G0().Z(nextDepth + rapidClearance));
-            gCode.addBlock(GCodeBuilder.builder().G0().A(currentAngle + angleOffset + 1.0).X(0.0));
-
-            currentAngle = currentAngle - Math.abs(stepAngle);
-
-            // Test if we reached the end of this round
-            isEnd = reachedEndOf(-startAngle, currentAngle);
-
-            if (isEnd) {
-                gCode.addBlock(GCodeBuilder.builder().G0().Z(stockSize * Math.sqrt(2) + stockClearance));
+            if (!Double.isNaN(path.getX(i))) {
+                builder.X(path.getX(i));
             }
-
-        } while (!isEnd);
-
-    }
-
-    /**
-     * Calculate of we reached the end of this millrun
-     *
-     * @param neededAngle
-     * @param currentMillAngle
-     * @return
-     */
-    private boolean reachedEndOf(Double neededAngle, double currentMillAngle) {
-        Double A = currentMillAngle / (180.0 / Math.PI);
-        Point testmillCenter = new Point(nextDepth * Math.sin(A), nextDepth * Math.cos(A));
-        Point testmillPA = testmillCenter.rot90(true).normalize().mul(millSize / 2.0).add(testmillCenter);
-        Point testmillPB = testmillCenter.rot90(false).normalize().mul(millSize / 2.0).add(testmillCenter);
-        Double testmillPAngle = Point.angleBetween2Lines(Point.zero, pa, Point.zero, testmillPB) * (180.0 / Math.PI);
-
-        return neededAngle > testmillPAngle && neededAngle > currentMillAngle;
+            if (!Double.isNaN(path.getY(i))) {
+                builder.Y(path.getY(i));
+            }
+            if (!Double.isNaN(path.getZ(i))) {
+                builder.Z(path.getZ(i));
+            }
+            gCode.addBlock(builder);
+        }
     }
 
     /**********************************************************************************************/
@@ -305,6 +200,35 @@ public class RoundStockHelper {
         return stockLength;
     }
 
+    public Double getStockHeight() {
+        return stockHeight;
+    }
+
+    public void setStockHeight(Double stockHeight) {
+        if (stockHeight != null && stockHeight < finalSize) {
+            stockHeight = finalSize;
+        }
+        this.stockHeight = stockHeight;
+    }
+
+    public Integer getStockCount() {
+        return stockCount;
+    }
+
+    public void setStockCount(Integer stockCount) {
+        if (stockCount < 1)
+            throw new IllegalArgumentException("Stock count must be at least 1");
+        this.stockCount = stockCount;
+    }
+
+    public Double getStockSpacing() {
+        return stockSpacing;
+    }
+
+    public void setStockSpacing(Double stockSpacing) {
+        this.stockSpacing = stockSpacing;
+    }
+
     public Double getRapidClearance() {
         return rapidClearance;
     }
@@ -72,6 +72,7 @@ public class RoundStockModel implements TaskModel {
         this.finalSize.set(finalSizeProperty);
     }
 
+    @Override
     public String getToolID() {
         return toolID.get();
     }
@@ -0,0 +1,150 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.operations.createRoundStock;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Stream of moves of a round stock operation stored in primitive arrays.
+ * Axis values that are not part of a move are stored as NaN.
+ */
+public class RoundStockPath {
+    public static final byte COMMENT = 0;
+    public static final byte COMMENT_LARGE = 1;
+    public static final byte MODAL = 2;        // Move in the current motion mode
+    public static final byte RAPID = 3;        // G0
+    public static final byte FEED = 4;         // G1
+    public static final byte INVERSE_TIME = 5; // G93 with F
+    public static final byte RESET_A = 6;      // G92 A0
+
+    private byte[] kind = new byte[256];
+    private double[] a = new double[256];
+    private double[] x = new double[256];
+    private double[] y = new double[256];
+    private double[] z = new double[256];
+    private double[] f = new double[256];
+    private int[] text = new int[256];
+    private final List<String> texts = new ArrayList<>();
+    private int size = 0;
+
+    public void move(final byte moveKind, final double pa, final double px, final double py, final double pz) {
+        add(moveKind, pa, px, py, pz, Double.NaN, -1);
+    }
+
+    public void inverseTime(final double feed, final double pa, final double px) {
+        add(INVERSE_TIME, pa, px, Double.NaN, Double.NaN, feed, -1);
+    }
+
+    public void resetA() {
+        add(RESET_A, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, -1);
+    }
+
+    public void comment(final String comment) {
+        addText(COMMENT, comment);
+    }
+
+    public void commentLarge(final String comment) {
+        addText(COMMENT_LARGE, comment);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public byte getKind(final int i) {
+        return kind[i];
+    }
+
+    public double getA(final int i) {
+        return a[i];
+    }
+
+    public double getX(final int i) {
+        return x[i];
+    }
+
+    public double getY(final int i) {
+        return y[i];
+    }
+
+    public double getZ(final int i) {
+        return z[i];
+    }
+
+    public double getF(final int i) {
+        return f[i];
+    }
+
+    public String getText(final int i) {
+        return text[i] < 0 ? null : texts.get(text[i]);
+    }
+
+    private void addText(final byte textKind, final String comment) {
+        // Comments repeat a lot, store each text once
+        int idx = texts.size() > 0 && texts.get(texts.size() - 1).equals(comment) ? texts.size() - 1 : texts.indexOf(comment);
+        if (idx < 0) {
+            idx = texts.size();
+            texts.add(comment);
+        }
+        add(textKind, Double.NaN, Double.NaN, Double.NaN, Double.NaN, Double.NaN, idx);
+    }
+
+    private void add(final byte moveKind, final double pa, final double px, final double py, final double pz, final double pf, final int pText) {
+        if (size == kind.length) {
+            final int capacity = size * 2;
+            kind = Arrays.copyOf(kind, capacity);
+            a = Arrays.copyOf(a, capacity);
+            x = Arrays.copyOf(x, capacity);
+            y = Arrays.copyOf(y, capacity);
+            z = Arrays.copyOf(z, capacity);
+            f = Arrays.copyOf(f, capacity);
+            text = Arrays.copyOf(text, capacity);
+        }
+        kind[size] = moveKind;
+        a[size] = pa;
+        x[size] = px;
+        y[size] = py;
+        z[size] = pz;
+        f[size] = pf;
+        text[size] = pText;
+        size++;
+    }
+}
@@ -50,12 +50,14 @@ import com.rvantwisk.cnctools.operations.interfaces.MillTaskController;
 import com.rvantwisk.gcodeparser.GCodeParser;
 import com.rvantwisk.gcodeparser.MachineStatus;
 import com.rvantwisk.gcodeparser.exceptions.SimException;
-import com.rvantwisk.gcodeparser.exceptions.UnsupportedSimException;
 import com.rvantwisk.gcodeparser.machines.StatisticLimitsController;
 import com.rvantwisk.gcodeparser.validators.LinuxCNCValidator;
 import javafx.beans.value.ChangeListener;
 import javafx.beans.value.ObservableValue;
+import javafx.concurrent.Task;
+import javafx.concurrent.WorkerStateEvent;
 import javafx.event.ActionEvent;
+import javafx.event.EventHandler;
 import javafx.fxml.FXML;
 import javafx.scene.control.CheckBox;
 import javafx.scene.control.TextArea;
@@ -80,6 +82,7 @@ public class CustomGCodeController implements MillTaskController {
 
     private GCodeTaskModel model;
     private Project project;
+    private GCodeActor parsing = null;
 
     @Autowired
     ToolDBManager toolDBManager;
@@ -111,6 +114,9 @@ public class CustomGCodeController implements MillTaskController {
 
     @Override
     public void destroy() {
+        if (parsing != null) {
+            parsing.cancel();
+        }
         gCodeViewerControl.destroy();
     }
 
@@ -150,47 +156,81 @@ public class CustomGCodeController implements MillTaskController {
     }
 
     private void reRenderModel() {
+        final StringBuilder str = new StringBuilder();
+
+        if (model.referencedFileProperty().get() && !StringUtils.isEmpty(model.getgCodeFile())) {
+            str.append(model.getGcode());
+        } else if (gCodeText.getText() != null) {
+            str.append(gCodeText.getText());
+        }
+
+        // Only the last edit is of interest
+        if (parsing != null) {
+            parsing.cancel();
+        }
+
+        final GCodeActor machine = new GCodeActor("gcode");
+        final ArrowsActor arrows = new ArrowsActor("arrows");
+        final StatisticLimitsController stats = new StatisticLimitsController();
+        final LinuxCNCValidator validator = new LinuxCNCValidator();
+        parsing = machine;
+
+        // The tool path is shown while it is parsed, the platform needs the limits of the whole program
         try {
-            final StringBuilder str = new StringBuilder();
+            gCodeViewerControl.addActor(machine);
+        } catch (SimException e) {
+            showError(e.getMessage());
+            return;
+        }
 
-            if (model.referencedFileProperty().get() && !StringUtils.isEmpty(model.getgCodeFile())) {
-                str.append(model.getGcode());
-            } else if (gCodeText.getText() != null) {
-                str.append(gCodeText.getText());
+        final Task<Void> task = new Task<Void>() {
+            @Override
+            protected Void call() throws Exception {
+                new GCodeParser(validator, str, machine, arrows, stats);
+                return null;
             }
+        };
+        task.setOnSucceeded(new EventHandler<WorkerStateEvent>() {
+            @Override
+            public void handle(WorkerStateEvent event) {
+                if (parsing != machine) {
+                    return;
+                }
+                try {
+                    gCodeViewerControl.addActor(arrows);
 
-            if (str != null) {
-                GCodeActor machine = new GCodeActor("gcode");
-                ArrowsActor arrows = new ArrowsActor("arrows");
-                StatisticLimitsController stats = new StatisticLimitsController();
-                LinuxCNCValidator validator = new LinuxCNCValidator();
-                GCodeParser parser = new GCodeParser(validator, str, machine, arrows, stats);
-                gCodeViewerControl.addActor(arrows);
-
-                // create a platform
-                gCodeViewerControl.addActor(new PlatformActor(
-                        stats.getMinValues().get(MachineStatus.Axis.X).floatValue() - 20.0f,
-                        stats.getMinValues().get(MachineStatus.Axis.Y).floatValue() - 20.0f,
-                        stats.getMaxValues().get(MachineStatus.Axis.X).floatValue() + 20.0f,
-                        stats.getMaxValues().get(MachineStatus.Axis.Y).floatValue() + 20.0f,
-                        stats.isMetric()
-                ));
-
-                gCodeViewerControl.addActor(machine);
+                    // create a platform
+                    gCodeViewerControl.addActor(new PlatformActor(
+                            stats.getMinValues().get(MachineStatus.Axis.X).floatValue() - 20.0f,
+                            stats.getMinValues().get(MachineStatus.Axis.Y).floatValue() - 20.0f,
+                            stats.getMaxValues().get(MachineStatus.Axis.X).floatValue() + 20.0f,
+                            stats.getMaxValues().get(MachineStatus.Axis.Y).floatValue() + 20.0f,
+                            stats.isMetric()
+                    ));
+                    showError("");
+                } catch (Exception e) {
+                    showError(e.getMessage());
+                }
+            }
+        });
+        task.setOnFailed(new EventHandler<WorkerStateEvent>() {
+            @Override
+            public void handle(WorkerStateEvent event) {
+                if (parsing != machine) {
+                    return;
+                }
+                showError(task.getException().getMessage());
             }
+        });
 
-            errors.textProperty().set("");
-            errors.getTooltip().setText("");
-        } catch (UnsupportedSimException e) {
-            errors.textProperty().set(e.getMessage());
-            errors.getTooltip().setText(e.getMessage());
-        } catch (SimException e) {
-            errors.textProperty().set(e.getMessage());
-            errors.getTooltip().setText(e.getMessage());
-        } catch (Exception e) {
-            errors.textProperty().set(e.getMessage());
-            errors.getTooltip().setText(e.getMessage());
-        }
+        final Thread thread = new Thread(task, "Parse G-Code");
+        thread.setDaemon(true);
+        thread.start();
+    }
+
+    private void showError(final String message) {
+        errors.textProperty().set(message);
+        errors.getTooltip().setText(message);
     }
 
     public void selectFile(ActionEvent actionEvent) {
@@ -78,6 +78,11 @@ public class GCodeTaskModel implements TaskModel {
 
     }
 
+    @Override
+    public String getToolID() {
+        return null;
+    }
+
     public Object readResolve() {
         if (gCodeFile == null) {
             gCodeFile = new SimpleStringProperty();
@@ -0,0 +1,652 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.operations.facing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+import java.util.concurrent.RecursiveTask;
+
+/**
+ * Constant engagement (adaptive) clearing.
+ * <p/>
+ * The material is kept in a raster map. The tool walks through the area in small steps, for each step a fan of
+ * directions is tried and the direction is choosen that cuts as close as possible to the maximum engagement angle
+ * without exceeding it, the material under the tool is then removed from the map. When there is no more material
+ * around the tool it moves to the closest material left, cutting through air when it can and with a rapid move
+ * when it would have to leave the area. When every direction would exceed the maximum engagement the cut ends and the
+ * tool enters again at the closest material, a move above the limit is never made.
+ * <p/>
+ * Building the material map and searching for the closest material are done on all cores.
+ */
+public class AdaptiveClearing {
+    private static final ForkJoinPool POOL = new ForkJoinPool();
+    private static final int MAX_CELLS = 16 * 1024 * 1024;
+    private static final int SAMPLES = 72; // Points on the tool circle used to measure engagement
+    private static final int ROWS_PER_TASK = 32;
+    private static final double MAX_TURN = 90.0;
+    private static final double TURN_STEP = 5.0;
+    private static final int MAX_IDLE_STEPS = 256; // Steps in a row without removing material before giving up
+    private static final int HELIX_TURNS = 2; // Turns of the entry helix to descend to the depth of a layer
+    private static final int HELIX_SEGMENTS = 16;
+
+    private final double toolRadius;
+    private final double maxEngagement; // In degrees
+    private final boolean materialRight; // Keep the material on the right hand side of the tool
+
+    // Raster
+    private double originX;
+    private double originY;
+    private double cell;
+    private int width;
+    private int height;
+    private boolean[] valid;    // Tool center may be here
+    private boolean[] material; // Material left to be removed
+    private int remaining;
+    private int[] disk;         // Cell offsets within the tool radius sorted on distance, pairs of dx,dy
+
+    private final double[] sampleX = new double[SAMPLES];
+    private final double[] sampleY = new double[SAMPLES];
+    private int entries = 0;
+
+    /**
+     * @param toolRadius    Radius of the tool
+     * @param radialDepth   Maximum step over, the maximum engagement angle is the angle of a straight cut at this step over
+     * @param materialRight When true the material is kept at the right of the tool, climb milling for a clockwise spindle
+     */
+    public AdaptiveClearing(final double toolRadius, final double radialDepth, final boolean materialRight) {
+        if (toolRadius <= 0.0 || radialDepth <= 0.0) {
+            throw new IllegalArgumentException("toolRadius and radialDepth must be positive");
+        }
+        this.toolRadius = toolRadius;
+        this.maxEngagement = Math.toDegrees(Math.acos(1.0 - Math.min(radialDepth, toolRadius) / toolRadius));
+        this.materialRight = materialRight;
+        for (int i = 0; i < SAMPLES; i++) {
+            final double a = 2.0 * Math.PI * i / SAMPLES;
+            sampleX[i] = Math.cos(a) * toolRadius;
+            sampleY[i] = Math.sin(a) * toolRadius;
+        }
+    }
+
+    /**
+     * Calculate the clearing path
+     *
+     * @param xy Area where the center of the tool may go, as interleaved x,y coordinates of a closed ring.
+     *           All material within the tool radius of this area is removed.
+     * @return The path, moves between area's that cannot be connected are marked rapid
+     */
+    public LayerPath calculate(final double[] xy) {
+        buildRaster(xy);
+
+        final LayerPath path = new LayerPath();
+        if (remaining == 0) {
+            return path;
+        }
+
+        double px = 0.0;
+        double py = 0.0;
+        double heading = 0.0;
+        boolean started = false;
+        // Stop when material is left that cannot be reached, seen as a number of steps that don't remove anything
+        for (int idle = 0, before = remaining; remaining > 0 && idle < MAX_IDLE_STEPS; idle = remaining < before ? 0 : idle + 1, before = remaining) {
+            if (!started) {
+                final int start = nearestValid(centerOfValid());
+                px = cellX(start);
+                py = cellY(start);
+                heading = entry(path, px, py);
+                px = path.getX(path.size() - 1);
+                py = path.getY(path.size() - 1);
+                started = true;
+                continue;
+            }
+
+            final double step = Math.max(cell, toolRadius / 8.0);
+            final Move move = findMove(px, py, heading, step);
+            if (move == BLOCKED) {
+                // Every step exceeds the engagement limit, end this cut and enter again at the closest material
+                final int center = nearestValid(nearestMaterial(px, py));
+                path.add(px, py, true);
+                px = cellX(center);
+                py = cellY(center);
+                path.add(px, py, true);
+                heading = entry(path, px, py);
+                px = path.getX(path.size() - 1);
+                py = path.getY(path.size() - 1);
+                continue;
+            }
+            if (move != null) {
+                px = move.x;
+                py = move.y;
+                heading = move.heading;
+                path.add(px, py, false);
+                stamp(px, py);
+                continue;
+            }
+
+            // Nothing to cut around the tool, go to the closest material
+            final int target = nearestMaterial(px, py);
+            if (target < 0) {
+                break;
+            }
+            final double mx = cellX(target);
+            final double my = cellY(target);
+            final double distance = Math.hypot(mx - px, my - py);
+            if (distance <= toolRadius) {
+                // Material too small to be seen on the tool circle, it's under the tool
+                stamp(px, py);
+                continue;
+            }
+
+            // Cut through air towards the tool position closest to the material, stop as soon as the tool touches it.
+            // Material met on the way counts as well, when the next part of the link would cut it above the maximum
+            // engagement the tool stops in front of it and the next steps search a way in within the limit.
+            final int center = nearestValid(target);
+            final double cx = cellX(center);
+            final double cy = cellY(center);
+            if (isValidLine(px, py, cx, cy)) {
+                final double h = Math.toDegrees(Math.atan2(cy - py, cx - px));
+                final double length = Math.hypot(cx - px, cy - py);
+                final int parts = Math.max(1, (int) Math.ceil(length / cell));
+                int stop = parts;
+                for (int s = 1; s <= parts; s++) {
+                    final double x = px + (cx - px) * s / parts;
+                    final double y = py + (cy - py) * s / parts;
+                    final double e = engagement(x, y, h, null);
+                    if (e > maxEngagement) {
+                        stop = s - 1;
+                        break;
+                    }
+                    if (e > 0.0 || Math.hypot(mx - x, my - y) <= toolRadius * 0.99) {
+                        stop = s;
+                        break;
+                    }
+                }
+                heading = h;
+                if (stop > 0) {
+                    px = px + (cx - px) * stop / parts;
+                    py = py + (cy - py) * stop / parts;
+                    path.add(px, py, false);
+                    stamp(px, py);
+                }
+            } else {
+                path.add(px, py, true);
+                px = cx;
+                py = cy;
+                path.add(px, py, true);
+                heading = entry(path, px, py);
+                px = path.getX(path.size() - 1);
+                py = path.getY(path.size() - 1);
+            }
+        }
+        return path;
+    }
+
+    /**
+     * @return Number of times the tool entered the material, the first entry and each time no step stayed within the
+     * engagement limit, for example in slots narrower then the tool
+     */
+    public int getEntries() {
+        return entries;
+    }
+
+    /**
+     * @return Number of raster cells with material left after calculating
+     */
+    public int getRemaining() {
+        return remaining;
+    }
+
+    public double getMaxEngagement() {
+        return maxEngagement;
+    }
+
+    /**
+     * Engagement in degrees of a tool at x,y moving towards heading, only material in front of the tool counts
+     *
+     * @param sideOut Receives the balance of material right (positive) or left (negative) of the tool
+     */
+    double engagement(final double x, final double y, final double heading, final double[] sideOut) {
+        final double hx = Math.cos(Math.toRadians(heading));
+        final double hy = Math.sin(Math.toRadians(heading));
+        int count = 0;
+        int side = 0;
+        for (int i = 0; i < SAMPLES; i++) {
+            final double sx = sampleX[i];
+            final double sy = sampleY[i];
+            if (sx * hx + sy * hy <= 0.0) {
+                continue;
+            }
+            if (isMaterial(x + sx, y + sy)) {
+                count++;
+                side += (hx * sy - hy * sx) < 0.0 ? 1 : -1;
+            }
+        }
+        if (sideOut != null) {
+            sideOut[0] = side;
+        }
+        return count * 360.0 / SAMPLES;
+    }
+
+    /**
+     * Find the next step within the engagement limit
+     *
+     * @return The step, null when there is no material in reach of a step or BLOCKED when every step exceeds the limit
+     */
+    private Move findMove(final double px, final double py, final double heading, double step) {
+        final double[] side = new double[1];
+        for (int attempt = 0; attempt < 4; attempt++, step /= 2.0) {
+            Move best = null;
+            double bestScore = Double.MAX_VALUE;
+            boolean anyMaterial = false;
+            for (double turn = -MAX_TURN; turn <= MAX_TURN; turn += TURN_STEP) {
+                final double h = heading + turn;
+                final double x = px + Math.cos(Math.toRadians(h)) * step;
+                final double y = py + Math.sin(Math.toRadians(h)) * step;
+                if (!isValid(x, y)) {
+                    continue;
+                }
+                final double e = engagement(x, y, h, side);
+                if (e <= 0.0) {
+                    continue;
+                }
+                anyMaterial = true;
+                if (e > maxEngagement) {
+                    continue;
+                }
+                final boolean wrongSide = materialRight ? side[0] < 0 : side[0] > 0;
+                final double score = (maxEngagement - e) + Math.abs(turn) * 0.2 + (wrongSide ? 45.0 : 0.0);
+                if (score < bestScore) {
+                    bestScore = score;
+                    best = new Move(x, y, h, e);
+                }
+            }
+            if (best != null) {
+                return best;
+            }
+            if (!anyMaterial) {
+                return null;
+            }
+        }
+        return BLOCKED;
+    }
+
+    /**
+     * Enter the material without plunging. The tool ramps from the center out to a helix and descends along it, one more
+     * turn at depth clears the bottom. During the ramp only the material of one turn's descent is cut, at depth the
+     * tool is left in a hole of the helix radius plus the tool radius from where it steps out within the engagement
+     * limit. Where no helix fits the tool ramps back and forth along a line, only when that doesn't fit either it plunges.
+     *
+     * @return Heading of the tool at the end of the entry
+     */
+    private double entry(final LayerPath path, final double cx, final double cy) {
+        entries++;
+        path.addRamp(cx, cy);
+        stamp(cx, cy);
+
+        // Keep the material at the requested side, outside the helix
+        final double direction = materialRight ? -1.0 : 1.0;
+        for (double r = toolRadius / 2.0; r > cell; r /= 2.0) {
+            boolean fits = true;
+            for (int i = 0; i < HELIX_SEGMENTS && fits; i++) {
+                final double a = 2.0 * Math.PI * i / HELIX_SEGMENTS;
+                fits = isValid(cx + Math.cos(a) * r, cy + Math.sin(a) * r);
+            }
+            if (!fits) {
+                continue;
+            }
+            for (int i = 0; i <= (HELIX_TURNS + 1) * HELIX_SEGMENTS; i++) {
+                final double a = direction * 2.0 * Math.PI * i / HELIX_SEGMENTS;
+                final double x = cx + Math.cos(a) * r;
+                final double y = cy + Math.sin(a) * r;
+                if (i <= HELIX_TURNS * HELIX_SEGMENTS) {
+                    path.addRamp(x, y);
+                } else {
+                    path.add(x, y, false);
+                }
+                stamp(x, y);
+            }
+            return direction * 90.0;
+        }
+
+        // Ramp along the longest line that fits, ending back at the center at depth
+        for (double length = toolRadius; length > cell; length /= 2.0) {
+            for (int i = 0; i < HELIX_SEGMENTS; i++) {
+                final double h = 360.0 * i / HELIX_SEGMENTS;
+                final double ex = cx + Math.cos(Math.toRadians(h)) * length;
+                final double ey = cy + Math.sin(Math.toRadians(h)) * length;
+                if (!isValidLine(cx, cy, ex, ey)) {
+                    continue;
+                }
+                for (int pass = 0; pass < HELIX_TURNS; pass++) {
+                    path.addRamp(ex, ey);
+                    path.addRamp(cx, cy);
+                }
+                final int parts = (int) Math.ceil(length / cell);
+                for (int s = 1; s <= parts; s++) {
+                    stamp(cx + (ex - cx) * s / parts, cy + (ey - cy) * s / parts);
+                }
+                path.add(ex, ey, false);
+                path.add(cx, cy, false);
+                return h + 180.0;
+            }
+        }
+
+        // No room to ramp at all, plunge
+        path.add(cx, cy, false);
+        return 0.0;
+    }
+
+    private void buildRaster(final double[] xy) {
+        double minX = Double.MAX_VALUE, minY = Double.MAX_VALUE, maxX = -Double.MAX_VALUE, maxY = -Double.MAX_VALUE;
+        for (int i = 0; i < xy.length; i += 2) {
+            minX = Math.min(minX, xy[i]);
+            maxX = Math.max(maxX, xy[i]);
+            minY = Math.min(minY, xy[i + 1]);
+            maxY = Math.max(maxY, xy[i + 1]);
+        }
+
+        cell = toolRadius / 8.0;
+        final double spanX = maxX - minX + toolRadius * 2.0;
+        final double spanY = maxY - minY + toolRadius * 2.0;
+        while ((spanX / cell + 3) * (spanY / cell + 3) > MAX_CELLS) {
+            cell *= 1.5;
+        }
+        originX = minX - toolRadius - cell;
+        originY = minY - toolRadius - cell;
+        width = (int) Math.ceil(spanX / cell) + 3;
+        height = (int) Math.ceil(spanY / cell) + 3;
+        valid = new boolean[width * height];
+        material = new boolean[width * height];
+
+        // Valid centers with a scanline for each column
+        final double[] scanX = new double[width];
+        for (int i = 0; i < width; i++) {
+            scanX[i] = originX + (i + 0.5) * cell;
+        }
+        final double[] xs = new double[xy.length / 2];
+        final double[] ys = new double[xy.length / 2];
+        for (int i = 0; i < xs.length; i++) {
+            xs[i] = xy[i * 2];
+            ys[i] = xy[i * 2 + 1];
+        }
+        final ScanlineSweep sweep = new ScanlineSweep();
+        sweep.addRing(xs, ys, xs.length);
+        final double[][] intervals = sweep.sweep(scanX);
+        for (int i = 0; i < width; i++) {
+            for (int k = 0; k < intervals[i].length; k += 2) {
+                final int from = Math.max(0, (int) Math.ceil((intervals[i][k] - originY) / cell - 0.5));
+                final int to = Math.min(height - 1, (int) Math.floor((intervals[i][k + 1] - originY) / cell - 0.5));
+                for (int j = from; j <= to; j++) {
+                    valid[j * width + i] = true;
+                }
+            }
+        }
+
+        // Cell offsets within the tool radius, closest first
+        final int r = (int) Math.floor(toolRadius / cell);
+        final List<int[]> offsets = new ArrayList<>();
+        for (int dy = -r; dy <= r; dy++) {
+            for (int dx = -r; dx <= r; dx++) {
+                if ((dx * dx + dy * dy) * cell * cell <= toolRadius * toolRadius) {
+                    offsets.add(new int[]{dx, dy});
+                }
+            }
+        }
+        Collections.sort(offsets, new Comparator<int[]>() {
+            @Override
+            public int compare(final int[] a, final int[] b) {
+                return Integer.compare(a[0] * a[0] + a[1] * a[1], b[0] * b[0] + b[1] * b[1]);
+            }
+        });
+        disk = new int[offsets.size() * 2];
+        for (int i = 0; i < offsets.size(); i++) {
+            disk[i * 2] = offsets.get(i)[0];
+            disk[i * 2 + 1] = offsets.get(i)[1];
+        }
+
+        // Material is everything the tool can reach
+        POOL.invoke(new DilateTask(0, height));
+        remaining = 0;
+        for (boolean m : material) {
+            if (m) {
+                remaining++;
+            }
+        }
+    }
+
+    /**
+     * Remove the material under the tool. Every cell the tool touches is removed, so material seen by engagement on the
+     * tool circle is always removed when the tool moves there.
+     */
+    private void stamp(final double x, final double y) {
+        final int cx = (int) Math.floor((x - originX) / cell);
+        final int cy = (int) Math.floor((y - originY) / cell);
+        final int r = (int) Math.ceil(toolRadius / cell) + 1;
+        final double r2 = toolRadius * toolRadius;
+        for (int j = Math.max(0, cy - r); j <= Math.min(height - 1, cy + r); j++) {
+            final double dy = Math.max(0.0, Math.abs(originY + (j + 0.5) * cell - y) - cell / 2.0);
+            for (int i = Math.max(0, cx - r); i <= Math.min(width - 1, cx + r); i++) {
+                final double dx = Math.max(0.0, Math.abs(originX + (i + 0.5) * cell - x) - cell / 2.0);
+                final int idx = j * width + i;
+                if (material[idx] && dx * dx + dy * dy <= r2) {
+                    material[idx] = false;
+                    remaining--;
+                }
+            }
+        }
+    }
+
+    private boolean isMaterial(final double x, final double y) {
+        final int i = (int) Math.floor((x - originX) / cell);
+        final int j = (int) Math.floor((y - originY) / cell);
+        return i >= 0 && j >= 0 && i < width && j < height && material[j * width + i];
+    }
+
+    private boolean isValid(final double x, final double y) {
+        final int i = (int) Math.floor((x - originX) / cell);
+        final int j = (int) Math.floor((y - originY) / cell);
+        return i >= 0 && j >= 0 && i < width && j < height && valid[j * width + i];
+    }
+
+    private boolean isValidLine(final double x0, final double y0, final double x1, final double y1) {
+        final int steps = (int) Math.ceil(Math.hypot(x1 - x0, y1 - y0) / cell) + 1;
+        for (int s = 0; s <= steps; s++) {
+            if (!isValid(x0 + (x1 - x0) * s / steps, y0 + (y1 - y0) * s / steps)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    private double cellX(final int idx) {
+        return originX + (idx % width + 0.5) * cell;
+    }
+
+    private double cellY(final int idx) {
+        return originY + (idx / width + 0.5) * cell;
+    }
+
+    private int centerOfValid() {
+        long sx = 0, sy = 0, n = 0;
+        for (int idx = 0; idx < valid.length; idx++) {
+            if (valid[idx]) {
+                sx += idx % width;
+                sy += idx / width;
+                n++;
+            }
+        }
+        return n == 0 ? 0 : (int) (sy / n) * width + (int) (sx / n);
+    }
+
+    /**
+     * Closest valid cell to a cell within the tool radius, or the first valid cell when the cell is out of reach
+     */
+    private int nearestValid(final int idx) {
+        final int ci = idx % width;
+        final int cj = idx / width;
+        for (int k = 0; k < disk.length; k += 2) {
+            final int i = ci + disk[k];
+            final int j = cj + disk[k + 1];
+            if (i >= 0 && j >= 0 && i < width && j < height && valid[j * width + i]) {
+                return j * width + i;
+            }
+        }
+        for (int k = 0; k < valid.length; k++) {
+            if (valid[k]) {
+                return k;
+            }
+        }
+        return idx;
+    }
+
+    /**
+     * @return Index of the closest cell with material, -1 when all material is removed
+     */
+    private int nearestMaterial(final double x, final double y) {
+        final long[] best = POOL.invoke(new NearestTask(0, height, x, y));
+        return (int) best[1];
+    }
+
+    private static final Move BLOCKED = new Move(0.0, 0.0, 0.0, 0.0);
+
+    private static final class Move {
+        private final double x;
+        private final double y;
+        private final double heading;
+        private final double engagement;
+
+        private Move(final double x, final double y, final double heading, final double engagement) {
+            this.x = x;
+            this.y = y;
+            this.heading = heading;
+            this.engagement = engagement;
+        }
+    }
+
+    /**
+     * Marks all cells within the tool radius of a valid cell as material, split by rows
+     */
+    private final class DilateTask extends RecursiveAction {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+
+        private DilateTask(final int from, final int to) {
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > ROWS_PER_TASK) {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new DilateTask(from, mid), new DilateTask(mid, to));
+                return;
+            }
+            for (int j = from; j < to; j++) {
+                for (int i = 0; i < width; i++) {
+                    for (int k = 0; k < disk.length; k += 2) {
+                        final int x = i + disk[k];
+                        final int y = j + disk[k + 1];
+                        if (x >= 0 && y >= 0 && x < width && y < height && valid[y * width + x]) {
+                            material[j * width + i] = true;
+                            break;
+                        }
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * Searches the closest material cell, split by rows. Returns the squared distance in bits and the cell index
+     */
+    private final class NearestTask extends RecursiveTask<long[]> {
+        private static final long serialVersionUID = 1L;
+
+        private final int from;
+        private final int to;
+        private final double x;
+        private final double y;
+
+        private NearestTask(final int from, final int to, final double x, final double y) {
+            this.from = from;
+            this.to = to;
+            this.x = x;
+            this.y = y;
+        }
+
+        @Override
+        protected long[] compute() {
+            if (to - from > ROWS_PER_TASK) {
+                final int mid = (from + to) >>> 1;
+                final NearestTask low = new NearestTask(from, mid, x, y);
+                low.fork();
+                final long[] high = new NearestTask(mid, to, x, y).compute();
+                final long[] lowResult = low.join();
+                return Double.longBitsToDouble(lowResult[0]) <= Double.longBitsToDouble(high[0]) ? lowResult : high;
+            }
+            double best = Double.MAX_VALUE;
+            int bestIdx = -1;
+            for (int j = from; j < to; j++) {
+                final double dy = originY + (j + 0.5) * cell - y;
+                if (dy * dy >= best) {
+                    continue;
+                }
+                for (int i = 0; i < width; i++) {
+                    final int idx = j * width + i;
+                    if (material[idx]) {
+                        final double dx = originX + (i + 0.5) * cell - x;
+                        final double d = dx * dx + dy * dy;
+                        if (d < best) {
+                            best = d;
+                            bestIdx = idx;
+                        }
+                    }
+                }
+            }
+            return new long[]{Double.doubleToLongBits(best), bestIdx};
+        }
+    }
+}
@@ -39,6 +39,7 @@
 package com.rvantwisk.cnctools.operations.facing;
 
 import com.rvantwisk.cnctools.gcode.CncToolsGCodegenerator;
+import com.rvantwisk.cnctools.operations.math.PointBuffer;
 import com.rvantwisk.gcodegenerator.GCodeBuilder;
 import math.geom2d.AffineTransform2D;
 import math.geom2d.Box2D;
@@ -47,14 +48,11 @@ import math.geom2d.circulinear.*;
 import math.geom2d.conic.Circle2D;
 import math.geom2d.conic.CircleArc2D;
 import math.geom2d.conic.Ellipse2D;
-import math.geom2d.curve.Curve2D;
 import math.geom2d.curve.CurveArray2D;
-import math.geom2d.domain.Contour2D;
 import math.geom2d.line.LineSegment2D;
 import math.geom2d.polygon.LinearRing2D;
 import math.geom2d.polygon.Polyline2D;
 import math.geom2d.polygon.Rectangle2D;
-import math.geom3d.Point3D;
 
 import java.util.*;
 
@@ -76,6 +74,8 @@ public class FacingHelper {
     private double axialDepth = 0.0; // STep Depth
     private double millSize = 0.0; // Size of endmill
     private double rapidClearance = 1.0;
+    private double feedRate = 600.0;
+    private double rapidRate = 2500.0;
     private double stockClearance = 5.0;
     private double zTop;
     private double zSafe;
@@ -144,133 +144,267 @@ public class FacingHelper {
         edge = iter.next();
         edge = iter.next();
 
-        // Build each layer till final depth
+        // The 2D pattern is the same for every layer, so it's calculated once and only Z changes per layer
+        LayerPath pocketPath = null;
+        switch (cutStrategy) {
+            case ZIGZAG:
+            case LINEAR:
+                pocketPath = buildLinearorZigzagPath(Math.toRadians(angle));
+                break;
+            case SPIRAL_OUT:
+                pocketPath = buildSpiralOutPath(!(cuttingClimb ^ spindleCW));
+                break;
+            case ADAPTIVE:
+                pocketPath = buildAdaptivePath(!(cuttingClimb ^ spindleCW));
+                break;
+        }
+
+        // Set direction of cutting, a spiral and adaptive path already run in the requested direction
+        if ((cutStrategy == CutStrategy.LINEAR || cutStrategy == CutStrategy.ZIGZAG) && (cuttingClimb ^ spindleCW)) {
+            pocketPath.reverse();
+        }
+
+        LayerPath edgePath = null;
+        if (edgeCleanup) {
+            edgePath = buildEdgePathFromContour(edge, inside.firstPoint());
+        }
+
+        // Link the passes, the links are the same for every layer. Only the regions of a linear or zigzag path can be reordered
+        final LinkOptimizer linker = new LinkOptimizer(millSize / 2.0, radialDepth, feedRate, rapidRate, axialDepth + rapidClearance);
+        final LayerPath layerPath = linker.link(pocketPath, cutStrategy == CutStrategy.LINEAR || cutStrategy == CutStrategy.ZIGZAG, edgePath);
+
+        // Build each layer till final depth, hops are made just above the layer before
         double z = zTop;
+        boolean retract = true;
         while ((z - axialDepth) >= zFinal) {
+            calculatePaths(layerPath, z - axialDepth, z, retract);
             z = z - axialDepth;
-            calculatePaths(angle, z);
+            retract = !linker.isLayerHop();
         }
         if (z > zFinal) {
-            calculatePaths(angle, zFinal);
+            calculatePaths(layerPath, zFinal, z, retract);
         }
         gCode.addBlock(GCodeBuilder.builder().G0().Z(zSafe));
 
         // draw(buffer, null);
     }
 
-    private void calculatePaths(double angle, double zHeight) {
+    /**
+     * Emit one layer from the linked path of the pocket and edge
+     *
+     * @param path
+     * @param zHeight
+     * @param zLayerTop Top of the material of this layer, the depth of the layer before
+     * @param retract   Move to the start at safe height, else hop to it from the end of the layer before
+     */
+    private void calculatePaths(final LayerPath path, final double zHeight, final double zLayerTop, final boolean retract) {
         gCode.comment("New layer at angle [" + angle + "] and depth [" + zHeight + "]");
-        angle = Math.toRadians(angle);
+        final double zHop = zLayerTop + rapidClearance; // Just above the layer before
 
-        Point3D[] pocketPoints = null;
-        switch (cutStrategy) {
-            case ZIGZAG:
-            case LINEAR:
-                pocketPoints = buildLinearorZigzagPath(angle, zHeight);
-                break;
-        }
-
-        // Set direction of cutting
-        if (cuttingClimb ^ spindleCW) {
-            Collections.reverse(Arrays.asList(pocketPoints));
-        }
-
-        // Move Z up to safe
-        gCode.addBlock(GCodeBuilder.builder().G0().Z(zSafe));
+        // Move Z up to safe or hop height
+        gCode.addBlock(GCodeBuilder.builder().G0().Z(retract ? zSafe : zHop));
 
         // Move to X/Y coords to start
-        gCode.addBlock(GCodeBuilder.builder().X(pocketPoints[0].getX()).Y(pocketPoints[0].getY()));
+        gCode.addBlock(GCodeBuilder.builder().X(path.getX(0)).Y(path.getY(0)));
 
-        // Entry Move (vertical)
-        gCode.addBlock(GCodeBuilder.builder().G1().X(pocketPoints[0].getX()).Y(pocketPoints[0].getY()).Z(zHeight));
+        // Entry Move (vertical), a ramp starts at the top of the material
+        gCode.addBlock(GCodeBuilder.builder().G1().X(path.getX(0)).Y(path.getY(0)).Z(path.isRamp(0) ? zLayerTop : zHeight));
 
         // Generate GCode for clearing
-        createGCodeFromPoint3D(pocketPoints);
+        createGCodeFromPath(path, zHeight, zLayerTop, zHop);
+    }
 
-        // If edge needs to be cleaned up we can do that here
-        if (edgeCleanup) {
-            gCode.addBlock(GCodeBuilder.builder().G0().Z(zSafe));
-            gCode.addBlock(GCodeBuilder.builder().X(inside.firstPoint().x()).Y(inside.firstPoint().y()));
-            gCode.addBlock(GCodeBuilder.builder().G1().Z(zHeight));
-            buildEdgeGCodeFromContour(edge);
+    /**
+     * Build a linear of zigzag pattern
+     *
+     * @param angle Angle in radians
+     * @return
+     */
+    private LayerPath buildLinearorZigzagPath(double angle) {
+        // Rotate design according to requested cut angle
+        final PointBuffer ring = flattenContour(inside);
+        ring.rotate(-angle);
+        Box2D size = domain.transform(AffineTransform2D.createRotation(-angle)).boundingBox();
+
+        // Place lines at distance of radialAxis on top of the design, the last line at the edge is only kept when
+        // we are more then 5% of radial depth away from it, else we assume the endmill will beable to handle the extra material
+        final int lines = Math.max(1, (int) Math.ceil((size.getMaxX() - size.getMinX()) / radialDepth));
+        final double[] scanX = new double[lines + 1];
+        for (int i = 0; i < lines; i++) {
+            scanX[i] = Math.min(size.getMinX() + i * radialDepth, size.getMaxX());
         }
+        scanX[lines] = size.getMaxX();
 
-        // Move to above startpoint
-        gCode.addBlock(GCodeBuilder.builder().G0().Z(zSafe));
+        final ScanlineSweep sweep = new ScanlineSweep();
+        sweep.addRing(ring.xs(), ring.ys(), ring.size());
+        double[][] intervals = sweep.sweep(scanX);
+
+        int last = lines - 1;
+        while (last >= 0 && intervals[last].length == 0) {
+            last--;
+        }
+        if (last < 0) {
+            throw new RuntimeException("Shape is to small to be milled with the current step over and edge clearance.");
+        }
+        if (Math.abs(scanX[last] - size.getMaxX()) <= radialDepth / 5.0) {
+            intervals[lines] = new double[0];
+        }
+
+        // Rotate back the created CNC paths so they are corectly alliged with the design and build a cut strategy for ZIGZAG and LINEAR
+        final AffineTransform2D rotateBack = AffineTransform2D.createRotation(angle);
+        final LayerPath path = new LayerPath();
+        for (CurveArray2D millPaths : linkScanlines(scanX, intervals)) {
+            millPaths = millPaths.transform(rotateBack);
+
+            // Rapid to the next region when a shape has more then one, each region is a chain of it's own
+            if (!path.isEmpty()) {
+                final Point2D next = ((LineSegment2D) millPaths.get(0)).firstPoint();
+                path.add(path.getX(path.size() - 1), path.getY(path.size() - 1), true);
+                path.add(next.x(), next.y(), true);
+                path.newChain();
+            }
+
+            switch (cutStrategy) {
+                case ZIGZAG:
+                    buildCutPath_ZIGZAG(millPaths, path);
+                    break;
+                case LINEAR:
+                    buildCutPath_LINEAR(millPaths, path);
+                    break;
+            }
+        }
+        return path;
     }
 
     /**
-     * Build a linear of zigzag pattern
+     * Build a constant engagement path, the engagement is limited to the angle of a straight cut at the step over
      *
-     * @param angle
-     * @param zHeight
+     * @param materialRight Keep the material at the right hand side of the tool
      * @return
      */
-    private Point3D[] buildLinearorZigzagPath(double angle, double zHeight) {
-        AffineTransform2D transform = AffineTransform2D.createRotation(-angle);
+    private LayerPath buildAdaptivePath(final boolean materialRight) {
+        final AdaptiveClearing clearing = new AdaptiveClearing(millSize / 2.0, radialDepth, materialRight);
+        final LayerPath path = clearing.calculate(flattenContour(inside).toInterleaved());
+        if (path.isEmpty()) {
+            throw new RuntimeException("Shape is to small to be milled with the current step over and edge clearance.");
+        }
+        if (clearing.getRemaining() > 0) {
+            throw new RuntimeException("Adaptive clearing could not remove all material within the engagement limit, try a different step over or strategy.");
+        }
+        return path;
+    }
 
-        // Rotate design according to requested cut angle
-        Contour2D insideTransformed = inside.transform(transform);
-        Curve2D domainTransformed = domain.transform(transform);
-
-        // Place lines at distance of radialAxis on top of the design and calculate all interestions between teh design and the CNC path's
-        Box2D size = domainTransformed.boundingBox();
-        CurveArray2D millPaths = new CirculinearCurveArray2D();
-
-        double x = size.getMinX();
-        LineSegment2D lastAdded = null;
-        while (x < size.getMaxX()) {
-            List<Point2D> points = new ArrayList<>(insideTransformed.intersections(new LineSegment2D(x, size.getMinY(), x, size.getMaxY())));
-            if (points.size() == 2) {
-                lastAdded = new LineSegment2D(points.get(0), points.get(1));
-                millPaths.add(lastAdded);
-            } else if (points.size() > 2) {
-                throw new RuntimeException("Shape seems to be constructed in such a way that we get multiple intersection points.");
+    /**
+     * Build a spiral from the center outwards, each revolution blends into the next so the step over never exceeds
+     * the radial depth. When the shape splits in islands each island is milled on it's own and a rapid move goes to
+     * the next island.
+     *
+     * @param ccw Mill the spiral counter clockwise
+     * @return
+     */
+    private LayerPath buildSpiralOutPath(final boolean ccw) {
+        return new OffsetSpiral(radialDepth).calculate(flattenContour(inside).toInterleaved(), ccw);
+    }
+
+    /**
+     * Link the intervals of consecutive scanlines into regions that can be milled without crossing the boundary.
+     * A interval continues a region when it's the only interval overlapping the region's last interval and the other way
+     * around, any split or join of the shape starts a new region.
+     *
+     * @param scanX     X position of each scanline
+     * @param intervals Intervals as returned from ScanlineSweep
+     * @return Regions each holding upwards pointing LineSegment2D's
+     */
+    private List<CurveArray2D> linkScanlines(final double[] scanX, final double[][] intervals) {
+        final List<CurveArray2D> regions = new ArrayList<>();
+        List<CurveArray2D> open = new ArrayList<>();
+        List<LineSegment2D> openLast = new ArrayList<>();
+
+        for (int i = 0; i < scanX.length; i++) {
+            final double[] ys = intervals[i];
+            final int count = ys.length / 2;
+
+            // Count overlaps between the open regions and the intervals of this scanline
+            final int[] regionHits = new int[open.size()];
+            final int[] intervalHits = new int[count];
+            final int[] intervalRegion = new int[count];
+            for (int r = 0; r < open.size(); r++) {
+                final LineSegment2D prev = openLast.get(r);
+                for (int j = 0; j < count; j++) {
+                    if (ys[j * 2] <= prev.lastPoint().y() && ys[j * 2 + 1] >= prev.firstPoint().y()) {
+                        regionHits[r]++;
+                        intervalHits[j]++;
+                        intervalRegion[j] = r;
+                    }
+                }
             }
-            x = x + radialDepth;
-        }
 
-        // If we are more then 5% of radial depth to the edge of inside we add a last step, else we assume the endmill will beable to handle
-        // the extra material to be removed
-        if (Math.abs(lastAdded.lastPoint().x() - size.getMaxX()) > radialDepth / 5.0) {
-            List<Point2D> points = new ArrayList<>(insideTransformed.intersections(new LineSegment2D(size.getMaxX(), size.getMinY(), size.getMaxX(), size.getMaxY())));
-            if (points.size() == 2) {
-                lastAdded = new LineSegment2D(points.get(0), points.get(1));
-                millPaths.add(lastAdded);
-            } else if (points.size() > 2) {
-                throw new RuntimeException("Shape seems to be constructed in such a way that we get multiple intersection points.");
+            final List<CurveArray2D> nowOpen = new ArrayList<>();
+            final List<LineSegment2D> nowLast = new ArrayList<>();
+            for (int j = 0; j < count; j++) {
+                final LineSegment2D segment = new LineSegment2D(scanX[i], ys[j * 2], scanX[i], ys[j * 2 + 1]);
+                CurveArray2D region;
+                if (intervalHits[j] == 1 && regionHits[intervalRegion[j]] == 1) {
+                    region = open.get(intervalRegion[j]);
+                } else {
+                    region = new CirculinearCurveArray2D();
+                    regions.add(region);
+                }
+                region.add(segment);
+                nowOpen.add(region);
+                nowLast.add(segment);
             }
+            open = nowOpen;
+            openLast = nowLast;
         }
+        return regions;
+    }
 
-        // Re-order of line segment's ensures that they are always upwards
-        millPaths = reOrderLineSegment2DUpwards(millPaths);
-
-        // Rotate back the created array of CNC paths so they are corectly alliged with the design
-        millPaths = millPaths.transform(AffineTransform2D.createRotation(angle));
+    /**
+     * Flatten a contour into a closed ring of points, arcs are approximated the same way as for the edge cleanup
+     *
+     * @param contour
+     * @return
+     */
+    private PointBuffer flattenContour(final CirculinearContour2D contour) {
+        final PointBuffer ring = new PointBuffer();
+        if (contour instanceof Circle2D) {
+            for (LinearRing2D lr : ((Circle2D) contour).asPolyline(30).continuousCurves()) {
+                addAll(ring, lr.vertices());
+            }
+        } else if (contour instanceof GenericCirculinearRing2D) {
+            for (CirculinearElement2D item : ((GenericCirculinearRing2D) contour).smoothPieces()) {
+                if (item instanceof LineSegment2D) {
+                    ring.add(item.firstPoint().x(), item.firstPoint().y());
+                } else if (item instanceof CircleArc2D) {
+                    final List<Point2D> vertices = new ArrayList<>(((CircleArc2D) item).asPolyline(10).vertices());
+                    addAll(ring, vertices.subList(0, vertices.size() - 1));
+                } else {
+                    throw new RuntimeException("Unknown CirculinearElement2D encountered [" + item.getClass().toString() + "]");
+                }
+            }
+        } else if (contour instanceof LinearRing2D) {
+            addAll(ring, ((LinearRing2D) contour).vertices());
+        } else {
+            throw new RuntimeException("Unknown CirculinearContour2D encountered [" + contour.getClass().toString() + "]");
+        }
+        return ring;
+    }
 
-        // build a cut strategy for ZIGZAG and LINEAR
-        Point3D[] arrayPoints = null;
-        switch (cutStrategy) {
-            case ZIGZAG:
-                arrayPoints = buildCutPath_ZIGZAG(millPaths, zHeight);
-                break;
-            case LINEAR:
-                arrayPoints = buildCutPath_LINEAR(millPaths, zHeight);
-                break;
+    private static void addAll(final PointBuffer ring, final Collection<Point2D> points) {
+        for (Point2D p : points) {
+            ring.add(p.x(), p.y());
         }
-        return arrayPoints;
     }
 
     /**
      * Build a ZIGZAG cutting path cutting in both directions
      *
      * @param array
-     * @return Array of G0LineSegment2D or LineSegment2D with teh total pat to follow (last to first, first to last...)
+     * @param path  Path to add the points to (last to first, first to last...)
      */
-    private Point3D[] buildCutPath_ZIGZAG(CurveArray2D array, double zHeight) {
-
+    private void buildCutPath_ZIGZAG(CurveArray2D array, LayerPath path) {
         final int size = array.size();
-        Point3D[] sorted = new Point3D[size * 2];
 
         // Swap every other line segment
         final LineSegment2D[] swapped = new LineSegment2D[size];
@@ -283,93 +417,92 @@ public class FacingHelper {
         }
 
         // Add first point
-        int pos = 0;
         LineSegment2D item = swapped[0];
-        sorted[pos++] = new Point3D(item.firstPoint().x(), item.firstPoint().y(), zHeight);
+        path.add(item.firstPoint().x(), item.firstPoint().y(), false);
 
         // Follow path
         for (int i = 0; i < size; i++) {
             item = swapped[i];
-            sorted[pos++] = new Point3D(item.lastPoint().x(), item.lastPoint().y(), zHeight);
+            path.add(item.lastPoint().x(), item.lastPoint().y(), false);
 
             if (i < (size - 1)) {
                 LineSegment2D nextItem = swapped[i + 1];
-                sorted[pos++] = new Point3D(nextItem.firstPoint().x(), nextItem.firstPoint().y(), zHeight);
+                path.add(nextItem.firstPoint().x(), nextItem.firstPoint().y(), false);
             }
         }
-
-        return sorted;
     }
 
     /**
      * Build a Linear cut path, eg cutting into one direction only
      *
      * @param array
-     * @param zHeight
-     * @return
+     * @param path  Path to add the points to
      */
-    private Point3D[] buildCutPath_LINEAR(CurveArray2D array, double zHeight) {
-
-        Point3D[] sorted = null;
+    private void buildCutPath_LINEAR(CurveArray2D array, LayerPath path) {
         LineSegment2D item;
         final int size = array.size();
 
-        sorted = new Point3D[size * 5 - 3];
-        int pos = 0;
         item = (LineSegment2D) array.get(0);
-        sorted[pos++] = new Point3D(item.firstPoint().x(), item.firstPoint().y(), zHeight);
+        path.add(item.firstPoint().x(), item.firstPoint().y(), false);
         for (int i = 0; i < size; i++) {
             item = (LineSegment2D) array.get(i);
-            sorted[pos++] = new Point3D(item.lastPoint().x(), item.lastPoint().y(), zHeight);
+            path.add(item.lastPoint().x(), item.lastPoint().y(), false);
 
             if (i < (size - 1)) {
                 LineSegment2D nextItem = (LineSegment2D) array.get(i + 1);
-                sorted[pos++] = new G0Point3D(item.lastPoint().x(), item.lastPoint().y(), zSafe);
-                sorted[pos++] = new G0Point3D(item.lastPoint().x(), item.lastPoint().y(), zSafe);
-                sorted[pos++] = new G0Point3D(nextItem.firstPoint().x(), nextItem.firstPoint().y(), zSafe);
-                sorted[pos++] = new Point3D(nextItem.firstPoint().x(), nextItem.firstPoint().y(), zHeight);
+                path.add(item.lastPoint().x(), item.lastPoint().y(), true);
+                path.add(nextItem.firstPoint().x(), nextItem.firstPoint().y(), true);
+                path.add(nextItem.firstPoint().x(), nextItem.firstPoint().y(), false);
             }
         }
-
-        return sorted;
     }
 
     /**
-     * Create G-Code based on point array
+     * Create G-Code from a layer path, rapid points are moved to at safe height or at hop height.
+     * A run of ramp points descends from the top of the layer to it's depth evenly along the length of the run.
      *
-     * @param arrayPoint
+     * @param path
+     * @param zHeight
+     * @param zLayerTop
+     * @param zHop
      */
-    private void createGCodeFromPoint3D(final Point3D[] arrayPoint) {
-        for (Point3D item : arrayPoint) {
-            if (item instanceof G0Point3D) {
-                gCode.addBlock(GCodeBuilder.builder().G0().X(item.getX()).Y(item.getY()).Z(item.getZ()));
+    private void createGCodeFromPath(final LayerPath path, final double zHeight, final double zLayerTop, final double zHop) {
+        int rampEnd = -1; // Last point of the current ramp
+        double rampLength = 0.0;
+        double rampDone = 0.0;
+        for (int i = 0; i < path.size(); i++) {
+            if (path.isRapid(i)) {
+                gCode.addBlock(GCodeBuilder.builder().G0().X(path.getX(i)).Y(path.getY(i)).Z(path.isHop(i) ? zHop : zSafe));
+            } else if (path.isRamp(i)) {
+                if (i > rampEnd) {
+                    rampEnd = i;
+                    rampLength = 0.0;
+                    rampDone = 0.0;
+                    while (rampEnd + 1 < path.size() && path.isRamp(rampEnd + 1)) {
+                        rampEnd++;
+                        rampLength += Math.hypot(path.getX(rampEnd) - path.getX(rampEnd - 1), path.getY(rampEnd) - path.getY(rampEnd - 1));
+                    }
+                } else {
+                    rampDone += Math.hypot(path.getX(i) - path.getX(i - 1), path.getY(i) - path.getY(i - 1));
+                }
+                final double z = rampLength > 0.0 ? zLayerTop - (zLayerTop - zHeight) * rampDone / rampLength : zHeight;
+                gCode.addBlock(GCodeBuilder.builder().G1().X(path.getX(i)).Y(path.getY(i)).Z(z));
             } else {
-                gCode.addBlock(GCodeBuilder.builder().G1().X(item.getX()).Y(item.getY()).Z(item.getZ()));
+                gCode.addBlock(GCodeBuilder.builder().G1().X(path.getX(i)).Y(path.getY(i)).Z(zHeight));
             }
         }
     }
 
     /**
-     * Re-order a array of LineSegment2D in such a way that all vector's point upwards
+     * Build the edge cleanup path
      *
-     * @param array
+     * @param curves
+     * @param entry  Point where the tool enters before following the edge
      * @return
      */
-    private CirculinearCurveArray2D reOrderLineSegment2DUpwards(CurveArray2D array) {
-        CirculinearCurveArray2D sorted = new CirculinearCurveArray2D();
-        for (Curve2D anArray : (Iterable<Curve2D>) array) {
-            LineSegment2D item = (LineSegment2D) anArray;
-
-            if (item.firstPoint().y() < item.lastPoint().y()) {
-                sorted.add(item);
-            } else {
-                sorted.add(new LineSegment2D(item.firstPoint().x(), item.lastPoint().y(), item.lastPoint().x(), item.firstPoint().y()));
-            }
-        }
-        return sorted;
-    }
-
-    private void buildEdgeGCodeFromContour(CirculinearContour2D curves) {
+    private LayerPath buildEdgePathFromContour(CirculinearContour2D curves, final Point2D entry) {
+        final LayerPath path = new LayerPath();
+        path.add(entry.x(), entry.y(), false);
 
         // Reverse order if required
         if (!(this.edgeCleanupClimb != spindleCW)) {
@@ -377,18 +510,19 @@ public class FacingHelper {
         }
 
         for (CirculinearContour2D circulinearContour2D : curves.continuousCurves()) {
-            createGCodeFromGeom(circulinearContour2D);
+            addPathFromGeom(circulinearContour2D, path);
         }
+        return path;
     }
 
-    private void createGCodeFromGeom(CirculinearContour2D item2) {
+    private void addPathFromGeom(CirculinearContour2D item2, LayerPath path) {
 
         if (item2 instanceof Circle2D) {
             Circle2D c = (Circle2D) item2;
 
             for (LinearRing2D lr : c.asPolyline(30).continuousCurves()) {
                 for (Point2D p : lr.vertices()) {
-                    gCode.addBlock(GCodeBuilder.builder().X(p.x()).Y(p.y()));
+                    path.add(p.x(), p.y(), false);
                 }
             }
 
@@ -401,9 +535,9 @@ public class FacingHelper {
                     LineSegment2D ls = (LineSegment2D) item4;
 
                     Point2D fp = ls.firstPoint();
-                    gCode.addBlock(GCodeBuilder.builder().X(fp.x()).Y(fp.y()));
+                    path.add(fp.x(), fp.y(), false);
                     Point2D lp = ls.lastPoint();
-                    gCode.addBlock(GCodeBuilder.builder().X(lp.x()).Y(lp.y()));
+                    path.add(lp.x(), lp.y(), false);
 
 
                 } else if ((item4 instanceof CircleArc2D)) {
@@ -411,7 +545,7 @@ public class FacingHelper {
 
                     Polyline2D lines = ca.asPolyline(10);
                     for (Point2D p : lines.vertices()) {
-                        gCode.addBlock(GCodeBuilder.builder().X(p.x()).Y(p.y()));
+                        path.add(p.x(), p.y(), false);
                     }
 
 
@@ -506,6 +640,22 @@ public class FacingHelper {
         this.rapidClearance = rapidClearance;
     }
 
+    public double getFeedRate() {
+        return feedRate;
+    }
+
+    public void setFeedRate(double feedRate) {
+        this.feedRate = feedRate;
+    }
+
+    public double getRapidRate() {
+        return rapidRate;
+    }
+
+    public void setRapidRate(double rapidRate) {
+        this.rapidRate = rapidRate;
+    }
+
     public double getStockClearance() {
         return stockClearance;
     }
@@ -597,7 +747,8 @@ public class FacingHelper {
     public static enum CutStrategy {
         LINEAR,
         SPIRAL_OUT,
-        ZIGZAG
+        ZIGZAG,
+        ADAPTIVE
     }
 
 
@@ -85,7 +85,9 @@ public class FacingModel implements TaskModel {
             new Configuration("Vertical Zig Zag", FacingHelper.CutStrategy.ZIGZAG, 0.0),
             new Configuration("Horizontal Zig Zag", FacingHelper.CutStrategy.ZIGZAG, 90.0),
             new Configuration("Vertical Linear", FacingHelper.CutStrategy.LINEAR, 0.0),
-            new Configuration("Horizontal Linear", FacingHelper.CutStrategy.LINEAR, 90.0)
+            new Configuration("Horizontal Linear", FacingHelper.CutStrategy.LINEAR, 90.0),
+            new Configuration("Spiral Out", FacingHelper.CutStrategy.SPIRAL_OUT),
+            new Configuration("Adaptive", FacingHelper.CutStrategy.ADAPTIVE)
     );
 
 
@@ -101,6 +103,7 @@ public class FacingModel implements TaskModel {
     private final DimensionProperty width = new DimensionProperty(DimensionProperty.DimMM(100.0));
     private final DimensionProperty height = new DimensionProperty(DimensionProperty.DimMM(100.0));
 
+    @Override
     public String getToolID() {
         return toolID.get();
     }
@@ -130,6 +133,7 @@ public class FacingModel implements TaskModel {
         helper.setRapidClearance(gCodeGenerator.convert(em.diameterProperty()).getValue());
         helper.setStockClearance(gCodeGenerator.convert(em.diameterProperty()).getValue());
         helper.setRadialDepth(gCodeGenerator.convert(tp.radialDepthProperty()).getValue());
+        helper.setFeedRate(gCodeGenerator.convert(tp.feedRateProperty()).getValue());
         helper.setAxialDepth(gCodeGenerator.convert(tp.axialDepthProperty()).getValue());
         helper.setSpindleCW(tp.getSpindleDirection() == ToolParameter.SpindleDirection.CW ? true : false);
         helper.setEdgeCleanup(edgeCleanup.get());
@@ -0,0 +1,185 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.operations.facing;
+
+import java.util.Arrays;
+
+/**
+ * 2D tool path of one facing layer stored in primitive arrays.
+ * The pattern of a facing is the same at every depth, so the path is build once and emitted for each layer with it's own Z.
+ * Points marked as rapid are moved to at safe height, or just above the layer when they are marked as a hop. All other
+ * points are cut at the layer's depth. A run of ramp points is cut while descending from the top of the layer to it's
+ * depth, so the tool enters the material without plunging.
+ * <p/>
+ * A path can be made of chains, parts of the path that can be milled in any order.
+ */
+public class LayerPath {
+    private double[] x = new double[64];
+    private double[] y = new double[64];
+    private boolean[] rapid = new boolean[64];
+    private boolean[] hop = new boolean[64];
+    private boolean[] ramp = new boolean[64];
+    private int size = 0;
+    private int[] chainStart = new int[]{0, 0, 0, 0};
+    private int chains = 1;
+
+    public void add(final double px, final double py, final boolean isRapid) {
+        add(px, py, isRapid, false, false);
+    }
+
+    /**
+     * Add a rapid point that is moved to just above the material left by the layer before
+     */
+    public void addHop(final double px, final double py) {
+        add(px, py, true, true, false);
+    }
+
+    /**
+     * Add a cutting point of a ramp. The first point of a run of ramp points is at the top of the layer, the last at
+     * it's depth and Z descends evenly along the length of the run in between.
+     */
+    public void addRamp(final double px, final double py) {
+        add(px, py, false, false, true);
+    }
+
+    private void add(final double px, final double py, final boolean isRapid, final boolean isHop, final boolean isRamp) {
+        if (size == x.length) {
+            x = Arrays.copyOf(x, size * 2);
+            y = Arrays.copyOf(y, size * 2);
+            rapid = Arrays.copyOf(rapid, size * 2);
+            hop = Arrays.copyOf(hop, size * 2);
+            ramp = Arrays.copyOf(ramp, size * 2);
+        }
+        x[size] = px;
+        y[size] = py;
+        rapid[size] = isRapid;
+        hop[size] = isHop;
+        ramp[size] = isRamp;
+        size++;
+    }
+
+    /**
+     * Start a new chain at the next point added
+     */
+    public void newChain() {
+        if (size == chainStart[chains - 1]) {
+            return;
+        }
+        if (chains == chainStart.length) {
+            chainStart = Arrays.copyOf(chainStart, chains * 2);
+        }
+        chainStart[chains++] = size;
+    }
+
+    /**
+     * Reverse the direction of the path
+     */
+    public void reverse() {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            final double tx = x[i];
+            x[i] = x[j];
+            x[j] = tx;
+            final double ty = y[i];
+            y[i] = y[j];
+            y[j] = ty;
+            final boolean tr = rapid[i];
+            rapid[i] = rapid[j];
+            rapid[j] = tr;
+            final boolean th = hop[i];
+            hop[i] = hop[j];
+            hop[j] = th;
+            final boolean tp = ramp[i];
+            ramp[i] = ramp[j];
+            ramp[j] = tp;
+        }
+
+        // The chains run the other way around
+        final int[] starts = new int[chains];
+        for (int c = 1; c < chains; c++) {
+            starts[chains - c] = size - chainStart[c];
+        }
+        System.arraycopy(starts, 0, chainStart, 0, chains);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public boolean isEmpty() {
+        return size == 0;
+    }
+
+    public double getX(final int i) {
+        return x[i];
+    }
+
+    public double getY(final int i) {
+        return y[i];
+    }
+
+    public boolean isRapid(final int i) {
+        return rapid[i];
+    }
+
+    public boolean isHop(final int i) {
+        return hop[i];
+    }
+
+    public boolean isRamp(final int i) {
+        return ramp[i];
+    }
+
+    public int getChainCount() {
+        return chains;
+    }
+
+    /**
+     * @return Index of the first point of a chain
+     */
+    public int getChainStart(final int chain) {
+        return chainStart[chain];
+    }
+
+    /**
+     * @return Index after the last point of a chain
+     */
+    public int getChainEnd(final int chain) {
+        return chain + 1 < chains ? chainStart[chain + 1] : size;
+    }
+}
@@ -0,0 +1,389 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.operations.facing;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Chooses the moves between the cutting passes of a layer.
+ * <p/>
+ * The passes are the runs of cutting points of a LayerPath, the rapid points between them are replaced by a link:
+ * <ul>
+ * <li>Feed: the tool stays down when the link only crosses material already cleared in this layer, and that is faster
+ * than a hop</li>
+ * <li>Hop: a rapid just above the layer when the link stays within the area milled by the layer, that area has
+ * already been lowered by the layer before</li>
+ * <li>Safe: a rapid at safe height for all other links</li>
+ * </ul>
+ * What has been cleared is kept in a raster of the area, every pass is stamped into it as the tool's swept area.
+ * <p/>
+ * The chains of the path are reordered nearest first. A chain that overlaps an earlier chain is kept after it so the
+ * engagement within each chain doesn't change, a chain that overlaps no other chain may also be milled in reverse.
+ */
+public class LinkOptimizer {
+    private static final int MAX_CELLS = 1 << 24;
+    private static final byte SWEPT = 1;   // Within the area milled by the whole layer
+    private static final byte CLEARED = 2; // Milled so far in this layer
+
+    private final double toolRadius;
+    private final double feedRate;
+    private final double rapidRate;
+    private final double hopRise;
+
+    private double cell;
+    private double tolerance;
+    private double originX;
+    private double originY;
+    private int width;
+    private int height;
+    private byte[] raster;
+
+    private boolean layerHop = false;
+    private int feedLinks = 0;
+    private int hopLinks = 0;
+    private int safeLinks = 0;
+
+    /**
+     * @param toolRadius Radius of the tool
+     * @param stepOver   Step over, the raster is fine enough that a link that stays down engages less then half of it
+     * @param feedRate   Feed for cutting and plunging
+     * @param rapidRate  Speed of rapid moves
+     * @param hopRise    Height of a hop above the depth of the layer
+     */
+    public LinkOptimizer(final double toolRadius, final double stepOver, final double feedRate, final double rapidRate, final double hopRise) {
+        this.toolRadius = toolRadius;
+        this.feedRate = feedRate;
+        this.rapidRate = rapidRate;
+        this.hopRise = hopRise;
+        this.cell = Math.min(toolRadius / 8.0, stepOver / 4.0);
+    }
+
+    /**
+     * Link the passes of a layer
+     *
+     * @param pocket  Path with the passes, it's chains can be reordered when reorder is set
+     * @param reorder Reorder the chains of pocket
+     * @param last    Path milled after pocket, in the order given. null when there is none
+     * @return Path with the links between all passes
+     */
+    public LayerPath link(final LayerPath pocket, final boolean reorder, final LayerPath last) {
+        createRaster(pocket, last);
+
+        // Area of the whole layer, and which chains overlap
+        final int chains = pocket.getChainCount();
+        final List<List<Integer>> after = new ArrayList<>();
+        final int[] before = new int[chains];
+        final boolean[] touches = new boolean[chains];
+        final int[] owner = reorder ? new int[raster.length] : null;
+        if (owner != null) {
+            Arrays.fill(owner, -1);
+        }
+        for (int c = 0; c < chains; c++) {
+            after.add(new ArrayList<Integer>());
+            final int end = pocket.getChainEnd(c);
+            for (int i = pocket.getChainStart(c) + 1; i < end; i++) {
+                if (!pocket.isRapid(i - 1) && !pocket.isRapid(i)) {
+                    stamp(pocket.getX(i - 1), pocket.getY(i - 1), pocket.getX(i), pocket.getY(i), c, owner, after, before, touches);
+                }
+            }
+        }
+        if (last != null) {
+            for (int i = 1; i < last.size(); i++) {
+                if (!last.isRapid(i - 1) && !last.isRapid(i)) {
+                    stamp(last.getX(i - 1), last.getY(i - 1), last.getX(i), last.getY(i), -1, null, null, null, null);
+                }
+            }
+        }
+
+        // First and last cutting point of each chain
+        final int[] firstCut = new int[chains];
+        final int[] lastCut = new int[chains];
+        for (int c = 0; c < chains; c++) {
+            firstCut[c] = -1;
+            lastCut[c] = -1;
+            for (int i = pocket.getChainStart(c); i < pocket.getChainEnd(c); i++) {
+                if (!pocket.isRapid(i)) {
+                    firstCut[c] = firstCut[c] < 0 ? i : firstCut[c];
+                    lastCut[c] = i;
+                }
+            }
+        }
+
+        // Nearest chain first, a chain is only available once all chains it overlaps that came before it are done
+        final int[] order = new int[chains];
+        final boolean[] reversed = new boolean[chains];
+        final boolean[] done = new boolean[chains];
+        order[0] = 0;
+        done[0] = true;
+        for (final int next : after.get(0)) {
+            before[next]--;
+        }
+        for (int n = 1; n < chains; n++) {
+            int best = n;
+            boolean bestReversed = false;
+            if (reorder) {
+                // Chains without cuts are at the position of the chain before
+                int prevEnd = -1;
+                for (int k = n - 1; k >= 0 && prevEnd < 0; k--) {
+                    prevEnd = reversed[k] ? firstCut[order[k]] : lastCut[order[k]];
+                }
+                final double px = prevEnd < 0 ? 0.0 : pocket.getX(prevEnd);
+                final double py = prevEnd < 0 ? 0.0 : pocket.getY(prevEnd);
+                double distance = Double.MAX_VALUE;
+                for (int c = 0; c < chains; c++) {
+                    if (done[c] || before[c] > 0) {
+                        continue;
+                    }
+                    final double d = firstCut[c] < 0 ? 0.0 : distance2(px, py, pocket.getX(firstCut[c]), pocket.getY(firstCut[c]));
+                    if (d < distance) {
+                        distance = d;
+                        best = c;
+                        bestReversed = false;
+                    }
+                    if (!touches[c] && lastCut[c] >= 0) {
+                        final double dr = distance2(px, py, pocket.getX(lastCut[c]), pocket.getY(lastCut[c]));
+                        if (dr < distance) {
+                            distance = dr;
+                            best = c;
+                            bestReversed = true;
+                        }
+                    }
+                }
+            }
+            order[n] = best;
+            reversed[n] = bestReversed;
+            done[best] = true;
+            for (final int next : after.get(best)) {
+                before[next]--;
+            }
+        }
+
+        // Emit the passes in order with their links
+        final LayerPath path = new LayerPath();
+        for (int n = 0; n < chains; n++) {
+            final int c = order[n];
+            final int from = pocket.getChainStart(c);
+            final int to = pocket.getChainEnd(c);
+            if (reversed[n]) {
+                for (int i = to - 1; i >= from; i--) {
+                    addPoint(path, pocket, i, i == to - 1 || pocket.isRapid(i + 1));
+                }
+            } else {
+                for (int i = from; i < to; i++) {
+                    addPoint(path, pocket, i, i == from || pocket.isRapid(i - 1));
+                }
+            }
+        }
+        if (last != null) {
+            for (int i = 0; i < last.size(); i++) {
+                addPoint(path, last, i, i == 0 || last.isRapid(i - 1));
+            }
+        }
+
+        // The next layer starts where this one started
+        if (!path.isEmpty()) {
+            layerHop = within(path.getX(path.size() - 1), path.getY(path.size() - 1), path.getX(0), path.getY(0), SWEPT);
+        }
+        raster = null;
+        return path;
+    }
+
+    /**
+     * Add a point of a pass, the first point of a pass is linked to the end of the path
+     */
+    private void addPoint(final LayerPath path, final LayerPath source, final int i, final boolean passStart) {
+        if (source.isRapid(i)) {
+            return;
+        }
+        final double qx = source.getX(i);
+        final double qy = source.getY(i);
+        if (passStart && !path.isEmpty()) {
+            final double px = path.getX(path.size() - 1);
+            final double py = path.getY(path.size() - 1);
+            if (px == qx && py == qy) {
+                return;
+            }
+            final double length = Math.sqrt(distance2(px, py, qx, qy));
+            final double feedTime = length / feedRate;
+            final double hopTime = hopRise / rapidRate + length / rapidRate + hopRise / feedRate;
+            if (feedTime <= hopTime && within(px, py, qx, qy, CLEARED)) {
+                feedLinks++;
+            } else if (within(px, py, qx, qy, SWEPT)) {
+                path.addHop(px, py);
+                path.addHop(qx, qy);
+                hopLinks++;
+            } else {
+                path.add(px, py, true);
+                path.add(qx, qy, true);
+                safeLinks++;
+            }
+        } else if (!path.isEmpty()) {
+            stamp(path.getX(path.size() - 1), path.getY(path.size() - 1), qx, qy, CLEARED);
+        }
+        if (source.isRamp(i)) {
+            path.addRamp(qx, qy);
+        } else {
+            path.add(qx, qy, false);
+        }
+    }
+
+    private void createRaster(final LayerPath pocket, final LayerPath last) {
+        double minX = Double.MAX_VALUE;
+        double minY = Double.MAX_VALUE;
+        double maxX = -Double.MAX_VALUE;
+        double maxY = -Double.MAX_VALUE;
+        for (final LayerPath p : new LayerPath[]{pocket, last}) {
+            for (int i = 0; p != null && i < p.size(); i++) {
+                minX = Math.min(minX, p.getX(i));
+                minY = Math.min(minY, p.getY(i));
+                maxX = Math.max(maxX, p.getX(i));
+                maxY = Math.max(maxY, p.getY(i));
+            }
+        }
+        final double border = toolRadius * 2.0;
+        while (((maxX - minX + 2.0 * border) / cell + 1.0) * ((maxY - minY + 2.0 * border) / cell + 1.0) > MAX_CELLS) {
+            cell = cell * 2.0;
+        }
+        tolerance = cell * 1.5;
+        originX = minX - border;
+        originY = minY - border;
+        width = (int) Math.ceil((maxX - minX + 2.0 * border) / cell) + 1;
+        height = (int) Math.ceil((maxY - minY + 2.0 * border) / cell) + 1;
+        raster = new byte[width * height];
+    }
+
+    private void stamp(final double x0, final double y0, final double x1, final double y1, final byte flag) {
+        final int[] box = box(x0, y0, x1, y1, toolRadius);
+        for (int iy = box[2]; iy <= box[3]; iy++) {
+            for (int ix = box[0]; ix <= box[1]; ix++) {
+                if (segmentDistance2(ix, iy, x0, y0, x1, y1) <= toolRadius * toolRadius) {
+                    raster[iy * width + ix] |= flag;
+                }
+            }
+        }
+    }
+
+    /**
+     * Mark the area swept along a cut of a chain, when owner is given each cell remembers the last chain that swept it
+     */
+    private void stamp(final double x0, final double y0, final double x1, final double y1, final int chain, final int[] owner, final List<List<Integer>> after, final int[] before, final boolean[] touches) {
+        final int[] box = box(x0, y0, x1, y1, toolRadius);
+        for (int iy = box[2]; iy <= box[3]; iy++) {
+            for (int ix = box[0]; ix <= box[1]; ix++) {
+                if (segmentDistance2(ix, iy, x0, y0, x1, y1) <= toolRadius * toolRadius) {
+                    final int idx = iy * width + ix;
+                    raster[idx] |= SWEPT;
+                    if (owner != null) {
+                        final int previous = owner[idx];
+                        if (previous >= 0 && previous != chain && !after.get(previous).contains(chain)) {
+                            after.get(previous).add(chain);
+                            before[chain]++;
+                            touches[previous] = true;
+                            touches[chain] = true;
+                        }
+                        owner[idx] = chain;
+                    }
+                }
+            }
+        }
+    }
+
+    /**
+     * @return true when the tool moving from x0,y0 to x1,y1 only touches cells with the flag set
+     */
+    private boolean within(final double x0, final double y0, final double x1, final double y1, final byte flag) {
+        final double radius = Math.max(0.0, toolRadius - tolerance);
+        final int[] box = box(x0, y0, x1, y1, radius);
+        for (int iy = box[2]; iy <= box[3]; iy++) {
+            for (int ix = box[0]; ix <= box[1]; ix++) {
+                if ((raster[iy * width + ix] & flag) == 0 && segmentDistance2(ix, iy, x0, y0, x1, y1) <= radius * radius) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private int[] box(final double x0, final double y0, final double x1, final double y1, final double radius) {
+        return new int[]{
+                Math.max(0, (int) Math.floor((Math.min(x0, x1) - radius - originX) / cell)),
+                Math.min(width - 1, (int) Math.ceil((Math.max(x0, x1) + radius - originX) / cell)),
+                Math.max(0, (int) Math.floor((Math.min(y0, y1) - radius - originY) / cell)),
+                Math.min(height - 1, (int) Math.ceil((Math.max(y0, y1) + radius - originY) / cell))};
+    }
+
+    /**
+     * Squared distance from a cell to a segment
+     */
+    private double segmentDistance2(final int ix, final int iy, final double x0, final double y0, final double x1, final double y1) {
+        final double px = originX + ix * cell;
+        final double py = originY + iy * cell;
+        final double dx = x1 - x0;
+        final double dy = y1 - y0;
+        final double l2 = dx * dx + dy * dy;
+        double t = l2 > 0.0 ? ((px - x0) * dx + (py - y0) * dy) / l2 : 0.0;
+        t = Math.max(0.0, Math.min(1.0, t));
+        return distance2(px, py, x0 + dx * t, y0 + dy * t);
+    }
+
+    private static double distance2(final double x0, final double y0, final double x1, final double y1) {
+        return (x1 - x0) * (x1 - x0) + (y1 - y0) * (y1 - y0);
+    }
+
+    /**
+     * @return true when the start of the next layer can be reached with a hop from the end of this layer
+     */
+    public boolean isLayerHop() {
+        return layerHop;
+    }
+
+    public int getFeedLinks() {
+        return feedLinks;
+    }
+
+    public int getHopLinks() {
+        return hopLinks;
+    }
+
+    public int getSafeLinks() {
+        return safeLinks;
+    }
+}
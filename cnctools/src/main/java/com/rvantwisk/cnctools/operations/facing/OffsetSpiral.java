@@ -0,0 +1,388 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package com.rvantwisk.cnctools.operations.facing;
+
+import com.rvantwisk.cnctools.operations.math.PolygonOffsetter;
+
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Contour parallel spiral from the center of a area outwards.
+ * <p/>
+ * The area is offset inwards by the step over until nothing is left. This gives a tree of rings, a ring holds the rings
+ * found directly inside of it and has more then one when the area splits in islands. The innermost ring of each island
+ * is milled closed, after that each revolution blends from a ring into the ring around it.
+ * The blend at a point on a ring is taken from the previous revolution at the same place, so each revolution stays one
+ * step over away from the revolution before it and the step over never grows where one ring goes into the next.
+ * Rings that are not blended into a ring around them, islands and the outer ring, end with a closed revolution.
+ */
+public class OffsetSpiral {
+    private static final double SAMPLES_PER_STEP = 4.0; // Points per step over along a blended revolution
+    private static final double EPSILON = 1E-9;
+
+    private final double stepOver;
+    private final PolygonOffsetter offsetter;
+
+    /**
+     * @param stepOver Distance between the revolutions of the spiral
+     */
+    public OffsetSpiral(final double stepOver) {
+        if (stepOver <= 0.0) {
+            throw new IllegalArgumentException("stepOver must be positive");
+        }
+        this.stepOver = stepOver;
+        this.offsetter = new PolygonOffsetter(stepOver / 50.0);
+    }
+
+    /**
+     * Calculate the spiral
+     *
+     * @param xy  Area where the center of the tool may go, as interleaved x,y coordinates of a closed ring
+     * @param ccw Mill the rings counter clockwise
+     * @return The path, moves to the next island are marked rapid
+     */
+    public LayerPath calculate(final double[] xy, final boolean ccw) {
+        // Offset each level of rings till nothing is left, rings are counter clockwise
+        final Ring root = new Ring(PolygonOffsetter.area(xy) < 0.0 ? reverse(xy) : xy);
+        List<Ring> level = Collections.singletonList(root);
+        while (!level.isEmpty()) {
+            final List<Ring> nextLevel = new ArrayList<>();
+            for (Ring parent : level) {
+                for (double[] child : offsetter.shrink(parent.xy, stepOver)) {
+                    final Ring ring = new Ring(child);
+                    parent.children.add(ring);
+                    nextLevel.add(ring);
+                }
+            }
+            level = nextLevel;
+        }
+
+        final LayerPath path = new LayerPath();
+        close(cut(root, path, ccw), path);
+        return path;
+    }
+
+    /**
+     * Mill the rings inside ring, ending with the revolution that blends into ring
+     *
+     * @param ring
+     * @param path
+     * @param ccw
+     * @return ring starting at the current tool position
+     */
+    private Lap cut(final Ring ring, final LayerPath path, final boolean ccw) {
+        final double[] xy = ccw ? ring.xy : reverse(ring.xy);
+        if (ring.children.isEmpty()) {
+            return cutInnermost(xy, path);
+        }
+
+        // Every island but the last is finished on it's own, the last one blends into this ring
+        final int last = ring.children.size() - 1;
+        for (int i = 0; i < last; i++) {
+            close(cut(ring.children.get(i), path, ccw), path);
+        }
+        return blend(cut(ring.children.get(last), path, ccw), xy, path);
+    }
+
+    /**
+     * Mill a innermost ring closed, starting at the point closest to where we are
+     *
+     * @param xy
+     * @param path
+     * @return
+     */
+    private Lap cutInnermost(final double[] xy, final LayerPath path) {
+        final int n = xy.length / 2;
+        int start = 0;
+        if (!path.isEmpty()) {
+            final double lx = path.getX(path.size() - 1);
+            final double ly = path.getY(path.size() - 1);
+            double distance = Double.MAX_VALUE;
+            for (int i = 0; i < n; i++) {
+                final double d = (xy[i * 2] - lx) * (xy[i * 2] - lx) + (xy[i * 2 + 1] - ly) * (xy[i * 2 + 1] - ly);
+                if (d < distance) {
+                    distance = d;
+                    start = i;
+                }
+            }
+
+            // A new island is reached with a rapid
+            path.add(lx, ly, true);
+            path.add(xy[start * 2], xy[start * 2 + 1], true);
+        }
+
+        final double[] rotated = new double[xy.length];
+        for (int k = 0; k < n; k++) {
+            final int i = (start + k) % n;
+            rotated[k * 2] = xy[i * 2];
+            rotated[k * 2 + 1] = xy[i * 2 + 1];
+        }
+        for (int k = 0; k <= n; k++) {
+            path.add(rotated[(k % n) * 2], rotated[(k % n) * 2 + 1], false);
+        }
+
+        // Nothing is left inside the ring, the first blend grows from no step over to the full step over
+        return new Lap(rotated, new double[]{0.0, 1.0}, new double[]{0.0, 1.0}, true);
+    }
+
+    /**
+     * Make one revolution around the inner ring that moves over to the outer ring.
+     * At each point the blend is the one the previous revolution had at the same place, the revolution ends at the
+     * point of outer closest to the start of inner.
+     *
+     * @param inner Ring the tool is on
+     * @param outer Ring around inner
+     * @param path
+     * @return outer starting at the current tool position
+     */
+    private Lap blend(final Lap inner, final double[] outer, final LayerPath path) {
+        final double[] in = inner.xy;
+        final int n = in.length / 2;
+        final double[] out = startAt(outer, in[0], in[1]);
+        final double[] outLengths = arcLengths(out);
+        final double outLength = outLengths[outLengths.length - 1];
+        final double[] inLengths = arcLengths(in);
+        final double inLength = inLengths[n];
+
+        final double spacing = stepOver / SAMPLES_PER_STEP;
+        int samples = 1;
+        for (int i = 0; i < n; i++) {
+            samples += segments(inLengths[i + 1] - inLengths[i], spacing);
+        }
+        final double[] us = new double[samples];
+        final double[] ws = new double[samples];
+
+        final double[] nearest = new double[4];
+        int k = 1;
+        for (int i = 0; i < n; i++) {
+            final double ax = in[i * 2];
+            final double ay = in[i * 2 + 1];
+            final double bx = in[((i + 1) % n) * 2];
+            final double by = in[((i + 1) % n) * 2 + 1];
+            final double length = inLengths[i + 1] - inLengths[i];
+            final int steps = segments(length, spacing);
+            for (int j = 1; j <= steps; j++) {
+                final double t = (double) j / steps;
+                final double qx = ax + (bx - ax) * t;
+                final double qy = ay + (by - ay) * t;
+                final double w;
+                double u;
+                if (k == samples - 1) {
+                    // Back at the start, end exactly at the start of the outer ring
+                    w = 1.0;
+                    u = 1.0;
+                    nearest[0] = out[0];
+                    nearest[1] = out[1];
+                } else {
+                    w = interpolate(inner.us, inner.ws, (inLengths[i] + length * t) / inLength);
+                    project(out, outLengths, qx, qy, nearest);
+                    u = nearest[2] / outLength;
+                    // Points just before the start of outer project to the end of outer
+                    if (u > us[k - 1] + 0.5) {
+                        u = us[k - 1];
+                    }
+                    u = Math.max(u, us[k - 1]);
+                }
+                path.add(qx + (nearest[0] - qx) * w, qy + (nearest[1] - qy) * w, false);
+                us[k] = u;
+                ws[k] = w;
+                k++;
+            }
+        }
+        return new Lap(out, us, ws, false);
+    }
+
+    /**
+     * Mill the rest of a ring when it was not milled closed yet
+     *
+     * @param lap
+     * @param path
+     */
+    private static void close(final Lap lap, final LayerPath path) {
+        if (lap.closed) {
+            return;
+        }
+        final int n = lap.xy.length / 2;
+        for (int k = 1; k <= n; k++) {
+            path.add(lap.xy[(k % n) * 2], lap.xy[(k % n) * 2 + 1], false);
+        }
+    }
+
+    private static int segments(final double length, final double spacing) {
+        return Math.max(1, (int) Math.ceil(length / spacing));
+    }
+
+    /**
+     * Linear interpolation of ws at u, us must be ascending
+     */
+    static double interpolate(final double[] us, final double[] ws, final double u) {
+        int lo = 0;
+        int hi = us.length - 1;
+        if (u <= us[lo]) {
+            return ws[lo];
+        }
+        if (u >= us[hi]) {
+            return ws[hi];
+        }
+        while (hi - lo > 1) {
+            final int mid = (lo + hi) >>> 1;
+            if (us[mid] < u) {
+                lo = mid;
+            } else {
+                hi = mid;
+            }
+        }
+        final double range = us[hi] - us[lo];
+        return range < EPSILON ? ws[hi] : ws[lo] + (ws[hi] - ws[lo]) * (u - us[lo]) / range;
+    }
+
+    /**
+     * Cumulative length at each point of a closed ring, the last element is the length of the ring
+     */
+    private static double[] arcLengths(final double[] xy) {
+        final int n = xy.length / 2;
+        final double[] lengths = new double[n + 1];
+        for (int i = 0; i < n; i++) {
+            final int j = (i + 1) % n;
+            lengths[i + 1] = lengths[i] + Math.hypot(xy[j * 2] - xy[i * 2], xy[j * 2 + 1] - xy[i * 2 + 1]);
+        }
+        return lengths;
+    }
+
+    /**
+     * Find the point of a closed ring closest to px,py
+     *
+     * @param xy
+     * @param lengths Cumulative lengths as returned from arcLengths
+     * @param px
+     * @param py
+     * @param result  x, y, the length along the ring and the index of the segment
+     */
+    private static void project(final double[] xy, final double[] lengths, final double px, final double py, final double[] result) {
+        final int n = xy.length / 2;
+        double distance = Double.MAX_VALUE;
+        for (int i = 0; i < n; i++) {
+            final int j = (i + 1) % n;
+            final double ax = xy[i * 2];
+            final double ay = xy[i * 2 + 1];
+            final double dx = xy[j * 2] - ax;
+            final double dy = xy[j * 2 + 1] - ay;
+            final double length2 = dx * dx + dy * dy;
+            final double t = length2 < EPSILON ? 0.0 : Math.max(0.0, Math.min(1.0, ((px - ax) * dx + (py - ay) * dy) / length2));
+            final double x = ax + dx * t;
+            final double y = ay + dy * t;
+            final double d = (x - px) * (x - px) + (y - py) * (y - py);
+            if (d < distance) {
+                distance = d;
+                result[0] = x;
+                result[1] = y;
+                result[2] = lengths[i] + (lengths[i + 1] - lengths[i]) * t;
+                result[3] = i;
+            }
+        }
+    }
+
+    /**
+     * Rotate a closed ring so it starts at it's point closest to px,py, that point is added when it's not a vertex
+     */
+    private static double[] startAt(final double[] xy, final double px, final double py) {
+        final int n = xy.length / 2;
+        final double[] nearest = new double[4];
+        project(xy, arcLengths(xy), px, py, nearest);
+        final int segment = (int) nearest[3];
+
+        final double[] rotated = new double[xy.length + 2];
+        int size = 0;
+        rotated[size++] = nearest[0];
+        rotated[size++] = nearest[1];
+        for (int k = 1; k <= n; k++) {
+            final int i = (segment + k) % n;
+            final double dx = xy[i * 2] - nearest[0];
+            final double dy = xy[i * 2 + 1] - nearest[1];
+            if (dx * dx + dy * dy > EPSILON) {
+                rotated[size++] = xy[i * 2];
+                rotated[size++] = xy[i * 2 + 1];
+            }
+        }
+        return size == rotated.length ? rotated : Arrays.copyOf(rotated, size);
+    }
+
+    private static double[] reverse(final double[] xy) {
+        final int n = xy.length / 2;
+        final double[] reversed = new double[xy.length];
+        for (int i = 0; i < n; i++) {
+            reversed[i * 2] = xy[(n - 1 - i) * 2];
+            reversed[i * 2 + 1] = xy[(n - 1 - i) * 2 + 1];
+        }
+        return reversed;
+    }
+
+    /**
+     * Ring of the spiral with the rings found inside of it
+     */
+    private static final class Ring {
+        private final double[] xy;
+        private final List<Ring> children = new ArrayList<>();
+
+        private Ring(final double[] xy) {
+            this.xy = xy;
+        }
+    }
+
+    /**
+     * Ring the tool is on, starting at the tool position
+     */
+    private static final class Lap {
+        private final double[] xy;
+        private final double[] us;     // Fraction of the length along the ring ..
+        private final double[] ws;     // .. and the blend towards this ring of the previous revolution at that place
+        private final boolean closed;  // The ring has been milled completely
+
+        private Lap(final double[] xy, final double[] us, final double[] ws, final boolean closed) {
+            this.xy = xy;
+            this.us = us;
+            this.ws = ws;
+            this.closed = closed;
+        }
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.operations.facing;
+
+import java.util.Arrays;
+import java.util.Comparator;
+
+/**
+ * Intersects a set of vertical scanlines with one or more closed polygons.
+ * Edges are sorted once on there lowest X and the scanlines walk across them keeping a table of active edges,
+ * so a complete sweep costs O((E + L) log E) instead of intersecting every scanline with every edge.
+ * <p/>
+ * Each scanline results in a sorted array of Y values where each pair is a interval inside the polygon, this works
+ * for concave shapes and shapes with holes where one scanline enters and leaves the shape more then once.
+ */
+public class ScanlineSweep {
+    private double[] x0 = new double[16]; // X of the left vertex of a edge
+    private double[] y0 = new double[16]; // Y of the left vertex of a edge
+    private double[] x1 = new double[16]; // X of the right vertex of a edge
+    private double[] slope = new double[16];
+    private int edges = 0;
+
+    /**
+     * Add a closed ring, the last vertex is connected to the first vertex
+     *
+     * @param xs X coordinates of the vertices
+     * @param ys Y coordinates of the vertices
+     * @param n  Number of vertices to use
+     */
+    public void addRing(final double[] xs, final double[] ys, final int n) {
+        for (int i = 0; i < n; i++) {
+            final int j = (i + 1) % n;
+            if (xs[i] < xs[j]) {
+                addEdge(xs[i], ys[i], xs[j], ys[j]);
+            } else if (xs[i] > xs[j]) {
+                addEdge(xs[j], ys[j], xs[i], ys[i]);
+            }
+            // Vertical edges never cross a vertical scanline, they are left out
+        }
+    }
+
+    private void addEdge(final double ax, final double ay, final double bx, final double by) {
+        if (edges == x0.length) {
+            x0 = Arrays.copyOf(x0, edges * 2);
+            y0 = Arrays.copyOf(y0, edges * 2);
+            x1 = Arrays.copyOf(x1, edges * 2);
+            slope = Arrays.copyOf(slope, edges * 2);
+        }
+        x0[edges] = ax;
+        y0[edges] = ay;
+        x1[edges] = bx;
+        slope[edges] = (by - ay) / (bx - ax);
+        edges++;
+    }
+
+    /**
+     * Intersect all scanlines with the added rings
+     *
+     * @param scanX X position of each scanline, must be in ascending order
+     * @return For each scanline the sorted Y values of the intersections, each pair (0-1, 2-3 ...) is one interval
+     */
+    public double[][] sweep(final double[] scanX) {
+        final Integer[] order = new Integer[edges];
+        for (int i = 0; i < edges; i++) {
+            order[i] = i;
+        }
+        Arrays.sort(order, new Comparator<Integer>() {
+            @Override
+            public int compare(final Integer a, final Integer b) {
+                return Double.compare(x0[a], x0[b]);
+            }
+        });
+
+        final double[][] result = new double[scanX.length][];
+        final int[] active = new int[edges];
+        final double[] ys = new double[edges];
+        int nActive = 0;
+        int next = 0;
+        for (int i = 0; i < scanX.length; i++) {
+            final double x = scanX[i];
+            if (i > 0 && x < scanX[i - 1]) {
+                throw new IllegalArgumentException("Scanlines must be in ascending order.");
+            }
+
+            // Edges starting at or before this scanline become active
+            while (next < edges && x0[order[next]] <= x) {
+                active[nActive++] = order[next++];
+            }
+
+            // Edges are half open [x0, x1) so a vertex shared by two edges is only counted once
+            int kept = 0;
+            int n = 0;
+            for (int j = 0; j < nActive; j++) {
+                final int e = active[j];
+                if (x1[e] > x) {
+                    active[kept++] = e;
+                    ys[n++] = y0[e] + (x - x0[e]) * slope[e];
+                }
+            }
+            nActive = kept;
+
+            Arrays.sort(ys, 0, n);
+            result[i] = Arrays.copyOf(ys, n - n % 2);
+        }
+        return result;
+    }
+}
@@ -53,35 +53,14 @@ public class CircleLine {
 
     public static List<Point> getCircleLineIntersectionPoint(Point pointA,
                                                              Point pointB, Point center, double radius) {
-        double baX = pointB.x - pointA.x;
-        double baY = pointB.y - pointA.y;
-        double caX = center.x - pointA.x;
-        double caY = center.y - pointA.y;
-
-        double a = baX * baX + baY * baY;
-        double bBy2 = baX * caX + baY * caY;
-        double c = caX * caX + caY * caY - radius * radius;
-
-        double pBy2 = bBy2 / a;
-        double q = c / a;
-
-        double disc = pBy2 * pBy2 - q;
-        if (disc < 0) {
+        final double[] out = new double[4];
+        final int count = Geometry.circleLine(pointA.x, pointA.y, pointB.x, pointB.y, center.x, center.y, radius, out, 0);
+        if (count == 0) {
             return Collections.emptyList();
+        } else if (count == 1) {
+            return Collections.singletonList(new Point(out[0], out[1]));
         }
-        // if disc == 0 ... dealt with later
-        double tmpSqrt = Math.sqrt(disc);
-        double abScalingFactor1 = -pBy2 + tmpSqrt;
-        double abScalingFactor2 = -pBy2 - tmpSqrt;
-
-        Point p1 = new Point(pointA.x - baX * abScalingFactor1, pointA.y
-                - baY * abScalingFactor1);
-        if (disc == 0) { // abScalingFactor1 == abScalingFactor2
-            return Collections.singletonList(p1);
-        }
-        Point p2 = new Point(pointA.x - baX * abScalingFactor2, pointA.y
-                - baY * abScalingFactor2);
-        return Arrays.asList(p1, p2);
+        return Arrays.asList(new Point(out[0], out[1]), new Point(out[2], out[3]));
     }
 
 
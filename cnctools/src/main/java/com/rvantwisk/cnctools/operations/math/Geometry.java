@@ -0,0 +1,217 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.operations.math;
+
+import java.math.BigDecimal;
+
+/**
+ * Primitive 2D geometry routines.
+ * <p/>
+ * All routines take plain coordinates and write results into a caller supplied array so they can be used in tight
+ * loops without creating objects. Results are written as interleaved x,y pairs starting at the given offset.
+ */
+public final class Geometry {
+
+    // Error bound of orient2d when computed in doubles, see Shewchuk's "Adaptive Precision Floating-Point Arithmetic"
+    private static final double EPSILON = Math.ulp(1.0) / 2.0;
+    private static final double ORIENT_ERROR = (3.0 + 16.0 * EPSILON) * EPSILON;
+
+    private Geometry() {
+    }
+
+    /**
+     * Orientation of c relative to the line a->b. The sign is exact, the value is twice the area of the triangle.
+     *
+     * @return Positive when c is left of a->b, negative when right and 0.0 when the points are collinear
+     */
+    public static double orient2d(final double ax, final double ay, final double bx, final double by, final double cx, final double cy) {
+        final double left = (bx - ax) * (cy - ay);
+        final double right = (by - ay) * (cx - ax);
+        final double det = left - right;
+        final double sum;
+        if (left > 0.0) {
+            if (right <= 0.0) {
+                return det;
+            }
+            sum = left + right;
+        } else if (left < 0.0) {
+            if (right >= 0.0) {
+                return det;
+            }
+            sum = -left - right;
+        } else {
+            return det;
+        }
+        if (Math.abs(det) >= ORIENT_ERROR * sum) {
+            return det;
+        }
+
+        // Too close to call in doubles, every double is exact as a BigDecimal
+        final BigDecimal bax = new BigDecimal(bx).subtract(new BigDecimal(ax));
+        final BigDecimal cay = new BigDecimal(cy).subtract(new BigDecimal(ay));
+        final BigDecimal bay = new BigDecimal(by).subtract(new BigDecimal(ay));
+        final BigDecimal cax = new BigDecimal(cx).subtract(new BigDecimal(ax));
+        return bax.multiply(cay).subtract(bay.multiply(cax)).signum();
+    }
+
+    /**
+     * @return true when c is strictly left of the line a->b
+     */
+    public static boolean isLeft(final double ax, final double ay, final double bx, final double by, final double cx, final double cy) {
+        return orient2d(ax, ay, bx, by, cx, cy) > 0.0;
+    }
+
+    /**
+     * Test if segment a-b and segment c-d share at least one point, touching and overlapping segments intersect
+     */
+    public static boolean segmentsIntersect(final double ax, final double ay, final double bx, final double by,
+                                            final double cx, final double cy, final double dx, final double dy) {
+        final double o1 = Math.signum(orient2d(ax, ay, bx, by, cx, cy));
+        final double o2 = Math.signum(orient2d(ax, ay, bx, by, dx, dy));
+        final double o3 = Math.signum(orient2d(cx, cy, dx, dy, ax, ay));
+        final double o4 = Math.signum(orient2d(cx, cy, dx, dy, bx, by));
+
+        if (o1 != o2 && o3 != o4) {
+            return true;
+        }
+        return (o1 == 0.0 && onSegment(ax, ay, bx, by, cx, cy))
+                || (o2 == 0.0 && onSegment(ax, ay, bx, by, dx, dy))
+                || (o3 == 0.0 && onSegment(cx, cy, dx, dy, ax, ay))
+                || (o4 == 0.0 && onSegment(cx, cy, dx, dy, bx, by));
+    }
+
+    /**
+     * Intersection of segment a-b and segment c-d
+     *
+     * @return true when the segments cross, the crossing is written to out. Parallel segments never cross.
+     */
+    public static boolean segmentSegment(final double ax, final double ay, final double bx, final double by,
+                                         final double cx, final double cy, final double dx, final double dy,
+                                         final double[] out, final int offset) {
+        if (!segmentsIntersect(ax, ay, bx, by, cx, cy, dx, dy)) {
+            return false;
+        }
+        return lineLine(ax, ay, bx, by, cx, cy, dx, dy, out, offset);
+    }
+
+    /**
+     * Intersection of the infinite line through a and b with the infinite line through c and d
+     *
+     * @return false when the lines are parallel
+     */
+    public static boolean lineLine(final double ax, final double ay, final double bx, final double by,
+                                   final double cx, final double cy, final double dx, final double dy,
+                                   final double[] out, final int offset) {
+        final double s1x = bx - ax;
+        final double s1y = by - ay;
+        final double s2x = dx - cx;
+        final double s2y = dy - cy;
+        final double denominator = -s2x * s1y + s1x * s2y;
+        if (denominator == 0.0) {
+            return false;
+        }
+        final double t = (s2x * (ay - cy) - s2y * (ax - cx)) / denominator;
+        out[offset] = ax + t * s1x;
+        out[offset + 1] = ay + t * s1y;
+        return true;
+    }
+
+    /**
+     * Intersection of the infinite line through a and b with a circle
+     *
+     * @param out Receives up to two points
+     * @return Number of intersections, 0, 1 when the line touches the circle or 2
+     */
+    public static int circleLine(final double ax, final double ay, final double bx, final double by,
+                                 final double centerX, final double centerY, final double radius,
+                                 final double[] out, final int offset) {
+        final double baX = bx - ax;
+        final double baY = by - ay;
+        final double caX = centerX - ax;
+        final double caY = centerY - ay;
+
+        final double a = baX * baX + baY * baY;
+        final double bBy2 = baX * caX + baY * caY;
+        final double c = caX * caX + caY * caY - radius * radius;
+
+        final double pBy2 = bBy2 / a;
+        final double q = c / a;
+
+        final double disc = pBy2 * pBy2 - q;
+        if (disc < 0) {
+            return 0;
+        }
+        final double tmpSqrt = Math.sqrt(disc);
+        final double abScalingFactor1 = -pBy2 + tmpSqrt;
+        out[offset] = ax - baX * abScalingFactor1;
+        out[offset + 1] = ay - baY * abScalingFactor1;
+        if (disc == 0) {
+            return 1;
+        }
+        final double abScalingFactor2 = -pBy2 - tmpSqrt;
+        out[offset + 2] = ax - baX * abScalingFactor2;
+        out[offset + 3] = ay - baY * abScalingFactor2;
+        return 2;
+    }
+
+    /**
+     * Angle between line a-b and line c-d in radians
+     */
+    public static double angleBetween2Lines(final double ax, final double ay, final double bx, final double by,
+                                            final double cx, final double cy, final double dx, final double dy) {
+        return Math.atan2(ay - by, ax - bx) - Math.atan2(cy - dy, cx - dx);
+    }
+
+    public static double length(final double x, final double y) {
+        return Math.sqrt(x * x + y * y);
+    }
+
+    /**
+     * Write the vector x,y scaled to the given length to out
+     */
+    public static void scaleTo(final double x, final double y, final double length, final double[] out, final int offset) {
+        final double l = Math.sqrt(x * x + y * y);
+        out[offset] = x / l * length;
+        out[offset + 1] = y / l * length;
+    }
+
+    private static boolean onSegment(final double ax, final double ay, final double bx, final double by, final double px, final double py) {
+        return px >= Math.min(ax, bx) && px <= Math.max(ax, bx) && py >= Math.min(ay, by) && py <= Math.max(ay, by);
+    }
+}
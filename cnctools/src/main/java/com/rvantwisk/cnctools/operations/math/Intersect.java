@@ -53,57 +53,22 @@ public class Intersect {
 
     public static List<Point> getCircleLine(Point pointA,
                                                              Point pointB, Point center, double radius) {
-        double baX = pointB.x - pointA.x;
-        double baY = pointB.y - pointA.y;
-        double caX = center.x - pointA.x;
-        double caY = center.y - pointA.y;
-
-        double a = baX * baX + baY * baY;
-        double bBy2 = baX * caX + baY * caY;
-        double c = caX * caX + caY * caY - radius * radius;
-
-        double pBy2 = bBy2 / a;
-        double q = c / a;
-
-        double disc = pBy2 * pBy2 - q;
-        if (disc < 0) {
+        final double[] out = new double[4];
+        final int count = Geometry.circleLine(pointA.x, pointA.y, pointB.x, pointB.y, center.x, center.y, radius, out, 0);
+        if (count == 0) {
             return Collections.emptyList();
+        } else if (count == 1) {
+            return Collections.singletonList(new Point(out[0], out[1]));
         }
-        // if disc == 0 ... dealt with later
-        double tmpSqrt = Math.sqrt(disc);
-        double abScalingFactor1 = -pBy2 + tmpSqrt;
-        double abScalingFactor2 = -pBy2 - tmpSqrt;
-
-        Point p1 = new Point(pointA.x - baX * abScalingFactor1, pointA.y
-                - baY * abScalingFactor1);
-        if (disc == 0) { // abScalingFactor1 == abScalingFactor2
-            return Collections.singletonList(p1);
-        }
-        Point p2 = new Point(pointA.x - baX * abScalingFactor2, pointA.y
-                - baY * abScalingFactor2);
-        return Arrays.asList(p1, p2);
+        return Arrays.asList(new Point(out[0], out[1]), new Point(out[2], out[3]));
     }
 
     public static Point getLineLine(final Line pLine1, final Line pLine2) {
-        Point result = null;
-
-        Double s1_x = pLine1.p2.x - pLine1.p1.x,
-                s1_y = pLine1.p2.y - pLine1.p1.y,
-
-                s2_x = pLine2.p2.x - pLine2.p1.x,
-                s2_y = pLine2.p2.y - pLine2.p1.y,
-
-                s = (-s1_y * (pLine1.p1.x - pLine2.p1.x) + s1_x * (pLine1.p1.y - pLine2.p1.y)) / (-s2_x * s1_y + s1_x * s2_y),
-                t = (s2_x * (pLine1.p1.y - pLine2.p1.y) - s2_y * (pLine1.p1.x - pLine2.p1.x)) / (-s2_x * s1_y + s1_x * s2_y);
-
-        // Collision detected
-        if (!t.isInfinite()) {
-            result = new Point(
-                    (int) (pLine1.p1.x + (t * s1_x)),
-                    (int) (pLine1.p1.y + (t * s1_y)));
+        final double[] out = new double[2];
+        if (Geometry.lineLine(pLine1.p1.x, pLine1.p1.y, pLine1.p2.x, pLine1.p2.y, pLine2.p1.x, pLine2.p1.y, pLine2.p2.x, pLine2.p2.y, out, 0)) {
+            return new Point(out[0], out[1]);
         }
-
-        return result;
+        return null;
     }
 
     /**
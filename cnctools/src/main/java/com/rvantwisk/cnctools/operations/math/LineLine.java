@@ -48,25 +48,11 @@ package com.rvantwisk.cnctools.operations.math;
 public class LineLine {
 
     public static Point getLineLineIntersection(final Line pLine1, final Line pLine2) {
-        Point result = null;
-
-        Double s1_x = pLine1.p2.x - pLine1.p1.x,
-                s1_y = pLine1.p2.y - pLine1.p1.y,
-
-                s2_x = pLine2.p2.x - pLine2.p1.x,
-                s2_y = pLine2.p2.y - pLine2.p1.y,
-
-                s = (-s1_y * (pLine1.p1.x - pLine2.p1.x) + s1_x * (pLine1.p1.y - pLine2.p1.y)) / (-s2_x * s1_y + s1_x * s2_y),
-                t = (s2_x * (pLine1.p1.y - pLine2.p1.y) - s2_y * (pLine1.p1.x - pLine2.p1.x)) / (-s2_x * s1_y + s1_x * s2_y);
-
-        // Collision detected
-        if (!t.isInfinite()) {
-            result = new Point(
-                    (int) (pLine1.p1.x + (t * s1_x)),
-                    (int) (pLine1.p1.y + (t * s1_y)));
+        final double[] out = new double[2];
+        if (Geometry.lineLine(pLine1.p1.x, pLine1.p1.y, pLine1.p2.x, pLine1.p2.y, pLine2.p1.x, pLine2.p1.y, pLine2.p2.x, pLine2.p2.y, out, 0)) {
+            return new Point(out[0], out[1]);
         }
-
-        return result;
+        return null;
     }
 
 }
@@ -56,7 +56,8 @@ public class Point {
     }
 
     public Point normalize() {
-        return new Point(x / getLength(), y / getLength());
+        final double length = getLength();
+        return new Point(x / length, y / length);
     }
 
     public Point add(final Point B) {
@@ -88,16 +89,12 @@ public class Point {
     }
 
     public static Boolean isLeft(Point a, Point b, Point c) {
-        return ((b.x - a.x) * (c.y - a.y) - (b.y - a.y) * (c.x - a.x)) > 0;
+        return Geometry.isLeft(a.x, a.y, b.x, b.y, c.x, c.y);
     }
 
 
     public static double angleBetween2Lines(Point a, Point b, Point c, Point d) {
-        double angle1 = Math.atan2(a.y - b.y,
-                a.x - b.x);
-        double angle2 = Math.atan2(c.y - d.y,
-                c.x - d.x);
-        return angle1 - angle2;
+        return Geometry.angleBetween2Lines(a.x, a.y, b.x, b.y, c.x, c.y, d.x, d.y);
     }
 
     public double getLength() {
@@ -0,0 +1,167 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.operations.math;
+
+import java.util.Arrays;
+
+/**
+ * Growable list of 2D points stored as separate x and y arrays.
+ * Transforms work on the whole buffer in place, the arrays can be handed directly to routines that take xs/ys arrays.
+ */
+public class PointBuffer {
+    private double[] x;
+    private double[] y;
+    private int size = 0;
+
+    public PointBuffer() {
+        this(16);
+    }
+
+    public PointBuffer(final int capacity) {
+        x = new double[Math.max(1, capacity)];
+        y = new double[Math.max(1, capacity)];
+    }
+
+    public void add(final double px, final double py) {
+        if (size == x.length) {
+            x = Arrays.copyOf(x, size * 2);
+            y = Arrays.copyOf(y, size * 2);
+        }
+        x[size] = px;
+        y[size] = py;
+        size++;
+    }
+
+    public void clear() {
+        size = 0;
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public double getX(final int i) {
+        return x[i];
+    }
+
+    public double getY(final int i) {
+        return y[i];
+    }
+
+    /**
+     * @return Backing array of x coordinates, only the first size() values are valid
+     */
+    public double[] xs() {
+        return x;
+    }
+
+    /**
+     * @return Backing array of y coordinates, only the first size() values are valid
+     */
+    public double[] ys() {
+        return y;
+    }
+
+    /**
+     * @return Points as interleaved x0,y0,x1,y1... array
+     */
+    public double[] toInterleaved() {
+        final double[] xy = new double[size * 2];
+        for (int i = 0; i < size; i++) {
+            xy[i * 2] = x[i];
+            xy[i * 2 + 1] = y[i];
+        }
+        return xy;
+    }
+
+    public void translate(final double dx, final double dy) {
+        for (int i = 0; i < size; i++) {
+            x[i] += dx;
+            y[i] += dy;
+        }
+    }
+
+    public void scale(final double sx, final double sy) {
+        for (int i = 0; i < size; i++) {
+            x[i] *= sx;
+            y[i] *= sy;
+        }
+    }
+
+    /**
+     * Rotate all points around the origin
+     *
+     * @param angle Angle in radians, positive is counter clockwise
+     */
+    public void rotate(final double angle) {
+        final double cos = Math.cos(angle);
+        final double sin = Math.sin(angle);
+        for (int i = 0; i < size; i++) {
+            final double px = x[i];
+            final double py = y[i];
+            x[i] = px * cos - py * sin;
+            y[i] = px * sin + py * cos;
+        }
+    }
+
+    /**
+     * Reverse the order of the points
+     */
+    public void reverse() {
+        for (int i = 0, j = size - 1; i < j; i++, j--) {
+            final double tx = x[i];
+            x[i] = x[j];
+            x[j] = tx;
+            final double ty = y[i];
+            y[i] = y[j];
+            y[j] = ty;
+        }
+    }
+
+    /**
+     * Twice the signed area of the points as a closed polygon, positive when counter clockwise
+     */
+    public double area2() {
+        double area = 0.0;
+        for (int i = 0, j = size - 1; i < size; j = i++) {
+            area += x[j] * y[i] - x[i] * y[j];
+        }
+        return area;
+    }
+}
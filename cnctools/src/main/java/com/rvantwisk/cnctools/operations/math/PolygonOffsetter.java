@@ -0,0 +1,539 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.operations.math;
+
+import java.util.ArrayDeque;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.Deque;
+import java.util.List;
+
+/**
+ * Offsets closed polygons inwards.
+ * <p/>
+ * Coordinates are snapped to a integer grid of 1/SCALE units so all orientation and intersection tests are exact.
+ * Convex corners get a mitered join, reflex corners a round join approximated within the arc tolerance so the
+ * offset stays at the requested distance. Where the raw offset crosses itself it's split into loops and only loops
+ * with the original orientation that stay at the offset distance from the source polygon are kept, a polygon with a
+ * narrow neck will for example result in two polygons. Both tests look up nearby edges in a grid index so only edges
+ * close to each other are compared.
+ * <p/>
+ * Polygons are passed as interleaved coordinates x0,y0,x1,y1... the last point connects to the first.
+ */
+public class PolygonOffsetter {
+    public static final double SCALE = 10000.0; // Grid units per unit of length
+    private static final int MAX_SPLITS = 10000; // Guard against degenerate input
+
+    private final double arcTolerance;
+
+    /**
+     * @param arcTolerance Maximum distance between a round join and it's approximation
+     */
+    public PolygonOffsetter(final double arcTolerance) {
+        if (arcTolerance <= 0.0) {
+            throw new IllegalArgumentException("arcTolerance must be positive");
+        }
+        this.arcTolerance = arcTolerance;
+    }
+
+    /**
+     * Offset a polygon inwards
+     *
+     * @param xy    Polygon, in any orientation
+     * @param delta Distance to move inwards
+     * @return Resulting polygons in counter clockwise orientation, empty when the polygon vanishes
+     */
+    public List<double[]> shrink(final double[] xy, final double delta) {
+        final List<double[]> result = new ArrayList<>();
+        long[] source = toGrid(xy);
+        if (source.length < 6) {
+            return result;
+        }
+        if (area2(source) < 0) {
+            source = reverse(source);
+        }
+
+        final long[] raw = rawOffset(source, delta * SCALE);
+        final double minDistance = delta * SCALE - Math.max(arcTolerance * SCALE, 2.0);
+        final SegmentGrid sourceGrid = new SegmentGrid(source);
+
+        // Split the raw offset at self intersections and keep the valid loops
+        final Deque<long[]> todo = new ArrayDeque<>();
+        todo.push(raw);
+        int splits = 0;
+        while (!todo.isEmpty()) {
+            final long[] ring = todo.pop();
+            if (ring.length < 6) {
+                continue;
+            }
+            final long[][] parts = splits < MAX_SPLITS ? splitAtIntersection(ring) : null;
+            if (parts != null) {
+                splits++;
+                todo.push(parts[0]);
+                todo.push(parts[1]);
+            } else if (area2(ring) > 0 && isAtDistance(ring, sourceGrid, minDistance)) {
+                result.add(toDouble(ring));
+            }
+        }
+        return result;
+    }
+
+    /**
+     * Signed area of a polygon, positive for counter clockwise
+     *
+     * @param xy
+     * @return
+     */
+    public static double area(final double[] xy) {
+        double a = 0.0;
+        final int n = xy.length / 2;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            a += xy[j * 2] * xy[i * 2 + 1] - xy[i * 2] * xy[j * 2 + 1];
+        }
+        return a / 2.0;
+    }
+
+    /**
+     * Build the offset of each edge joined at the corners.
+     * Offset edges that end up pointing against there source edge are swallowed by a convex corner, those are removed
+     * and there neighbours joined until no reversed edge is left. The result can still cross itself where the polygon
+     * splits in parts.
+     *
+     * @return The offset ring, or a empty array when the polygon vanishes
+     */
+    private long[] rawOffset(final long[] p, final double d) {
+        final int n = p.length / 2;
+        final double step = 2.0 * Math.acos(Math.max(-1.0, 1.0 - arcTolerance * SCALE / d));
+
+        // Offset line of each edge, a point on the line and it's unit direction
+        final double[] ax = new double[n];
+        final double[] ay = new double[n];
+        final double[] ux = new double[n];
+        final double[] uy = new double[n];
+        final int[] prev = new int[n];
+        final int[] next = new int[n];
+        for (int i = 0; i < n; i++) {
+            final int i1 = (i + 1) % n;
+            final double ex = p[i1 * 2] - p[i * 2];
+            final double ey = p[i1 * 2 + 1] - p[i * 2 + 1];
+            final double l = Math.hypot(ex, ey);
+            ux[i] = ex / l;
+            uy[i] = ey / l;
+            // Left normals point inwards on a counter clockwise polygon
+            ax[i] = p[i * 2] - uy[i] * d;
+            ay[i] = p[i * 2 + 1] + ux[i] * d;
+            prev[i] = (i + n - 1) % n;
+            next[i] = i1;
+        }
+
+        // Remove reversed edges
+        final boolean[] removed = new boolean[n];
+        final Deque<Integer> todo = new ArrayDeque<>();
+        for (int i = 0; i < n; i++) {
+            todo.add(i);
+        }
+        int alive = n;
+        final double[] pt = new double[4];
+        while (!todo.isEmpty() && alive >= 3) {
+            final int i = todo.poll();
+            if (removed[i]) {
+                continue;
+            }
+            joinPoint(prev[i], i, false, p, ax, ay, ux, uy, d, step, pt, 0);
+            joinPoint(i, next[i], true, p, ax, ay, ux, uy, d, step, pt, 2);
+            // pt[0..1] is where edge i starts, pt[2..3] where it ends
+            if ((pt[2] - pt[0]) * ux[i] + (pt[3] - pt[1]) * uy[i] < 0.0) {
+                removed[i] = true;
+                alive--;
+                next[prev[i]] = next[i];
+                prev[next[i]] = prev[i];
+                todo.add(prev[i]);
+                todo.add(next[i]);
+            }
+        }
+        if (alive < 3) {
+            return new long[0];
+        }
+
+        // Join the remaining edges
+        int first = 0;
+        while (removed[first]) {
+            first++;
+        }
+        final GridRing out = new GridRing(alive * 2);
+        int i = first;
+        do {
+            final int j = prev[i];
+            final boolean adjacent = (j + 1) % n == i;
+            final double cross = ux[j] * uy[i] - uy[j] * ux[i];
+            final double cos = ux[j] * ux[i] + uy[j] * uy[i];
+            final double sweep = Math.atan2(cross, cos);
+            if (adjacent && sweep <= -step) {
+                // Reflex corner, round join around the corner point turning clockwise from edge j to edge i
+                final double cx = p[i * 2];
+                final double cy = p[i * 2 + 1];
+                final double a1 = Math.atan2(ux[j], -uy[j]);
+                final int segments = (int) Math.ceil(-sweep / step);
+                for (int s = 0; s <= segments; s++) {
+                    final double a = a1 + sweep * s / segments;
+                    out.add(cx + Math.cos(a) * d, cy + Math.sin(a) * d);
+                }
+            } else {
+                joinPoint(j, i, false, p, ax, ay, ux, uy, d, step, pt, 0);
+                out.add(pt[0], pt[1]);
+            }
+            i = next[i];
+        } while (i != first);
+        return out.toArray();
+    }
+
+    /**
+     * Calculate where offset edge j ends or where offset edge i starts.
+     * Convex and nearly straight corners meet at the intersection of both offset lines (a miter), a small reflex turn
+     * stays within the arc tolerance that way. Other reflex corners are joined by a arc around the corner and each edge
+     * keeps it's own end point.
+     *
+     * @param endOfJ When true the end point of edge j is calculated, else the start point of edge i
+     * @param out    Receives the point at offset, offset + 1
+     */
+    private static void joinPoint(final int j, final int i, final boolean endOfJ, final long[] p, final double[] ax, final double[] ay,
+                                  final double[] ux, final double[] uy, final double d, final double step,
+                                  final double[] out, final int offset) {
+        final double cross = ux[j] * uy[i] - uy[j] * ux[i];
+        final double cos = ux[j] * ux[i] + uy[j] * uy[i];
+        final boolean adjacent = (j + 1) % ux.length == i;
+        final double sweep = Math.atan2(cross, cos);
+
+        if (Math.abs(cross) < 1E-12 || (adjacent && sweep <= -step)) {
+            // Parallel lines or a round join, each edge keeps the offset of the corner along it's own normal
+            final int k = endOfJ ? j : i;
+            out[offset] = p[i * 2] - uy[k] * d;
+            out[offset + 1] = p[i * 2 + 1] + ux[k] * d;
+        } else {
+            final double t = ((ax[i] - ax[j]) * uy[i] - (ay[i] - ay[j]) * ux[i]) / cross;
+            out[offset] = ax[j] + ux[j] * t;
+            out[offset + 1] = ay[j] + uy[j] * t;
+        }
+    }
+
+    /**
+     * Find the first pair of crossing edges and split the ring in two loops at the crossing
+     *
+     * @return null when the ring is simple
+     */
+    private static long[][] splitAtIntersection(final long[] r) {
+        final int n = r.length / 2;
+        final SegmentGrid grid = new SegmentGrid(r);
+        for (int i = 0; i < n; i++) {
+            final int i1 = (i + 1) % n;
+            final long ax = r[i * 2], ay = r[i * 2 + 1], bx = r[i1 * 2], by = r[i1 * 2 + 1];
+
+            // Lowest crossing edge after i, so the split is the same as when all edges are tested in order
+            int j = n;
+            final int found = grid.query(Math.min(ax, bx), Math.min(ay, by), Math.max(ax, bx), Math.max(ay, by));
+            for (int f = 0; f < found; f++) {
+                final int c = grid.found[f];
+                if (c >= i + 2 && c < j && (c + 1) % n != i && crosses(r, i, c)) {
+                    j = c;
+                }
+            }
+            if (j == n) {
+                continue;
+            }
+
+            final int j1 = (j + 1) % n;
+            final long cx = r[j * 2], cy = r[j * 2 + 1], dx = r[j1 * 2], dy = r[j1 * 2 + 1];
+            final double t = (double) orient(cx, cy, dx, dy, ax, ay) / ((double) orient(cx, cy, dx, dy, ax, ay) - orient(cx, cy, dx, dy, bx, by));
+            final long x = Math.round(ax + (bx - ax) * t);
+            final long y = Math.round(ay + (by - ay) * t);
+
+            // Loop A: crossing, i+1 .. j. Loop B: crossing, j+1 .. i
+            final GridRing a = new GridRing(j - i + 1);
+            a.add(x, y);
+            for (int k = i + 1; k <= j; k++) {
+                a.add(r[k * 2], r[k * 2 + 1]);
+            }
+            final GridRing b = new GridRing(n - (j - i) + 1);
+            b.add(x, y);
+            for (int k = j + 1; k < n + i + 1; k++) {
+                b.add(r[(k % n) * 2], r[(k % n) * 2 + 1]);
+            }
+            return new long[][]{a.toArray(), b.toArray()};
+        }
+        return null;
+    }
+
+    /**
+     * Test if edge i and edge j of a ring properly cross each other
+     */
+    private static boolean crosses(final long[] r, final int i, final int j) {
+        final int n = r.length / 2;
+        final int i1 = (i + 1) % n;
+        final int j1 = (j + 1) % n;
+        final long ax = r[i * 2], ay = r[i * 2 + 1], bx = r[i1 * 2], by = r[i1 * 2 + 1];
+        final long cx = r[j * 2], cy = r[j * 2 + 1], dx = r[j1 * 2], dy = r[j1 * 2 + 1];
+        if (Math.max(cx, dx) < Math.min(ax, bx) || Math.min(cx, dx) > Math.max(ax, bx)
+                || Math.max(cy, dy) < Math.min(ay, by) || Math.min(cy, dy) > Math.max(ay, by)) {
+            return false;
+        }
+        final long o1 = Long.signum(orient(ax, ay, bx, by, cx, cy));
+        final long o2 = Long.signum(orient(ax, ay, bx, by, dx, dy));
+        final long o3 = Long.signum(orient(cx, cy, dx, dy, ax, ay));
+        final long o4 = Long.signum(orient(cx, cy, dx, dy, bx, by));
+        return o1 * o2 < 0 && o3 * o4 < 0;
+    }
+
+    /**
+     * Test if all vertices of ring are at least minDistance away from the edges of source
+     */
+    private static boolean isAtDistance(final long[] ring, final SegmentGrid source, final double minDistance) {
+        final double min2 = minDistance * minDistance;
+        final double radius = Math.abs(minDistance);
+        final long[] s = source.r;
+        final int m = s.length / 2;
+        for (int i = 0; i < ring.length; i += 2) {
+            final double px = ring[i];
+            final double py = ring[i + 1];
+            final int found = source.query(px - radius, py - radius, px + radius, py + radius);
+            for (int f = 0; f < found; f++) {
+                final int j = source.found[f];
+                final int j1 = (j + 1) % m;
+                if (distance2(px, py, s[j * 2], s[j * 2 + 1], s[j1 * 2], s[j1 * 2 + 1]) < min2) {
+                    return false;
+                }
+            }
+        }
+        return true;
+    }
+
+    private static double distance2(final double px, final double py, final double ax, final double ay, final double bx, final double by) {
+        final double vx = bx - ax;
+        final double vy = by - ay;
+        final double l2 = vx * vx + vy * vy;
+        double t = l2 == 0.0 ? 0.0 : ((px - ax) * vx + (py - ay) * vy) / l2;
+        t = Math.max(0.0, Math.min(1.0, t));
+        final double dx = ax + vx * t - px;
+        final double dy = ay + vy * t - py;
+        return dx * dx + dy * dy;
+    }
+
+    private static long orient(final long ax, final long ay, final long bx, final long by, final long cx, final long cy) {
+        return (bx - ax) * (cy - ay) - (by - ay) * (cx - ax);
+    }
+
+    private static long area2(final long[] r) {
+        long a = 0;
+        final int n = r.length / 2;
+        for (int i = 0, j = n - 1; i < n; j = i++) {
+            a += r[j * 2] * r[i * 2 + 1] - r[i * 2] * r[j * 2 + 1];
+        }
+        return a;
+    }
+
+    private static long[] reverse(final long[] r) {
+        final long[] out = new long[r.length];
+        final int n = r.length / 2;
+        for (int i = 0; i < n; i++) {
+            out[i * 2] = r[(n - 1 - i) * 2];
+            out[i * 2 + 1] = r[(n - 1 - i) * 2 + 1];
+        }
+        return out;
+    }
+
+    private static long[] toGrid(final double[] xy) {
+        final GridRing ring = new GridRing(xy.length / 2);
+        for (int i = 0; i < xy.length; i += 2) {
+            ring.add(xy[i] * SCALE, xy[i + 1] * SCALE);
+        }
+        return ring.toArray();
+    }
+
+    private static double[] toDouble(final long[] r) {
+        final double[] out = new double[r.length];
+        for (int i = 0; i < r.length; i++) {
+            out[i] = r[i] / SCALE;
+        }
+        return out;
+    }
+
+    /**
+     * Uniform grid over the edges of a ring, each edge is stored in every cell it's bounding box overlaps.
+     * The grid has about one cell per edge so a query only returns the edges near the queried box.
+     */
+    private static final class SegmentGrid {
+        private final long[] r;
+        private final long minX, minY, maxX, maxY;
+        private final double cellSize;
+        private final int cols, rows;
+        private final int[] cellStart; // Index in items of the first edge of each cell, the last entry is the total
+        private final int[] items;
+        private final int[] stamp; // Query that last returned an edge, so each edge is returned once per query
+        private final int[] found; // Edges returned by the last query
+        private int query = 0;
+
+        private SegmentGrid(final long[] r) {
+            this.r = r;
+            final int n = r.length / 2;
+            long x0 = Long.MAX_VALUE, y0 = Long.MAX_VALUE, x1 = Long.MIN_VALUE, y1 = Long.MIN_VALUE;
+            for (int i = 0; i < r.length; i += 2) {
+                x0 = Math.min(x0, r[i]);
+                y0 = Math.min(y0, r[i + 1]);
+                x1 = Math.max(x1, r[i]);
+                y1 = Math.max(y1, r[i + 1]);
+            }
+            minX = x0;
+            minY = y0;
+            maxX = x1;
+            maxY = y1;
+            final int cells = Math.max(1, (int) Math.ceil(Math.sqrt(n)));
+            cellSize = Math.max(1.0, Math.max(x1 - x0, y1 - y0) / (double) cells);
+            cols = Math.min(cells, (int) ((x1 - x0) / cellSize)) + 1;
+            rows = Math.min(cells, (int) ((y1 - y0) / cellSize)) + 1;
+
+            // Count the edges per cell, then fill the cells
+            cellStart = new int[cols * rows + 1];
+            int[] fill = null;
+            int[] cellItems = null;
+            for (int pass = 0; pass < 2; pass++) {
+                for (int i = 0; i < n; i++) {
+                    final int i1 = (i + 1) % n;
+                    final int c0 = col(Math.min(r[i * 2], r[i1 * 2]));
+                    final int c1 = col(Math.max(r[i * 2], r[i1 * 2]));
+                    final int r0 = row(Math.min(r[i * 2 + 1], r[i1 * 2 + 1]));
+                    final int r1 = row(Math.max(r[i * 2 + 1], r[i1 * 2 + 1]));
+                    for (int row = r0; row <= r1; row++) {
+                        for (int col = c0; col <= c1; col++) {
+                            if (pass == 0) {
+                                cellStart[row * cols + col + 1]++;
+                            } else {
+                                cellItems[fill[row * cols + col]++] = i;
+                            }
+                        }
+                    }
+                }
+                if (pass == 0) {
+                    for (int c = 0; c < cols * rows; c++) {
+                        cellStart[c + 1] += cellStart[c];
+                    }
+                    fill = Arrays.copyOf(cellStart, cols * rows);
+                    cellItems = new int[cellStart[cols * rows]];
+                }
+            }
+            items = cellItems;
+            stamp = new int[n];
+            found = new int[n];
+        }
+
+        private int col(final double x) {
+            return Math.max(0, Math.min(cols - 1, (int) Math.floor((x - minX) / cellSize)));
+        }
+
+        private int row(final double y) {
+            return Math.max(0, Math.min(rows - 1, (int) Math.floor((y - minY) / cellSize)));
+        }
+
+        /**
+         * Collect the edges stored in the cells overlapping a box
+         *
+         * @return Number of edges stored in found
+         */
+        private int query(final double qMinX, final double qMinY, final double qMaxX, final double qMaxY) {
+            if (qMaxX < minX || qMinX > maxX || qMaxY < minY || qMinY > maxY) {
+                return 0;
+            }
+            query++;
+            int count = 0;
+            final int c0 = col(qMinX), c1 = col(qMaxX);
+            final int r1 = row(qMaxY);
+            for (int row = row(qMinY); row <= r1; row++) {
+                for (int col = c0; col <= c1; col++) {
+                    final int cell = row * cols + col;
+                    for (int k = cellStart[cell]; k < cellStart[cell + 1]; k++) {
+                        final int e = items[k];
+                        if (stamp[e] != query) {
+                            stamp[e] = query;
+                            found[count++] = e;
+                        }
+                    }
+                }
+            }
+            return count;
+        }
+    }
+
+    /**
+     * Growing ring of grid points, drops duplicate and collinear points while adding
+     */
+    private static final class GridRing {
+        private long[] xy;
+        private int size = 0;
+
+        private GridRing(final int capacity) {
+            xy = new long[Math.max(8, capacity * 2)];
+        }
+
+        private void add(final double x, final double y) {
+            add(Math.round(x), Math.round(y));
+        }
+
+        private void add(final long x, final long y) {
+            if (size > 0 && xy[size - 2] == x && xy[size - 1] == y) {
+                return;
+            }
+            if (size >= 4 && orient(xy[size - 4], xy[size - 3], xy[size - 2], xy[size - 1], x, y) == 0
+                    && (xy[size - 2] - xy[size - 4]) * (x - xy[size - 2]) + (xy[size - 1] - xy[size - 3]) * (y - xy[size - 1]) > 0) {
+                size -= 2; // Middle point is on a straight line
+            }
+            if (size == xy.length) {
+                xy = Arrays.copyOf(xy, size * 2);
+            }
+            xy[size++] = x;
+            xy[size++] = y;
+        }
+
+        private long[] toArray() {
+            // Closing point equal to the first point
+            int n = size;
+            while (n >= 4 && xy[n - 2] == xy[0] && xy[n - 1] == xy[1]) {
+                n -= 2;
+            }
+            return Arrays.copyOf(xy, n);
+        }
+    }
+}
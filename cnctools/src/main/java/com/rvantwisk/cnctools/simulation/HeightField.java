@@ -0,0 +1,198 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.simulation;
+
+import java.nio.ByteBuffer;
+import java.nio.ByteOrder;
+import java.nio.FloatBuffer;
+
+/**
+ * Grid of heights over a rectangular area, used as stock for the simulation.
+ * <p/>
+ * The grid is split in square tiles that live outside the Java heap, a tile is only allocated the first time a height
+ * within it changes. Untouched tiles are at the initial height, so large parts at a fine resolution only use memory
+ * where the tool has been. Different tiles may be changed from different threads at the same time.
+ */
+public class HeightField {
+    public static final int TILE = 128;
+
+    private final double originX;
+    private final double originY;
+    private final double cell;
+    private final int width;
+    private final int height;
+    private final int tilesX;
+    private final int tilesY;
+    private final float initial;
+    private final FloatBuffer[] tiles;
+
+    /**
+     * @param minX    Start of the area
+     * @param minY    Start of the area
+     * @param maxX    End of the area
+     * @param maxY    End of the area
+     * @param cell    Size of a cell
+     * @param initial Height of every cell at the start
+     */
+    public HeightField(final double minX, final double minY, final double maxX, final double maxY, final double cell, final double initial) {
+        if (cell <= 0.0 || maxX <= minX || maxY <= minY) {
+            throw new IllegalArgumentException("Heightfield needs a positive cell size and area");
+        }
+        this.originX = minX;
+        this.originY = minY;
+        this.cell = cell;
+        this.width = (int) Math.ceil((maxX - minX) / cell);
+        this.height = (int) Math.ceil((maxY - minY) / cell);
+        this.tilesX = (width + TILE - 1) / TILE;
+        this.tilesY = (height + TILE - 1) / TILE;
+        this.initial = (float) initial;
+        this.tiles = new FloatBuffer[tilesX * tilesY];
+    }
+
+    public float get(final int ix, final int iy) {
+        final FloatBuffer tile = tiles[(iy / TILE) * tilesX + ix / TILE];
+        return tile == null ? initial : tile.get((iy % TILE) * TILE + ix % TILE);
+    }
+
+    public void set(final int ix, final int iy, final float z) {
+        tile(ix / TILE, iy / TILE).put((iy % TILE) * TILE + ix % TILE, z);
+    }
+
+    /**
+     * Set all cells within a rectangle to a height, used to build target surfaces
+     */
+    public void fill(final double x0, final double y0, final double x1, final double y1, final double z) {
+        final int fromX = Math.max(0, cellX(x0));
+        final int toX = Math.min(width - 1, cellX(x1));
+        final int fromY = Math.max(0, cellY(y0));
+        final int toY = Math.min(height - 1, cellY(y1));
+        for (int iy = fromY; iy <= toY; iy++) {
+            for (int ix = fromX; ix <= toX; ix++) {
+                set(ix, iy, (float) z);
+            }
+        }
+    }
+
+    /**
+     * Tile at tile coordinates, allocated at the initial height when it wasn't used before
+     */
+    FloatBuffer tile(final int tx, final int ty) {
+        final int idx = ty * tilesX + tx;
+        FloatBuffer tile = tiles[idx];
+        if (tile == null) {
+            tile = ByteBuffer.allocateDirect(TILE * TILE * 4).order(ByteOrder.nativeOrder()).asFloatBuffer();
+            for (int i = 0; i < TILE * TILE; i++) {
+                tile.put(i, initial);
+            }
+            tiles[idx] = tile;
+        }
+        return tile;
+    }
+
+    boolean isAllocated(final int tx, final int ty) {
+        return tiles[ty * tilesX + tx] != null;
+    }
+
+    /**
+     * Volume between the heights and a base height, heights below the base don't count
+     */
+    public double volumeAbove(final double base) {
+        double volume = 0.0;
+        for (int ty = 0; ty < tilesY; ty++) {
+            for (int tx = 0; tx < tilesX; tx++) {
+                final int cellsX = Math.min(TILE, width - tx * TILE);
+                final int cellsY = Math.min(TILE, height - ty * TILE);
+                if (!isAllocated(tx, ty)) {
+                    volume += Math.max(0.0, initial - base) * cellsX * cellsY;
+                    continue;
+                }
+                final FloatBuffer tile = tiles[ty * tilesX + tx];
+                for (int y = 0; y < cellsY; y++) {
+                    for (int x = 0; x < cellsX; x++) {
+                        volume += Math.max(0.0, tile.get(y * TILE + x) - base);
+                    }
+                }
+            }
+        }
+        return volume * cell * cell;
+    }
+
+    public int cellX(final double x) {
+        return (int) Math.floor((x - originX) / cell);
+    }
+
+    public int cellY(final double y) {
+        return (int) Math.floor((y - originY) / cell);
+    }
+
+    /**
+     * @return X coordinate of the center of a cell
+     */
+    public double centerX(final int ix) {
+        return originX + (ix + 0.5) * cell;
+    }
+
+    public double centerY(final int iy) {
+        return originY + (iy + 0.5) * cell;
+    }
+
+    public double getCell() {
+        return cell;
+    }
+
+    public int getWidth() {
+        return width;
+    }
+
+    public int getHeight() {
+        return height;
+    }
+
+    public int getTilesX() {
+        return tilesX;
+    }
+
+    public int getTilesY() {
+        return tilesY;
+    }
+
+    public float getInitial() {
+        return initial;
+    }
+}
@@ -0,0 +1,446 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.simulation;
+
+import com.rvantwisk.gcodeparser.GCodeParser;
+import com.rvantwisk.gcodeparser.MachineController;
+import com.rvantwisk.gcodeparser.MachineStatus;
+import com.rvantwisk.gcodeparser.MachineStatusHelper;
+import com.rvantwisk.gcodeparser.ParsedWord;
+import com.rvantwisk.gcodeparser.exceptions.SimException;
+import com.rvantwisk.gcodeparser.gcodes.FeedRateMode;
+import com.rvantwisk.gcodeparser.gcodes.MotionMode;
+
+import java.util.Arrays;
+import java.util.Map;
+
+/**
+ * Removes material from stock turning on a rotary A axis along X, for programs like the ones from CreateRoundStockTask.
+ * <p/>
+ * The stock is stored as the radius of the material for a number of angle bins at each X. The tool is a flat end mill
+ * pointing down along Z at Y=0, at A=a the top of the stock is the stock's angle a. Angles are measured clockwise from
+ * the top as in RoundStockEngine.
+ * <p/>
+ * A move of more than one axis is split in short steps where X and Z hardly change. Within a step the tool sweeps an angle window and for
+ * each angle bin the lowest tool is found in closed form from the distance of the bin to that window, so a full
+ * rotation over a fixed X costs one pass over the angle bins. The sweep of an angle window uses tables of the sine and
+ * cosine of every bin and needs no trigonometry per bin.
+ * <p/>
+ * The first move of the program only positions the tool.
+ * <p/>
+ * The radius per bin can't hold material under a lip. When the tool cuts the inside of a ray but not it's outer end,
+ * the ray is left as it was.
+ * <p/>
+ * Moves along a single axis are swept in one step, a step only visits the bins within reach of the tool and skips
+ * blocks of bins that are already below the tool.
+ */
+public class RotaryStockSimulator implements MachineController {
+    private static final int INITIAL_MOVES = 1024;
+    private static final int BLOCK = 32;
+
+    private final MachineStatusHelper machine = new MachineStatusHelper();
+
+    private final int bins;
+    private final double binAngle;      // Radians
+    private final double minX;
+    private final double cell;
+    private final int cellsX;
+    private final float[] radius;       // [ix * bins + bin]
+    private final int blocks;
+    private final float[] blockMax;     // Largest radius of each block of bins, [ix * blocks + block]
+    private final double[] binCos;
+    private final double[] binSin;
+
+    private double toolRadius = 0.0;
+    private double maxStep;             // Largest change of X or Z within one step
+
+    private int[] moveLine = new int[INITIAL_MOVES];
+    private double[] moveRemoved = new double[INITIAL_MOVES];
+    private double[] moveDepth = new double[INITIAL_MOVES];
+    private double[] moveTime = new double[INITIAL_MOVES];
+    private double[] moveFeed = new double[INITIAL_MOVES];
+    private int moveCount = 0;
+
+    private double removedVolume = 0.0;
+    private boolean positioned = false;
+    private double lastA = 0.0;
+    private double lastX = 0.0;
+    private double lastZ = 0.0;
+
+    // Result of the current move, written by sweep
+    private double stepRemoved;
+    private double stepDepth;
+
+    /**
+     * @param bins   Number of angle bins over a full rotation
+     * @param minX   Start of the stock along X
+     * @param maxX   End of the stock along X
+     * @param cell   Length of a cell along X
+     * @param radius Radius of the round stock
+     */
+    public RotaryStockSimulator(final int bins, final double minX, final double maxX, final double cell, final double radius) {
+        if (bins < 4 || cell <= 0.0 || maxX <= minX) {
+            throw new IllegalArgumentException("Rotary stock needs at least 4 angle bins and a positive cell size and length");
+        }
+        this.bins = bins;
+        this.binAngle = 2.0 * Math.PI / bins;
+        this.minX = minX;
+        this.cell = cell;
+        this.cellsX = (int) Math.ceil((maxX - minX) / cell);
+        this.radius = new float[cellsX * bins];
+        this.blocks = (bins + BLOCK - 1) / BLOCK;
+        this.blockMax = new float[cellsX * blocks];
+        this.binCos = new double[bins];
+        this.binSin = new double[bins];
+        for (int i = 0; i < bins; i++) {
+            binCos[i] = Math.cos((i + 0.5) * binAngle);
+            binSin[i] = Math.sin((i + 0.5) * binAngle);
+        }
+        this.maxStep = cell;
+        Arrays.fill(this.radius, (float) radius);
+        Arrays.fill(this.blockMax, (float) radius);
+    }
+
+    /**
+     * Shape the stock as a rectangle with it's faces at the same angles as RoundStockEngine, a corner up at A=0
+     *
+     * @param width  Distance from the axis to the faces with their normal at 45 and 225 degrees
+     * @param height Distance from the axis to the faces with their normal at 135 and 315 degrees
+     */
+    public void setRectangular(final double width, final double height) {
+        final double c45 = Math.cos(Math.PI / 4.0);
+        for (int i = 0; i < bins; i++) {
+            // cos(theta - normal) for the normals at 45, 135, 225 and 315 degrees
+            final double p = (binCos[i] + binSin[i]) * c45;
+            final double q = (binSin[i] - binCos[i]) * c45;
+            final double r = Math.min(width / Math.abs(p), height / Math.abs(q));
+            for (int ix = 0; ix < cellsX; ix++) {
+                radius[ix * bins + i] = (float) r;
+            }
+        }
+        for (int ix = 0; ix < cellsX; ix++) {
+            for (int block = 0; block < blocks; block++) {
+                updateBlockMax(ix, block);
+            }
+        }
+    }
+
+    /**
+     * @param diameter Diameter of the flat end mill
+     */
+    public void setTool(final double diameter) {
+        this.toolRadius = diameter / 2.0;
+    }
+
+    /**
+     * Largest change of X or Z within one step of a move, one cell by default
+     */
+    public void setMaxStep(final double maxStep) {
+        this.maxStep = maxStep;
+    }
+
+    @Override
+    public void startBlock(final GCodeParser parser, final MachineStatus machineStatus, final Map<String, ParsedWord> block) {
+        machine.setMachineStatus(machineStatus);
+        lastA = machine.getA();
+        lastX = machine.getX();
+        lastZ = machine.getZ();
+    }
+
+    @Override
+    public void endBlock(final GCodeParser parser, final MachineStatus machineStatus, final Map<String, ParsedWord> block) throws SimException {
+        machine.setMachineStatus(machineStatus);
+        final double a = machine.getA();
+        final double x = machine.getX();
+        final double z = machine.getZ();
+        if (a == lastA && x == lastX && z == lastZ) {
+            return;
+        }
+        // Where the tool was before the first move is unknown, the first move only positions it
+        if (!positioned) {
+            positioned = true;
+            return;
+        }
+
+        final int move = newMove(parser.getCurrentLineNumber());
+        stepRemoved = 0.0;
+        stepDepth = 0.0;
+        // Moves along one axis are swept exactly in one step. With more axes X and Z hardly change within a step, or
+        // while X changes the angle stays within one bin
+        final int axes = (a != lastA ? 1 : 0) + (x != lastX ? 1 : 0) + (z != lastZ ? 1 : 0);
+        final int stepsX = (int) Math.ceil(Math.abs(x - lastX) / maxStep);
+        final int stepsA = (int) Math.ceil(Math.toRadians(Math.abs(a - lastA)) / binAngle);
+        final int stepsZ = (int) Math.ceil(Math.abs(z - lastZ) / maxStep);
+        final int steps = axes == 1 ? 1 : Math.max(1, Math.max(stepsZ, Math.min(stepsX, stepsA)));
+        for (int s = 0; s < steps; s++) {
+            final double ta = (double) s / steps;
+            final double tb = (double) (s + 1) / steps;
+            sweep(Math.toRadians(lastA + (a - lastA) * ta), Math.toRadians(lastA + (a - lastA) * tb),
+                    lastX + (x - lastX) * ta, lastX + (x - lastX) * tb,
+                    axes == 1 ? Math.min(lastZ, z) : lastZ + (z - lastZ) * (ta + tb) / 2.0);
+        }
+        moveRemoved[move] = stepRemoved;
+        moveDepth[move] = stepDepth;
+        removedVolume += stepRemoved;
+
+        final MotionMode motionMode = machine.getMotionMode();
+        final double feed = machine.getFeedrate();
+        if (motionMode != MotionMode.G0 && feed > 0.0) {
+            moveFeed[move] = feed;
+            if (machine.getFeedRateMode() == FeedRateMode.G93) {
+                moveTime[move] = 1.0 / feed;
+            } else {
+                // The controller measures the linear axis when they move, else degrees
+                final double dX = x - lastX;
+                final double dZ = z - lastZ;
+                final double linear = Math.sqrt(dX * dX + dZ * dZ);
+                moveTime[move] = (linear > 0.0 ? linear : Math.abs(a - lastA)) / feed;
+            }
+        }
+    }
+
+    @Override
+    public void end(final GCodeParser parser, final MachineStatus machineStatus) throws SimException {
+    }
+
+    /**
+     * Sweep the tool over an angle window at a fixed height
+     *
+     * @param a0 Start of the window in radians
+     * @param a1 End of the window in radians
+     * @param x0 Start of the tool along X
+     * @param x1 End of the tool along X
+     * @param z  Height of the tool above the axis
+     */
+    private void sweep(final double a0, final double a1, final double x0, final double x1, final double z) {
+        final double lo = Math.min(a0, a1);
+        final double hi = Math.max(a0, a1);
+        final double zt = Math.max(0.0, z);
+        final double r = toolRadius;
+        final boolean fullTurn = hi - lo >= 2.0 * Math.PI;
+        final double cosLo = Math.cos(lo);
+        final double sinLo = Math.sin(lo);
+        final double cosHi = Math.cos(hi);
+        final double sinHi = Math.sin(hi);
+        final double cosMid = Math.cos((lo + hi) / 2.0);
+        final double sinMid = Math.sin((lo + hi) / 2.0);
+        final double cosHalf = Math.cos((hi - lo) / 2.0);
+        final double area = binAngle / 2.0 * cell;
+
+        final int fromX = Math.max(0, (int) Math.floor((Math.min(x0, x1) - r - minX) / cell));
+        final int toX = Math.min(cellsX - 1, (int) Math.floor((Math.max(x0, x1) + r - minX) / cell));
+        for (int ix = fromX; ix <= toX; ix++) {
+            final double cx = minX + (ix + 0.5) * cell;
+            final double dx = cx < Math.min(x0, x1) ? Math.min(x0, x1) - cx : cx > Math.max(x0, x1) ? cx - Math.max(x0, x1) : 0.0;
+            if (dx > r) {
+                continue;
+            }
+            final double w = Math.sqrt(r * r - dx * dx);
+            final double w2 = w * w;
+            final int row = ix * bins;
+
+            // Bins further from the window than the tool can reach are not visited
+            final double reach = zt > 0.0 ? Math.atan(w / zt) : Math.PI / 2.0;
+            final int first;
+            final int count;
+            if (fullTurn || hi - lo + 2.0 * reach >= 2.0 * Math.PI) {
+                first = 0;
+                count = bins;
+            } else {
+                first = (int) Math.floor((lo - reach) / binAngle);
+                count = (int) Math.floor((hi + reach) / binAngle) - first + 1;
+            }
+
+            int n = 0;
+            while (n < count) {
+                // Run of bins within one block, blocks that are completely below the tool are skipped
+                final int start = ((first + n) % bins + bins) % bins;
+                final int block = start / BLOCK;
+                final int run = Math.min(count - n, Math.min((block + 1) * BLOCK, bins) - start);
+                n += run;
+                if (zt >= blockMax[ix * blocks + block]) {
+                    continue;
+                }
+
+                boolean changed = false;
+                for (int i = start; i < start + run; i++) {
+                    // Cosine of the angle between the bin and the nearest angle of the window
+                    final double c;
+                    if (fullTurn || binCos[i] * cosMid + binSin[i] * sinMid >= cosHalf) {
+                        c = 1.0;
+                    } else {
+                        c = Math.max(binCos[i] * cosLo + binSin[i] * sinLo, binCos[i] * cosHi + binSin[i] * sinHi);
+                    }
+                    if (c <= 0.0) {
+                        continue;
+                    }
+
+                    final float current = radius[row + i];
+                    final double cut = zt / c;
+                    // The outer end of the ray has to be under the tool
+                    if (cut >= current || current * current * (1.0 - c * c) > w2) {
+                        continue;
+                    }
+                    radius[row + i] = (float) cut;
+                    stepRemoved += ((double) current * current - cut * cut) * area;
+                    stepDepth = Math.max(stepDepth, current - cut);
+                    changed = true;
+                }
+                if (changed) {
+                    updateBlockMax(ix, block);
+                }
+            }
+        }
+    }
+
+    private void updateBlockMax(final int ix, final int block) {
+        float max = 0.0f;
+        for (int i = ix * bins + block * BLOCK; i < ix * bins + Math.min((block + 1) * BLOCK, bins); i++) {
+            max = Math.max(max, radius[i]);
+        }
+        blockMax[ix * blocks + block] = max;
+    }
+
+    private int newMove(final int line) {
+        if (moveCount == moveLine.length) {
+            moveLine = Arrays.copyOf(moveLine, moveCount * 2);
+            moveRemoved = Arrays.copyOf(moveRemoved, moveCount * 2);
+            moveDepth = Arrays.copyOf(moveDepth, moveCount * 2);
+            moveTime = Arrays.copyOf(moveTime, moveCount * 2);
+            moveFeed = Arrays.copyOf(moveFeed, moveCount * 2);
+        }
+        moveLine[moveCount] = line;
+        moveRemoved[moveCount] = 0.0;
+        moveDepth[moveCount] = 0.0;
+        moveTime[moveCount] = 0.0;
+        moveFeed[moveCount] = 0.0;
+        return moveCount++;
+    }
+
+    /**
+     * @return Radius of the stock at a position along X and an angle in degrees
+     */
+    public double getRadius(final double x, final double angle) {
+        final int ix = Math.max(0, Math.min(cellsX - 1, (int) Math.floor((x - minX) / cell)));
+        int bin = (int) Math.floor(Math.toRadians(angle) / binAngle) % bins;
+        if (bin < 0) {
+            bin += bins;
+        }
+        return radius[ix * bins + bin];
+    }
+
+    /**
+     * @return Smallest and largest radius around the stock at a position along X
+     */
+    public double[] getProfile(final double x) {
+        final int ix = Math.max(0, Math.min(cellsX - 1, (int) Math.floor((x - minX) / cell)));
+        double min = Double.MAX_VALUE;
+        double max = 0.0;
+        for (int i = 0; i < bins; i++) {
+            min = Math.min(min, radius[ix * bins + i]);
+        }
+        for (int block = 0; block < blocks; block++) {
+            max = Math.max(max, blockMax[ix * blocks + block]);
+        }
+        return new double[]{min, max};
+    }
+
+    /**
+     * @return Volume of the stock that is left
+     */
+    public double getRemainingVolume() {
+        double volume = 0.0;
+        for (final float r : radius) {
+            volume += (double) r * r;
+        }
+        return volume * binAngle / 2.0 * cell;
+    }
+
+    public double getRemovedVolume() {
+        return removedVolume;
+    }
+
+    public int getMoveCount() {
+        return moveCount;
+    }
+
+    /**
+     * @return Line number in the program of a move
+     */
+    public int getMoveLine(final int move) {
+        return moveLine[move];
+    }
+
+    public double getMoveRemoved(final int move) {
+        return moveRemoved[move];
+    }
+
+    /**
+     * @return Deepest radial cut of a move
+     */
+    public double getMoveDepth(final int move) {
+        return moveDepth[move];
+    }
+
+    /**
+     * @return Material removal rate of a move in volume per minute, 0 for rapid moves
+     */
+    public double getMoveRemovalRate(final int move) {
+        return moveTime[move] > 0.0 ? moveRemoved[move] / moveTime[move] : 0.0;
+    }
+
+    /**
+     * Feed that gives a move the target removal rate, moves that don't cut run at the maximum feed
+     *
+     * @param move       Move
+     * @param targetRate Removal rate in volume per minute
+     * @param maxFeed    Highest feed, in the feed mode of the move
+     * @return Adjusted feed or 0 for rapid moves
+     */
+    public double getAdjustedFeed(final int move, final double targetRate, final double maxFeed) {
+        if (moveFeed[move] <= 0.0) {
+            return 0.0;
+        }
+        final double rate = getMoveRemovalRate(move);
+        if (rate <= 0.0) {
+            return maxFeed;
+        }
+        return Math.min(maxFeed, moveFeed[move] * targetRate / rate);
+    }
+}
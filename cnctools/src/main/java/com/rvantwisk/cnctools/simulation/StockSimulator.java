@@ -0,0 +1,501 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.simulation;
+
+import com.rvantwisk.cnctools.data.ToolParameter;
+import com.rvantwisk.cnctools.data.interfaces.Toolbase;
+import com.rvantwisk.cnctools.data.tools.BallMill;
+import com.rvantwisk.cnctools.data.tools.EndMill;
+import com.rvantwisk.cnctools.misc.Dimensions;
+import com.rvantwisk.gcodeparser.GCodeParser;
+import com.rvantwisk.gcodeparser.MachineController;
+import com.rvantwisk.gcodeparser.MachineStatus;
+import com.rvantwisk.gcodeparser.MachineStatusHelper;
+import com.rvantwisk.gcodeparser.ParsedWord;
+import com.rvantwisk.gcodeparser.exceptions.SimException;
+import com.rvantwisk.gcodeparser.gcodes.ActivePlane;
+import com.rvantwisk.gcodeparser.gcodes.MotionMode;
+
+import java.nio.FloatBuffer;
+import java.util.Arrays;
+import java.util.Map;
+import java.util.concurrent.ForkJoinPool;
+import java.util.concurrent.RecursiveAction;
+
+/**
+ * Removes material from a heightfield stock by sweeping the tool along the parsed moves.
+ * <p/>
+ * Moves are collected in batches, each batch is applied tile by tile on all cores. Within a tile the moves are applied
+ * in program order so the material removed by each block is exact. For each cell the lowest point of the tool over
+ * the move is calculated in closed form, for a flat end mill at one end of the part of the move that covers the cell
+ * and for a ball mill at the point where the slope of the move and the ball meet.
+ * <p/>
+ * Only X, Y and Z are simulated, arcs are followed in the XY plane.
+ */
+public class StockSimulator implements MachineController {
+    private static final ForkJoinPool POOL = new ForkJoinPool();
+    private static final int BATCH = 4096;
+    private static final int MAX_ARC_SEGMENTS = 10000;
+
+    private final HeightField stock;
+    private final double floor; // Bottom of the stock, the tool can't remove below this
+    private final MachineStatusHelper machine = new MachineStatusHelper();
+
+    private double toolRadius = 0.0;
+    private boolean ballMill = false;
+
+    // Batch of segments, x0,y0,z0,x1,y1,z1
+    private final double[] segments = new double[BATCH * 6];
+    private final int[] segmentBlock = new int[BATCH];
+    private int segmentCount = 0;
+
+    // Per block statistics
+    private int[] blockLine = new int[1024];
+    private double[] blockRemoved = new double[1024];
+    private double[] blockTime = new double[1024];
+    private boolean[] blockRapid = new boolean[1024]; // Known before any segment is added, a batch may be applied halfway a block
+    private int blockCount = 0;
+
+    private double removedVolume = 0.0;
+    private int rapidCollisions = 0;
+    private int gougeCells = 0;
+    private double gougeDepth = 0.0;
+
+    private double lastX = 0.0;
+    private double lastY = 0.0;
+    private double lastZ = 0.0;
+
+    /**
+     * @param stock Heightfield with the top of the stock
+     * @param floor Height of the bottom of the stock
+     */
+    public StockSimulator(final HeightField stock, final double floor) {
+        this.stock = stock;
+        this.floor = floor;
+    }
+
+    /**
+     * Use a flat or ball end mill
+     *
+     * @param diameter Diameter in program units
+     */
+    public void setTool(final double diameter, final boolean ball) {
+        flush();
+        this.toolRadius = diameter / 2.0;
+        this.ballMill = ball;
+    }
+
+    /**
+     * Use the tool of a tool parameter, the diameter is converted to the units of the program
+     */
+    public void setTool(final ToolParameter toolParameter, final Dimensions.Dim units) {
+        final Toolbase tool = toolParameter.getToolType();
+        if (tool instanceof BallMill) {
+            setTool(((BallMill) tool).diameterProperty().convert(units).getValue(), true);
+        } else if (tool instanceof EndMill) {
+            setTool(((EndMill) tool).diameterProperty().convert(units).getValue(), false);
+        } else {
+            throw new IllegalArgumentException("Unknown tool type [" + tool + "]");
+        }
+    }
+
+    @Override
+    public void startBlock(final GCodeParser parser, final MachineStatus machineStatus, final Map<String, ParsedWord> block) {
+        machine.setMachineStatus(machineStatus);
+        lastX = machine.getX();
+        lastY = machine.getY();
+        lastZ = machine.getZ();
+    }
+
+    @Override
+    public void endBlock(final GCodeParser parser, final MachineStatus machineStatus, final Map<String, ParsedWord> block) throws SimException {
+        machine.setMachineStatus(machineStatus);
+        final double x = machine.getX();
+        final double y = machine.getY();
+        final double z = machine.getZ();
+        if (x == lastX && y == lastY && z == lastZ) {
+            return;
+        }
+
+        final MotionMode motionMode = machine.getMotionMode();
+        final int blockIdx = newBlock(parser.getCurrentLineNumber(), motionMode == MotionMode.G0);
+        double length;
+        if ((motionMode == MotionMode.G2 || motionMode == MotionMode.G3) && machine.getActivePlane() == ActivePlane.G17) {
+            length = addArc(blockIdx, block, motionMode == MotionMode.G2, x, y, z);
+        } else {
+            addSegment(blockIdx, lastX, lastY, lastZ, x, y, z);
+            length = Math.sqrt((x - lastX) * (x - lastX) + (y - lastY) * (y - lastY) + (z - lastZ) * (z - lastZ));
+        }
+        if (motionMode != MotionMode.G0 && machine.getFeedrate() > 0.0) {
+            blockTime[blockIdx] = length / machine.getFeedrate();
+        }
+    }
+
+    @Override
+    public void end(final GCodeParser parser, final MachineStatus machineStatus) throws SimException {
+        flush();
+    }
+
+    /**
+     * Apply all collected moves to the stock
+     */
+    public void flush() {
+        if (segmentCount == 0) {
+            return;
+        }
+
+        // Find the tiles touched by this batch
+        final boolean[] touched = new boolean[stock.getTilesX() * stock.getTilesY()];
+        int count = 0;
+        for (int s = 0; s < segmentCount; s++) {
+            final int[] range = tileRange(s);
+            for (int ty = range[2]; ty <= range[3]; ty++) {
+                for (int tx = range[0]; tx <= range[1]; tx++) {
+                    if (!touched[ty * stock.getTilesX() + tx]) {
+                        touched[ty * stock.getTilesX() + tx] = true;
+                        count++;
+                    }
+                }
+            }
+        }
+        final int[] tiles = new int[count];
+        for (int i = 0, n = 0; i < touched.length; i++) {
+            if (touched[i]) {
+                tiles[n++] = i;
+            }
+        }
+
+        POOL.invoke(new TileTask(tiles, 0, tiles.length));
+        segmentCount = 0;
+    }
+
+    /**
+     * Find cells where the stock is below a target surface
+     *
+     * @param target    Target surface on the same grid as the stock
+     * @param tolerance Depth below the target that is not reported
+     */
+    public void checkGouges(final HeightField target, final double tolerance) {
+        flush();
+        gougeCells = 0;
+        gougeDepth = 0.0;
+        for (int iy = 0; iy < stock.getHeight(); iy++) {
+            for (int ix = 0; ix < stock.getWidth(); ix++) {
+                final double depth = target.get(ix, iy) - stock.get(ix, iy);
+                if (depth > tolerance) {
+                    gougeCells++;
+                    gougeDepth = Math.max(gougeDepth, depth);
+                }
+            }
+        }
+    }
+
+    private int newBlock(final int line, final boolean rapid) {
+        if (blockCount == blockLine.length) {
+            blockLine = Arrays.copyOf(blockLine, blockCount * 2);
+            blockRemoved = Arrays.copyOf(blockRemoved, blockCount * 2);
+            blockTime = Arrays.copyOf(blockTime, blockCount * 2);
+            blockRapid = Arrays.copyOf(blockRapid, blockCount * 2);
+        }
+        blockLine[blockCount] = line;
+        blockRapid[blockCount] = rapid;
+        return blockCount++;
+    }
+
+    private void addSegment(final int blockIdx, final double x0, final double y0, final double z0, final double x1, final double y1, final double z1) {
+        if (segmentCount == BATCH) {
+            flush();
+        }
+        final int o = segmentCount * 6;
+        segments[o] = x0;
+        segments[o + 1] = y0;
+        segments[o + 2] = z0;
+        segments[o + 3] = x1;
+        segments[o + 4] = y1;
+        segments[o + 5] = z1;
+        segmentBlock[segmentCount++] = blockIdx;
+    }
+
+    /**
+     * Split an arc in segments that stay within half a cell of the arc
+     *
+     * @return Length of the arc
+     */
+    private double addArc(final int blockIdx, final Map<String, ParsedWord> block, final boolean clockwise, final double x, final double y, final double z) {
+        final double i = block.get("I") == null ? 0.0 : block.get("I").value;
+        final double j = block.get("J") == null ? 0.0 : block.get("J").value;
+        final double turns = block.get("P") == null ? 1.0 : block.get("P").value;
+        final double cX = lastX + i;
+        final double cY = lastY + j;
+        final double radius = Math.sqrt(i * i + j * j);
+
+        double startAngle = Math.atan2(lastY - cY, lastX - cX);
+        double endAngle = Math.atan2(y - cY, x - cX);
+        double sweep = clockwise ? startAngle - endAngle : endAngle - startAngle;
+        if (sweep <= 0.0) {
+            sweep += 2.0 * Math.PI;
+        }
+        sweep += 2.0 * Math.PI * (turns - 1.0);
+
+        final double maxStep = radius > stock.getCell() ? 2.0 * Math.acos(1.0 - stock.getCell() / (2.0 * radius)) : Math.PI / 2.0;
+        final int steps = Math.max(1, Math.min(MAX_ARC_SEGMENTS, (int) Math.ceil(sweep / maxStep)));
+        final double direction = clockwise ? -1.0 : 1.0;
+        double px = lastX;
+        double py = lastY;
+        double pz = lastZ;
+        for (int s = 1; s <= steps; s++) {
+            final double a = startAngle + direction * sweep * s / steps;
+            final double nx = s == steps ? x : cX + radius * Math.cos(a);
+            final double ny = s == steps ? y : cY + radius * Math.sin(a);
+            final double nz = lastZ + (z - lastZ) * s / steps;
+            addSegment(blockIdx, px, py, pz, nx, ny, nz);
+            px = nx;
+            py = ny;
+            pz = nz;
+        }
+        final double dz = z - lastZ;
+        final double arc = radius * sweep;
+        return Math.sqrt(arc * arc + dz * dz);
+    }
+
+    /**
+     * Range of tiles covered by a segment and the tool, tx0, tx1, ty0, ty1
+     */
+    private int[] tileRange(final int s) {
+        final int o = s * 6;
+        final int x0 = clamp(stock.cellX(Math.min(segments[o], segments[o + 3]) - toolRadius), stock.getWidth());
+        final int x1 = clamp(stock.cellX(Math.max(segments[o], segments[o + 3]) + toolRadius), stock.getWidth());
+        final int y0 = clamp(stock.cellY(Math.min(segments[o + 1], segments[o + 4]) - toolRadius), stock.getHeight());
+        final int y1 = clamp(stock.cellY(Math.max(segments[o + 1], segments[o + 4]) + toolRadius), stock.getHeight());
+        return new int[]{x0 / HeightField.TILE, x1 / HeightField.TILE, y0 / HeightField.TILE, y1 / HeightField.TILE};
+    }
+
+    private static int clamp(final int v, final int size) {
+        return Math.max(0, Math.min(size - 1, v));
+    }
+
+    /**
+     * Sweep one segment over the cells of one tile
+     *
+     * @return Volume removed
+     */
+    private double sweep(final int s, final int tx, final int ty) {
+        final int o = s * 6;
+        final double x0 = segments[o];
+        final double y0 = segments[o + 1];
+        final double z0 = segments[o + 2];
+        final double dx = segments[o + 3] - x0;
+        final double dy = segments[o + 4] - y0;
+        final double dz = segments[o + 5] - z0;
+        final double r = toolRadius;
+        final double r2 = r * r;
+
+        // Cells of this tile within the bounding box of the move
+        final int fromX = Math.max(tx * HeightField.TILE, stock.cellX(Math.min(x0, x0 + dx) - r));
+        final int toX = Math.min(Math.min((tx + 1) * HeightField.TILE, stock.getWidth()) - 1, stock.cellX(Math.max(x0, x0 + dx) + r));
+        final int fromY = Math.max(ty * HeightField.TILE, stock.cellY(Math.min(y0, y0 + dy) - r));
+        final int toY = Math.min(Math.min((ty + 1) * HeightField.TILE, stock.getHeight()) - 1, stock.cellY(Math.max(y0, y0 + dy) + r));
+        if (fromX > toX || fromY > toY) {
+            return 0.0;
+        }
+
+        final double a = dx * dx + dy * dy;
+        final double lowestZ = Math.min(z0, z0 + dz);
+        FloatBuffer tile = null;
+        double removed = 0.0;
+        for (int iy = fromY; iy <= toY; iy++) {
+            final double cy = stock.centerY(iy) - y0;
+            for (int ix = fromX; ix <= toX; ix++) {
+                final double cx = stock.centerX(ix) - x0;
+
+                double bottom;
+                if (a < 1e-18) {
+                    // Plunge
+                    final double b = cx * cx + cy * cy;
+                    if (b > r2) {
+                        continue;
+                    }
+                    bottom = ballMill ? lowestZ + r - Math.sqrt(r2 - b) : lowestZ;
+                } else {
+                    // Part of the move where the cell is under the tool
+                    final double tc = (cx * dx + cy * dy) / a;
+                    final double b = Math.max(0.0, cx * cx + cy * cy - a * tc * tc);
+                    if (b > r2) {
+                        continue;
+                    }
+                    final double half = Math.sqrt((r2 - b) / a);
+                    final double tLo = Math.max(0.0, tc - half);
+                    final double tHi = Math.min(1.0, tc + half);
+                    if (tLo > tHi) {
+                        continue;
+                    }
+                    if (ballMill) {
+                        // Lowest point of z(t) + r - sqrt(r2 - d(t)^2), which is convex in t
+                        final double sa = Math.sqrt(a);
+                        final double k = dz / sa;
+                        final double u = -k * Math.sqrt(r2 - b) / Math.sqrt(1.0 + k * k);
+                        final double t = Math.max(tLo, Math.min(tHi, tc + u / sa));
+                        final double d2 = a * (t - tc) * (t - tc) + b;
+                        bottom = z0 + dz * t + r - Math.sqrt(Math.max(0.0, r2 - d2));
+                    } else {
+                        bottom = Math.min(z0 + dz * tLo, z0 + dz * tHi);
+                    }
+                }
+
+                final float cut = (float) Math.max(bottom, floor);
+                final float current = stock.get(ix, iy);
+                if (cut < current) {
+                    if (tile == null) {
+                        tile = stock.tile(tx, ty);
+                    }
+                    tile.put((iy % HeightField.TILE) * HeightField.TILE + ix % HeightField.TILE, cut);
+                    removed += current - cut;
+                }
+            }
+        }
+        return removed * stock.getCell() * stock.getCell();
+    }
+
+    private synchronized void addRemoved(final double[] removed) {
+        for (int s = 0; s < segmentCount; s++) {
+            if (removed[s] > 0.0) {
+                final int blockIdx = segmentBlock[s];
+                if (blockRemoved[blockIdx] == 0.0 && blockRapid[blockIdx]) {
+                    rapidCollisions++;
+                }
+                blockRemoved[blockIdx] += removed[s];
+                removedVolume += removed[s];
+            }
+        }
+    }
+
+    /**
+     * @return Total volume removed
+     */
+    public double getRemovedVolume() {
+        return removedVolume;
+    }
+
+    /**
+     * @return Volume of the stock that is left
+     */
+    public double getRemainingVolume() {
+        flush();
+        return stock.volumeAbove(floor);
+    }
+
+    /**
+     * @return Number of rapid moves that removed material
+     */
+    public int getRapidCollisions() {
+        return rapidCollisions;
+    }
+
+    public int getGougeCells() {
+        return gougeCells;
+    }
+
+    public double getGougeDepth() {
+        return gougeDepth;
+    }
+
+    public int getBlockCount() {
+        return blockCount;
+    }
+
+    /**
+     * @return Line number in the program of a block
+     */
+    public int getBlockLine(final int block) {
+        return blockLine[block];
+    }
+
+    public double getBlockRemoved(final int block) {
+        return blockRemoved[block];
+    }
+
+    /**
+     * @return Material removal rate of a block in volume per minute, 0 for rapid moves
+     */
+    public double getBlockRemovalRate(final int block) {
+        return blockTime[block] > 0.0 ? blockRemoved[block] / blockTime[block] : 0.0;
+    }
+
+    public HeightField getStock() {
+        return stock;
+    }
+
+    /**
+     * Applies the batch to a range of tiles, each tile applies the segments in program order
+     */
+    private final class TileTask extends RecursiveAction {
+        private final int[] tiles;
+        private final int from;
+        private final int to;
+
+        private TileTask(final int[] tiles, final int from, final int to) {
+            this.tiles = tiles;
+            this.from = from;
+            this.to = to;
+        }
+
+        @Override
+        protected void compute() {
+            if (to - from > 1) {
+                final int mid = (from + to) >>> 1;
+                invokeAll(new TileTask(tiles, from, mid), new TileTask(tiles, mid, to));
+                return;
+            }
+            final int tx = tiles[from] % stock.getTilesX();
+            final int ty = tiles[from] / stock.getTilesX();
+            final double[] removed = new double[segmentCount];
+            boolean any = false;
+            for (int s = 0; s < segmentCount; s++) {
+                final int[] range = tileRange(s);
+                if (tx >= range[0] && tx <= range[1] && ty >= range[2] && ty <= range[3]) {
+                    removed[s] = sweep(s, tx, ty);
+                    any |= removed[s] > 0.0;
+                }
+            }
+            if (any) {
+                addRemoved(removed);
+            }
+        }
+    }
+}
@@ -0,0 +1,106 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.data;
+
+import com.rvantwisk.cnctools.misc.Factory;
+import com.rvantwisk.cnctools.operations.customgcode.CustomGCodeTask;
+import com.rvantwisk.cnctools.operations.customgcode.GCodeTaskModel;
+import com.rvantwisk.gcodegenerator.GCodeCollection;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ProjectTest {
+
+    private static Project newProject(final int tasks) {
+        final Project project = new Project("test", "parallel generation");
+        project.setPostProcessor(Factory.newPostProcessor());
+        final CustomGCodeTask template = new CustomGCodeTask();
+        for (int i = 0; i < tasks; i++) {
+            final TaskRunnable task = new TaskRunnable("Task " + i, template.getDescription(), template.getClassName(), template.getFxmlFileName());
+            final GCodeTaskModel model = new GCodeTaskModel();
+            // Tasks of very different sizes so they finish out of order
+            final StringBuilder gcode = new StringBuilder();
+            for (int line = 0; line < (i % 3) * 2000 + 1; line++) {
+                gcode.append("G1 X").append(i).append(" Y").append(line).append("\n");
+            }
+            model.setGcode(gcode.toString());
+            task.setMilltaskModel(model);
+            task.setEnabled(i != 5);
+            project.millTasksProperty().add(task);
+        }
+        return project;
+    }
+
+    @Test
+    public void testParallelMatchesSequential() {
+        final Project project = newProject(24);
+
+        final GCodeCollection sequential = project.getGCode(null, null, false);
+        final GCodeCollection parallel = project.getGCode(null, null, true);
+
+        assertEquals(sequential.size(), parallel.size());
+        for (int i = 0; i < sequential.size(); i++) {
+            assertEquals(sequential.get(i).getId(), parallel.get(i).getId());
+            assertEquals(sequential.get(i).getToolId(), parallel.get(i).getToolId());
+            assertEquals(sequential.get(i).toString(), parallel.get(i).toString());
+        }
+        assertEquals(sequential.concate().toString(), parallel.concate().toString());
+    }
+
+    @Test
+    public void testTaskOrder() {
+        final Project project = newProject(24);
+        final String gCode = project.getGCode(null, null, true).concate().toString();
+
+        // Each task's code follows the task before it
+        int last = -1;
+        for (int i = 0; i < 24; i++) {
+            if (i == 5) {
+                continue;
+            }
+            final int at = gCode.indexOf("G1 X" + i + " Y0");
+            assertTrue("Task " + i + " out of order", at > last);
+            last = at;
+        }
+        assertTrue(gCode.indexOf("(disabled)") > gCode.indexOf("G1 X4 Y0"));
+        assertTrue(gCode.indexOf("(disabled)") < gCode.indexOf("G1 X6 Y0"));
+    }
+}
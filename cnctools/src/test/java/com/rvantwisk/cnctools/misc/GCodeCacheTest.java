@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package com.rvantwisk.cnctools.misc;
+
+import com.rvantwisk.gcodegenerator.GCodeCollection;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.File;
+import java.io.FileOutputStream;
+import java.io.IOException;
+import java.nio.file.Files;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertNotNull;
+import static org.junit.Assert.assertNull;
+
+public class GCodeCacheTest {
+    private File directory;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("gcodecache").toFile();
+    }
+
+    @After
+    public void tearDown() {
+        final File[] files = directory.listFiles();
+        if (files != null) {
+            for (File file : files) {
+                file.delete();
+            }
+        }
+        directory.delete();
+    }
+
+    private static GCodeCollection newGCode(final String text) {
+        final GCodeCollection gCode = new GCodeCollection();
+        gCode.add(new GCodeCollection.GeneratedGCode(text, false, "id1", "tool1"));
+        gCode.add(new GCodeCollection.GeneratedGCode("M30\n", true, "id2"));
+        return gCode;
+    }
+
+    @Test
+    public void testHit() throws Exception {
+        final GCodeCache cache = new GCodeCache(directory, 1024 * 1024);
+        cache.put("a", newGCode("G0 X1\n"));
+
+        final GCodeCollection gCode = cache.get("a");
+        assertNotNull(gCode);
+        assertEquals(2, gCode.size());
+        assertEquals("G0 X1\n", gCode.get(0).toString());
+        assertEquals(false, gCode.get(0).isMergeable());
+        assertEquals("id1", gCode.get(0).getId());
+        assertEquals("tool1", gCode.get(0).getToolId());
+        assertEquals("M30\n", gCode.get(1).toString());
+        assertEquals(true, gCode.get(1).isMergeable());
+        assertNull(gCode.get(1).getToolId());
+
+        // Entries survive a restart
+        assertEquals("G0 X1\n", new GCodeCache(directory, 1024 * 1024).get("a").get(0).toString());
+    }
+
+    @Test
+    public void testMiss() throws Exception {
+        final GCodeCache cache = new GCodeCache(directory, 1024 * 1024);
+        assertNull(cache.get("a"));
+        cache.put("a", newGCode("G0 X1\n"));
+        assertNull(cache.get("b"));
+        cache.clear();
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testEviction() throws Exception {
+        final StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < 100; i++) {
+            sb.append("G1 X").append(i).append('\n');
+        }
+        final GCodeCache probe = new GCodeCache(directory, Long.MAX_VALUE);
+        probe.put("size", newGCode(sb.toString()));
+        final long entrySize = new File(directory, "size.gcc").length();
+        probe.clear();
+
+        // Room for two entries, accessing 'a' makes 'b' the least recently used
+        final GCodeCache cache = new GCodeCache(directory, entrySize * 2);
+        cache.put("a", newGCode(sb.toString()));
+        cache.put("b", newGCode(sb.toString()));
+        assertNotNull(cache.get("a"));
+        cache.put("c", newGCode(sb.toString()));
+
+        assertNotNull(cache.get("a"));
+        assertNull(cache.get("b"));
+        assertNotNull(cache.get("c"));
+        assertFalse(new File(directory, "b.gcc").exists());
+    }
+
+    @Test
+    public void testCorruptEntry() throws Exception {
+        final GCodeCache cache = new GCodeCache(directory, 1024 * 1024);
+        cache.put("a", newGCode("G0 X1\n"));
+
+        final File file = new File(directory, "a.gcc");
+        try (FileOutputStream out = new FileOutputStream(file)) {
+            out.write(new byte[]{0, 0, 0, 1, 1, 0});
+        }
+
+        assertNull(cache.get("a"));
+        assertFalse(file.exists());
+        assertNull(cache.get("a"));
+    }
+
+    @Test
+    public void testVersionChange() throws Exception {
+        new GCodeCache(directory, 1024 * 1024).put("a", newGCode("G0 X1\n"));
+        Files.write(new File(directory, "version").toPath(), "0".getBytes("UTF-8"));
+
+        assertNull(new GCodeCache(directory, 1024 * 1024).get("a"));
+        assertFalse(new File(directory, "a.gcc").exists());
+    }
+}
@@ -0,0 +1,143 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.opengl;
+
+import org.junit.Test;
+
+import java.util.HashSet;
+import java.util.Set;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class ArrowSetTest {
+
+    @Test
+    public void testTriangle() {
+        final ArrowSet arrows = new ArrowSet();
+        // Moving along +X, tip at the end and the base behind it
+        arrows.add(10, 0, 0, 5, 0, 0, 0, 0);
+        // Moving along +Y with the A axis at 90 degrees
+        arrows.add(0, 10, 0, 0, 2, 0, 90, 1);
+        arrows.finish();
+
+        final float[] v = new float[9];
+        arrows.triangle(0, v);
+        assertEquals(10, v[0], 1E-6);
+        assertEquals(0, v[1], 1E-6);
+        assertEquals(10 - ArrowSet.LENGTH, v[3], 1E-6);
+        assertEquals(ArrowSet.HALF_WIDTH, Math.abs(v[4]), 1E-6);
+        assertEquals(-v[4], v[7], 1E-6);
+        assertEquals(0, v[5], 1E-6);
+
+        arrows.triangle(1, v);
+        // Y rotates into Z
+        assertEquals(0, v[1], 1E-5);
+        assertEquals(10, v[2], 1E-5);
+        assertEquals(10 - ArrowSet.LENGTH, v[5], 1E-5);
+        assertEquals(ArrowSet.HALF_WIDTH, Math.abs(v[3]), 1E-6);
+
+        final VertexBuilder out = new VertexBuilder(7);
+        arrows.expand(0, 2, out, new float[][]{{1, 0, 0, 1}, {0, 0, 1, 1}});
+        assertEquals(6, out.rows());
+        assertEquals(1, out.get(3), 0);
+        assertEquals(1, out.get(3 * 7 + 5), 0);
+    }
+
+    @Test
+    public void testThinning() {
+        // A dense raster of short moves
+        final ArrowSet arrows = new ArrowSet();
+        for (int line = 0; line < 200; line++) {
+            for (int i = 1; i <= 400; i++) {
+                arrows.add(i * 0.25, line * 0.5, 0, 1, 0, 0, 0, 1);
+            }
+        }
+        arrows.finish();
+        assertEquals(80000, arrows.getCount(ArrowSet.LEVELS));
+
+        int previous = 0;
+        for (int level = 0; level < ArrowSet.LEVELS; level++) {
+            final double cell = ArrowSet.getCellSize(level);
+            final int count = arrows.getCount(level);
+            assertTrue(count >= previous);
+            previous = count;
+
+            // At most one arrow in each cell, and every cell with moves has one
+            final Set<Long> kept = new HashSet<>();
+            for (int i = 0; i < count; i++) {
+                assertTrue(kept.add(cell(arrows, i, cell)));
+            }
+            for (int i = count; i < arrows.size(); i++) {
+                assertTrue(kept.contains(cell(arrows, i, cell)));
+            }
+        }
+        assertTrue(arrows.getCount(ArrowSet.LEVELS - 1) < arrows.size() / 4);
+
+        assertEquals(0, ArrowSet.selectLevel(1E6));
+        assertEquals(ArrowSet.LEVELS, ArrowSet.selectLevel(0.1));
+        assertTrue(ArrowSet.getCellSize(ArrowSet.selectLevel(10.0)) >= 10.0);
+        assertTrue(ArrowSet.getCellSize(ArrowSet.selectLevel(10.0) + 1) < 10.0);
+    }
+
+    @Test
+    public void testRotatedTips() {
+        // The same XYZ at opposite A angles is drawn on opposite sides of the X axis
+        final ArrowSet arrows = new ArrowSet();
+        arrows.add(0, 10, 0, 1, 0, 0, 0, 0);
+        arrows.add(0, 10, 0, 1, 0, 0, 180, 0);
+        arrows.finish();
+
+        assertEquals(2, arrows.getCount(ArrowSet.LEVELS - 1));
+        assertEquals(0, arrows.getCenterY(), 1E-5);
+        assertEquals(0, arrows.getCenterZ(), 1E-5);
+
+        final float[] v = new float[9];
+        for (int i = 0; i < 2; i++) {
+            arrows.triangle(i, v);
+            assertEquals(v[0], arrows.get(i, 0), 0);
+            assertEquals(v[1], arrows.get(i, 1), 0);
+            assertEquals(v[2], arrows.get(i, 2), 0);
+        }
+    }
+
+    private static long cell(final ArrowSet arrows, final int i, final double cell) {
+        return (long) Math.floor(arrows.get(i, 0) / cell) * 1000000L + (long) Math.floor(arrows.get(i, 1) / cell);
+    }
+}
@@ -0,0 +1,201 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.opengl;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class CompactPathTest {
+
+    @Test
+    public void testRoundTrip() {
+        final CompactPath path = new CompactPath(100);
+        final double[][] expected = new double[1000][];
+        for (int v = 0; v < expected.length; v++) {
+            // A spiral far from the origin, as machine coordinates often are
+            final double a = v * 0.05;
+            expected[v] = new double[]{-412.7 + 30.0 * Math.cos(a), 815.3 + 30.0 * Math.sin(a), -v * 0.013};
+            path.add(expected[v][0], expected[v][1], expected[v][2], v % 50 < 10 ? CompactPath.RAPID : CompactPath.FEED);
+            if (v % 7 == 0) {
+                path.markBlockEnd();
+            }
+        }
+        path.finish();
+
+        assertEquals(1000, path.getVertexCount());
+        // The first page holds 100 vertices, every other page 99 new ones
+        assertEquals(11, path.getPageCount());
+        assertEquals(10, path.getPageVertices(10));
+        assertEquals(8L * (1000 + 10), path.getByteSize());
+        assertEquals(8L * 100 * 3, path.getPageOffset(3));
+
+        final double[] out = new double[3];
+        double worst = 0.0;
+        for (int page = 0; page < path.getPageCount(); page++) {
+            for (int i = 0; i < path.getPageVertices(page); i++) {
+                final int v = path.getPageFirst(page) + i;
+                path.decode(page, i, out);
+                for (int axis = 0; axis < 3; axis++) {
+                    final double error = Math.abs(out[axis] - expected[v][axis]);
+                    assertTrue(error <= path.getScale(page, axis) / 2.0 + 1E-9);
+                    worst = Math.max(worst, error);
+                }
+                final int flags = path.getFlags(page, i);
+                assertEquals(v % 50 < 10 ? CompactPath.RAPID : CompactPath.FEED, flags & CompactPath.TYPE_MASK);
+                assertEquals(v % 7 == 0, (flags & CompactPath.BLOCK_END) != 0);
+            }
+        }
+        // Pages of about 15mm keep well below a micron
+        assertTrue(worst < 0.001);
+
+        final ByteBuffer page = path.getPage(1);
+        assertTrue(page.isDirect());
+        assertEquals(100 * CompactPath.VERTEX_BYTES, page.remaining());
+    }
+
+    @Test
+    public void testTiles() {
+        // Raster passes 0.5 apart over 200x200, a page closes when it grows past 50 in X or Y
+        final CompactPath path = new CompactPath(800, 50.0);
+        int count = 0;
+        for (int line = 0; line < 400; line++) {
+            for (int i = 0; i <= 200; i++) {
+                path.add(line % 2 == 0 ? i : 200 - i, line * 0.5, 0.0, CompactPath.FEED);
+                count++;
+            }
+        }
+        path.finish();
+        assertEquals(count, path.getVertexCount());
+
+        long stored = 0;
+        for (int page = 0; page < path.getPageCount(); page++) {
+            assertTrue(path.getPageVertices(page) <= 800);
+            // Pages only grow past a tile while they hold less then an eight of their vertices
+            assertTrue(path.getPageVertices(page) <= 100 + 1 || (path.getHalfSize(page, 0) <= 25.0 && path.getHalfSize(page, 1) <= 25.0));
+            assertEquals(0.0, path.getHalfSize(page, 2), 0.0);
+            assertEquals(stored * CompactPath.VERTEX_BYTES, path.getPageOffset(page));
+            stored += path.getPageVertices(page);
+            if (page > 0) {
+                // Pages continue from the last vertex of the page before
+                final double[] last = new double[3];
+                final double[] first = new double[3];
+                path.decode(page - 1, path.getPageVertices(page - 1) - 1, last);
+                path.decode(page, 0, first);
+                assertEquals(last[0], first[0], 0.01);
+                assertEquals(last[1], first[1], 0.01);
+                assertEquals(path.getPageFirst(page - 1) + path.getPageVertices(page - 1) - 1, path.getPageFirst(page));
+            }
+        }
+        assertEquals(stored * CompactPath.VERTEX_BYTES, path.getByteSize());
+    }
+
+    @Test
+    public void testReadWhileGrowing() throws InterruptedException {
+        final CompactPath path = new CompactPath(1000);
+        final Thread writer = new Thread() {
+            @Override
+            public void run() {
+                for (int v = 0; v < 500000; v++) {
+                    path.add(v % 1000, v / 1000, 0.0, CompactPath.FEED);
+                }
+                path.finish();
+            }
+        };
+        writer.start();
+
+        // Completed pages are readable while the writer continues
+        final double[] out = new double[3];
+        int seen = 0;
+        while (writer.isAlive() || seen < path.getPageCount()) {
+            final int available = path.getPageCount();
+            for (; seen < available; seen++) {
+                final int last = path.getPageVertices(seen) - 1;
+                final int v = path.getPageFirst(seen) + last;
+                path.decode(seen, last, out);
+                assertEquals(v % 1000, out[0], 0.01);
+                assertEquals(v / 1000, out[1], 0.01);
+            }
+        }
+        writer.join();
+        assertEquals(500000, path.getPageFirst(seen - 1) + path.getPageVertices(seen - 1));
+    }
+
+    @Test
+    public void testRuns() {
+        final CompactPath path = new CompactPath(6);
+        final int[] types = {CompactPath.RAPID, CompactPath.RAPID, CompactPath.FEED, CompactPath.FEED, CompactPath.ARC,
+                CompactPath.ARC, CompactPath.ARC, CompactPath.RAPID};
+        for (int v = 0; v < types.length; v++) {
+            path.add(v, 0.0, 0.0, types[v]);
+        }
+        path.finish();
+        assertEquals(2, path.getPageCount());
+
+        // Segments take the type of the vertex they end at, vertex 0 only starts the strip
+        assertEquals(3, path.getRunCount(0));
+        assertEquals(1, path.getRunStart(0, 0));
+        assertEquals(1, path.getRunEnd(0, 0));
+        assertEquals(CompactPath.RAPID, path.getRunType(0, 0));
+        assertEquals(2, path.getRunStart(0, 1));
+        assertEquals(3, path.getRunEnd(0, 1));
+        assertEquals(CompactPath.FEED, path.getRunType(0, 1));
+        assertEquals(4, path.getRunStart(0, 2));
+        assertEquals(5, path.getRunEnd(0, 2));
+
+        // The second page continues from vertex 5
+        assertEquals(5, path.getPageFirst(1));
+        assertEquals(3, path.getPageVertices(1));
+        final double[] out = new double[3];
+        path.decode(1, 0, out);
+        assertEquals(5.0, out[0], 1E-9);
+        assertEquals(2, path.getRunCount(1));
+        assertEquals(CompactPath.ARC, path.getRunType(1, 0));
+        assertEquals(CompactPath.RAPID, path.getRunType(1, 1));
+        assertEquals(2, path.getRunStart(1, 1));
+
+        // A flat path still decodes
+        path.decode(1, 2, out);
+        assertEquals(0.0, out[1], 0.0);
+        assertEquals(7.0, out[0], 1E-9);
+    }
+}
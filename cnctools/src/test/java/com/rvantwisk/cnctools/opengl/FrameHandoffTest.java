@@ -0,0 +1,129 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.opengl;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FrameHandoffTest {
+
+    private static ByteBuffer frame(final int size, final int value) {
+        final ByteBuffer data = ByteBuffer.allocate(size);
+        for (int i = 0; i < size; i++) {
+            data.put((byte) value);
+        }
+        data.flip();
+        return data;
+    }
+
+    @Test
+    public void testNewestFrameWins() {
+        final FrameHandoff handoff = new FrameHandoff();
+        assertFalse(handoff.acquire());
+
+        handoff.publish(2, 3, frame(24, 1), 8);
+        assertTrue(handoff.acquire());
+        assertEquals(2, handoff.getWidth());
+        assertEquals(3, handoff.getHeight());
+        assertEquals(8, handoff.getStride());
+        assertEquals(24, handoff.getPixels().remaining());
+        assertEquals(1, handoff.getPixels().get(23));
+        assertFalse(handoff.acquire());
+
+        // Two frames before the consumer looks, the first is dropped
+        handoff.publish(2, 3, frame(24, 2), 8);
+        handoff.publish(4, 1, frame(16, 3), 16);
+        assertTrue(handoff.acquire());
+        assertEquals(4, handoff.getWidth());
+        assertEquals(3, handoff.getPixels().get(0));
+        assertEquals(3, handoff.getPublishedFrames());
+        assertEquals(1, handoff.getDroppedFrames());
+    }
+
+    @Test
+    public void testConcurrentFrames() throws InterruptedException {
+        final FrameHandoff handoff = new FrameHandoff();
+        final int frames = 20000;
+        final Thread producer = new Thread() {
+            @Override
+            public void run() {
+                final ByteBuffer data = ByteBuffer.allocate(4096);
+                for (int f = 1; f <= frames; f++) {
+                    data.clear();
+                    while (data.hasRemaining()) {
+                        data.put((byte) f);
+                    }
+                    data.flip();
+                    handoff.publish(32, 32, data, 128);
+                }
+            }
+        };
+        producer.start();
+
+        // Frames arrive whole and in order
+        int shown = 0;
+        int last = 0;
+        while (true) {
+            final boolean producing = producer.isAlive();
+            if (!handoff.acquire()) {
+                if (producing) {
+                    continue;
+                }
+                break;
+            }
+            final ByteBuffer pixels = handoff.getPixels();
+            final byte value = pixels.get(0);
+            for (int i = 1; i < pixels.limit(); i++) {
+                assertEquals(value, pixels.get(i));
+            }
+            assertTrue(value != (byte) last);
+            last = value;
+            shown++;
+        }
+        producer.join();
+        assertEquals(frames, handoff.getPublishedFrames());
+        assertTrue(shown > 0);
+        assertEquals(frames, shown + handoff.getDroppedFrames());
+    }
+}
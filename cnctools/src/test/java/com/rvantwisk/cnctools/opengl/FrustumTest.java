@@ -0,0 +1,105 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.opengl;
+
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class FrustumTest {
+
+    // 90 degrees field of view, square, near 1 and far 1000
+    private static final FloatBuffer PERSPECTIVE = FloatBuffer.wrap(new float[]{
+            1, 0, 0, 0, 0, 1, 0, 0, 0, 0, -1001f / 999f, -1, 0, 0, -2000f / 999f, 0});
+
+    @Test
+    public void testPerspective() {
+        // Looking down -Z from 100 above the origin
+        final FloatBuffer modelView = FloatBuffer.wrap(new float[]{1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, 0, 0, -100, 1});
+        final Frustum frustum = new Frustum();
+        frustum.update(modelView, PERSPECTIVE);
+
+        assertTrue(frustum.intersects(0, 0, 0, 1, 1, 1));
+        assertTrue(frustum.intersects(99, 0, 0, 1, 1, 1));
+        assertFalse(frustum.intersects(102, 0, 0, 1, 1, 1));
+        assertFalse(frustum.intersects(0, -102, 0, 1, 1, 1));
+        // Boxes reaching in from the side are kept
+        assertTrue(frustum.intersects(150, 0, 0, 51, 1, 1));
+        // Behind the eye and beyond far
+        assertFalse(frustum.intersects(0, 0, 110, 5, 5, 5));
+        assertFalse(frustum.intersects(0, 0, -1000, 5, 5, 5));
+    }
+
+    @Test
+    public void testCullsPages() {
+        // Zoomed into one corner of a 200x200 raster only a few pages remain
+        final CompactPath path = new CompactPath(800, 50.0);
+        for (int line = 0; line < 400; line++) {
+            for (int i = 0; i <= 200; i++) {
+                path.add(line % 2 == 0 ? i : 200 - i, line * 0.5, 0.0, CompactPath.FEED);
+            }
+        }
+        path.finish();
+
+        final Frustum frustum = new Frustum();
+        frustum.update(FloatBuffer.wrap(new float[]{1, 0, 0, 0, 0, 1, 0, 0, 0, 0, 1, 0, -100, -100, -250, 1}), PERSPECTIVE);
+        int visible = 0;
+        for (int page = 0; page < path.getPageCount(); page++) {
+            if (frustum.intersects(path, page)) {
+                visible++;
+            }
+        }
+        assertEquals(path.getPageCount(), visible);
+
+        // Move the corner at 0,0 in front of the camera and zoom in 10x
+        frustum.update(FloatBuffer.wrap(new float[]{10, 0, 0, 0, 0, 10, 0, 0, 0, 0, 10, 0, 0, 0, -100, 1}), PERSPECTIVE);
+        visible = 0;
+        for (int page = 0; page < path.getPageCount(); page++) {
+            if (frustum.intersects(path, page)) {
+                visible++;
+            }
+        }
+        assertTrue(visible > 0);
+        assertTrue(visible * 8 < path.getPageCount());
+    }
+}
@@ -0,0 +1,99 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.opengl;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class GlyphAtlasTest {
+
+    @Test
+    public void testAtlas() {
+        final GlyphAtlas atlas = new GlyphAtlas();
+        assertEquals(1, Integer.bitCount(atlas.getHeight()));
+        assertTrue(atlas.getLineHeight() > 0);
+
+        // Something was drawn
+        final ByteBuffer pixels = atlas.getPixels();
+        assertEquals(atlas.getWidth() * atlas.getHeight(), pixels.remaining());
+        int lit = 0;
+        while (pixels.hasRemaining()) {
+            if (pixels.get() != 0) {
+                lit++;
+            }
+        }
+        assertTrue(lit > 100);
+    }
+
+    @Test
+    public void testLayout() {
+        final GlyphAtlas atlas = new GlyphAtlas();
+        final FloatBuffer out = FloatBuffer.allocate(GlyphAtlas.FLOATS_PER_QUAD * 16);
+
+        // Spaces take room but have no quad
+        assertEquals(3, atlas.layout("X Y\nZ", 10, 100, 1, 0.5f, 0, 1, out));
+        assertEquals(3 * GlyphAtlas.FLOATS_PER_QUAD, out.position());
+
+        final float xWidth = atlas.getTextWidth("X");
+        final float yStart = atlas.getTextWidth("X ") + 10;
+        // First corner of X at the pen, Y after X and a space, Z on the next line
+        assertEquals(10, out.get(0), 0);
+        assertEquals(10 + xWidth, out.get(GlyphAtlas.FLOATS_PER_VERTEX), 0);
+        assertEquals(yStart, out.get(GlyphAtlas.FLOATS_PER_QUAD), 0);
+        assertEquals(10, out.get(2 * GlyphAtlas.FLOATS_PER_QUAD), 0);
+        assertEquals(out.get(1) - atlas.getLineHeight(), out.get(2 * GlyphAtlas.FLOATS_PER_QUAD + 1), 0);
+        // Quad is a line high, color is carried
+        assertEquals(atlas.getLineHeight(), out.get(2 * GlyphAtlas.FLOATS_PER_VERTEX + 1) - out.get(1), 0);
+        assertEquals(0.5f, out.get(5), 0);
+
+        // Texture coordinates stay within the atlas
+        for (int i = 0; i < out.position(); i += GlyphAtlas.FLOATS_PER_VERTEX) {
+            assertTrue(out.get(i + 2) >= 0 && out.get(i + 2) <= 1);
+            assertTrue(out.get(i + 3) >= 0 && out.get(i + 3) <= 1);
+        }
+
+        // Unknown characters are drawn as a question mark
+        assertEquals(atlas.getTextWidth("?"), atlas.getTextWidth("\u00e9"));
+    }
+}
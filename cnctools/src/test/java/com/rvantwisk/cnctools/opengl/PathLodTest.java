@@ -0,0 +1,164 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.opengl;
+
+import org.junit.Test;
+
+import java.nio.FloatBuffer;
+import java.nio.ShortBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PathLodTest {
+
+    private static CompactPath helix(final int vertices) {
+        final CompactPath path = new CompactPath(4096);
+        for (int v = 0; v < vertices; v++) {
+            // Arcs split in 1 degree steps with a rapid now and then
+            final double a = Math.toRadians(v);
+            path.add(50.0 * Math.cos(a), 50.0 * Math.sin(a), -v * 0.001, v % 1000 < 20 ? CompactPath.RAPID : CompactPath.ARC);
+        }
+        path.finish();
+        return path;
+    }
+
+    @Test
+    public void testErrorBound() {
+        final CompactPath path = helix(10000);
+        final PathLod lod = new PathLod(path);
+        final double[] a = new double[3];
+        final double[] b = new double[3];
+        final double[] p = new double[3];
+
+        for (int page = 0; page < path.getPageCount(); page++) {
+            assertTrue(lod.getLevelCount(page) > 3);
+            for (int level = 1; level < lod.getLevelCount(page); level++) {
+                assertTrue(lod.getError(page, level) > lod.getError(page, level - 1));
+                assertTrue(lod.getIndexCount(page, level) <= 0.75 * lod.getIndexCount(page, level - 1));
+
+                final ShortBuffer indices = lod.getIndices(page, level);
+                assertEquals(lod.getIndexCount(page, level), indices.remaining());
+                assertEquals(0, indices.get(0));
+                assertEquals(path.getPageVertices(page) - 1, indices.get(indices.limit() - 1) & 0xFFFF);
+
+                // Every removed vertex is close to the segment that replaces it and shares it's type
+                for (int k = 1; k < indices.limit(); k++) {
+                    final int from = indices.get(k - 1) & 0xFFFF;
+                    final int to = indices.get(k) & 0xFFFF;
+                    path.decode(page, from, a);
+                    path.decode(page, to, b);
+                    for (int i = from + 1; i < to; i++) {
+                        path.decode(page, i, p);
+                        assertTrue(distance(p, a, b) <= lod.getError(page, level) + 1E-9);
+                        assertEquals(path.getFlags(page, to) & CompactPath.TYPE_MASK, path.getFlags(page, i) & CompactPath.TYPE_MASK);
+                    }
+                }
+
+                // Runs cover the level and change color with the path
+                int covered = 1;
+                for (int run = 0; run < lod.getRunCount(page, level); run++) {
+                    assertEquals(covered, lod.getRunStart(page, level, run));
+                    final int end = indices.get(lod.getRunEnd(page, level, run)) & 0xFFFF;
+                    assertEquals(lod.getRunType(page, level, run), path.getFlags(page, end) & CompactPath.TYPE_MASK);
+                    covered = lod.getRunEnd(page, level, run) + 1;
+                }
+                assertEquals(indices.limit(), covered);
+            }
+        }
+    }
+
+    @Test
+    public void testSelectLevel() {
+        final CompactPath path = helix(3000);
+        final PathLod lod = new PathLod(path);
+
+        // Zoomed out far everything but the coarsest level is invisible
+        assertEquals(lod.getLevelCount(0) - 1, lod.selectLevel(0, 1E-6, 0.5));
+        assertEquals(0, lod.selectLevel(0, 1E9, 0.5));
+        int previous = Integer.MAX_VALUE;
+        for (double ppu = 0.01; ppu < 1E5; ppu *= 2.0) {
+            final int level = lod.selectLevel(0, ppu, 0.5);
+            assertTrue(level <= previous);
+            assertTrue(lod.getError(0, level) * ppu <= 0.5);
+            previous = level;
+        }
+
+        // 90 degrees field of view, 1000 pixels high, model scaled 2x and moved 100 units away
+        final FloatBuffer modelView = FloatBuffer.wrap(new float[]{2, 0, 0, 0, 0, 2, 0, 0, 0, 0, 2, 0, 0, 0, -100, 1});
+        final FloatBuffer perspective = FloatBuffer.wrap(new float[]{1, 0, 0, 0, 0, 1, 0, 0, 0, 0, -1, -1, 0, 0, -0.02f, 0});
+        assertEquals(10.0, PathLod.pixelsPerUnit(modelView, perspective, 1000, 0, 0, 0, 0), 1E-6);
+        assertEquals(20.0, PathLod.pixelsPerUnit(modelView, perspective, 1000, 0, 0, 0, 25), 1E-6);
+        assertEquals(Double.MAX_VALUE, PathLod.pixelsPerUnit(modelView, perspective, 1000, 0, 0, 0, 60), 0.0);
+        final FloatBuffer ortho = FloatBuffer.wrap(new float[]{0.01f, 0, 0, 0, 0, 0.01f, 0, 0, 0, 0, -0.01f, 0, 0, 0, 0, 1});
+        assertEquals(10.0, PathLod.pixelsPerUnit(modelView, ortho, 1000, 0, 0, 0, 25), 1E-4);
+    }
+
+    @Test
+    public void testLargePath() {
+        // 2M vertices of 1 degree arcs
+        final CompactPath path = new CompactPath();
+        for (int v = 0; v < 2000000; v++) {
+            final double a = Math.toRadians(v);
+            path.add(50.0 * Math.cos(a) + (v / 360) * 0.01, 50.0 * Math.sin(a), -(v / 36000) * 0.5, CompactPath.FEED);
+        }
+        path.finish();
+        final PathLod lod = new PathLod(path);
+
+        long coarse = 0;
+        for (int page = 0; page < path.getPageCount(); page++) {
+            coarse += lod.getIndexCount(page, lod.getLevelCount(page) - 1);
+        }
+        assertTrue(coarse < path.getVertexCount() / 50);
+        assertTrue(lod.getIndexByteSize() < path.getVertexCount() * 2L);
+    }
+
+    private static double distance(final double[] p, final double[] a, final double[] b) {
+        final double dx = b[0] - a[0], dy = b[1] - a[1], dz = b[2] - a[2];
+        double px = p[0] - a[0], py = p[1] - a[1], pz = p[2] - a[2];
+        final double l2 = dx * dx + dy * dy + dz * dz;
+        if (l2 > 0.0) {
+            final double t = Math.max(0.0, Math.min(1.0, (px * dx + py * dy + pz * dz) / l2));
+            px -= t * dx;
+            py -= t * dy;
+            pz -= t * dz;
+        }
+        return Math.sqrt(px * px + py * py + pz * pz);
+    }
+}
@@ -0,0 +1,111 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.opengl;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+
+public class PathTimelineTest {
+
+    @Test
+    public void testBlocks() {
+        final PathTimeline timeline = new PathTimeline();
+        // Line 1 is a comment, lines 2 to 4 move 10 along X each taking a second, line 5 is empty
+        timeline.addBlock(2, 2, 10, 0, 0, 10, 1);
+        timeline.addBlock(3, 4, 20, 0, 0, 10, 1);
+        timeline.addBlock(4, 7, 30, 0, 0, 10, 1);
+        assertEquals(3, timeline.size());
+        assertEquals(3.0, timeline.getTotalTime(), 1E-6);
+        assertEquals(20.0, timeline.getDistance(1), 1E-6);
+        assertEquals(4, timeline.getVertexEnd(1));
+
+        assertEquals(0, timeline.getBlocksUpToLine(0));
+        assertEquals(0, timeline.getBlocksUpToLine(1));
+        assertEquals(1, timeline.getBlocksUpToLine(2));
+        assertEquals(3, timeline.getBlocksUpToLine(4));
+        assertEquals(3, timeline.getBlocksUpToLine(5));
+
+        assertEquals(0, timeline.getBlockAtTime(0.5));
+        assertEquals(1, timeline.getBlockAtTime(1.5));
+        assertEquals(2, timeline.getBlockAtTime(3.0));
+        assertEquals(3, timeline.getBlockAtTime(3.5));
+
+        final float[] p = new float[3];
+        timeline.getPosition(1.5, p);
+        assertEquals(15.0, p[0], 1E-5);
+        timeline.getPosition(10.0, p);
+        assertEquals(30.0, p[0], 1E-5);
+    }
+
+    @Test
+    public void testManyBlocks() {
+        // Several blocks on one line and lines far apart
+        final PathTimeline timeline = new PathTimeline();
+        for (int i = 0; i < 100000; i++) {
+            timeline.addBlock(i / 2 * 3, i + 1, i, 0, 0, 1, 0.5);
+        }
+        assertEquals(50000.0, timeline.getTotalTime(), 1E-3);
+        assertEquals(2, timeline.getBlocksUpToLine(0));
+        assertEquals(2, timeline.getBlocksUpToLine(2));
+        assertEquals(4, timeline.getBlocksUpToLine(3));
+        assertEquals(100000, timeline.getBlocksUpToLine(1000000));
+        assertEquals(4000, timeline.getBlockAtTime(2000.25));
+        assertEquals(4001, timeline.getVertexEnd(timeline.getBlockAtTime(2000.25)));
+    }
+
+    @Test
+    public void testBlockTime() {
+        // G94, 10 units at 600 units per minute
+        assertEquals(1.0, PathTimeline.blockTime(10, 600, false, false, 5000), 1E-9);
+        // Rapids and moves without a feed rate use the rapid feed
+        assertEquals(0.12, PathTimeline.blockTime(10, 600, false, true, 5000), 1E-9);
+        assertEquals(0.12, PathTimeline.blockTime(10, 0, false, false, 5000), 1E-9);
+        // G93, F2 means the block takes half a minute whatever it's length, also when only a rotary axis moves
+        assertEquals(30.0, PathTimeline.blockTime(10, 2, true, false, 5000), 1E-9);
+        assertEquals(30.0, PathTimeline.blockTime(0, 2, true, false, 5000), 1E-9);
+        assertEquals(0.12, PathTimeline.blockTime(10, 2, true, true, 5000), 1E-9);
+
+        final PathTimeline timeline = new PathTimeline();
+        timeline.addBlock(1, 2, 10, 0, 0, 10, PathTimeline.blockTime(10, 600, false, false, 5000));
+        timeline.addBlock(2, 4, 20, 0, 0, 10, PathTimeline.blockTime(10, 4, true, false, 5000));
+        assertEquals(16.0, timeline.getTotalTime(), 1E-6);
+        assertEquals(1, timeline.getBlockAtTime(10.0));
+    }
+}
@@ -0,0 +1,96 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.opengl;
+
+import org.junit.Test;
+
+import java.nio.ByteBuffer;
+import java.nio.FloatBuffer;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class VertexBuilderTest {
+
+    @Test
+    public void testPages() {
+        final VertexBuilder builder = new VertexBuilder(7, 4);
+        for (int v = 0; v < 10; v++) {
+            builder.add(v, v + 0.25f, v + 0.5f);
+            builder.add(1.0f, 0.5f, 0.25f, 0.5f);
+        }
+
+        assertEquals(70, builder.size());
+        assertEquals(10, builder.rows());
+        assertEquals(3, builder.getPageCount());
+        assertEquals(70 * 4, builder.getByteSize());
+        assertEquals(28, builder.getPageSize(0));
+        assertEquals(14, builder.getPageSize(2));
+        assertEquals(2 * 28 * 4, builder.getPageOffset(2));
+
+        // Pages hold whole vertices and are ready to be uploaded
+        final ByteBuffer page = builder.getPage(2);
+        assertTrue(page.isDirect());
+        assertEquals(0, page.position());
+        assertEquals(14 * 4, page.remaining());
+        final FloatBuffer floats = page.asFloatBuffer();
+        assertEquals(8.0f, floats.get(0), 0.0f);
+        assertEquals(9.5f, floats.get(9), 0.0f);
+        assertEquals(0.5f, floats.get(13), 0.0f);
+
+        assertEquals(5.25f, builder.get(5 * 7 + 1), 0.0f);
+        assertEquals(0.25f, builder.get(69 - 1), 0.0f);
+    }
+
+    @Test
+    public void testClear() {
+        final VertexBuilder builder = new VertexBuilder(3, 2);
+        builder.add(1.0f, 2.0f, 3.0f);
+        builder.add(4.0f, 5.0f, 6.0f);
+        builder.add(7.0f);
+        assertEquals(2, builder.rows());
+        assertEquals(2, builder.getPageCount());
+
+        builder.clear();
+        assertTrue(builder.isEmpty());
+        assertEquals(0, builder.getPageCount());
+        builder.add(5.0f, 6.0f, 7.0f);
+        assertEquals(5.0f, builder.get(0), 0.0f);
+    }
+}
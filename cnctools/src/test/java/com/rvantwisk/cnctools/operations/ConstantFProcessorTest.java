@@ -0,0 +1,85 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.operations;
+
+import org.junit.Test;
+
+import java.io.StringReader;
+import java.io.StringWriter;
+
+import static org.junit.Assert.assertEquals;
+
+public class ConstantFProcessorTest {
+    private static final String LE = System.lineSeparator();
+
+    private static final String PROGRAM = "G94 G1 F600 X0 Z10 A0" + LE +
+            "X10" + LE +
+            "A90 (quarter turn)" + LE +
+            "X20" + LE +
+            "G0 Z20";
+
+    private String[] process(final ConstantFProcessor.Mode mode) throws Exception {
+        final StringWriter out = new StringWriter();
+        ConstantFProcessor.process(new StringReader(PROGRAM), out, mode);
+        return out.toString().split(LE);
+    }
+
+    @Test
+    public void testInverseTime() throws Exception {
+        final String[] lines = process(ConstantFProcessor.Mode.INVERSE_TIME);
+        assertEquals(5, lines.length);
+        assertEquals("G94 G1 F600 X0 Z10 A0", lines[0]);
+        assertEquals("X10", lines[1]);
+
+        // Quarter turn over a radius of 10 is 15.708 long, at 600 that takes 0.02618 minutes
+        assertEquals("G93 A90 F38.1972 (quarter turn)", lines[2]);
+        assertEquals("G94 X20 F600", lines[3]);
+        assertEquals("G0 Z20", lines[4]);
+    }
+
+    @Test
+    public void testAdjustedFeed() throws Exception {
+        final String[] lines = process(ConstantFProcessor.Mode.ADJUSTED_FEED);
+
+        // Controller moves 90 degrees in the time the surface moves 15.708mm
+        assertEquals("A90 F3437.7468 (quarter turn)", lines[2]);
+        assertEquals("X20 F600", lines[3]);
+        assertEquals("G0 Z20", lines[4]);
+    }
+}
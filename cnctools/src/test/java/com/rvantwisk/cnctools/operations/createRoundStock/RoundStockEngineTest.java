@@ -0,0 +1,161 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.operations.createRoundStock;
+
+import org.junit.Test;
+
+import java.util.ArrayList;
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class RoundStockEngineTest {
+
+    private RoundStockEngine engine(final double width, final double height) {
+        final RoundStockEngine engine = new RoundStockEngine();
+        engine.setStockWidth(width);
+        engine.setStockHeight(height);
+        engine.setFinalSize(15.0);
+        engine.setStockLength(100.0);
+        engine.setRadialDepth(1.5);
+        engine.setAxialDepth(2.0);
+        engine.setMillSize(6.0);
+        return engine;
+    }
+
+    @Test
+    public void testCutCount() {
+        assertEquals(1, RoundStockEngine.cutCount(1.0, 2.0, 1.0));
+        assertEquals(1, RoundStockEngine.cutCount(2.0, 2.0, 1.0));
+        assertEquals(3, RoundStockEngine.cutCount(10.0, 8.0, 1.0));
+        assertEquals(3, RoundStockEngine.cutCount(10.0, 7.5, 1.0));
+    }
+
+    @Test
+    public void testSquare() {
+        final RoundStockPath path = engine(20.0, 20.0).calculate();
+
+        // All four corners are cut the same number of times at every depth and A ends at 0
+        int corners = 0;
+        for (int i = 0; i < path.size(); i++) {
+            if (path.getKind(i) == RoundStockPath.COMMENT && path.getText(i).startsWith("Angle at")) {
+                corners++;
+            }
+        }
+        assertEquals(0, corners % 4);
+        assertTrue(corners > 0);
+        assertEquals(RoundStockPath.RESET_A, path.getKind(path.size() - 2));
+        assertEquals("Done", path.getText(path.size() - 1));
+    }
+
+    @Test
+    public void testRectangle() {
+        final RoundStockPath path = engine(20.0, 26.0).calculate();
+
+        // Corner radius is hypot(20, 26) = 32.80, the first depth is one axial depth below it. Four corners are cut while
+        // the circle reaches both pairs of faces, below 26 only two merged sides are left and below 20 the final rounds start.
+        final double corner = Math.hypot(20.0, 26.0);
+        final String[] expectedAngles = {
+                "Angle at 0.0", "Angle at 180.0", "Angle at 270.0", "Angle at 90.0",
+                "Angle at 0.0", "Angle at 180.0", "Angle at 270.0", "Angle at 90.0",
+                "Angle at 0.0", "Angle at 180.0", "Angle at 270.0", "Angle at 90.0",
+                "Angle at -45.0", "Angle at 135.0",
+                "Angle at -45.0", "Angle at 135.0",
+                "Angle at -45.0", "Angle at 135.0"};
+        final double[] expectedDepths = {
+                corner - 2.0, corner - 2.0, corner - 2.0, corner - 2.0,
+                corner - 4.0, corner - 4.0, corner - 4.0, corner - 4.0,
+                corner - 6.0, corner - 6.0, corner - 6.0, corner - 6.0,
+                corner - 8.0, corner - 8.0,
+                corner - 10.0, corner - 10.0,
+                corner - 12.0, corner - 12.0};
+        final int[] expectedCuts = {5, 5, 5, 5, 9, 9, 9, 9, 13, 13, 13, 13, 34, 34, 35, 35, 38, 38};
+
+        final List<String> angles = new ArrayList<>();
+        final List<Double> depths = new ArrayList<>();
+        final List<Integer> cuts = new ArrayList<>();
+        for (int i = 0; i < path.size(); i++) {
+            if (path.getKind(i) == RoundStockPath.COMMENT && path.getText(i).startsWith("Angle at")) {
+                angles.add(path.getText(i));
+                depths.add(Double.NaN);
+                cuts.add(0);
+            } else if (path.getKind(i) == RoundStockPath.COMMENT && path.getText(i).equals("Remove stock")) {
+                cuts.set(cuts.size() - 1, cuts.get(cuts.size() - 1) + 1);
+            } else if (path.getKind(i) == RoundStockPath.FEED && !Double.isNaN(path.getZ(i)) && !depths.isEmpty() && Double.isNaN(depths.get(depths.size() - 1))) {
+                depths.set(depths.size() - 1, path.getZ(i));
+            }
+        }
+
+        assertEquals(expectedAngles.length, angles.size());
+        for (int i = 0; i < expectedAngles.length; i++) {
+            assertEquals(expectedAngles[i], angles.get(i));
+            assertEquals(expectedDepths[i], depths.get(i), 1e-9);
+            assertEquals(expectedCuts[i], (int) cuts.get(i));
+            // The tool never cuts deeper then the face it's cutting from
+            assertTrue(depths.get(i) < corner);
+        }
+    }
+
+    @Test
+    public void testMultipleStocks() {
+        final RoundStockEngine engine = engine(20.0, 20.0);
+        engine.setStockCount(3);
+        engine.setStockSpacing(10.0);
+        final RoundStockPath path = engine.calculate();
+
+        double maxX = 0.0;
+        for (int i = 0; i < path.size(); i++) {
+            if (!Double.isNaN(path.getX(i))) {
+                maxX = Math.max(maxX, path.getX(i));
+            }
+        }
+        assertEquals(2 * 110.0 + 100.0, maxX, 1e-9);
+    }
+
+    @Test
+    public void testLongStock() {
+        final RoundStockEngine engine = engine(50.0, 50.0);
+        engine.setStockLength(2000.0);
+        engine.setRadialDepth(0.05);
+        engine.setAxialDepth(0.1);
+        final RoundStockPath path = engine.calculate();
+        assertTrue(path.size() > 100000);
+    }
+}
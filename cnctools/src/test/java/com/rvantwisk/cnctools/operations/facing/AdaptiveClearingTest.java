@@ -0,0 +1,109 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.operations.facing;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class AdaptiveClearingTest {
+
+    @Test
+    public void testSquare() {
+        final AdaptiveClearing clearing = new AdaptiveClearing(3.0, 1.5, true);
+        final LayerPath path = clearing.calculate(new double[]{0, 0, 40, 0, 40, 40, 0, 40});
+
+        assertEquals(60.0, clearing.getMaxEngagement(), 0.0001);
+        assertEquals(0, clearing.getRemaining());
+        assertEquals(1, clearing.getEntries());
+        assertTrue(path.size() > 100);
+        for (int i = 0; i < path.size(); i++) {
+            assertTrue(path.getX(i) >= -0.5 && path.getX(i) <= 40.5);
+            assertTrue(path.getY(i) >= -0.5 && path.getY(i) <= 40.5);
+        }
+    }
+
+    @Test
+    public void testSeparateAreas() {
+        // U shape, the tool center can't go from one leg to the other without leaving the area
+        final AdaptiveClearing clearing = new AdaptiveClearing(1.0, 0.5, false);
+        final LayerPath path = clearing.calculate(new double[]{0, 0, 30, 0, 30, 30, 20, 30, 20, 2, 10, 2, 10, 30, 0, 30});
+
+        assertEquals(0, clearing.getRemaining());
+        int rapids = 0;
+        for (int i = 0; i < path.size(); i++) {
+            if (path.isRapid(i)) {
+                rapids++;
+            }
+        }
+        assertTrue(rapids < 20);
+    }
+
+    @Test
+    public void testNarrowSlot() {
+        // The tool can only move along the slot, no step may exceed the engagement limit so the tool enters again instead
+        final AdaptiveClearing clearing = new AdaptiveClearing(3.0, 0.5, true);
+        clearing.calculate(new double[]{0, 0, 40, 0, 40, 1, 0, 1});
+
+        assertEquals(0, clearing.getRemaining());
+        assertTrue(clearing.getEntries() >= 1);
+    }
+
+    @Test
+    public void testHelicalEntry() {
+        final AdaptiveClearing clearing = new AdaptiveClearing(3.0, 1.5, true);
+        final LayerPath path = clearing.calculate(new double[]{0, 0, 40, 0, 40, 40, 0, 40});
+
+        // Ramp from the center out to the helix and down two turns, then one turn at depth
+        int ramp = 0;
+        while (path.isRamp(ramp)) {
+            ramp++;
+        }
+        assertEquals(1 + 2 * 16 + 1, ramp);
+        for (int i = ramp; i < ramp + 16; i++) {
+            assertTrue(!path.isRamp(i) && !path.isRapid(i));
+        }
+        final double cx = path.getX(0);
+        final double cy = path.getY(0);
+        for (int i = 1; i < ramp + 16; i++) {
+            assertEquals(1.5, Math.hypot(path.getX(i) - cx, path.getY(i) - cy), 1e-9);
+        }
+    }
+}
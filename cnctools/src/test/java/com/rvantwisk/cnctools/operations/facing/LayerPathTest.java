@@ -0,0 +1,122 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package com.rvantwisk.cnctools.operations.facing;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LayerPathTest {
+
+    @Test
+    public void testAdd() {
+        final LayerPath path = new LayerPath();
+        assertTrue(path.isEmpty());
+
+        path.add(1.0, 2.0, true);
+        path.add(3.0, 4.0, false);
+        path.addHop(5.0, 6.0);
+
+        assertFalse(path.isEmpty());
+        assertEquals(3, path.size());
+        assertEquals(1.0, path.getX(0), 0.0);
+        assertEquals(2.0, path.getY(0), 0.0);
+        assertEquals(3.0, path.getX(1), 0.0);
+        assertEquals(4.0, path.getY(1), 0.0);
+        assertEquals(5.0, path.getX(2), 0.0);
+        assertEquals(6.0, path.getY(2), 0.0);
+    }
+
+    @Test
+    public void testRapidFlags() {
+        final LayerPath path = new LayerPath();
+        path.add(0.0, 0.0, true);
+        path.add(1.0, 0.0, false);
+        path.addHop(2.0, 0.0);
+        path.addRamp(3.0, 0.0);
+
+        assertTrue(path.isRapid(0));
+        assertFalse(path.isHop(0));
+        assertFalse(path.isRapid(1));
+        assertFalse(path.isHop(1));
+        assertTrue(path.isRapid(2));
+        assertTrue(path.isHop(2));
+        assertFalse(path.isRamp(2));
+        assertFalse(path.isRapid(3));
+        assertTrue(path.isRamp(3));
+
+        // Flags move with their points when reversed
+        path.reverse();
+        assertTrue(path.isRamp(0));
+        assertEquals(2.0, path.getX(1), 0.0);
+        assertTrue(path.isHop(1));
+        assertFalse(path.isRapid(2));
+        assertTrue(path.isRapid(3));
+        assertFalse(path.isHop(3));
+    }
+
+    @Test
+    public void testGrowth() {
+        final LayerPath path = new LayerPath();
+        for (int i = 0; i < 1000; i++) {
+            if (i % 100 == 0) {
+                path.newChain();
+            }
+            path.add(i, -i, i % 2 == 0);
+        }
+
+        assertEquals(1000, path.size());
+        for (int i = 0; i < 1000; i++) {
+            assertEquals(i, path.getX(i), 0.0);
+            assertEquals(-i, path.getY(i), 0.0);
+            assertEquals(i % 2 == 0, path.isRapid(i));
+            assertFalse(path.isHop(i));
+        }
+
+        // The first newChain on a empty path does not create a empty chain
+        assertEquals(10, path.getChainCount());
+        for (int c = 0; c < 10; c++) {
+            assertEquals(c * 100, path.getChainStart(c));
+            assertEquals(c * 100 + 100, path.getChainEnd(c));
+        }
+    }
+}
@@ -0,0 +1,188 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.operations.facing;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class LinkOptimizerTest {
+
+    /**
+     * Passes along X from x0 to x1 at each y, linked with rapids like a linear path
+     */
+    private static void addPasses(final LayerPath path, final double x0, final double x1, final double... ys) {
+        for (int i = 0; i < ys.length; i++) {
+            if (i > 0) {
+                path.add(x1, ys[i - 1], true);
+                path.add(x0, ys[i], true);
+            }
+            path.add(x0, ys[i], false);
+            path.add(x1, ys[i], false);
+        }
+    }
+
+    private static LinkOptimizer optimizer() {
+        return new LinkOptimizer(5.0, 4.0, 600.0, 2500.0, 3.0);
+    }
+
+    @Test
+    public void testLinearHops() {
+        final LayerPath pocket = new LayerPath();
+        addPasses(pocket, 0.0, 100.0, 0.0, 4.0, 8.0);
+
+        final LinkOptimizer optimizer = optimizer();
+        final LayerPath path = optimizer.link(pocket, false, null);
+
+        // The step over goes into material so the tool can't stay down, but it can hop over the milled area
+        assertEquals(2, optimizer.getHopLinks());
+        assertEquals(0, optimizer.getSafeLinks());
+        assertEquals(0, optimizer.getFeedLinks());
+        assertEquals(10, path.size());
+        assertTrue(path.isHop(2) && path.isHop(3));
+        assertFalse(path.isRapid(4));
+        assertTrue(optimizer.isLayerHop());
+    }
+
+    @Test
+    public void testStayDown() {
+        final LayerPath pocket = new LayerPath();
+        pocket.add(0.0, 0.0, false);
+        pocket.add(100.0, 0.0, false);
+        pocket.add(100.0, 0.0, true);
+        pocket.add(97.0, 0.0, true);
+        pocket.add(97.0, 0.0, false);
+        pocket.add(97.0, 30.0, false);
+        pocket.add(97.0, 30.0, true);
+        pocket.add(0.0, 30.0, true);
+        pocket.add(0.0, 30.0, false);
+        pocket.add(97.0, 30.0, false);
+
+        // A short link back along the milled pass stays down, over a longer distance a hop is faster
+        final LinkOptimizer optimizer = optimizer();
+        final LayerPath path = optimizer.link(pocket, false, null);
+        assertEquals(1, optimizer.getFeedLinks());
+        assertEquals(1, optimizer.getHopLinks());
+        assertEquals(8, path.size());
+        for (int i = 0; i < 4; i++) {
+            assertFalse(path.isRapid(i));
+        }
+        assertTrue(path.isHop(4));
+    }
+
+    @Test
+    public void testSafeOutsideMilledArea() {
+        // Two passes with stock between them that isn't milled
+        final LayerPath pocket = new LayerPath();
+        pocket.add(0.0, 0.0, false);
+        pocket.add(0.0, 10.0, false);
+        pocket.add(0.0, 10.0, true);
+        pocket.add(50.0, 0.0, true);
+        pocket.add(50.0, 0.0, false);
+        pocket.add(50.0, 10.0, false);
+
+        final LinkOptimizer optimizer = optimizer();
+        final LayerPath path = optimizer.link(pocket, false, null);
+        assertEquals(1, optimizer.getSafeLinks());
+        assertTrue(path.isRapid(2) && !path.isHop(2));
+        assertFalse(optimizer.isLayerHop());
+    }
+
+    @Test
+    public void testReorderChains() {
+        final LayerPath pocket = new LayerPath();
+        pocket.add(0.0, 0.0, false);
+        pocket.add(10.0, 0.0, false);
+        pocket.newChain();
+        pocket.add(200.0, 0.0, false);
+        pocket.add(210.0, 0.0, false);
+        pocket.newChain();
+        pocket.add(50.0, 0.0, false);
+        pocket.add(40.0, 0.0, false);
+
+        // The chain at 40..50 comes second and is milled the other way around
+        final LayerPath path = optimizer().link(pocket, true, null);
+        assertEquals(0.0, path.getX(0), 0.0);
+        assertEquals(10.0, path.getX(1), 0.0);
+        assertEquals(40.0, path.getX(4), 0.0);
+        assertEquals(50.0, path.getX(5), 0.0);
+        assertEquals(200.0, path.getX(8), 0.0);
+        assertEquals(210.0, path.getX(9), 0.0);
+    }
+
+    @Test
+    public void testOverlappingChainsKeepOrder() {
+        final LayerPath pocket = new LayerPath();
+        addPasses(pocket, 0.0, 100.0, 0.0);
+        pocket.newChain();
+        addPasses(pocket, 0.0, 100.0, 4.0);
+        pocket.newChain();
+        addPasses(pocket, 100.0, 0.0, 8.0);
+        pocket.newChain();
+        addPasses(pocket, 300.0, 350.0, 50.0);
+
+        // The chain at 8 starts closest to the end of the first chain but overlaps the chain at 4 which comes first
+        final LayerPath path = optimizer().link(pocket, true, null);
+        assertEquals(0.0, path.getX(4), 0.0);
+        assertEquals(4.0, path.getY(4), 0.0);
+        assertEquals(100.0, path.getX(8), 0.0);
+        assertEquals(8.0, path.getY(8), 0.0);
+        assertEquals(300.0, path.getX(12), 0.0);
+    }
+
+    @Test
+    public void testReverseChains() {
+        final LayerPath path = new LayerPath();
+        path.add(0.0, 0.0, false);
+        path.add(1.0, 0.0, false);
+        path.newChain();
+        path.add(2.0, 0.0, false);
+        path.add(3.0, 0.0, false);
+        path.add(4.0, 0.0, false);
+        path.reverse();
+
+        assertEquals(2, path.getChainCount());
+        assertEquals(0, path.getChainStart(0));
+        assertEquals(3, path.getChainEnd(0));
+        assertEquals(4.0, path.getX(path.getChainStart(0)), 0.0);
+        assertEquals(1.0, path.getX(path.getChainStart(1)), 0.0);
+    }
+}
@@ -0,0 +1,147 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package com.rvantwisk.cnctools.operations.facing;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class OffsetSpiralTest {
+
+    @Test
+    public void testStepOverAtLinks() {
+        // Circle with a radius of 20, milled with a tool with a radius of 3
+        final double[] circle = new double[128];
+        for (int i = 0; i < 64; i++) {
+            circle[i * 2] = Math.cos(Math.PI * 2.0 * i / 64) * 20.0;
+            circle[i * 2 + 1] = Math.sin(Math.PI * 2.0 * i / 64) * 20.0;
+        }
+        final double stepOver = 1.5;
+        final LayerPath path = new OffsetSpiral(stepOver).calculate(circle, true);
+
+        // The spiral ends with a closed revolution on the outer ring
+        for (int i = 0; i < path.size(); i++) {
+            assertTrue(!path.isRapid(i));
+        }
+        final double rx = path.getX(path.size() - 1);
+        final double ry = path.getY(path.size() - 1);
+        assertEquals(19.9, Math.hypot(rx, ry), 0.1);
+
+        // Remove the material under the tool and measure the width of the cut over each mm the edge of the tool moves
+        // around the center, after the innermost ring the width may never be more then the step over
+        final double cell = 0.05;
+        final int size = (int) (52.0 / cell);
+        final boolean[] removed = new boolean[size * size];
+        final double innermost = Math.hypot(path.getX(0), path.getY(0));
+        double length = 0.0;
+        int area = 0;
+        double px = path.getX(0);
+        double py = path.getY(0);
+        boolean measure = false;
+        for (int i = 1; i < path.size(); i++) {
+            final double dx = path.getX(i) - px;
+            final double dy = path.getY(i) - py;
+            final int steps = Math.max(1, (int) Math.ceil(Math.hypot(dx, dy) / 0.1));
+            for (int s = 1; s <= steps; s++) {
+                final double x = px + dx * s / steps;
+                final double y = py + dy * s / steps;
+                final int cut = remove(removed, size, cell, x, y, 3.0);
+                measure |= Math.hypot(x, y) > innermost + 0.01;
+                if (measure) {
+                    area += cut;
+                    final double r = Math.hypot(x, y);
+                    length += Math.hypot(dx, dy) / steps * (r + 3.0) / r;
+                    if (length >= 1.0) {
+                        assertTrue(area * cell * cell / length < stepOver * 1.1);
+                        area = 0;
+                        length = 0.0;
+                    }
+                }
+            }
+            px = path.getX(i);
+            py = path.getY(i);
+        }
+    }
+
+    @Test
+    public void testIslands() {
+        // Two squares joined by a narrow passage, the passage is gone after the first offset
+        final double[] xy = {0, 0, 20, 0, 20, 9, 30, 9, 30, 0, 50, 0, 50, 20, 30, 20, 30, 11, 20, 11, 20, 20, 0, 20};
+        final LayerPath path = new OffsetSpiral(1.5).calculate(xy, false);
+
+        int rapids = 0;
+        for (int i = 0; i < path.size(); i++) {
+            if (path.isRapid(i)) {
+                rapids++;
+            }
+            assertTrue(path.getX(i) >= -0.001 && path.getX(i) <= 50.001);
+            assertTrue(path.getY(i) >= -0.001 && path.getY(i) <= 20.001);
+        }
+        assertEquals(2, rapids);
+    }
+
+    @Test
+    public void testInterpolate() {
+        final double[] us = {0.0, 0.5, 0.5, 1.0};
+        final double[] ws = {0.0, 0.2, 0.6, 1.0};
+        assertEquals(0.1, OffsetSpiral.interpolate(us, ws, 0.25), 0.0001);
+        assertEquals(0.8, OffsetSpiral.interpolate(us, ws, 0.75), 0.0001);
+        assertEquals(1.0, OffsetSpiral.interpolate(us, ws, 1.0), 0.0001);
+    }
+
+    private static int remove(final boolean[] removed, final int size, final double cell, final double x, final double y, final double radius) {
+        final int cx = (int) Math.round((x + 26.0) / cell);
+        final int cy = (int) Math.round((y + 26.0) / cell);
+        final int r = (int) Math.ceil(radius / cell);
+        int count = 0;
+        for (int j = Math.max(0, cy - r); j <= Math.min(size - 1, cy + r); j++) {
+            for (int i = Math.max(0, cx - r); i <= Math.min(size - 1, cx + r); i++) {
+                final double dx = i * cell - 26.0 - x;
+                final double dy = j * cell - 26.0 - y;
+                if (!removed[j * size + i] && dx * dx + dy * dy <= radius * radius) {
+                    removed[j * size + i] = true;
+                    count++;
+                }
+            }
+        }
+        return count;
+    }
+}
@@ -38,13 +38,48 @@
 
 package com.rvantwisk.cnctools.operations.facing;
 
-import math.geom3d.Point3D;
+import org.junit.Test;
 
-/**
- * Created by rvt on 1/5/14.
- */
-public class G0Point3D extends Point3D {
-    public G0Point3D(double x, double y, double z) {
-        super(x,y,z);
+import static org.junit.Assert.assertEquals;
+
+public class ScanlineSweepTest {
+
+    @Test
+    public void testSquare() {
+        final ScanlineSweep sweep = new ScanlineSweep();
+        sweep.addRing(new double[]{0, 10, 10, 0}, new double[]{0, 0, 10, 10}, 4);
+        final double[][] result = sweep.sweep(new double[]{-1, 0, 5, 10});
+
+        assertEquals(0, result[0].length);
+        assertEquals(2, result[1].length);
+        assertEquals(0.0, result[2][0], 0.0001);
+        assertEquals(10.0, result[2][1], 0.0001);
+        assertEquals(0, result[3].length);
+    }
+
+    @Test
+    public void testConcave() {
+        // U shape, open at the top between x=3 and x=7
+        final ScanlineSweep sweep = new ScanlineSweep();
+        sweep.addRing(new double[]{0, 10, 10, 7, 7, 3, 3, 0}, new double[]{0, 0, 10, 10, 2, 2, 10, 10}, 8);
+        final double[][] result = sweep.sweep(new double[]{1, 5, 8});
+
+        assertEquals(2, result[0].length);
+        assertEquals(2, result[1].length);
+        assertEquals(2.0, result[1][1], 0.0001);
+        assertEquals(2, result[2].length);
+    }
+
+    @Test
+    public void testHole() {
+        final ScanlineSweep sweep = new ScanlineSweep();
+        sweep.addRing(new double[]{0, 10, 10, 0}, new double[]{0, 0, 10, 10}, 4);
+        sweep.addRing(new double[]{4, 6, 6, 4}, new double[]{4, 4, 6, 6}, 4);
+        final double[][] result = sweep.sweep(new double[]{2, 5});
+
+        assertEquals(2, result[0].length);
+        assertEquals(4, result[1].length);
+        assertEquals(4.0, result[1][1], 0.0001);
+        assertEquals(6.0, result[1][2], 0.0001);
     }
 }
@@ -0,0 +1,121 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.operations.math;
+
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class GeometryTest {
+
+    @Test
+    public void testOrient2d() {
+        assertTrue(Geometry.orient2d(0, 0, 1, 0, 0.5, 1) > 0.0);
+        assertTrue(Geometry.orient2d(0, 0, 1, 0, 0.5, -1) < 0.0);
+        assertEquals(0.0, Geometry.orient2d(0, 0, 1, 1, 3, 3), 0.0);
+
+        // Nearly collinear, rounding in doubles would give the wrong sign or zero
+        final double x = 0.5 + Math.ulp(0.5);
+        assertTrue(Geometry.orient2d(12.0, 12.0, 24.0, 24.0, x, 0.5) < 0.0);
+        assertEquals(0.0, Geometry.orient2d(0.1, 0.1, 0.3, 0.3, 0.7, 0.7), 0.0);
+    }
+
+    @Test
+    public void testSegments() {
+        final double[] out = new double[2];
+        assertTrue(Geometry.segmentSegment(0, 0, 10, 10, 0, 10, 10, 0, out, 0));
+        assertEquals(5.0, out[0], 1e-12);
+        assertEquals(5.0, out[1], 1e-12);
+
+        // Touching at an end point and collinear overlap
+        assertTrue(Geometry.segmentsIntersect(0, 0, 10, 0, 10, 0, 10, 5));
+        assertTrue(Geometry.segmentsIntersect(0, 0, 10, 0, 5, 0, 15, 0));
+        assertFalse(Geometry.segmentsIntersect(0, 0, 10, 0, 11, 0, 15, 0));
+        assertFalse(Geometry.segmentSegment(0, 0, 10, 0, 0, 1, 10, 1, out, 0));
+    }
+
+    @Test
+    public void testLineLine() {
+        // Lines intersect outside the segments and at a fraction, which used to be truncated to int
+        final double[] out = new double[2];
+        assertTrue(Geometry.lineLine(10.1, 10.0, 10.0, 10.1, 0.0, 0.0, 1.0, 0.0, out, 0));
+        assertEquals(20.1, out[0], 1e-9);
+        assertEquals(0.0, out[1], 1e-9);
+        assertFalse(Geometry.lineLine(0, 0, 1, 1, 0, 1, 1, 2, out, 0));
+    }
+
+    @Test
+    public void testCircleLine() {
+        final double[] out = new double[4];
+        assertEquals(2, Geometry.circleLine(-3, -3, -3, 3, 0, 0, 5, out, 0));
+        assertEquals(-3.0, out[0], 1e-12);
+        assertEquals(-4.0, out[1], 1e-12);
+        assertEquals(-3.0, out[2], 1e-12);
+        assertEquals(4.0, out[3], 1e-12);
+        assertEquals(0, Geometry.circleLine(10, -3, 10, 3, 0, 0, 5, out, 0));
+
+        // Same results as the point based version
+        final java.util.List<Point> points = Intersect.getCircleLine(new Point(0, -2), new Point(1, -2), new Point(1, 1), 5);
+        Geometry.circleLine(0, -2, 1, -2, 1, 1, 5, out, 0);
+        assertEquals(points.get(0).x, out[0], 0.0);
+        assertEquals(points.get(1).x, out[2], 0.0);
+    }
+
+    @Test
+    public void testPointBuffer() {
+        final PointBuffer buffer = new PointBuffer(1);
+        buffer.add(0, 0);
+        buffer.add(2, 0);
+        buffer.add(2, 1);
+        assertEquals(3, buffer.size());
+        assertEquals(2.0, buffer.area2(), 1e-12);
+
+        buffer.rotate(Math.PI / 2.0);
+        assertEquals(0.0, buffer.getX(1), 1e-12);
+        assertEquals(2.0, buffer.getY(1), 1e-12);
+        buffer.translate(1.0, -1.0);
+        assertEquals(1.0, buffer.getX(0), 1e-12);
+
+        buffer.reverse();
+        assertEquals(-2.0, buffer.area2(), 1e-12);
+        assertEquals(6, buffer.toInterleaved().length);
+    }
+}
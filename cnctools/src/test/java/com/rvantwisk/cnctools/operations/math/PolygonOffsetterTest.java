@@ -0,0 +1,90 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.operations.math;
+
+import org.junit.Test;
+
+import java.util.List;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class PolygonOffsetterTest {
+    private final PolygonOffsetter offsetter = new PolygonOffsetter(0.01);
+
+    @Test
+    public void testSquare() {
+        final double[] square = {0, 0, 10, 0, 10, 10, 0, 10};
+        List<double[]> result = offsetter.shrink(square, 2.0);
+        assertEquals(1, result.size());
+        assertEquals(36.0, PolygonOffsetter.area(result.get(0)), 0.001);
+
+        // Clockwise input results in the same counter clockwise polygon
+        result = offsetter.shrink(new double[]{0, 10, 10, 10, 10, 0, 0, 0}, 2.0);
+        assertEquals(1, result.size());
+        assertEquals(36.0, PolygonOffsetter.area(result.get(0)), 0.001);
+
+        assertTrue(offsetter.shrink(square, 6.0).isEmpty());
+    }
+
+    @Test
+    public void testReflexCornerIsRounded() {
+        // L shape, the reflex corner at 5,5 results in a round join
+        final double[] l = {0, 0, 10, 0, 10, 5, 5, 5, 5, 10, 0, 10};
+        final List<double[]> result = offsetter.shrink(l, 1.0);
+        assertEquals(1, result.size());
+        final double[] ring = result.get(0);
+        for (int i = 0; i < ring.length; i += 2) {
+            final double distance = Math.hypot(ring[i] - 5, ring[i + 1] - 5);
+            assertTrue(distance > 1.0 - 0.0002);
+        }
+        assertTrue(ring.length / 2 > 6);
+    }
+
+    @Test
+    public void testSplit() {
+        // U shape, the legs become separate polygons once the base vanishes. Each leg is 0.6 x 7.6 plus
+        // a small lobe below the round join at the inner corner
+        final double[] u = {0, 0, 10, 0, 10, 10, 7, 10, 7, 2, 3, 2, 3, 10, 0, 10};
+        final List<double[]> result = offsetter.shrink(u, 1.2);
+        assertEquals(2, result.size());
+        assertEquals(4.641, PolygonOffsetter.area(result.get(0)), 0.01);
+        assertEquals(4.641, PolygonOffsetter.area(result.get(1)), 0.01);
+    }
+}
@@ -0,0 +1,120 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.simulation;
+
+import com.rvantwisk.gcodeparser.GCodeParser;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+
+public class RotaryStockSimulatorTest {
+    private static final String LE = System.lineSeparator();
+
+    private static RotaryStockSimulator run(final RotaryStockSimulator simulator, final String program) throws Exception {
+        simulator.setTool(6.0);
+        new GCodeParser(null, new StringReader(program), simulator);
+        return simulator;
+    }
+
+    @Test
+    public void testFullTurn() throws Exception {
+        final RotaryStockSimulator simulator = run(new RotaryStockSimulator(720, 0.0, 50.0, 0.1, 10.0), "G0 X25 A0 Z15" + LE +
+                "G1 F100 Z8" + LE +
+                "A360" + LE +
+                "G0 Z15");
+
+        // Ring from a radius of 10 down to 8, as wide as the tool
+        final double expected = Math.PI * (100.0 - 64.0) * 6.0;
+        assertEquals(expected, simulator.getRemovedVolume(), expected * 0.01);
+        assertEquals(8.0, simulator.getRadius(25.0, 180.0), 1e-6);
+        assertEquals(10.0, simulator.getRadius(10.0, 0.0), 1e-6);
+        assertEquals(Math.PI * 100.0 * 50.0 - expected, simulator.getRemainingVolume(), expected * 0.01);
+
+        // The rotation is measured in degrees by the controller, 360 at 100 takes 3.6 minutes
+        final int turn = simulator.getMoveCount() - 2;
+        assertEquals(3, simulator.getMoveLine(turn));
+        assertEquals(2.0, simulator.getMoveDepth(turn), 1e-6);
+        assertEquals(simulator.getMoveRemoved(turn) / 3.6, simulator.getMoveRemovalRate(turn), 1e-6);
+        assertEquals(50.0, simulator.getAdjustedFeed(turn, simulator.getMoveRemovalRate(turn) / 2.0, 1000.0), 1e-6);
+        assertEquals(0.0, simulator.getAdjustedFeed(turn + 1, 100.0, 1000.0), 1e-6);
+    }
+
+    @Test
+    public void testInverseTimeSpiral() throws Exception {
+        final RotaryStockSimulator simulator = run(new RotaryStockSimulator(720, 0.0, 50.0, 0.1, 10.0), "G0 X5 A0 Z15" + LE +
+                "G1 F100 Z9" + LE +
+                "G93 G1 A360 F10" + LE +
+                "X45 A3960 F2" + LE +
+                "A4320 F10" + LE +
+                "G94 G0 Z15");
+
+        // A turn at both ends and 4mm per turn with a 6mm tool cuts everything between X2 and X48
+        final double expected = Math.PI * (100.0 - 81.0) * 46.0;
+        assertEquals(expected, simulator.getRemovedVolume(), expected * 0.01);
+        final double[] profile = simulator.getProfile(25.0);
+        assertEquals(9.0, profile[0], 1e-6);
+        assertEquals(9.0, profile[1], 1e-6);
+
+        final int spiral = simulator.getMoveCount() - 3;
+        assertEquals(simulator.getMoveRemoved(spiral) / 0.5, simulator.getMoveRemovalRate(spiral), 1e-6);
+    }
+
+    @Test
+    public void testRectangularStock() throws Exception {
+        final RotaryStockSimulator simulator = new RotaryStockSimulator(1440, 0.0, 50.0, 0.1, 20.0);
+        simulator.setRectangular(10.0, 10.0);
+        assertEquals(10.0, simulator.getRadius(25.0, 45.0), 0.01);
+        assertEquals(10.0 * Math.sqrt(2.0), simulator.getRadius(25.0, 0.0), 0.05);
+        assertEquals(20.0 * 20.0 * 50.0, simulator.getRemainingVolume(), 20.0 * 20.0 * 50.0 * 0.005);
+
+        run(simulator, "G0 X5 A0 Z20" + LE +
+                "G1 F100 Z10" + LE +
+                "A360" + LE +
+                "X45 A3960" + LE +
+                "A4320");
+
+        // Round between X2 and X48, the ends stay square
+        final double expected = Math.PI * 100.0 * 46.0 + 20.0 * 20.0 * 4.0;
+        assertEquals(expected, simulator.getRemainingVolume(), expected * 0.005);
+        assertEquals(10.0, simulator.getProfile(25.0)[1], 1e-6);
+        assertEquals(10.0 * Math.sqrt(2.0), simulator.getProfile(1.0)[1], 0.05);
+    }
+}
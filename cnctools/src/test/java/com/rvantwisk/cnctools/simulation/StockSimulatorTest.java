@@ -0,0 +1,160 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.cnctools.simulation;
+
+import com.rvantwisk.gcodeparser.GCodeParser;
+import org.junit.Test;
+
+import java.io.StringReader;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertFalse;
+import static org.junit.Assert.assertTrue;
+
+public class StockSimulatorTest {
+    private static final String LE = System.lineSeparator();
+
+    private static StockSimulator run(final HeightField stock, final double diameter, final boolean ball, final String program) throws Exception {
+        final StockSimulator simulator = new StockSimulator(stock, -10.0);
+        simulator.setTool(diameter, ball);
+        new GCodeParser(null, new StringReader(program), simulator);
+        return simulator;
+    }
+
+    @Test
+    public void testFlatSlot() throws Exception {
+        final HeightField stock = new HeightField(0.0, 0.0, 50.0, 20.0, 0.1, 0.0);
+        final StockSimulator simulator = run(stock, 6.0, false, "G0 Z5" + LE +
+                "X10 Y10" + LE +
+                "G1 F100 Z-2" + LE +
+                "X40" + LE +
+                "G0 Z5");
+
+        // 30mm long and 6mm wide with round ends, 2mm deep
+        final double expected = 2.0 * (30.0 * 6.0 + Math.PI * 9.0);
+        assertEquals(expected, simulator.getRemovedVolume(), expected * 0.01);
+        assertEquals(50.0 * 20.0 * 10.0 - simulator.getRemovedVolume(), simulator.getRemainingVolume(), 0.01);
+        assertEquals(0, simulator.getRapidCollisions());
+        assertEquals(-2.0, stock.get(stock.cellX(25.0), stock.cellY(10.0)), 1e-6);
+        assertEquals(0.0, stock.get(stock.cellX(25.0), stock.cellY(14.0)), 1e-6);
+
+        // The slot is cut at 100mm/min in 0.3 minutes
+        final int slot = simulator.getBlockCount() - 2;
+        assertEquals(4, simulator.getBlockLine(slot));
+        assertEquals(simulator.getBlockRemoved(slot) / 0.3, simulator.getBlockRemovalRate(slot), 1e-6);
+    }
+
+    @Test
+    public void testBallPlunge() throws Exception {
+        final HeightField stock = new HeightField(0.0, 0.0, 20.0, 20.0, 0.05, 0.0);
+        final StockSimulator simulator = run(stock, 6.0, true, "G0 X10 Y10 Z5" + LE +
+                "G1 F100 Z-3" + LE +
+                "G0 Z5");
+
+        // Half a sphere
+        final double expected = 2.0 / 3.0 * Math.PI * 27.0;
+        assertEquals(expected, simulator.getRemovedVolume(), expected * 0.01);
+        assertEquals(-3.0, stock.get(stock.cellX(10.0), stock.cellY(10.0)), 1e-3);
+    }
+
+    @Test
+    public void testArc() throws Exception {
+        final HeightField stock = new HeightField(0.0, 0.0, 50.0, 50.0, 0.05, 0.0);
+        final StockSimulator simulator = run(stock, 2.0, false, "G17 G0 X10 Y25 Z5" + LE +
+                "G1 F100 Z-1" + LE +
+                "G2 X40 Y25 I15 J0" + LE +
+                "G0 Z5");
+
+        // Half a ring between a radius of 14 and 16 plus the round ends
+        final double expected = Math.PI / 2.0 * (16.0 * 16.0 - 14.0 * 14.0) + Math.PI;
+        assertEquals(expected, simulator.getRemovedVolume(), expected * 0.01);
+        assertEquals(-1.0, stock.get(stock.cellX(25.0), stock.cellY(40.0)), 1e-6);
+        assertEquals(0.0, stock.get(stock.cellX(25.0), stock.cellY(10.0)), 1e-6);
+    }
+
+    @Test
+    public void testArcOverBatches() throws Exception {
+        // A helix of 100 turns needs more segments then fit in one batch, the batch is applied halfway the arc
+        final HeightField stock = new HeightField(0.0, 0.0, 50.0, 50.0, 0.05, 0.0);
+        final StockSimulator simulator = run(stock, 2.0, false, "G17 G0 X10 Y25 Z5" + LE +
+                "G1 F100 Z0" + LE +
+                "G2 X10 Y25 Z-3 I15 J0 P100" + LE +
+                "G0 Z5" + LE +
+                "X25 Y25" + LE +
+                "Z-1");
+
+        // Only the last rapid into the uncut center hits the stock
+        assertEquals(1, simulator.getRapidCollisions());
+        assertEquals(-3.0, stock.get(stock.cellX(25.0), stock.cellY(40.0)), 0.05);
+        assertTrue(simulator.getBlockRemovalRate(2) > 0.0);
+    }
+
+    @Test
+    public void testGouge() throws Exception {
+        final HeightField stock = new HeightField(0.0, 0.0, 50.0, 20.0, 0.1, 0.0);
+        final StockSimulator simulator = run(stock, 6.0, false, "G0 X10 Y10 Z5" + LE +
+                "G1 F100 Z-2" + LE +
+                "X40" + LE +
+                "G0 Z5");
+
+        final HeightField target = new HeightField(0.0, 0.0, 50.0, 20.0, 0.1, -1.0);
+        simulator.checkGouges(target, 0.01);
+        assertEquals(1.0, simulator.getGougeDepth(), 1e-6);
+        assertTrue(simulator.getGougeCells() > 30 * 6 * 100);
+
+        simulator.checkGouges(stock, 0.01);
+        assertEquals(0, simulator.getGougeCells());
+    }
+
+    @Test
+    public void testLargePart() throws Exception {
+        // 1m square at 0.05mm is 400 million cells, only the tiles under the slot are allocated
+        final HeightField stock = new HeightField(0.0, 0.0, 1000.0, 1000.0, 0.05, 0.0);
+        final StockSimulator simulator = run(stock, 10.0, false, "G0 X5 Y500 Z5" + LE +
+                "G1 F1000 Z-1" + LE +
+                "X995" + LE +
+                "G0 Z5");
+
+        final double expected = 990.0 * 10.0 + Math.PI * 25.0;
+        assertEquals(expected, simulator.getRemovedVolume(), expected * 0.01);
+        assertTrue(stock.isAllocated(0, 500 * 20 / HeightField.TILE));
+        assertFalse(stock.isAllocated(0, 0));
+        assertEquals(1000.0 * 1000.0 * 10.0 - expected, simulator.getRemainingVolume(), expected * 0.01);
+    }
+}
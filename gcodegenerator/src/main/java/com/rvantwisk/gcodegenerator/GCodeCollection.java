@@ -38,36 +38,227 @@
 
 package com.rvantwisk.gcodegenerator;
 
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.charset.Charset;
 import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+import java.util.Map;
 
 /**
  * Created by rvt on 1/23/14.
+ * <p/>
+ * Each GeneratedGCode is a list of immutable segments (rope), merging and concating only relinks the segments.
+ * Characters are only copied when the collection is written to a channel or when concate() is called.
  */
 public class GCodeCollection extends ArrayList<GCodeCollection.GeneratedGCode> {
     private static final String SEPERATOR = System.getProperty("line.separator");
+    private static final int MAX_WRITE_BUFFERS = 1024;          // Maximum number of buffers handed to one gathering write
+    private static final int MAX_WRITE_BYTES = 4 * 1024 * 1024; // Maximum number of encoded bytes kept in memory during a write
 
     /**
      * Build's a string builder object with all GCode concated
+     * This will copy all GCode, use writeTo when the GCode needs to go to a file
      *
      * @return
      */
     public StringBuilder concate() {
         StringBuilder sb = new StringBuilder();
-        for (GeneratedGCode code : this) {
-            sb.append(SEPERATOR).append(code.gCode);
+        for (CharSequence segment : getSegments()) {
+            sb.append(segment);
         }
         return sb;
     }
 
     /**
-     * Create a deep copy of this object
+     * Returns all segments of this collection linked together in order, separators are added between GCode
+     * that doesn't end with a line break
+     *
+     * @return
+     */
+    public List<CharSequence> getSegments() {
+        final List<CharSequence> rope = new ArrayList<>();
+        for (GeneratedGCode code : this) {
+            link(rope, code.segments);
+        }
+        return rope;
+    }
+
+    /**
+     * Returns the segments as they are written to a file, empty lines are removed and white space at the start and
+     * end of the program is trimmed. Segments that need no cleanup are returned as they are, so shared segments
+     * keep their identity.
+     *
+     * @return
+     */
+    public List<CharSequence> getFileSegments() {
+        final List<CharSequence> cleaned = new ArrayList<>();
+        boolean atStart = true;
+        boolean afterSeparator = false;
+        for (CharSequence segment : getSegments()) {
+            StringBuilder sb = null; // Only created once something is dropped from the segment
+            int i = 0;
+            while (i < segment.length()) {
+                final int length;
+                final boolean keep;
+                if (atStart && segment.charAt(i) <= ' ') {
+                    length = 1;
+                    keep = false;
+                } else if (startsWith(segment, i, SEPERATOR)) {
+                    length = SEPERATOR.length();
+                    keep = !afterSeparator;
+                    afterSeparator = true;
+                } else {
+                    length = 1;
+                    keep = true;
+                    afterSeparator = false;
+                    atStart = false;
+                }
+                if (!keep && sb == null) {
+                    sb = new StringBuilder(segment.length());
+                    sb.append(segment, 0, i);
+                } else if (keep && sb != null) {
+                    sb.append(segment, i, i + length);
+                }
+                i += length;
+            }
+            final CharSequence result = sb == null ? segment : sb;
+            if (result.length() > 0) {
+                cleaned.add(result);
+            }
+        }
+
+        // Trim the end
+        while (!cleaned.isEmpty()) {
+            final CharSequence last = cleaned.get(cleaned.size() - 1);
+            int end = last.length();
+            while (end > 0 && last.charAt(end - 1) <= ' ') {
+                end--;
+            }
+            if (end > 0) {
+                if (end < last.length()) {
+                    cleaned.set(cleaned.size() - 1, last.subSequence(0, end));
+                }
+                break;
+            }
+            cleaned.remove(cleaned.size() - 1);
+        }
+        return cleaned;
+    }
+
+    private static boolean startsWith(final CharSequence segment, final int offset, final String prefix) {
+        if (offset + prefix.length() > segment.length()) {
+            return false;
+        }
+        for (int i = 0; i < prefix.length(); i++) {
+            if (segment.charAt(offset + i) != prefix.charAt(i)) {
+                return false;
+            }
+        }
+        return true;
+    }
+
+    /**
+     * Write all GCode to a channel using gathering writes, as returned by getFileSegments. Segments are encoded in
+     * batches so memory stays bounded on large programs
+     *
+     * @param channel Channel to write to
+     * @param charset Charset used to encode the GCode
+     * @return number of bytes written
+     * @throws IOException
+     */
+    public long writeTo(final GatheringByteChannel channel, final Charset charset) throws IOException {
+        return writeTo(channel, charset, Collections.<CharSequence, ByteBuffer>emptyMap());
+    }
+
+    /**
+     * Write all GCode to a channel using gathering writes, as returned by getFileSegments. Segments found in encoded
+     * are not encoded again.
+     * This allows segments that are written to many files, like a preamble, to be encoded once and shared.
+     *
+     * @param channel Channel to write to
+     * @param charset Charset used to encode the GCode
+     * @param encoded Already encoded segments, usually a IdentityHashMap. The buffers are never modified.
+     * @return number of bytes written
+     * @throws IOException
+     */
+    public long writeTo(final GatheringByteChannel channel, final Charset charset, final Map<CharSequence, ByteBuffer> encoded) throws IOException {
+        final ByteBuffer separator = charset.encode(SEPERATOR);
+        final List<ByteBuffer> batch = new ArrayList<>();
+        long batchBytes = 0;
+        long written = 0;
+        for (CharSequence segment : getFileSegments()) {
+            // The separator is shared, only encode it once
+            final ByteBuffer buffer;
+            if (segment == SEPERATOR) {
+                buffer = separator.duplicate();
+            } else if (encoded.containsKey(segment)) {
+                buffer = encoded.get(segment).duplicate();
+            } else {
+                buffer = charset.encode(CharBuffer.wrap(segment));
+            }
+            batch.add(buffer);
+            batchBytes += buffer.remaining();
+            if (batch.size() >= MAX_WRITE_BUFFERS || batchBytes >= MAX_WRITE_BYTES) {
+                written += write(channel, batch, batchBytes);
+                batch.clear();
+                batchBytes = 0;
+            }
+        }
+        written += write(channel, batch, batchBytes);
+        return written;
+    }
+
+    /**
+     * Write a batch of buffers, a gathering write might not write all buffers in one go so we loop until done
+     */
+    private static long write(final GatheringByteChannel channel, final List<ByteBuffer> batch, final long batchBytes) throws IOException {
+        final ByteBuffer[] buffers = batch.toArray(new ByteBuffer[batch.size()]);
+        long written = 0;
+        while (written < batchBytes) {
+            written += channel.write(buffers);
+        }
+        return written;
+    }
+
+    /**
+     * Link segments to the end of a rope, a separator is added when the rope doesn't end with a line break
+     * Empty segments are skipped
+     *
+     * @param rope
+     * @param segments
+     */
+    private static void link(final List<CharSequence> rope, final List<CharSequence> segments) {
+        boolean first = true;
+        for (CharSequence segment : segments) {
+            if (segment.length() == 0) {
+                continue;
+            }
+            if (first && !rope.isEmpty()) {
+                final CharSequence last = rope.get(rope.size() - 1);
+                final char c = last.charAt(last.length() - 1);
+                if (c != '\n' && c != '\r') {
+                    rope.add(SEPERATOR);
+                }
+            }
+            first = false;
+            rope.add(segment);
+        }
+    }
+
+    /**
+     * Create a frozen copy of this object, each GCode is sliced at it's current length so later appends to the
+     * underlying buffers are not visible. No characters are copied.
      *
      * @return
      */
     public GCodeCollection deepCopy() {
         GCodeCollection col = new GCodeCollection();
         for (GeneratedGCode code : this) {
-            col.add(new GeneratedGCode(new StringBuilder(code.getGCode()), code.isMergeable(), code.getId(), code.getToolId()));
+            col.add(code.slice());
         }
         return col;
     }
@@ -80,17 +271,17 @@ public class GCodeCollection extends ArrayList<GCodeCollection.GeneratedGCode> {
         GCodeCollection col = new GCodeCollection();
         col.addAll(this);
         this.clear();
-        StringBuilder mergeBuilder = new StringBuilder();
+        List<CharSequence> mergeRope = new ArrayList<>();
         for (GeneratedGCode code : col) {
-            // When code can be merged, add it to the mergeBuilder
+            // When code can be merged, add it to the mergeRope
             if (code.isMergeable()) {
-                mergeBuilder.append(SEPERATOR).append(code.getGCode());
+                link(mergeRope, code.segments);
             } else {
                 // Merge the previous set with the non mergeable version
-                if (mergeBuilder.length() > 0) {
-                    mergeBuilder.append(SEPERATOR).append(code.getGCode());
-                    this.add(new GeneratedGCode(mergeBuilder, false, code.getId(), code.getToolId()));
-                    mergeBuilder = new StringBuilder();
+                if (mergeRope.size() > 0) {
+                    link(mergeRope, code.segments);
+                    this.add(new GeneratedGCode(mergeRope, false, code.getId(), code.getToolId()));
+                    mergeRope = new ArrayList<>();
                 } else {
                     this.add(code);
                 }
@@ -122,7 +313,9 @@ public class GCodeCollection extends ArrayList<GCodeCollection.GeneratedGCode> {
                 } else {
                     // If the last tool ID and this toolID are the same, merge the GCOde
                     if (lastCode.getToolId().equals(code.getToolId())) {
-                        lastCode = new GeneratedGCode(lastCode.getGCode().append(SEPERATOR).append(code.getGCode()), false, "merged", code.getToolId());
+                        final List<CharSequence> rope = new ArrayList<>(lastCode.segments);
+                        link(rope, code.segments);
+                        lastCode = new GeneratedGCode(rope, false, "merged", code.getToolId());
                     } else {
                         // IF they are not the same, add the lastCode and buffer this one
                         this.add(lastCode);
@@ -141,34 +334,72 @@ public class GCodeCollection extends ArrayList<GCodeCollection.GeneratedGCode> {
     }
 
     public static final class GeneratedGCode {
-        private final StringBuilder gCode;  // String builder object with GCode
+        private final List<CharSequence> segments;  // Segments of GCode, segments are never modified once they are part of a frozen GCode
         private final String id;            // ID of this GCode
         private final String toolId;        // ToolID used for this GCode
         private final boolean mergeable;          // When true, it allows to be merged with other GCode, if mergable is set to true the code shouldn't have any effect where it's merged into, usually used for comment only
 
-        public GeneratedGCode(final StringBuilder gCode, final boolean mergeable, final String id, final String toolId) {
+        /**
+         * Create a new GeneratedGCode, the given gCode may only be appended to by the caller, a call to deepCopy on
+         * the collection will freeze it at it's current length
+         */
+        public GeneratedGCode(final CharSequence gCode, final boolean mergeable, final String id, final String toolId) {
+            this(gCode == null ? null : Collections.singletonList(gCode), mergeable, id, toolId);
+        }
+
+        public GeneratedGCode(final CharSequence gCode, final boolean mergeable, final String id) {
+            this(gCode, mergeable, id, null);
+        }
+
+        private GeneratedGCode(final List<CharSequence> segments, final boolean mergeable, final String id, final String toolId) {
             if (id == null) {
                 throw new IllegalArgumentException("Id most not be null");
             }
-            if (gCode == null) {
+            if (segments == null) {
                 throw new IllegalArgumentException("GCode most not be null");
             }
             if (mergeable == true && toolId != null) {
                 throw new IllegalArgumentException("Mergable cannot be true with a toolId");
             }
             this.mergeable = mergeable;
-            this.gCode = gCode;
+            this.segments = Collections.unmodifiableList(segments);
             this.id = id;
             this.toolId = toolId;
+        }
 
+        /**
+         * Returns a copy of this GCode where each segment is a read only view of it's current length
+         *
+         * @return
+         */
+        private GeneratedGCode slice() {
+            final List<CharSequence> sliced = new ArrayList<>(segments.size());
+            for (CharSequence segment : segments) {
+                sliced.add(CharBuffer.wrap(segment, 0, segment.length()));
+            }
+            return new GeneratedGCode(sliced, mergeable, id, toolId);
         }
 
-        public GeneratedGCode(final StringBuilder gCode, final boolean mergeable, final String id) {
-            this(gCode, mergeable, id, null);
+        /**
+         * Segments of GCode in order
+         *
+         * @return
+         */
+        public List<CharSequence> getSegments() {
+            return segments;
         }
 
-        public StringBuilder getGCode() {
-            return gCode;
+        /**
+         * Total number of characters of this GCode
+         *
+         * @return
+         */
+        public int length() {
+            int length = 0;
+            for (CharSequence segment : segments) {
+                length += segment.length();
+            }
+            return length;
         }
 
         public String getId() {
@@ -203,7 +434,11 @@ public class GCodeCollection extends ArrayList<GCodeCollection.GeneratedGCode> {
 
         @Override
         public String toString() {
-            return  gCode.toString();
+            final StringBuilder sb = new StringBuilder(length());
+            for (CharSequence segment : segments) {
+                sb.append(segment);
+            }
+            return sb.toString();
         }
     }
 
@@ -0,0 +1,157 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.gcodegenerator;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.CharBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.charset.Charset;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.IdentityHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Writes each set of a merged GCodeCollection to it's own file, surrounded by the preamble and postamble.
+ * This is used for machines without a tool changer where each tool get's it's own file.
+ * <p/>
+ * All files are written concurrently, the preamble and postamble are encoded once and shared between all files.
+ */
+public class GCodeSplitWriter {
+
+    /**
+     * Receives progress while files are written, may be called from any thread
+     */
+    public interface ProgressListener {
+        void progress(final int filesDone, final int filesTotal);
+    }
+
+    private final GCodeCollection gCode;
+    private final Charset charset;
+
+    /**
+     * @param gCode   Merged GCode, the first entry must be the preamble and the last entry the postamble
+     * @param charset Charset used to encode the files
+     */
+    public GCodeSplitWriter(final GCodeCollection gCode, final Charset charset) {
+        if (gCode == null || gCode.size() < 2) {
+            throw new IllegalArgumentException("gCode must at least have a preamble and postamble");
+        }
+        this.gCode = gCode;
+        this.charset = charset;
+    }
+
+    /**
+     * Number of files that will be written
+     *
+     * @return
+     */
+    public int getNumberOfFiles() {
+        return gCode.size() - 2;
+    }
+
+    /**
+     * Write all sets, each set to it's own file
+     *
+     * @param files    Files to write to, one for each set in order. Files must not exist.
+     * @param executor Executor to write the files on
+     * @param listener Progress listener, may be null
+     * @throws IOException when one of the files could not be written
+     */
+    public void write(final List<Path> files, final ExecutorService executor, final ProgressListener listener) throws IOException, InterruptedException {
+        if (files.size() != getNumberOfFiles()) {
+            throw new IllegalArgumentException("Expected " + getNumberOfFiles() + " files but got " + files.size());
+        }
+
+        final GCodeCollection.GeneratedGCode preAmble = gCode.get(0);
+        final GCodeCollection.GeneratedGCode postAmble = gCode.get(gCode.size() - 1);
+
+        // Encode pre- and postamble once
+        final Map<CharSequence, ByteBuffer> encoded = new IdentityHashMap<>();
+        encode(preAmble, encoded);
+        encode(postAmble, encoded);
+
+        final AtomicInteger done = new AtomicInteger();
+        final List<Callable<Void>> jobs = new ArrayList<>(files.size());
+        for (int i = 0; i < files.size(); i++) {
+            final Path path = files.get(i);
+            final GCodeCollection file = new GCodeCollection();
+            file.add(preAmble);
+            file.add(gCode.get(i + 1));
+            file.add(postAmble);
+            jobs.add(new Callable<Void>() {
+                @Override
+                public Void call() throws Exception {
+                    try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE_NEW, StandardOpenOption.WRITE)) {
+                        file.writeTo(channel, charset, encoded);
+                    }
+                    if (listener != null) {
+                        listener.progress(done.incrementAndGet(), jobs.size());
+                    }
+                    return null;
+                }
+            });
+        }
+
+        for (Future<Void> future : executor.invokeAll(jobs)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                if (e.getCause() instanceof IOException) {
+                    throw (IOException) e.getCause();
+                }
+                throw new IOException(e.getCause());
+            }
+        }
+    }
+
+    private void encode(final GCodeCollection.GeneratedGCode code, final Map<CharSequence, ByteBuffer> encoded) {
+        for (CharSequence segment : code.getSegments()) {
+            encoded.put(segment, charset.encode(CharBuffer.wrap(segment)));
+        }
+    }
+}
@@ -0,0 +1,98 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.gcodegenerator.dialects;
+
+import com.rvantwisk.gcodegenerator.interfaces.Dialect;
+
+import java.util.ArrayList;
+import java.util.LinkedHashMap;
+import java.util.List;
+import java.util.Map;
+import java.util.ServiceLoader;
+
+/**
+ * Registry of all known dialects. Dialects are loaded with java.util.ServiceLoader so a dialect in a other jar
+ * only needs a META-INF/services/com.rvantwisk.gcodegenerator.interfaces.Dialect entry.
+ */
+public final class DialectRegistry {
+
+    private static final Map<String, Dialect> dialects = new LinkedHashMap<>();
+
+    static {
+        for (Dialect dialect : ServiceLoader.load(Dialect.class, DialectRegistry.class.getClassLoader())) {
+            dialects.put(dialect.getName(), dialect);
+        }
+        if (!dialects.containsKey(RS274Dialect.NAME)) {
+            dialects.put(RS274Dialect.NAME, new RS274Dialect());
+        }
+    }
+
+    private DialectRegistry() {
+    }
+
+    /**
+     * Register a dialect, a dialect with the same name is replaced
+     *
+     * @param dialect
+     */
+    public static synchronized void register(final Dialect dialect) {
+        dialects.put(dialect.getName(), dialect);
+    }
+
+    /**
+     * Get a dialect by name, when the name is unknown the RS274 dialect is returned
+     *
+     * @param name
+     * @return
+     */
+    public static synchronized Dialect get(final String name) {
+        final Dialect dialect = name != null ? dialects.get(name) : null;
+        if (dialect == null) {
+            return dialects.get(RS274Dialect.NAME);
+        }
+        return dialect;
+    }
+
+    /**
+     * @return Names of all registered dialects
+     */
+    public static synchronized List<String> getNames() {
+        return new ArrayList<>(dialects.keySet());
+    }
+}
@@ -0,0 +1,112 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.gcodegenerator.dialects;
+
+import com.rvantwisk.gcodegenerator.GCodeBuilder;
+import com.rvantwisk.gcodegenerator.GCodeWord;
+import com.rvantwisk.gcodegenerator.interfaces.WordEmitter;
+
+import java.util.Collection;
+import java.util.Iterator;
+
+/**
+ * Table of word emitters indexed by the first letter of a word, created by a Dialect.
+ * Emitting a block is a loop over the words where each word is handed to the emitter of it's letter.
+ */
+public final class EmitterTable {
+    private static final String NOSPACE = "";
+
+    private final WordEmitter[] emitters = new WordEmitter[128];
+    private final WordEmitter defaultEmitter;   // Used for words without a emitter in the table
+    private final String wordSeparator;         // Added between words
+    private final boolean comments;             // When false block comments are dropped
+
+    public EmitterTable(final WordEmitter defaultEmitter, final String wordSeparator, final boolean comments) {
+        this.defaultEmitter = defaultEmitter;
+        this.wordSeparator = wordSeparator;
+        this.comments = comments;
+    }
+
+    /**
+     * Set the emitter for words starting with letter
+     *
+     * @param letter
+     * @param emitter
+     * @return
+     */
+    public EmitterTable set(final char letter, final WordEmitter emitter) {
+        emitters[letter] = emitter;
+        return this;
+    }
+
+    /**
+     * Emit a complete block followed by a line separator
+     *
+     * @param out
+     * @param block
+     * @param lineSeparator
+     */
+    public void emitBlock(final StringBuilder out, final Collection<GCodeWord> block, final String lineSeparator) {
+        String comment = null;
+        final Iterator<GCodeWord> iter = block.iterator();
+        while (iter.hasNext()) {
+            final GCodeWord word = iter.next();
+            final String spacer = iter.hasNext() ? wordSeparator : NOSPACE;
+            final char letter = word.getWord().charAt(0);
+
+            if (letter == GCodeBuilder.COMMENTCHAR && word.getValue() == null) {
+                comment = word.getWord().trim();
+                continue;
+            }
+
+            final WordEmitter emitter = letter < emitters.length ? emitters[letter] : null;
+            if (emitter != null) {
+                emitter.emit(out, word, spacer);
+            } else {
+                defaultEmitter.emit(out, word, spacer);
+            }
+        }
+
+        if (comments && comment != null) {
+            out.append(comment);
+        }
+
+        out.append(lineSeparator);
+    }
+}
@@ -0,0 +1,92 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.gcodegenerator.dialects;
+
+import com.rvantwisk.gcodegenerator.GCodeWord;
+import com.rvantwisk.gcodegenerator.interfaces.WordEmitter;
+
+import java.text.DecimalFormat;
+
+/**
+ * Compact dialect for Grbl controllers, Grbl has a small serial buffer so each block is made as short as possible.
+ * Words are not separated, leading and trailing zero's are removed and block comments are dropped.
+ */
+public class GrblDialect extends RS274Dialect {
+    public static final String NAME = "Grbl";
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    protected String getWordSeparator() {
+        return "";
+    }
+
+    @Override
+    protected boolean hasComments() {
+        return false;
+    }
+
+    @Override
+    protected WordEmitter createGMEmitter(final DecimalFormat other) {
+        final WordEmitter rs274 = super.createGMEmitter(other);
+        return new WordEmitter() {
+            @Override
+            public void emit(final StringBuilder out, final GCodeWord word, final String spacer) {
+                if (word.getValue() != null && word.getWord().equals("G4")) {
+                    out.append("G4P").append(other.format(word.getValue()));
+                } else {
+                    rs274.emit(out, word, spacer);
+                }
+            }
+        };
+    }
+
+    /**
+     * Always strip zero's, including F, and don't print a leading zero so 0.5 becomes .5
+     */
+    @Override
+    protected DecimalFormat createFormat(final Integer numDecimals, final boolean stripZeros) {
+        final DecimalFormat format = super.createFormat(numDecimals, true);
+        format.setMinimumIntegerDigits(0);
+        return format;
+    }
+}
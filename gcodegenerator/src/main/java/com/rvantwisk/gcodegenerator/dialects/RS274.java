@@ -40,30 +40,28 @@ package com.rvantwisk.gcodegenerator.dialects;
 
 import com.rvantwisk.gcodegenerator.GCodeBuilder;
 import com.rvantwisk.gcodegenerator.GCodeCollection;
-import com.rvantwisk.gcodegenerator.GCodeWord;
+import com.rvantwisk.gcodegenerator.interfaces.Dialect;
 import com.rvantwisk.gcodegenerator.interfaces.GCodeGenerator;
 import com.rvantwisk.gcodegenerator.interfaces.PostProcessorConfig;
 import org.apache.commons.lang3.StringUtils;
 
-import java.text.DecimalFormat;
-import java.util.HashMap;
-import java.util.Iterator;
-
 public class RS274 implements GCodeGenerator {
 
-    private final HashMap<String, DecimalFormat> formattersCache = new HashMap<>();
-    private static final String OTHER_FORMAT = "_OTHER_"; // Cache entry name for any other formatter not found
-    private static final String NOSPACE = "";
-    private static final String SPACE = " ";
     private static final String separator = System.getProperty("line.separator");
 
     private final GCodeCollection generatedGCode = new GCodeCollection();
     private final PostProcessorConfig postProcessorConfig;
-    private boolean addSpaceBetweenWords = true;
+    private final Dialect dialect;
+    private EmitterTable table;
     private StringBuilder out = null;
 
     public RS274(PostProcessorConfig pc) {
+        this(pc, new RS274Dialect());
+    }
+
+    public RS274(PostProcessorConfig pc, Dialect dialect) {
         postProcessorConfig = pc;
+        this.dialect = dialect;
         rebuildSetup();
     }
 
@@ -90,128 +88,14 @@ public class RS274 implements GCodeGenerator {
     }
 
     public void addBlock(final GCodeBuilder gCodeBuilder) {
-        String comment = null;
-
-        // Decide to add a spacer between words or not
-        String spacer = NOSPACE;
-        if (addSpaceBetweenWords) {
-            spacer = SPACE;
-        }
-
-        Iterator<GCodeWord> iter = gCodeBuilder.getBlock().iterator();
-        while (iter.hasNext()) {
-            GCodeWord b=iter.next();
-            final char startWith = b.getWord().charAt(0);
-
-            if (!iter.hasNext()) {
-                spacer = NOSPACE;
-            }
-
-            switch (startWith) {
-                case 'G':
-                case 'M':
-                    if (b.getValue() != null) {
-                        if (b.getWord().equals("G4")) {
-                            out.append(b.getWord()).append(SPACE).append("P").append(formatWord("P", b.getValue()));
-                        } else {
-                            // Linux CNC might not support this??
-                            out.append(b.getWord()).append("/").append(formatWord(b.getWord(), b.getValue()));
-                        }
-                    } else {
-                        out.append(b.getWord()).append(spacer);
-                    }
-                    break;
-                default:
-                    if (b.getValue() != null) {
-                        String word = b.getWord();
-                        if (isAxisWord(word)) {
-                            word = reMapWord(word);
-                        }
-                        out.append(word).append(formatWord(word, b.getValue())).append(spacer);
-                    } else if (b.getWord().charAt(0) == GCodeBuilder.COMMENTCHAR) {
-                        comment = b.getWord().trim();
-                    }
-            }
-        }
-
-        if (comment != null) {
-            out.append(comment);
-        }
-
-        out.append(separator);
+        table.emitBlock(out, gCodeBuilder.getBlock(), separator);
     }
 
     /**
      * Rebuild the setup, it takes in the configuration and rebuild's what's needed to beable to generate the code
      */
     public void rebuildSetup() {
-        String[] axiss = {"A", "B", "C", "U", "V", "W", "X", "Y", "Z"};
-        for (String axis : axiss) {
-            Integer numDec = postProcessorConfig.getAxisDecimals().get(axis);
-            formattersCache.put(axis, getDecimalFormat(numDec, true));
-        }
-        Integer numDec = postProcessorConfig.getDecimalsF();
-        formattersCache.put("F", getDecimalFormat(numDec, false));
-
-        numDec = postProcessorConfig.getDecimalsS();
-        formattersCache.put("S", getDecimalFormat(numDec, true));
-
-        numDec = postProcessorConfig.getDecimalsOthers();
-        formattersCache.put(OTHER_FORMAT, getDecimalFormat(numDec, true));
-    }
-
-    /**
-     * Create a decimal formatter to format the words
-     *
-     * @param numDecimals
-     * @param stripZeros
-     * @return
-     */
-    private DecimalFormat getDecimalFormat(Integer numDecimals, final boolean stripZeros) {
-        if (numDecimals == null) {
-            numDecimals = 4;
-        }
-        String padder = "0";
-        if (stripZeros) {
-            padder = "#";
-        }
-        final String format = StringUtils.rightPad("#.", numDecimals + 2, padder);
-        return new DecimalFormat(format);
-    }
-
-    /**
-     * Format a specific word to the required sizes
-     *
-     * @param word
-     * @param value
-     * @return
-     */
-    private String formatWord(final String word, Double value) {
-        if (formattersCache.get(word) != null) {
-            return formattersCache.get(word).format(value);
-        }
-        return formattersCache.get(OTHER_FORMAT).format(value);
-    }
-
-    /**
-     * Remap from one word to a other word
-     * @param word
-     * @return
-     */
-    private String reMapWord(final String word) {
-        if (postProcessorConfig.getAxisMapping().get(word) != null) {
-            return postProcessorConfig.getAxisMapping().get(word);
-        }
-        return word;
-    }
-
-    /**
-     * Returns true of the given word is a AXIS word
-     * @param word
-     * @return
-     */
-    private boolean isAxisWord(final String word) {
-        return postProcessorConfig.getAxisMapping().get(word) != null;
+        table = dialect.compile(postProcessorConfig);
     }
 
     @Override
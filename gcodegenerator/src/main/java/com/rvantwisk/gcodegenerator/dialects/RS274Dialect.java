@@ -0,0 +1,206 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.gcodegenerator.dialects;
+
+import com.rvantwisk.gcodegenerator.GCodeWord;
+import com.rvantwisk.gcodegenerator.interfaces.Dialect;
+import com.rvantwisk.gcodegenerator.interfaces.PostProcessorConfig;
+import com.rvantwisk.gcodegenerator.interfaces.WordEmitter;
+import org.apache.commons.lang3.StringUtils;
+
+import java.text.DecimalFormat;
+import java.util.HashMap;
+import java.util.Map;
+
+/**
+ * Standard RS274 dialect as used by LinuxCNC.
+ * Each letter get's a emitter with it's axis mapping and formatter resolved when the configuration is compiled.
+ */
+public class RS274Dialect implements Dialect {
+    public static final String NAME = "RS274";
+
+    private static final String[] AXIS = {"A", "B", "C", "U", "V", "W", "X", "Y", "Z"};
+
+    @Override
+    public String getName() {
+        return NAME;
+    }
+
+    @Override
+    public EmitterTable compile(final PostProcessorConfig config) {
+        final Map<String, DecimalFormat> formatters = new HashMap<>();
+        for (String axis : AXIS) {
+            formatters.put(axis, createFormat(config.getAxisDecimals().get(axis), true));
+        }
+        formatters.put("F", createFormat(config.getDecimalsF(), false));
+        formatters.put("S", createFormat(config.getDecimalsS(), true));
+        final DecimalFormat other = createFormat(config.getDecimalsOthers(), true);
+
+        final Map<String, String> mapping = new HashMap<>(config.getAxisMapping());
+        final EmitterTable table = new EmitterTable(new MappedEmitter(mapping, formatters, other), getWordSeparator(), hasComments());
+
+        final WordEmitter gm = createGMEmitter(other);
+        table.set('G', gm);
+        table.set('M', gm);
+        for (char letter = 'A'; letter <= 'Z'; letter++) {
+            if (letter != 'G' && letter != 'M') {
+                final String word = String.valueOf(letter);
+                final String mapped = mapping.get(word) != null ? mapping.get(word) : word;
+                final DecimalFormat format = formatters.get(mapped) != null ? formatters.get(mapped) : other;
+                table.set(letter, new LetterEmitter(word, mapped, format, new MappedEmitter(mapping, formatters, other)));
+            }
+        }
+        return table;
+    }
+
+    /**
+     * Separator placed between two words of a block
+     *
+     * @return
+     */
+    protected String getWordSeparator() {
+        return " ";
+    }
+
+    /**
+     * When false comments added to a block are not emitted
+     *
+     * @return
+     */
+    protected boolean hasComments() {
+        return true;
+    }
+
+    /**
+     * Create the emitter for G and M words
+     *
+     * @param other Formatter for values of G and M words
+     * @return
+     */
+    protected WordEmitter createGMEmitter(final DecimalFormat other) {
+        return new WordEmitter() {
+            @Override
+            public void emit(final StringBuilder out, final GCodeWord word, final String spacer) {
+                if (word.getValue() != null) {
+                    if (word.getWord().equals("G4")) {
+                        out.append(word.getWord()).append(" P").append(other.format(word.getValue()));
+                    } else {
+                        // Linux CNC might not support this??
+                        out.append(word.getWord()).append("/").append(other.format(word.getValue()));
+                    }
+                } else {
+                    out.append(word.getWord()).append(spacer);
+                }
+            }
+        };
+    }
+
+    /**
+     * Create a decimal formatter to format the words
+     *
+     * @param numDecimals Number of decimals, null for the default of 4
+     * @param stripZeros  When true trailing zero's are removed
+     * @return
+     */
+    protected DecimalFormat createFormat(Integer numDecimals, final boolean stripZeros) {
+        if (numDecimals == null) {
+            numDecimals = 4;
+        }
+        final String format = StringUtils.rightPad("#.", numDecimals + 2, stripZeros ? "#" : "0");
+        return new DecimalFormat(format);
+    }
+
+    /**
+     * Emitter for a single letter word where mapping and formatter are resolved upfront
+     */
+    private static final class LetterEmitter implements WordEmitter {
+        private final String word;
+        private final String mapped;
+        private final DecimalFormat format;
+        private final WordEmitter fallback;
+
+        private LetterEmitter(final String word, final String mapped, final DecimalFormat format, final WordEmitter fallback) {
+            this.word = word;
+            this.mapped = mapped;
+            this.format = format;
+            this.fallback = fallback;
+        }
+
+        @Override
+        public void emit(final StringBuilder out, final GCodeWord w, final String spacer) {
+            if (w.getValue() == null) {
+                return;
+            }
+            if (!word.equals(w.getWord())) {
+                // Words like T or N followed by more characters
+                fallback.emit(out, w, spacer);
+                return;
+            }
+            out.append(mapped).append(format.format(w.getValue())).append(spacer);
+        }
+    }
+
+    /**
+     * Emitter that looks up mapping and formatter for each word, used for words with more then one character
+     */
+    private static final class MappedEmitter implements WordEmitter {
+        private final Map<String, String> mapping;
+        private final Map<String, DecimalFormat> formatters;
+        private final DecimalFormat other;
+
+        private MappedEmitter(final Map<String, String> mapping, final Map<String, DecimalFormat> formatters, final DecimalFormat other) {
+            this.mapping = mapping;
+            this.formatters = formatters;
+            this.other = other;
+        }
+
+        @Override
+        public void emit(final StringBuilder out, final GCodeWord w, final String spacer) {
+            if (w.getValue() == null) {
+                return;
+            }
+            String word = w.getWord();
+            if (mapping.get(word) != null) {
+                word = mapping.get(word);
+            }
+            final DecimalFormat format = formatters.get(word) != null ? formatters.get(word) : other;
+            out.append(word).append(format.format(w.getValue())).append(spacer);
+        }
+    }
+}
@@ -0,0 +1,28 @@
+package com.rvantwisk.gcodegenerator.interfaces;
+
+import com.rvantwisk.gcodegenerator.dialects.EmitterTable;
+
+/**
+ * A G-Code dialect, a dialect compiles a post processor configuration into a emitter table once so each block
+ * can be emitted without looking at the configuration again.
+ * <p/>
+ * Dialects are found with java.util.ServiceLoader, see DialectRegistry
+ */
+public interface Dialect {
+
+    /**
+     * Name of the dialect as stored in the post processor configuration, for example RS274
+     *
+     * @return
+     */
+    String getName();
+
+    /**
+     * Compile a configuration into a emitter table
+     *
+     * @param config
+     * @return
+     */
+    EmitterTable compile(final PostProcessorConfig config);
+
+}
@@ -0,0 +1,19 @@
+package com.rvantwisk.gcodegenerator.interfaces;
+
+import com.rvantwisk.gcodegenerator.GCodeWord;
+
+/**
+ * Emits a single G-Code word for a dialect, emitters are created once when a dialect compiles it's configuration
+ */
+public interface WordEmitter {
+
+    /**
+     * Emit a word
+     *
+     * @param out    Output to append the word to
+     * @param word   Word to emit
+     * @param spacer Spacer to add after the word, empty for the last word of a block
+     */
+    void emit(final StringBuilder out, final GCodeWord word, final String spacer);
+
+}
@@ -0,0 +1,176 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.gcodegenerator;
+
+import com.rvantwisk.gcodegenerator.dialects.RS274;
+import com.rvantwisk.gcodegenerator.dialects.RS274PostProcessorConfig;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.ByteArrayOutputStream;
+import java.io.IOException;
+import java.nio.channels.Channels;
+import java.nio.channels.GatheringByteChannel;
+import java.nio.channels.WritableByteChannel;
+import java.nio.ByteBuffer;
+import java.nio.charset.Charset;
+
+import static org.junit.Assert.assertEquals;
+
+public class GCodeCollectionTest {
+    private static String SEPARATOR = System.getProperty("line.separator");
+
+    RS274 generator;
+    RS274PostProcessorConfig ppc;
+
+    @Before
+    public void newGenerator() {
+        ppc = new RS274PostProcessorConfig();
+        ppc.setPreamble("(start)");
+        ppc.setPostamble("M30");
+        generator = new RS274(ppc);
+    }
+
+    @Test
+    public void testSnapshotIsFrozen() {
+        generator.startProgram();
+        generator.newSet(false, "a", null);
+        generator.addBlock(GCodeBuilder.builder().G0().X(1.0));
+        final GCodeCollection snapshot = generator.getGCode();
+        generator.addBlock(GCodeBuilder.builder().G0().X(2.0));
+
+        assertEquals("G0 X1" + SEPARATOR, snapshot.get(1).toString());
+    }
+
+    @Test
+    public void testMergeSameTool() {
+        generator.startProgram();
+        generator.newSet(true, "comment", null);
+        generator.comment("Program");
+        generator.newSet(false, "a", "T1");
+        generator.addBlock(GCodeBuilder.builder().G0().X(1.0));
+        generator.newSet(false, "b", "T1");
+        generator.addBlock(GCodeBuilder.builder().G0().X(2.0));
+        generator.endProgram();
+
+        final GCodeCollection gCode = generator.getGCode();
+        gCode.merge();
+
+        assertEquals(3, gCode.size());
+        assertEquals("(Program)" + SEPARATOR + "G0 X1" + SEPARATOR + "G0 X2" + SEPARATOR, gCode.get(1).toString());
+        assertEquals("(start)" + SEPARATOR +
+                "(Program)" + SEPARATOR +
+                "G0 X1" + SEPARATOR +
+                "G0 X2" + SEPARATOR +
+                "M30" + SEPARATOR, gCode.concate().toString());
+    }
+
+    @Test
+    public void testWriteTo() throws IOException {
+        generator.startProgram();
+        generator.newSet(false, "a", null);
+        generator.addRaw("G0 X1");
+        generator.endProgram();
+        final GCodeCollection gCode = generator.getGCode();
+
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        gCode.writeTo(new GatheringChannel(Channels.newChannel(bos)), Charset.forName("UTF-8"));
+
+        assertEquals("(start)" + SEPARATOR + "G0 X1" + SEPARATOR + "M30", new String(bos.toByteArray(), "UTF-8"));
+    }
+
+    @Test
+    public void testWriteToRemovesEmptyLines() throws IOException {
+        ppc.setPreamble(SEPARATOR + "  (start)" + SEPARATOR + SEPARATOR);
+        generator = new RS274(ppc);
+        generator.startProgram();
+        generator.newSet(false, "a", null);
+        generator.addRaw("G0 X1" + SEPARATOR + SEPARATOR + SEPARATOR + "G0 X2");
+        generator.newSet(false, "b", null);
+        generator.addRaw(SEPARATOR + "G0 X3");
+        generator.endProgram();
+        final GCodeCollection gCode = generator.getGCode();
+
+        final ByteArrayOutputStream bos = new ByteArrayOutputStream();
+        gCode.writeTo(new GatheringChannel(Channels.newChannel(bos)), Charset.forName("UTF-8"));
+
+        assertEquals("(start)" + SEPARATOR + "G0 X1" + SEPARATOR + "G0 X2" + SEPARATOR + "G0 X3" + SEPARATOR + "M30",
+                new String(bos.toByteArray(), "UTF-8"));
+    }
+
+    /**
+     * Simple gathering channel that writes one buffer at a time
+     */
+    private static final class GatheringChannel implements GatheringByteChannel {
+        private final WritableByteChannel channel;
+
+        private GatheringChannel(WritableByteChannel channel) {
+            this.channel = channel;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs, int offset, int length) throws IOException {
+            long written = 0;
+            for (int i = offset; i < offset + length; i++) {
+                written += channel.write(srcs[i]);
+            }
+            return written;
+        }
+
+        @Override
+        public long write(ByteBuffer[] srcs) throws IOException {
+            return write(srcs, 0, srcs.length);
+        }
+
+        @Override
+        public int write(ByteBuffer src) throws IOException {
+            return channel.write(src);
+        }
+
+        @Override
+        public boolean isOpen() {
+            return channel.isOpen();
+        }
+
+        @Override
+        public void close() throws IOException {
+            channel.close();
+        }
+    }
+}
@@ -0,0 +1,138 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+
+package com.rvantwisk.gcodegenerator;
+
+import com.rvantwisk.gcodegenerator.dialects.RS274;
+import com.rvantwisk.gcodegenerator.dialects.RS274PostProcessorConfig;
+import org.junit.After;
+import org.junit.Before;
+import org.junit.Test;
+
+import java.io.IOException;
+import java.nio.charset.Charset;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.atomic.AtomicInteger;
+
+import static org.junit.Assert.assertEquals;
+
+public class GCodeSplitWriterTest {
+    private static String SEPARATOR = System.getProperty("line.separator");
+    private static final Charset CHARSET = Charset.forName("UTF-8");
+
+    private Path directory;
+    private ExecutorService executor;
+
+    @Before
+    public void setUp() throws IOException {
+        directory = Files.createTempDirectory("splitwriter");
+        executor = Executors.newFixedThreadPool(2);
+    }
+
+    @After
+    public void tearDown() throws IOException {
+        executor.shutdownNow();
+        for (Path file : Files.newDirectoryStream(directory)) {
+            Files.delete(file);
+        }
+        Files.delete(directory);
+    }
+
+    @Test
+    public void testSplitPerTool() throws Exception {
+        final RS274PostProcessorConfig ppc = new RS274PostProcessorConfig();
+        ppc.setPreamble("(start)");
+        ppc.setPostamble("M30");
+        final RS274 generator = new RS274(ppc);
+        generator.startProgram();
+        generator.newSet(false, "a", "T1");
+        generator.addBlock(GCodeBuilder.builder().G0().X(1.0));
+        generator.newSet(false, "b", "T1");
+        generator.addBlock(GCodeBuilder.builder().G0().X(2.0));
+        generator.newSet(false, "c", "T2");
+        generator.addBlock(GCodeBuilder.builder().G0().X(3.0));
+        generator.newSet(false, "d", "T3");
+        generator.addBlock(GCodeBuilder.builder().G0().X(4.0));
+        generator.endProgram();
+        final GCodeCollection gCode = generator.getGCode();
+        gCode.merge();
+
+        final GCodeSplitWriter writer = new GCodeSplitWriter(gCode, CHARSET);
+        assertEquals(3, writer.getNumberOfFiles());
+
+        final List<Path> files = new ArrayList<>();
+        for (int i = 0; i < writer.getNumberOfFiles(); i++) {
+            files.add(directory.resolve("file" + i + ".ngc"));
+        }
+        final AtomicInteger progress = new AtomicInteger();
+        writer.write(files, executor, new GCodeSplitWriter.ProgressListener() {
+            @Override
+            public void progress(int filesDone, int filesTotal) {
+                assertEquals(3, filesTotal);
+                progress.incrementAndGet();
+            }
+        });
+        assertEquals(3, progress.get());
+
+        final List<String> expected = Arrays.asList(
+                "G0 X1" + SEPARATOR + "G0 X2",
+                "G0 X3",
+                "G0 X4");
+        for (int i = 0; i < files.size(); i++) {
+            assertEquals("(start)" + SEPARATOR + expected.get(i) + SEPARATOR + "M30",
+                    new String(Files.readAllBytes(files.get(i)), CHARSET));
+        }
+    }
+
+    @Test(expected = IllegalArgumentException.class)
+    public void testWrongNumberOfFiles() throws Exception {
+        final GCodeCollection gCode = new GCodeCollection();
+        gCode.add(new GCodeCollection.GeneratedGCode("(start)", false, "pre"));
+        gCode.add(new GCodeCollection.GeneratedGCode("G0 X1", false, "a"));
+        gCode.add(new GCodeCollection.GeneratedGCode("M30", false, "post"));
+
+        new GCodeSplitWriter(gCode, CHARSET).write(new ArrayList<Path>(), executor, null);
+    }
+}
@@ -0,0 +1,91 @@
+/*
+ * Copyright (c) 2014, R. van Twisk
+ * All rights reserved.
+ * Licensed under the The BSD 3-Clause License;
+ * you may not use this file except in compliance with the License.
+ * You may obtain a copy of the License at:
+ *
+ * http://opensource.org/licenses/BSD-3-Clause
+ *
+ * Redistribution and use in source and binary forms, with or without
+ * modification, are permitted provided that the following conditions
+ * are met:
+ *
+ * Redistributions of source code must retain the above copyright
+ * notice, this list of conditions and the following disclaimer.
+ *
+ * Redistributions in binary form must reproduce the above copyright
+ * notice, this list of conditions and the following disclaimer in the
+ * documentation and/or other materials provided with the distribution.
+ *
+ * Neither the name of the aic-util nor the names of its
+ * contributors may be used to endorse or promote products derived from
+ * this software without specific prior written permission.
+ *
+ * THIS SOFTWARE IS PROVIDED BY THE COPYRIGHT HOLDERS AND CONTRIBUTORS
+ * "AS IS" AND ANY EXPRESS OR IMPLIED WARRANTIES, INCLUDING, BUT NOT
+ * LIMITED TO, THE IMPLIED WARRANTIES OF MERCHANTABILITY AND FITNESS
+ * FOR A PARTICULAR PURPOSE ARE DISCLAIMED. IN NO EVENT SHALL THE
+ * COPYRIGHT HOLDER OR CONTRIBUTORS BE LIABLE FOR ANY DIRECT,
+ * INDIRECT, INCIDENTAL, SPECIAL, EXEMPLARY, OR CONSEQUENTIAL DAMAGES
+ * (INCLUDING, BUT NOT LIMITED TO, PROCUREMENT OF SUBSTITUTE GOODS OR
+ * SERVICES; LOSS OF USE, DATA, OR PROFITS; OR BUSINESS INTERRUPTION)
+ * HOWEVER CAUSED AND ON ANY THEORY OF LIABILITY, WHETHER IN CONTRACT,
+ * STRICT LIABILITY, OR TORT (INCLUDING NEGLIGENCE OR OTHERWISE)
+ * ARISING IN ANY WAY OUT OF THE USE OF THIS SOFTWARE, EVEN IF ADVISED
+ * OF THE POSSIBILITY OF SUCH DAMAGE.
+ */
+
+package com.rvantwisk.gcodegenerator.dialects;
+
+import com.rvantwisk.gcodegenerator.GCodeBuilder;
+import org.junit.Before;
+import org.junit.Test;
+
+import static org.junit.Assert.assertEquals;
+import static org.junit.Assert.assertTrue;
+
+public class DialectTest {
+    private static String SEPARATOR = System.getProperty("line.separator");
+
+    RS274PostProcessorConfig ppc;
+
+    @Before
+    public void newConfig() {
+        ppc = new RS274PostProcessorConfig();
+        ppc.getAxisMapping().put("A", "B");
+        ppc.getAxisDecimals().put("X", 2);
+    }
+
+    private String generate(final RS274 generator, final GCodeBuilder block) {
+        generator.newSet(false, "a", null);
+        generator.addBlock(block);
+        return generator.getGCode().get(0).toString();
+    }
+
+    @Test
+    public void testRS274() {
+        final RS274 generator = new RS274(ppc, DialectRegistry.get(RS274Dialect.NAME));
+        assertEquals("G0 X-0.25 Y10.1235 Z0 B0.5" + SEPARATOR, generate(generator, GCodeBuilder.builder().G0().Z(0.0).A(0.5).X(-0.25).Y(10.123456)));
+        assertEquals("G1 X10 F100.000" + SEPARATOR, generate(new RS274(ppc), GCodeBuilder.builder().F(100.0).G1().X(10.0)));
+        assertEquals("Y10; Moved Y Up" + SEPARATOR, generate(new RS274(ppc), GCodeBuilder.builder().Y(10.0).comment("Moved Y Up")));
+        assertEquals("G4 P2.5" + SEPARATOR, generate(new RS274(ppc), GCodeBuilder.builder().G4(2.5)));
+        assertEquals("N10 P1.235 Q2" + SEPARATOR, generate(new RS274(ppc), GCodeBuilder.builder().word("P", 1.23456).word("Q", 2.0).N(10)));
+    }
+
+    @Test
+    public void testGrbl() {
+        final RS274 generator = new RS274(ppc, DialectRegistry.get(GrblDialect.NAME));
+        assertEquals("G0X-.25Y10.1235Z0B.5" + SEPARATOR, generate(generator, GCodeBuilder.builder().G0().Z(0.0).A(0.5).X(-0.25).Y(10.123456)));
+        assertEquals("G1X10F100" + SEPARATOR, generate(new RS274(ppc, new GrblDialect()), GCodeBuilder.builder().F(100.0).G1().X(10.0)));
+        assertEquals("Y10" + SEPARATOR, generate(new RS274(ppc, new GrblDialect()), GCodeBuilder.builder().Y(10.0).comment("Moved Y Up")));
+        assertEquals("G4P2.5" + SEPARATOR, generate(new RS274(ppc, new GrblDialect()), GCodeBuilder.builder().G4(2.5)));
+    }
+
+    @Test
+    public void testRegistry() {
+        assertTrue(DialectRegistry.getNames().contains(RS274Dialect.NAME));
+        assertTrue(DialectRegistry.getNames().contains(GrblDialect.NAME));
+        assertEquals(RS274Dialect.NAME, DialectRegistry.get("unknown").getName());
+    }
+}
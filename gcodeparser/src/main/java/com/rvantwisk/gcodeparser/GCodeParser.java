@@ -42,7 +42,9 @@ import com.rvantwisk.gcodeparser.exceptions.SimException;
 import com.rvantwisk.gcodeparser.exceptions.SimValidationException;
 import org.apache.commons.lang3.StringUtils;
 
-import java.nio.charset.Charset;
+import java.io.BufferedReader;
+import java.io.IOException;
+import java.io.Reader;
 import java.text.DecimalFormat;
 import java.util.Collections;
 import java.util.HashMap;
@@ -79,6 +81,32 @@ public class GCodeParser {
     private int currentLineNumber = 1;
 
     public GCodeParser(final AbstractMachineValidator machineValidator, final StringBuilder input, final MachineController... machineController) throws SimException {
+        this(machineValidator, machineController);
+        String[] lines = input.toString().split(SEPARATOR);
+        for (final String line : lines) {
+            currentLine = line;
+            parseLine();
+            currentLineNumber++;
+        }
+        end();
+    }
+
+    /**
+     * Parse line by line from a reader, only the current line is kept in memory so this can be used on any size of file
+     */
+    public GCodeParser(final AbstractMachineValidator machineValidator, final Reader input, final MachineController... machineController) throws SimException, IOException {
+        this(machineValidator, machineController);
+        final BufferedReader reader = input instanceof BufferedReader ? (BufferedReader) input : new BufferedReader(input);
+        String line;
+        while ((line = reader.readLine()) != null) {
+            currentLine = line;
+            parseLine();
+            currentLineNumber++;
+        }
+        end();
+    }
+
+    private GCodeParser(final AbstractMachineValidator machineValidator, final MachineController... machineController) {
         for (Object c : machineController) {
             if (!(c instanceof MachineController)) {
                 throw new IllegalArgumentException("StatisticLimitsController only accepts type's of MachineController");
@@ -87,17 +115,12 @@ public class GCodeParser {
 
         this.machineController = machineController;
         this.machineValidator = machineValidator;
-        Charset charset = Charset.forName("UTF-8");
-        String[] lines = input.toString().split(SEPARATOR);
-        for (final String line : lines) {
-            currentLine = line;
-            parseLine();
-            currentLineNumber++;
-        }
+    }
+
+    private void end() throws SimException {
         for (MachineController controller : this.machineController) {
             controller.end(this, intermediateStatus);
         }
-
     }
 
     private void parseLine() throws SimException {
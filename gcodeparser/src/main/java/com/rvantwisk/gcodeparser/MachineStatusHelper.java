@@ -39,6 +39,7 @@ package com.rvantwisk.gcodeparser;
 
 
 import com.rvantwisk.gcodeparser.gcodes.ActivePlane;
+import com.rvantwisk.gcodeparser.gcodes.FeedRateMode;
 import com.rvantwisk.gcodeparser.gcodes.MotionMode;
 import com.rvantwisk.gcodeparser.gcodes.Units;
 
@@ -193,4 +194,8 @@ public class MachineStatusHelper {
     public ActivePlane getActivePlane() {
         return getModalValue(ActivePlane.class);
     }
+
+    public FeedRateMode getFeedRateMode() {
+        return getModalValue(FeedRateMode.class);
+    }
 }